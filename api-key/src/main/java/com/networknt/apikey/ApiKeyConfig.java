@@ -22,6 +22,8 @@ public class ApiKeyConfig {
 
     boolean enabled;
     List<ApiKey> pathPrefixAuths;
+    // compiled from the pathPrefixAuths and replaced as a whole on reload.
+    private volatile ApiKeyIndex index = new ApiKeyIndex(null);
     private Config config;
     private Map<String, Object> mappedConfig;
 
@@ -68,16 +70,24 @@ public class ApiKeyConfig {
 
     public void setPathPrefixAuths(List<ApiKey> pathPrefixAuths) {
         this.pathPrefixAuths = pathPrefixAuths;
+        this.index = new ApiKeyIndex(pathPrefixAuths);
+    }
+
+    ApiKeyIndex getIndex() {
+        return index;
     }
 
     private void setConfigData() {
         Object object = mappedConfig.get(ENABLED);
-        if(object != null && (Boolean) object) {
-            setEnabled(true);
-        }
+        setEnabled(object != null && (Boolean) object);
     }
 
     private void setConfigList() {
+        setPathPrefixAuths(parseConfigList());
+    }
+
+    private List<ApiKey> parseConfigList() {
+        List<ApiKey> pathPrefixAuths = null;
         // path prefix auth mapping
         if (mappedConfig.get(PATH_PREFIX_AUTHS) != null) {
             Object object = mappedConfig.get(PATH_PREFIX_AUTHS);
@@ -110,5 +120,6 @@ public class ApiKeyConfig {
                 throw new ConfigException("pathPrefixAuth must be a list of string object map.");
             }
         }
+        return pathPrefixAuths;
     }
 }
@@ -26,6 +26,9 @@ import java.util.List;
  * first and then get the input API Key from the header. After compare with the configured API Key, the handler
  * will return either ERR10057 API_KEY_MISMATCH or pass the control to the next handler in the chain.
  *
+ * The config is compiled into an ApiKeyIndex, so the lookup doesn't depend on the number of entries and the
+ * API keys are compared as SHA-256 digests in constant time.
+ *
  * @author Steve Hu
  */
 public class ApiKeyHandler implements MiddlewareHandler {
@@ -96,35 +99,25 @@ public class ApiKeyHandler implements MiddlewareHandler {
 
     public boolean handleApiKey(HttpServerExchange exchange, String requestPath) {
         if(logger.isTraceEnabled()) logger.trace("requestPath = " + requestPath);
-        if (config.getPathPrefixAuths() != null) {
-            boolean matched = false;
-            boolean found = false;
-            // iterate all the ApiKey entries to find if any of them matches the request path.
-            for(ApiKey apiKey: config.getPathPrefixAuths()) {
-                if(requestPath.startsWith(apiKey.getPathPrefix())) {
-                    found = true;
-                    // found the matched prefix, validate the apiKey by getting the header and compare.
-                    String k = exchange.getRequestHeaders().getFirst(apiKey.getHeaderName());
-                    if(apiKey.getApiKey().equals(k)) {
-                        if (logger.isTraceEnabled()) logger.trace("Found matched apiKey with prefix = " + apiKey.getPathPrefix() + " headerName = " + apiKey.getHeaderName());
-                        matched = true;
-                        break;
-                    }
-                }
-            }
-            if(!found) {
-                // the request path is no in the configuration, consider pass and go to the next handler.
+        ApiKeyIndex.Rule rule = config.getIndex().find(requestPath);
+        if(rule == null) {
+            // the request path is no in the configuration, consider pass and go to the next handler.
+            return true;
+        }
+        // found the matched prefix, validate the apiKey by getting the header and compare the digest.
+        for(ApiKeyIndex.HeaderKeys headerKeys: rule.headers) {
+            if(headerKeys.header == null) continue;
+            String k = exchange.getRequestHeaders().getFirst(headerKeys.header);
+            if(k != null && headerKeys.matches(ApiKeyIndex.digest(k))) {
+                if (logger.isTraceEnabled()) logger.trace("Found matched apiKey with headerName = " + headerKeys.headerName);
                 return true;
             }
-            if(!matched) {
-                // at this moment, if not matched, then return an error message.
-                logger.error("Could not find matched APIKEY for request path " + requestPath);
-                setExchangeStatus(exchange, API_KEY_MISMATCH, requestPath);
-                if(logger.isDebugEnabled()) logger.debug("ApiKeyHandler.handleRequest ends with an error.");
-                exchange.endExchange();
-                return false;
-            }
         }
-        return true;
+        // at this moment, if not matched, then return an error message.
+        logger.error("Could not find matched APIKEY for request path " + requestPath);
+        setExchangeStatus(exchange, API_KEY_MISMATCH, requestPath);
+        if(logger.isDebugEnabled()) logger.debug("ApiKeyHandler.handleRequest ends with an error.");
+        exchange.endExchange();
+        return false;
     }
 }
@@ -0,0 +1,124 @@
+package com.networknt.apikey;
+
+import com.networknt.utility.PathPrefixTrie;
+import io.undertow.util.HttpString;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The pathPrefixAuths compiled into a path prefix trie. The rule of each prefix contains the API keys of
+ * the prefix itself and all the shorter prefixes that match it, so that the longest prefix match of the
+ * request path gives the same result as checking all the entries in the list. Within a rule, the API keys
+ * are grouped by the header name and kept as SHA-256 digests. The digest of the input API key is looked
+ * up in a hash set, and the digests are compared with MessageDigest.isEqual which doesn't return early.
+ *
+ * The index is immutable once it is built.
+ *
+ * @author Steve Hu
+ */
+class ApiKeyIndex {
+    private final PathPrefixTrie<Rule> trie = new PathPrefixTrie<>();
+
+    ApiKeyIndex(List<ApiKey> apiKeys) {
+        if(apiKeys == null) return;
+        // group the keys by prefix first and then add the keys of all the shorter prefixes.
+        Map<String, List<ApiKey>> prefixes = new LinkedHashMap<>();
+        for(ApiKey apiKey: apiKeys) {
+            if(apiKey.getPathPrefix() == null) continue;
+            prefixes.computeIfAbsent(apiKey.getPathPrefix(), k -> new ArrayList<>());
+        }
+        for(Map.Entry<String, List<ApiKey>> entry: prefixes.entrySet()) {
+            for(ApiKey apiKey: apiKeys) {
+                if(apiKey.getPathPrefix() != null && entry.getKey().startsWith(apiKey.getPathPrefix())) {
+                    entry.getValue().add(apiKey);
+                }
+            }
+            trie.put(entry.getKey(), new Rule(entry.getValue()));
+        }
+    }
+
+    /**
+     * @param requestPath String
+     * @return the rule for the request path or null if the path is not protected by any API key.
+     */
+    Rule find(String requestPath) {
+        return trie.longestPrefixMatch(requestPath);
+    }
+
+    boolean isEmpty() {
+        return trie.isEmpty();
+    }
+
+    static Digest digest(String value) {
+        try {
+            return new Digest(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is required for every Java platform.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static final class Rule {
+        final HeaderKeys[] headers;
+
+        private Rule(List<ApiKey> apiKeys) {
+            Map<String, Set<Digest>> map = new LinkedHashMap<>();
+            for(ApiKey apiKey: apiKeys) {
+                Set<Digest> digests = map.computeIfAbsent(apiKey.getHeaderName(), k -> new HashSet<>());
+                if(apiKey.getApiKey() != null) digests.add(digest(apiKey.getApiKey()));
+            }
+            headers = new HeaderKeys[map.size()];
+            int i = 0;
+            for(Map.Entry<String, Set<Digest>> entry: map.entrySet()) {
+                headers[i++] = new HeaderKeys(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    static final class HeaderKeys {
+        final String headerName;
+        final HttpString header;
+        private final Set<Digest> digests;
+
+        private HeaderKeys(String headerName, Set<Digest> digests) {
+            this.headerName = headerName;
+            this.header = headerName == null ? null : new HttpString(headerName);
+            this.digests = digests;
+        }
+
+        boolean matches(Digest digest) {
+            return digests.contains(digest);
+        }
+    }
+
+    /**
+     * The SHA-256 digest of an API key. The equals uses the constant-time comparison.
+     */
+    static final class Digest {
+        private final byte[] bytes;
+        private final int hash;
+
+        private Digest(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Digest && MessageDigest.isEqual(bytes, ((Digest) o).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
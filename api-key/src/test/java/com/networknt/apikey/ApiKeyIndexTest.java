@@ -0,0 +1,41 @@
+package com.networknt.apikey;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class ApiKeyIndexTest {
+    private static ApiKey apiKey(String pathPrefix, String headerName, String key) {
+        ApiKey apiKey = new ApiKey();
+        apiKey.setPathPrefix(pathPrefix);
+        apiKey.setHeaderName(headerName);
+        apiKey.setApiKey(key);
+        return apiKey;
+    }
+
+    private static boolean matches(ApiKeyIndex.Rule rule, String headerName, String key) {
+        for(ApiKeyIndex.HeaderKeys headerKeys: rule.headers) {
+            if(headerKeys.headerName.equals(headerName) && headerKeys.matches(ApiKeyIndex.digest(key))) return true;
+        }
+        return false;
+    }
+
+    @Test
+    public void testNestedPrefix() {
+        ApiKeyIndex index = new ApiKeyIndex(Arrays.asList(
+                apiKey("/v1", "x-apikey", "outer"),
+                apiKey("/v1/pets", "x-apikey", "inner"),
+                apiKey("/v1/pets", "x-partner-key", "partner")));
+        Assert.assertNull(index.find("/v2/pets"));
+        ApiKeyIndex.Rule outer = index.find("/v1/address");
+        Assert.assertTrue(matches(outer, "x-apikey", "outer"));
+        Assert.assertFalse(matches(outer, "x-apikey", "inner"));
+        // the keys of the shorter prefix are also accepted for the longer prefix like the list iteration.
+        ApiKeyIndex.Rule inner = index.find("/v1/pets/1");
+        Assert.assertTrue(matches(inner, "x-apikey", "outer"));
+        Assert.assertTrue(matches(inner, "x-apikey", "inner"));
+        Assert.assertTrue(matches(inner, "x-partner-key", "partner"));
+        Assert.assertFalse(matches(inner, "x-partner-key", "inner"));
+    }
+}
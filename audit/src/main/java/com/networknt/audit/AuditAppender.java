@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The destination of the serialized audit entries written by the {@link AuditSink} writer thread. Each
+ * call to append contains exactly one JSON audit entry without the line separator. The flush is called
+ * at the end of each batch.
+ *
+ * @author Steve Hu
+ */
+public interface AuditAppender extends Closeable {
+    void append(byte[] bytes, int offset, int length) throws IOException;
+
+    default void flush() throws IOException {
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -48,6 +48,19 @@ class AuditConfig {
     private static final String ENABLED = "enabled";
     private static final String REQUEST_BODY_MAX_SIZE = "requestBodyMaxSize";
     private static final String RESPONSE_BODY_MAX_SIZE = "responseBodyMaxSize";
+    private static final String ASYNC_ENABLED = "asyncEnabled";
+    private static final String ASYNC_QUEUE_SIZE = "asyncQueueSize";
+    private static final String ASYNC_BATCH_SIZE = "asyncBatchSize";
+    private static final String ASYNC_OVERFLOW_POLICY = "asyncOverflowPolicy";
+    private static final String ASYNC_BLOCK_TIMEOUT = "asyncBlockTimeout";
+    private static final String ASYNC_APPENDER = "asyncAppender";
+    private static final String ASYNC_FILE = "asyncFile";
+    private static final String ASYNC_SOCKET_HOST = "asyncSocketHost";
+    private static final String ASYNC_SOCKET_PORT = "asyncSocketPort";
+
+    public static final String APPENDER_LOGGER = "logger";
+    public static final String APPENDER_FILE = "file";
+    public static final String APPENDER_SOCKET = "socket";
 
     private  Map<String, Object> mappedConfig;
     public static final String CONFIG_NAME = "audit";
@@ -65,6 +78,15 @@ class AuditConfig {
     private int requestBodyMaxSize;
     private int responseBodyMaxSize;
     private boolean enabled;
+    private boolean asyncEnabled;
+    private int asyncQueueSize = 8192;
+    private int asyncBatchSize = 256;
+    private String asyncOverflowPolicy;
+    private int asyncBlockTimeout = 10;
+    private String asyncAppender;
+    private String asyncFile;
+    private String asyncSocketHost;
+    private int asyncSocketPort;
 
     private AuditConfig() {
         this(CONFIG_NAME);
@@ -145,6 +167,42 @@ class AuditConfig {
 
     public int getResponseBodyMaxSize() { return responseBodyMaxSize; }
 
+    public boolean isAsyncEnabled() {
+        return asyncEnabled;
+    }
+
+    public int getAsyncQueueSize() {
+        return asyncQueueSize;
+    }
+
+    public int getAsyncBatchSize() {
+        return asyncBatchSize;
+    }
+
+    public String getAsyncOverflowPolicy() {
+        return asyncOverflowPolicy;
+    }
+
+    public int getAsyncBlockTimeout() {
+        return asyncBlockTimeout;
+    }
+
+    public String getAsyncAppender() {
+        return asyncAppender;
+    }
+
+    public String getAsyncFile() {
+        return asyncFile;
+    }
+
+    public String getAsyncSocketHost() {
+        return asyncSocketHost;
+    }
+
+    public int getAsyncSocketPort() {
+        return asyncSocketPort;
+    }
+
     Config getConfig() {
         return config;
     }
@@ -229,5 +287,27 @@ class AuditConfig {
             enabled = true;
         }
         timestampFormat = (String)getMappedConfig().get(TIMESTAMP_FORMAT);
+        object = getMappedConfig().get(ASYNC_ENABLED);
+        asyncEnabled = object != null && (Boolean) object;
+        object = getMappedConfig().get(ASYNC_QUEUE_SIZE);
+        if (object != null) {
+            asyncQueueSize = (Integer) object;
+        }
+        object = getMappedConfig().get(ASYNC_BATCH_SIZE);
+        if (object != null) {
+            asyncBatchSize = (Integer) object;
+        }
+        asyncOverflowPolicy = (String)getMappedConfig().get(ASYNC_OVERFLOW_POLICY);
+        object = getMappedConfig().get(ASYNC_BLOCK_TIMEOUT);
+        if (object != null) {
+            asyncBlockTimeout = (Integer) object;
+        }
+        asyncAppender = (String)getMappedConfig().get(ASYNC_APPENDER);
+        asyncFile = (String)getMappedConfig().get(ASYNC_FILE);
+        asyncSocketHost = (String)getMappedConfig().get(ASYNC_SOCKET_HOST);
+        object = getMappedConfig().get(ASYNC_SOCKET_PORT);
+        if (object != null) {
+            asyncSocketPort = (Integer) object;
+        }
     }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.audit;
+
+import com.networknt.utility.GaugeProvider;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publish the async audit sink to the metrics handlers so that the queue depth, the dropped entries and the
+ * written entries are reported with the other metrics. The gauges read the current sink when the reporter runs,
+ * so they follow the sink that replaces the old one on a config reload, and they report 0 if the async mode is
+ * not enabled. The counts start from 0 again for the new sink after a reload.
+ *
+ * @author Steve Hu
+ */
+public class AuditGaugeProvider implements GaugeProvider {
+
+    @Override
+    public void register(Registrar registrar) {
+        Map<String, String> tags = Collections.emptyMap();
+        register(registrar, "queue_depth", tags, AuditSink::getQueueDepth);
+        register(registrar, "queue_capacity", tags, AuditSink::getQueueCapacity);
+        register(registrar, "dropped_count", tags, AuditSink::getDroppedCount);
+        register(registrar, "written_count", tags, AuditSink::getWrittenCount);
+    }
+
+    private static void register(Registrar registrar, String name, Map<String, String> tags, ToLongFunction<AuditSink> value) {
+        registrar.gauge("audit." + name, tags, () -> {
+            AuditSink sink = AuditSink.getCurrent();
+            return sink == null ? 0L : value.applyAsLong(sink);
+        });
+    }
+}
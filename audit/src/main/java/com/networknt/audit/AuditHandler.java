@@ -16,27 +16,23 @@
 
 package com.networknt.audit;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.networknt.config.Config;
 import com.networknt.handler.Handler;
 import com.networknt.handler.MiddlewareHandler;
-import com.networknt.httpstring.AttachmentConstants;
-import com.networknt.mask.Mask;
 import com.networknt.status.Status;
 import com.networknt.utility.ModuleRegistry;
 import com.networknt.utility.StringUtils;
 import io.undertow.Handlers;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
-import io.undertow.server.handlers.Cookie;
-import io.undertow.util.Headers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Instant;
+import java.io.IOException;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.*;
+import java.util.Map;
 
 /**
  * This is a simple audit handler that dump most important info per-request basis. The following
@@ -95,6 +91,12 @@ public class AuditHandler implements MiddlewareHandler {
 
     private DateTimeFormatter DATE_TIME_FORMATTER;
 
+    private volatile AuditSink auditSink;
+
+    private volatile AuditProjection projection;
+
+    private ThreadLocal<AuditJsonWriter> jsonWriter;
+
     public AuditHandler() {
         if (logger.isInfoEnabled()) logger.info("AuditHandler is loaded.");
         config = AuditConfig.load();
@@ -112,68 +114,32 @@ public class AuditHandler implements MiddlewareHandler {
 
             }
         }
+        projection = AuditProjection.compile(config, serviceId, DATE_TIME_FORMATTER);
+        final ObjectMapper mapper = config.getConfig().getMapper();
+        jsonWriter = ThreadLocal.withInitial(() -> new AuditJsonWriter(mapper));
+        auditSink = createAuditSink(config);
     }
 
     @Override
     public void handleRequest(final HttpServerExchange exchange) throws Exception {
         if(logger.isDebugEnabled()) logger.debug("AuditHandler.handleRequest starts.");
-        Map<String, Object> auditInfo = exchange.getAttachment(AttachmentConstants.AUDIT_INFO);
-        Map<String, Object> auditMap = new LinkedHashMap<>();
-        final long start = System.currentTimeMillis();
-
-        // add audit timestamp
-        auditMap.put(TIMESTAMP, DATE_TIME_FORMATTER == null ? System.currentTimeMillis() : DATE_TIME_FORMATTER.format(Instant.now()));
-
-        // dump audit info fields according to config
-        boolean needAuditData = auditInfo != null && config.hasAuditList();
-        if (needAuditData) {
-            auditFields(auditInfo, auditMap);
-        }
-
-        // dump request header, request body, path parameters, query parameters and request cookies according to config
-        auditRequest(exchange, auditMap, config);
-
-        // dump serviceId from server.yml
-        if (config.hasAuditList() && config.getAuditList().contains(SERVICE_ID_KEY)) {
-            auditServiceId(auditMap);
-        }
+        final AuditProjection auditProjection = projection;
+        // dump timestamp, audit info fields, request header, request body, path parameters, query parameters,
+        // request cookies and serviceId according to the compiled config
+        final AuditProjection.Record record = auditProjection.onRequest(exchange);
 
         if (config.isStatusCode() || config.isResponseTime()) {
             exchange.addExchangeCompleteListener((exchange1, nextListener) -> {
-                // response status code and response time.
+                // response status code, response time, response body and additional fields accumulated during
+                // the microservice execution according to the config.
                 try {
-                    if (config.isStatusCode()) {
-                        auditMap.put(STATUS_CODE, exchange1.getStatusCode());
-                    }
-                    if (config.isResponseTime()) {
-                        auditMap.put(RESPONSE_TIME, System.currentTimeMillis() - start);
-                    }
-                    // add additional fields accumulated during the microservice execution
-                    // according to the config
-                    Map<String, Object> auditInfo1 = exchange.getAttachment(AttachmentConstants.AUDIT_INFO);
-                    if (auditInfo1 != null && config.getAuditList() != null) {
-                        for (String name : config.getAuditList()) {
-                            Object object = auditInfo1.get(name);
-                            if(object != null) {
-                                auditMap.putIfAbsent(name, object);
-                            }
-                        }
-                    }
-                    // audit the response body.
-                    if(config.getAuditList() != null && config.getAuditList().contains(RESPONSE_BODY_KEY)) {
-                        auditResponseBody(exchange, auditMap);
-                    }
-
-                    try {
-                        // audit entries only is it is an error, if auditOnError flag is set
-                        if (config.isAuditOnError()) {
-                            if (exchange1.getStatusCode() >= 400)
-                                config.getAuditFunc().accept(Config.getInstance().getMapper().writeValueAsString(auditMap));
-                        } else {
-                            config.getAuditFunc().accept(Config.getInstance().getMapper().writeValueAsString(auditMap));
-                        }
-                    } catch (JsonProcessingException e) {
-                        throw new RuntimeException(e);
+                    auditProjection.onComplete(exchange1, record);
+                    // audit entries only is it is an error, if auditOnError flag is set
+                    if (config.isAuditOnError()) {
+                        if (exchange1.getStatusCode() >= 400)
+                            writeAudit(record);
+                    } else {
+                        writeAudit(record);
                     }
                 } catch (Throwable e) {
                     logger.error("ExchangeListener Throwable", e);
@@ -182,164 +148,63 @@ public class AuditHandler implements MiddlewareHandler {
                 }
             });
         } else {
-            config.getAuditFunc().accept(config.getConfig().getMapper().writeValueAsString(auditMap));
+            writeAudit(record);
         }
         if(logger.isDebugEnabled()) logger.debug("AuditHandler.handleRequest ends.");
         next(exchange);
     }
 
-    private void auditHeader(HttpServerExchange exchange, Map<String, Object> auditMap) {
-        for (String name : config.getHeaderList()) {
-            String value = exchange.getRequestHeaders().getFirst(name);
-            auditMap.put(name, config.isMask() ? Mask.maskRegex(value, "requestHeader", name) : value);
-        }
-    }
-
     protected void next(HttpServerExchange exchange) throws Exception {
         Handler.next(exchange, next);
     }
 
-    private void auditFields(Map<String, Object> auditInfo, Map<String, Object> auditMap) {
-        for (String name : config.getAuditList()) {
-            Object value = auditInfo.get(name);
-            boolean needApplyMask = config.isMask() && value instanceof String;
-            auditMap.put(name, needApplyMask ? Mask.maskRegex((String) value, MASK_KEY, name) : value);
-        }
-    }
-
-    private void auditRequest(HttpServerExchange exchange, Map<String, Object> auditMap, AuditConfig config) {
-        if (config.hasHeaderList()) {
-            auditHeader(exchange, auditMap);
-        }
-        if (!config.hasAuditList()) {
-            return;
-        }
-        for (String key : config.getAuditList()) {
-            switch (key) {
-                case REQUEST_BODY_KEY:
-                    auditRequestBody(exchange, auditMap);
-                    break;
-                case REQUEST_COOKIES_KEY:
-                    auditRequestCookies(exchange, auditMap);
-                    break;
-                case QUERY_PARAMETERS_KEY:
-                    auditQueryParameters(exchange, auditMap);
-                    break;
-                case PATH_PARAMETERS_KEY:
-                    auditPathParameters(exchange, auditMap);
-                    break;
-            }
+    /**
+     * Hand over the audit entry to the async sink if it is enabled. Otherwise, serialize it and call the
+     * audit function on the current thread.
+     */
+    private void writeAudit(AuditEntry entry) throws IOException {
+        AuditSink sink = auditSink;
+        if (sink != null) {
+            sink.offer(entry);
+        } else {
+            config.getAuditFunc().accept(jsonWriter.get().writeAsString(entry));
         }
     }
 
-    // Audit request body automatically if body handler enabled
-    private void auditRequestBody(HttpServerExchange exchange, Map<String, Object> auditMap) {
-        // Try to get BodyHandler cached request body string first to prevent unnecessary decoding
-        String requestBodyString = exchange.getAttachment(AttachmentConstants.REQUEST_BODY_STRING);
-        if (requestBodyString == null && exchange.getAttachment(AttachmentConstants.REQUEST_BODY) != null) {
-            // try to convert the request body to JSON if possible. Fallback to to String().
-            try {
-                requestBodyString = Config.getInstance().getMapper().writeValueAsString(exchange.getAttachment(AttachmentConstants.REQUEST_BODY));
-            } catch (JsonProcessingException e) {
-                requestBodyString = exchange.getAttachment(AttachmentConstants.REQUEST_BODY).toString();
-            }
+    private static AuditSink createAuditSink(AuditConfig config) {
+        if (!config.isAsyncEnabled()) {
+            return null;
         }
-        // Mask requestBody json string if mask enabled
-        if (requestBodyString != null && requestBodyString.length() > 0) {
-            String contentType = exchange.getRequestHeaders().getFirst(Headers.CONTENT_TYPE);
-            if(contentType != null) {
-                if(contentType.startsWith("application/json")) {
-                    if(config.isMask()) requestBodyString = Mask.maskJson(requestBodyString, REQUEST_BODY_KEY);
-                } else if(contentType.startsWith("text") || contentType.startsWith("application/xml")) {
-                    if(config.isMask()) requestBodyString = Mask.maskString(requestBodyString, REQUEST_BODY_KEY);
-                } else {
-                    logger.error("Incorrect request content type " + contentType);
-                }
+        AuditAppender appender;
+        try {
+            if (AuditConfig.APPENDER_FILE.equalsIgnoreCase(config.getAsyncAppender())) {
+                appender = new FileAuditAppender(config.getAsyncFile());
+            } else if (AuditConfig.APPENDER_SOCKET.equalsIgnoreCase(config.getAsyncAppender())) {
+                appender = new SocketAuditAppender(config.getAsyncSocketHost(), config.getAsyncSocketPort());
+            } else {
+                appender = new LoggerAuditAppender(config.getAuditFunc());
             }
-            if(requestBodyString.length() > config.getRequestBodyMaxSize()) {
-                requestBodyString = requestBodyString.substring(0, config.getRequestBodyMaxSize());
-            }
-            auditMap.put(REQUEST_BODY_KEY, requestBodyString);
+        } catch (IOException e) {
+            logger.error("Failed to create the audit appender " + config.getAsyncAppender() + ", fall back to the logger.", e);
+            appender = new LoggerAuditAppender(config.getAuditFunc());
         }
-    }
-
-    // Audit response body
-    private void auditResponseBody(HttpServerExchange exchange, Map<String, Object> auditMap) {
-        String responseBodyString = exchange.getAttachment(AttachmentConstants.RESPONSE_BODY_STRING);
-        if(responseBodyString == null && exchange.getAttachment(AttachmentConstants.RESPONSE_BODY) != null) {
-            // try to convert the response body to JSON if possible. Fallback to String().
+        AuditSink.OverflowPolicy policy = AuditSink.OverflowPolicy.DROP;
+        if (config.getAsyncOverflowPolicy() != null) {
             try {
-                responseBodyString = Config.getInstance().getMapper().writeValueAsString(exchange.getAttachment(AttachmentConstants.RESPONSE_BODY));
-            } catch (JsonProcessingException e) {
-                responseBodyString = exchange.getAttachment(AttachmentConstants.RESPONSE_BODY).toString();
-            }
-        }
-        // mask the response body json string if mask is enabled.
-        if(responseBodyString != null && responseBodyString.length() > 0) {
-            String contentType = exchange.getResponseHeaders().getFirst(Headers.CONTENT_TYPE);
-            if(contentType != null) {
-                if(contentType.startsWith("application/json")) {
-                    if(config.isMask()) responseBodyString =Mask.maskJson(responseBodyString, RESPONSE_BODY_KEY);
-                } else if(contentType.startsWith("text") || contentType.startsWith("application/xml")) {
-                    if(config.isMask()) responseBodyString = Mask.maskString(responseBodyString, RESPONSE_BODY_KEY);
-                } else {
-                    logger.error("Incorrect response content type " + contentType);
-                }
-            }
-            if(responseBodyString.length() > config.getResponseBodyMaxSize()) {
-                responseBodyString = responseBodyString.substring(0, config.getResponseBodyMaxSize());
-            }
-            auditMap.put(RESPONSE_BODY_KEY, responseBodyString);
-        }
-    }
-
-    // Audit query parameters
-    private void auditQueryParameters(HttpServerExchange exchange, Map<String, Object> auditMap) {
-        Map<String, String> res = new HashMap<>();
-        Map<String, Deque<String>> queryParameters = exchange.getQueryParameters();
-        if (queryParameters != null && queryParameters.size() > 0) {
-            for (String query : queryParameters.keySet()) {
-                String value = queryParameters.get(query).toString();
-                String mask = config.isMask() ? Mask.maskRegex(value, QUERY_PARAMETERS_KEY, query) : value;
-                res.put(query, mask);
-            }
-            auditMap.put(QUERY_PARAMETERS_KEY, res.toString());
-        }
-    }
-
-    private void auditPathParameters(HttpServerExchange exchange, Map<String, Object> auditMap) {
-        Map<String, String> res = new HashMap<>();
-        Map<String, Deque<String>> pathParameters = exchange.getPathParameters();
-        if (pathParameters != null && pathParameters.size() > 0) {
-            for (String name : pathParameters.keySet()) {
-                String value = pathParameters.get(name).toString();
-                String mask = config.isMask() ? Mask.maskRegex(value, PATH_PARAMETERS_KEY, name) : value;
-                res.put(name, mask);
-            }
-            auditMap.put(PATH_PARAMETERS_KEY, res.toString());
-        }
-    }
-
-    private void auditRequestCookies(HttpServerExchange exchange, Map<String, Object> auditMap) {
-        Map<String, String> res = new HashMap<>();
-        Iterable<Cookie> iterable = exchange.requestCookies();
-        if(iterable != null) {
-            Iterator<Cookie> iterator = iterable.iterator();
-            while(iterator.hasNext()) {
-                Cookie cookie = iterator.next();
-                String name = cookie.getName();
-                String value = cookie.getValue();
-                String mask = config.isMask() ? Mask.maskRegex(value, REQUEST_COOKIES_KEY, name) : value;
-                res.put(name, mask);
+                policy = AuditSink.OverflowPolicy.valueOf(config.getAsyncOverflowPolicy().trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                logger.error(new Status(INVALID_CONFIG_VALUE_CODE, config.getAsyncOverflowPolicy(), "asyncOverflowPolicy", "audit.yml").toString());
             }
-            auditMap.put(REQUEST_COOKIES_KEY, res.toString());
         }
+        return new AuditSink(appender, config.getConfig().getMapper(), config.getAsyncQueueSize(),
+                config.getAsyncBatchSize(), policy, config.getAsyncBlockTimeout());
     }
 
-    private void auditServiceId(Map<String, Object> auditMap) {
-        if (!StringUtils.isBlank(serviceId)) {
-            auditMap.put(SERVICE_ID_KEY, serviceId);
-        }
+    /**
+     * @return the async audit sink or null if the async mode is not enabled.
+     */
+    public AuditSink getAuditSink() {
+        return auditSink;
     }
 
     @Override
@@ -367,5 +232,11 @@ public class AuditHandler implements MiddlewareHandler {
     @Override
     public void reload() {
         config.reload();
+        projection = AuditProjection.compile(config, serviceId, DATE_TIME_FORMATTER);
+        AuditSink old = auditSink;
+        AuditSink sink = createAuditSink(config);
+        auditSink = sink;
+        // the requests that have read the old sink already hand over their entries to the new one.
+        if (old != null) old.close(sink);
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.audit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serialize the audit entries with one reusable Jackson generator and output buffer. It is not thread
+ * safe, so it is either owned by the {@link AuditSink} writer thread or kept in a ThreadLocal.
+ *
+ * @author Steve Hu
+ */
+class AuditJsonWriter {
+    private final ObjectMapper mapper;
+    private final ExposedByteArrayOutputStream buffer = new ExposedByteArrayOutputStream();
+    private JsonGenerator generator;
+
+    AuditJsonWriter(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Write the entry into the internal buffer.
+     *
+     * @param entry audit entry
+     * @return the number of bytes in the buffer
+     * @throws IOException if the entry cannot be serialized
+     */
+    int write(AuditEntry entry) throws IOException {
+        try {
+            if(generator == null) {
+                generator = mapper.getFactory().createGenerator(buffer);
+                generator.setRootValueSeparator(null);
+            }
+            buffer.reset();
+            entry.writeTo(generator);
+            generator.flush();
+            return buffer.size();
+        } catch (IOException | RuntimeException e) {
+            // the generator might be in an inconsistent state, create a new one for the next entry.
+            generator = null;
+            throw e;
+        }
+    }
+
+    String writeAsString(AuditEntry entry) throws IOException {
+        int length = write(entry);
+        return new String(buffer.getBuffer(), 0, length, StandardCharsets.UTF_8);
+    }
+
+    byte[] getBuffer() {
+        return buffer.getBuffer();
+    }
+
+    private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+        ExposedByteArrayOutputStream() {
+            super(1024);
+        }
+
+        byte[] getBuffer() {
+            return buf;
+        }
+    }
+}
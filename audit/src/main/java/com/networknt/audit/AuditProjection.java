@@ -0,0 +1,426 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.audit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.httpstring.AttachmentConstants;
+import com.networknt.mask.Mask;
+import com.networknt.utility.StringUtils;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.Cookie;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static com.networknt.audit.AuditHandler.*;
+
+/**
+ * The audit.yml compiled into a fixed list of field extractors. It is built once when the handler is
+ * created or reloaded so that the request path doesn't need to loop over the config lists, look up the
+ * mask config or build the intermediate maps. Each request gets a {@link Record} that has one slot per
+ * field. The slots are filled on the request chain and the exchange completion, and then the record is
+ * written into a JSON generator directly in the order of the fields.
+ *
+ * The fields are ordered as timestamp, audit list, headers, statusCode and responseTime.
+ *
+ * @author Steve Hu
+ */
+class AuditProjection {
+    private static final Logger logger = LoggerFactory.getLogger(AuditProjection.class);
+
+    private final Field[] fields;
+    private final ObjectMapper mapper;
+    private final AuditConfig config;
+
+    private AuditProjection(List<Field> fields, ObjectMapper mapper, AuditConfig config) {
+        this.fields = fields.toArray(new Field[0]);
+        this.mapper = mapper;
+        this.config = config;
+    }
+
+    static AuditProjection compile(AuditConfig config, String serviceId, DateTimeFormatter formatter) {
+        List<Field> fields = new ArrayList<>();
+        boolean mask = config.isMask();
+        fields.add(new TimestampField(formatter));
+        if (config.hasAuditList()) {
+            for (String name : config.getAuditList()) {
+                switch (name) {
+                    case REQUEST_BODY_KEY:
+                        fields.add(new RequestBodyField(mask));
+                        break;
+                    case RESPONSE_BODY_KEY:
+                        fields.add(new ResponseBodyField(mask));
+                        break;
+                    case QUERY_PARAMETERS_KEY:
+                        fields.add(new QueryParametersField(mask ? Mask.compileRegexes(QUERY_PARAMETERS_KEY) : null));
+                        break;
+                    case PATH_PARAMETERS_KEY:
+                        fields.add(new PathParametersField(mask ? Mask.compileRegexes(PATH_PARAMETERS_KEY) : null));
+                        break;
+                    case REQUEST_COOKIES_KEY:
+                        fields.add(new RequestCookiesField(mask ? Mask.compileRegexes(REQUEST_COOKIES_KEY) : null));
+                        break;
+                    case SERVICE_ID_KEY:
+                        fields.add(new ServiceIdField(serviceId));
+                        break;
+                    default:
+                        fields.add(new AuditInfoField(name, mask ? Mask.compileRegex(MASK_KEY, name) : null));
+                }
+            }
+        }
+        if (config.hasHeaderList()) {
+            for (String name : config.getHeaderList()) {
+                fields.add(new HeaderField(name, mask ? Mask.compileRegex("requestHeader", name) : null));
+            }
+        }
+        if (config.isStatusCode()) {
+            fields.add(new StatusCodeField());
+        }
+        if (config.isResponseTime()) {
+            fields.add(new ResponseTimeField());
+        }
+        return new AuditProjection(fields, config.getConfig().getMapper(), config);
+    }
+
+    /**
+     * Capture the fields available on the request chain.
+     *
+     * @param exchange HttpServerExchange
+     * @return Record
+     */
+    Record onRequest(HttpServerExchange exchange) {
+        Record record = new Record(this, System.currentTimeMillis());
+        Map<String, Object> auditInfo = exchange.getAttachment(AttachmentConstants.AUDIT_INFO);
+        for (int i = 0; i < fields.length; i++) {
+            record.values[i] = fields[i].onRequest(exchange, auditInfo, record);
+        }
+        return record;
+    }
+
+    /**
+     * Capture the fields available when the exchange is completed and the fields that are added to the
+     * audit info by the handlers after the AuditHandler.
+     *
+     * @param exchange HttpServerExchange
+     * @param record Record from the onRequest
+     */
+    void onComplete(HttpServerExchange exchange, Record record) {
+        Map<String, Object> auditInfo = exchange.getAttachment(AttachmentConstants.AUDIT_INFO);
+        for (int i = 0; i < fields.length; i++) {
+            if (record.values[i] == null) {
+                record.values[i] = fields[i].onComplete(exchange, auditInfo, record);
+            }
+        }
+    }
+
+    private String toJson(Object object) {
+        try {
+            return mapper.writeValueAsString(object);
+        } catch (JsonProcessingException e) {
+            return object.toString();
+        }
+    }
+
+    private static String parametersToString(Map<String, Deque<String>> parameters, Map<String, UnaryOperator<String>> masks) {
+        if (parameters == null || parameters.size() == 0) return null;
+        StringBuilder sb = new StringBuilder().append('{');
+        for (Map.Entry<String, Deque<String>> entry : parameters.entrySet()) {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(entry.getKey()).append('=').append(mask(masks, entry.getKey(), entry.getValue().toString()));
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Mask the value with the pattern of the name that is resolved when the projection is compiled.
+     */
+    private static String mask(Map<String, UnaryOperator<String>> masks, String name, String value) {
+        if (masks == null) return value;
+        UnaryOperator<String> mask = masks.get(name);
+        return mask == null ? value : mask.apply(value);
+    }
+
+    /**
+     * The per request audit entry with one value slot for each field.
+     */
+    static class Record implements AuditEntry {
+        private final AuditProjection projection;
+        private final Object[] values;
+        private final long start;
+
+        private Record(AuditProjection projection, long start) {
+            this.projection = projection;
+            this.values = new Object[projection.fields.length];
+            this.start = start;
+        }
+
+        @Override
+        public void writeTo(JsonGenerator generator) throws IOException {
+            Field[] fields = projection.fields;
+            generator.writeStartObject();
+            for (int i = 0; i < fields.length; i++) {
+                Object value = values[i];
+                if (value == null) {
+                    if (fields[i].writeNull) {
+                        generator.writeFieldName(fields[i].name);
+                        generator.writeNull();
+                    }
+                    continue;
+                }
+                generator.writeFieldName(fields[i].name);
+                if (value instanceof String) {
+                    generator.writeString((String) value);
+                } else if (value instanceof Long) {
+                    generator.writeNumber((Long) value);
+                } else if (value instanceof Integer) {
+                    generator.writeNumber((Integer) value);
+                } else {
+                    generator.writeObject(value);
+                }
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    abstract static class Field {
+        final SerializedString name;
+        final boolean writeNull;
+
+        Field(String name, boolean writeNull) {
+            this.name = new SerializedString(name);
+            this.writeNull = writeNull;
+        }
+
+        Object onRequest(HttpServerExchange exchange, Map<String, Object> auditInfo, Record record) {
+            return null;
+        }
+
+        Object onComplete(HttpServerExchange exchange, Map<String, Object> auditInfo, Record record) {
+            return null;
+        }
+    }
+
+    static class TimestampField extends Field {
+        private final DateTimeFormatter formatter;
+
+        TimestampField(DateTimeFormatter formatter) {
+            super(TIMESTAMP, false);
+            this.formatter = formatter;
+        }
+
+        @Override
+        Object onRequest(HttpServerExchange exchange, Map<String, Object> auditInfo, Record record) {
+            return formatter == null ? (Object) System.currentTimeMillis() : formatter.format(Instant.now());
+        }
+    }
+
+    static class AuditInfoField extends Field {
+        private final String key;
+        private final UnaryOperator<String> masker;
+
+        AuditInfoField(String key, UnaryOperator<String> masker) {
+            super(key, false);
+            this.key = key;
+            this.masker = masker;
+        }
+
+        @Override
+        Object onRequest(HttpServerExchange exchange, Map<String, Object> auditInfo, Record record) {
+            if (auditInfo == null) return null;
+            Object value = auditInfo.get(key);
+            return masker != null && value instanceof String ? masker.apply((String) value) : value;
+        }
+
+        @Override
+        Object onComplete(HttpServerExchange exchange, Map<String, Object> auditInfo, Record record) {
+            // fields accumulated by the handlers after the AuditHandler during the execution.
+            return onRequest(exchange, auditInfo, record);
+        }
+    }
+
+    static class HeaderField extends Field {
+        private final HttpString header;
+        private final UnaryOperator<String> masker;
+
+        HeaderField(String name, UnaryOperator<String> masker) {
+            super(name, true);
+            this.header = new HttpString(name);
+            this.masker = masker;
+        }
+
+        @Override
+        Object onRequest(HttpServerExchange exchange, Map<String, Object> auditInfo, Record record) {
+            String value = exchange.getRequestHeaders().getFirst(header);
+            return masker != null && value != null ? masker.apply(value) : value;
+        }
+    }
+
+    static class ServiceIdField extends Field {
+        private final String serviceId;
+
+        ServiceIdField(String serviceId) {
+            super(SERVICE_ID_KEY, false);
+            this.serviceId = StringUtils.isBlank(serviceId) ? null : serviceId;
+        }
+
+        @Override
+        Object onRequest(HttpServerExchange exchange, Map<String, Object> auditInfo, Record record) {
+            return serviceId;
+        }
+    }
+
+    static class StatusCodeField extends Field {
+        StatusCodeField() {
+            super(STATUS_CODE, false);
+        }
+
+        @Override
+        Object onComplete(HttpServerExchange exchange, Map<String, Object> auditInfo, Record record) {
+            return exchange.getStatusCode();
+        }
+    }
+
+    static class ResponseTimeField extends Field {
+        ResponseTimeField() {
+            super(RESPONSE_TIME, false);
+        }
+
+        @Override
+        Object onComplete(HttpServerExchange exchange, Map<String, Object> auditInfo, Record record) {
+            return System.currentTimeMillis() - record.start;
+        }
+    }
+
+    static class QueryParametersField extends Field {
+        private final Map<String, UnaryOperator<String>> masks;
+
+        QueryParametersField(Map<String, UnaryOperator<String>> masks) {
+            super(QUERY_PARAMETERS_KEY, false);
+            this.masks = masks;
+        }
+
+        @Override
+        Object onRequest(HttpServerExchange exchange, Map<String, Object> auditInfo, Record record) {
+            return parametersToString(exchange.getQueryParameters(), masks);
+        }
+    }
+
+    static class PathParametersField extends Field {
+        private final Map<String, UnaryOperator<String>> masks;
+
+        PathParametersField(Map<String, UnaryOperator<String>> masks) {
+            super(PATH_PARAMETERS_KEY, false);
+            this.masks = masks;
+        }
+
+        @Override
+        Object onRequest(HttpServerExchange exchange, Map<String, Object> auditInfo, Record record) {
+            return parametersToString(exchange.getPathParameters(), masks);
+        }
+    }
+
+    static class RequestCookiesField extends Field {
+        private final Map<String, UnaryOperator<String>> masks;
+
+        RequestCookiesField(Map<String, UnaryOperator<String>> masks) {
+            super(REQUEST_COOKIES_KEY, false);
+            this.masks = masks;
+        }
+
+        @Override
+        Object onRequest(HttpServerExchange exchange, Map<String, Object> auditInfo, Record record) {
+            Iterable<Cookie> cookies = exchange.requestCookies();
+            if (cookies == null) return null;
+            StringBuilder sb = new StringBuilder().append('{');
+            for (Cookie cookie : cookies) {
+                if (sb.length() > 1) sb.append(", ");
+                sb.append(cookie.getName()).append('=').append(mask(masks, cookie.getName(), cookie.getValue()));
+            }
+            return sb.append('}').toString();
+        }
+    }
+
+    static class RequestBodyField extends Field {
+        private final boolean mask;
+
+        RequestBodyField(boolean mask) {
+            super(REQUEST_BODY_KEY, false);
+            this.mask = mask;
+        }
+
+        @Override
+        Object onRequest(HttpServerExchange exchange, Map<String, Object> auditInfo, Record record) {
+            AuditProjection projection = record.projection;
+            // Try to get BodyHandler cached request body string first to prevent unnecessary decoding
+            String body = exchange.getAttachment(AttachmentConstants.REQUEST_BODY_STRING);
+            if (body == null && exchange.getAttachment(AttachmentConstants.REQUEST_BODY) != null) {
+                body = projection.toJson(exchange.getAttachment(AttachmentConstants.REQUEST_BODY));
+            }
+            String contentType = exchange.getRequestHeaders().getFirst(Headers.CONTENT_TYPE);
+            return maskBody(body, contentType, REQUEST_BODY_KEY, mask, projection.config.getRequestBodyMaxSize());
+        }
+    }
+
+    static class ResponseBodyField extends Field {
+        private final boolean mask;
+
+        ResponseBodyField(boolean mask) {
+            super(RESPONSE_BODY_KEY, false);
+            this.mask = mask;
+        }
+
+        @Override
+        Object onComplete(HttpServerExchange exchange, Map<String, Object> auditInfo, Record record) {
+            AuditProjection projection = record.projection;
+            String body = exchange.getAttachment(AttachmentConstants.RESPONSE_BODY_STRING);
+            if (body == null && exchange.getAttachment(AttachmentConstants.RESPONSE_BODY) != null) {
+                body = projection.toJson(exchange.getAttachment(AttachmentConstants.RESPONSE_BODY));
+            }
+            String contentType = exchange.getResponseHeaders().getFirst(Headers.CONTENT_TYPE);
+            return maskBody(body, contentType, RESPONSE_BODY_KEY, mask, projection.config.getResponseBodyMaxSize());
+        }
+    }
+
+    private static String maskBody(String body, String contentType, String key, boolean mask, int maxSize) {
+        if (body == null || body.length() == 0) return null;
+        if (contentType != null) {
+            if (contentType.startsWith("application/json")) {
+                if (mask) body = Mask.maskJson(body, key);
+            } else if (contentType.startsWith("text") || contentType.startsWith("application/xml")) {
+                if (mask) body = Mask.maskString(body, key);
+            } else {
+                logger.error("Incorrect content type " + contentType + " for " + key);
+            }
+        }
+        if (body.length() > maxSize) {
+            body = body.substring(0, maxSize);
+        }
+        return body;
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An asynchronous audit pipeline stage. The request threads put the structured audit entries
+ * into a bounded {@link MpscRingBuffer} and a single background writer thread drains them in batches,
+ * serializes them with one reusable Jackson generator and writes them into an {@link AuditAppender}.
+ * The request latency is not impacted when the appender is stalled; the queue absorbs the burst and
+ * the overflow policy decides what to do when it is full.
+ *
+ * DROP: the entry is discarded immediately and counted in the dropped count.
+ * BLOCK: the request thread waits for free space up to the block timeout and then drops the entry.
+ *
+ * The queue depth, dropped count and written count are exposed with the getters for monitoring and published
+ * to the metrics handlers by the {@link AuditGaugeProvider} for the current sink.
+ *
+ * When the sink is replaced on a config reload, the old sink is closed with the new one as its successor. The
+ * entries offered to the old sink after it is closed are handed over to the successor, and the writer does not
+ * exit until the offers that were in progress when it was closed are queued and written, so no entry is lost
+ * without being counted in the dropped count.
+ *
+ * @author Steve Hu
+ */
+public class AuditSink implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(AuditSink.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long CLOSE_TIMEOUT = 5000;
+
+    public enum OverflowPolicy {
+        DROP, BLOCK
+    }
+
+    private final MpscRingBuffer<AuditEntry> queue;
+    private final AuditAppender appender;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicInteger offering = new AtomicInteger();
+    private final Thread writer;
+    private final Thread shutdownHook;
+    private volatile boolean running = true;
+    private volatile boolean closed;
+    private volatile AuditSink successor;
+    private static volatile AuditSink current;
+
+    // reused by the writer thread only
+    private final AuditJsonWriter jsonWriter;
+
+    public AuditSink(AuditAppender appender, ObjectMapper mapper, int queueSize, int batchSize, OverflowPolicy overflowPolicy, long blockTimeoutMillis) {
+        this.queue = new MpscRingBuffer<>(queueSize);
+        this.appender = appender;
+        this.jsonWriter = new AuditJsonWriter(mapper);
+        this.batchSize = batchSize > 0 ? batchSize : 1;
+        this.overflowPolicy = overflowPolicy == null ? OverflowPolicy.DROP : overflowPolicy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        this.writer = new Thread(this, "audit-sink-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        // make sure the queued entries are written when the server is shutting down.
+        this.shutdownHook = new Thread(this::close, "audit-sink-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        current = this;
+    }
+
+    /**
+     * @return the most recently created sink that is not closed, or null if there is none.
+     */
+    public static AuditSink getCurrent() {
+        return current;
+    }
+
+    /**
+     * Put an audit entry into the queue. The entry must not be changed by the caller afterward.
+     *
+     * @param entry audit entry
+     * @return true if the entry is queued and false if it is dropped
+     */
+    public boolean offer(AuditEntry entry) {
+        offering.incrementAndGet();
+        try {
+            if(closed) {
+                AuditSink next = successor;
+                if(next != null) return next.offer(entry);
+                droppedCount.incrementAndGet();
+                return false;
+            }
+            if(queue.offer(entry)) return true;
+            if(overflowPolicy == OverflowPolicy.BLOCK && running) {
+                long deadline = System.nanoTime() + blockTimeoutNanos;
+                while(System.nanoTime() - deadline < 0 && running) {
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    if(queue.offer(entry)) return true;
+                }
+            }
+            droppedCount.incrementAndGet();
+            return false;
+        } finally {
+            offering.decrementAndGet();
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queue.capacity();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    @Override
+    public void run() {
+        long reportedDropped = 0;
+        while(running) {
+            int written = drain();
+            long dropped = droppedCount.get();
+            if(dropped != reportedDropped) {
+                logger.warn("Audit sink dropped " + (dropped - reportedDropped) + " entries, total dropped " + dropped + " queue depth " + queue.size());
+                reportedDropped = dropped;
+            }
+            if(written == 0) LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        // write the remaining entries before exit, including the entries of the offers that saw the sink open.
+        while(drain() > 0 || offering.get() > 0) {
+            Thread.onSpinWait();
+        }
+        try {
+            appender.close();
+        } catch (IOException e) {
+            logger.error("Failed to close the audit appender", e);
+        }
+    }
+
+    /**
+     * Stop the writer thread after the queued entries are written and close the appender. The entries offered
+     * after the close are counted as dropped.
+     */
+    public void close() {
+        close(null);
+    }
+
+    /**
+     * Stop the writer thread after the queued entries are written and close the appender. The entries offered
+     * after the close are handed over to the successor, or counted as dropped if it is null.
+     *
+     * @param successor the sink that replaces this one
+     */
+    public void close(AuditSink successor) {
+        this.successor = successor;
+        closed = true;
+        if(current == this) current = successor;
+        if(Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // the JVM is shutting down already.
+            }
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(CLOSE_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int drain() {
+        int count = 0;
+        AuditEntry entry;
+        while(count < batchSize && (entry = queue.poll()) != null) {
+            count++;
+            write(entry);
+        }
+        if(count > 0) {
+            try {
+                appender.flush();
+            } catch (IOException e) {
+                logger.error("Failed to flush the audit appender", e);
+            }
+        }
+        return count;
+    }
+
+    private void write(AuditEntry entry) {
+        try {
+            int length = jsonWriter.write(entry);
+            appender.append(jsonWriter.getBuffer(), 0, length);
+            writtenCount.incrementAndGet();
+        } catch (Throwable e) {
+            droppedCount.incrementAndGet();
+            logger.error("Failed to write the audit entry", e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.audit;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append the audit entries as JSON lines to a file. The output is buffered and only flushed at the
+ * end of each batch so that a batch normally ends up with one write system call.
+ *
+ * @author Steve Hu
+ */
+public class FileAuditAppender implements AuditAppender {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final OutputStream out;
+
+    public FileAuditAppender(String file) throws IOException {
+        if(file == null || file.isBlank()) throw new IOException("asyncFile is not configured for the file appender");
+        Path path = Paths.get(file);
+        if(path.getParent() != null) Files.createDirectories(path.getParent());
+        out = new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE), BUFFER_SIZE);
+    }
+
+    @Override
+    public void append(byte[] bytes, int offset, int length) throws IOException {
+        out.write(bytes, offset, length);
+        out.write('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.audit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Write the audit entries to the audit logger defined in the logback.xml. This is the same destination
+ * as the synchronous mode, but the logger is called from the writer thread instead of the request thread.
+ *
+ * @author Steve Hu
+ */
+public class LoggerAuditAppender implements AuditAppender {
+    private final Consumer<String> auditFunc;
+
+    public LoggerAuditAppender(Consumer<String> auditFunc) {
+        this.auditFunc = auditFunc;
+    }
+
+    @Override
+    public void append(byte[] bytes, int offset, int length) {
+        auditFunc.accept(new String(bytes, offset, length, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded multiple producers and single consumer ring buffer. Producers claim a slot with a CAS on
+ * the tail index and publish the element into the slot. The single consumer reads the slot and clears
+ * it before moving the head index forward so that the slot can be claimed again. There is no lock on
+ * both sides and offer returns false immediately when the buffer is full.
+ *
+ * @param <E> type of the element
+ * @author Steve Hu
+ */
+class MpscRingBuffer<E> {
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLong tail = new AtomicLong();
+    // only updated by the consumer thread
+    private volatile long head;
+
+    MpscRingBuffer(int requestedCapacity) {
+        if(requestedCapacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int c = 1;
+        while(c < requestedCapacity) c <<= 1;
+        this.capacity = c;
+        this.mask = c - 1;
+        this.buffer = new AtomicReferenceArray<>(c);
+    }
+
+    /**
+     * Add an element from any thread.
+     *
+     * @param e element that is not null
+     * @return false if the buffer is full
+     */
+    boolean offer(E e) {
+        long t;
+        do {
+            t = tail.get();
+            if(t - head >= capacity) return false;
+        } while(!tail.compareAndSet(t, t + 1));
+        buffer.lazySet((int)t & mask, e);
+        return true;
+    }
+
+    /**
+     * Remove an element. It must be called from the consumer thread only.
+     *
+     * @return element or null if the buffer is empty or the next element is not published yet
+     */
+    E poll() {
+        long h = head;
+        int index = (int)h & mask;
+        E e = buffer.get(index);
+        if(e == null) return null;
+        buffer.lazySet(index, null);
+        head = h + 1;
+        return e;
+    }
+
+    int size() {
+        long size = tail.get() - head;
+        return size < 0 ? 0 : (int)Math.min(size, capacity);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
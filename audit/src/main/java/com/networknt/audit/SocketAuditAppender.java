@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * Send the audit entries as JSON lines to a TCP socket, normally a log shipper agent listening on the
+ * localhost. The connection is opened lazily and reopened on the next batch if it is broken. Entries in
+ * the batch that failed are lost, and the error is counted as dropped by the {@link AuditSink}.
+ *
+ * @author Steve Hu
+ */
+public class SocketAuditAppender implements AuditAppender {
+    private static final Logger logger = LoggerFactory.getLogger(SocketAuditAppender.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CONNECT_TIMEOUT = 2000;
+
+    private final String host;
+    private final int port;
+    private Socket socket;
+    private OutputStream out;
+
+    public SocketAuditAppender(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    public void append(byte[] bytes, int offset, int length) throws IOException {
+        if(out == null) connect();
+        try {
+            out.write(bytes, offset, length);
+            out.write('\n');
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if(out == null) return;
+        try {
+            out.flush();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        if(socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close the audit socket", e);
+            }
+        }
+        socket = null;
+        out = null;
+    }
+
+    private void connect() throws IOException {
+        Socket s = new Socket();
+        s.setTcpNoDelay(true);
+        s.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+        socket = s;
+        out = new BufferedOutputStream(s.getOutputStream(), BUFFER_SIZE);
+    }
+}
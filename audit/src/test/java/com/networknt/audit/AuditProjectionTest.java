@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.config.JsonMapper;
+import com.networknt.httpstring.AttachmentConstants;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+public class AuditProjectionTest {
+
+    @Test
+    public void shouldProjectRequestAndCompletionFields() throws Exception {
+        AuditConfig config = AuditConfig.load("audit-projection");
+        AuditProjection projection = AuditProjection.compile(config, "com.networknt.petstore-1.0.0", null);
+
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        exchange.getRequestHeaders().put(new HttpString("X-Correlation-Id"), "cid");
+        exchange.getQueryParameters().put("testId", new ArrayDeque<>(Collections.singletonList("1")));
+        Map<String, Object> auditInfo = new HashMap<>();
+        auditInfo.put("client_id", "client");
+        exchange.putAttachment(AttachmentConstants.AUDIT_INFO, auditInfo);
+
+        AuditProjection.Record record = projection.onRequest(exchange);
+        // added by a handler after the audit handler
+        auditInfo.put("user_id", "steve");
+        exchange.setStatusCode(404);
+        projection.onComplete(exchange, record);
+
+        String json = new AuditJsonWriter(new ObjectMapper()).writeAsString(record);
+        Map<String, Object> map = JsonMapper.string2Map(json);
+        Assert.assertTrue(map.get(AuditHandler.TIMESTAMP) instanceof Long);
+        Assert.assertEquals("cid", map.get("X-Correlation-Id"));
+        Assert.assertTrue(map.containsKey("X-Traceability-Id"));
+        Assert.assertNull(map.get("X-Traceability-Id"));
+        Assert.assertEquals("client", map.get("client_id"));
+        Assert.assertEquals("steve", map.get("user_id"));
+        Assert.assertEquals("{testId=[1]}", map.get(AuditHandler.QUERY_PARAMETERS_KEY));
+        Assert.assertEquals("com.networknt.petstore-1.0.0", map.get(AuditHandler.SERVICE_ID_KEY));
+        Assert.assertEquals(404, map.get(AuditHandler.STATUS_CODE));
+        Assert.assertNotNull(map.get(AuditHandler.RESPONSE_TIME));
+    }
+
+    @Test
+    public void shouldMaskParametersByName() {
+        Map<String, UnaryOperator<String>> masks = Collections.singletonMap("accountNo", value -> "****");
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        exchange.getQueryParameters().put("accountNo", new ArrayDeque<>(Collections.singletonList("1234")));
+        exchange.getQueryParameters().put("testId", new ArrayDeque<>(Collections.singletonList("1")));
+        exchange.getPathParameters().put("accountNo", new ArrayDeque<>(Collections.singletonList("5678")));
+
+        String query = (String) new AuditProjection.QueryParametersField(masks).onRequest(exchange, null, null);
+        Assert.assertTrue(query.contains("accountNo=****"));
+        Assert.assertTrue(query.contains("testId=[1]"));
+        Assert.assertEquals("{accountNo=****}", new AuditProjection.PathParametersField(masks).onRequest(exchange, null, null));
+        // not masked if the mask is disabled
+        Assert.assertEquals("{accountNo=[5678]}", new AuditProjection.PathParametersField(null).onRequest(exchange, null, null));
+    }
+}
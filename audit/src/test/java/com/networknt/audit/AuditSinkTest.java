@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+public class AuditSinkTest {
+
+    @Test
+    public void testRingBuffer() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);
+        Assert.assertEquals(4, buffer.capacity());
+        for(int i = 0; i < 4; i++) {
+            Assert.assertTrue(buffer.offer(i));
+        }
+        Assert.assertFalse(buffer.offer(4));
+        Assert.assertEquals(4, buffer.size());
+        Assert.assertEquals(Integer.valueOf(0), buffer.poll());
+        Assert.assertTrue(buffer.offer(4));
+        for(int i = 1; i < 5; i++) {
+            Assert.assertEquals(Integer.valueOf(i), buffer.poll());
+        }
+        Assert.assertNull(buffer.poll());
+        Assert.assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void testWriteInBatch() throws Exception {
+        List<String> lines = Collections.synchronizedList(new ArrayList<>());
+        AuditAppender appender = (bytes, offset, length) -> lines.add(new String(bytes, offset, length, StandardCharsets.UTF_8));
+        AuditSink sink = new AuditSink(appender, new ObjectMapper(), 1024, 16, AuditSink.OverflowPolicy.BLOCK, 1000);
+        int producers = 4;
+        int perProducer = 500;
+        CountDownLatch latch = new CountDownLatch(producers);
+        for(int p = 0; p < producers; p++) {
+            final int id = p;
+            new Thread(() -> {
+                for(int i = 0; i < perProducer; i++) {
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    map.put("producer", id);
+                    map.put("seq", i);
+                    sink.offer(generator -> generator.writeObject(map));
+                }
+                latch.countDown();
+            }).start();
+        }
+        latch.await();
+        sink.close();
+        Assert.assertEquals(0, sink.getDroppedCount());
+        Assert.assertEquals(producers * perProducer, sink.getWrittenCount());
+        Assert.assertEquals(producers * perProducer, lines.size());
+        Assert.assertTrue(lines.get(0).startsWith("{\"producer\":"));
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        AuditAppender appender = (bytes, offset, length) -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        AuditSink sink = new AuditSink(appender, new ObjectMapper(), 2, 1, AuditSink.OverflowPolicy.DROP, 0);
+        int dropped = 0;
+        for(int i = 0; i < 10; i++) {
+            Map<String, Object> map = Collections.singletonMap("seq", i);
+            if(!sink.offer(generator -> generator.writeObject(map))) dropped++;
+        }
+        Assert.assertTrue(dropped > 0);
+        Assert.assertEquals(dropped, sink.getDroppedCount());
+        blocked.countDown();
+        sink.close();
+        Assert.assertEquals(10 - dropped, sink.getWrittenCount());
+        Assert.assertEquals(0, sink.getQueueDepth());
+    }
+
+    @Test
+    public void testHandOverToSuccessorOnClose() throws Exception {
+        List<String> lines = Collections.synchronizedList(new ArrayList<>());
+        AuditAppender appender = (bytes, offset, length) -> lines.add(new String(bytes, offset, length, StandardCharsets.UTF_8));
+        AtomicReference<AuditSink> current = new AtomicReference<>(new AuditSink(appender, new ObjectMapper(), 1024, 16, AuditSink.OverflowPolicy.BLOCK, 1000));
+        AuditSink first = current.get();
+        int producers = 4;
+        int perProducer = 2000;
+        CountDownLatch latch = new CountDownLatch(producers);
+        for(int p = 0; p < producers; p++) {
+            new Thread(() -> {
+                for(int i = 0; i < perProducer; i++) {
+                    Map<String, Object> map = Collections.singletonMap("seq", i);
+                    // read the sink like the handler and offer to it even if it is replaced in between.
+                    current.get().offer(generator -> generator.writeObject(map));
+                }
+                latch.countDown();
+            }).start();
+        }
+        // replace the sink like the reload of the handler while the producers are running.
+        AuditSink second = new AuditSink(appender, new ObjectMapper(), 1024, 16, AuditSink.OverflowPolicy.BLOCK, 1000);
+        current.set(second);
+        first.close(second);
+        Assert.assertSame(second, AuditSink.getCurrent());
+        latch.await();
+        second.close();
+        long dropped = first.getDroppedCount() + second.getDroppedCount();
+        Assert.assertEquals(0, dropped);
+        Assert.assertEquals(producers * perProducer, first.getWrittenCount() + second.getWrittenCount());
+        Assert.assertEquals(producers * perProducer, lines.size());
+    }
+
+    @Test
+    public void testDropAfterClose() {
+        AuditAppender appender = (bytes, offset, length) -> {};
+        AuditSink sink = new AuditSink(appender, new ObjectMapper(), 16, 1, AuditSink.OverflowPolicy.DROP, 0);
+        sink.close();
+        Assert.assertFalse(sink.offer(generator -> generator.writeObject(Collections.singletonMap("seq", 0))));
+        Assert.assertEquals(1, sink.getDroppedCount());
+        Assert.assertEquals(0, sink.getWrittenCount());
+    }
+
+    @Test
+    public void testGaugeProvider() {
+        CountDownLatch blocked = new CountDownLatch(1);
+        AuditAppender appender = (bytes, offset, length) -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        AuditSink sink = new AuditSink(appender, new ObjectMapper(), 2, 1, AuditSink.OverflowPolicy.DROP, 0);
+        Map<String, Supplier<Number>> gauges = new HashMap<>();
+        new AuditGaugeProvider().register((name, tags, value) -> gauges.put(name, value));
+        for(int i = 0; i < 10; i++) {
+            Map<String, Object> map = Collections.singletonMap("seq", i);
+            sink.offer(generator -> generator.writeObject(map));
+        }
+        Assert.assertEquals(2L, gauges.get("audit.queue_capacity").get());
+        Assert.assertEquals(sink.getDroppedCount(), gauges.get("audit.dropped_count").get());
+        Assert.assertEquals((long)sink.getQueueDepth(), gauges.get("audit.queue_depth").get());
+        blocked.countDown();
+        sink.close();
+        Assert.assertEquals(0L, gauges.get("audit.queue_depth").get());
+        Assert.assertEquals(0L, gauges.get("audit.written_count").get());
+    }
+}
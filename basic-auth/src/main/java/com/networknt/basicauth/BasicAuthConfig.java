@@ -31,6 +31,8 @@ public class BasicAuthConfig {
     private static final String ENABLE_AD = "enableAD";
     private static final String ALLOW_ANONYMOUS = "allowAnonymous";
     private static final String ALLOW_BEARER_TOKEN = "allowBearerToken";
+    private static final String LDAP_CACHE_TTL = "ldapCacheTtl";
+    private static final String LDAP_CACHE_MAX_SIZE = "ldapCacheMaxSize";
     private static final String USERS = "users";
     private static final String USERNAME = "username";
     private static final String PASSWORD = "password";
@@ -42,6 +44,8 @@ public class BasicAuthConfig {
     boolean enableAD;
     boolean allowAnonymous;
     boolean allowBearerToken;
+    long ldapCacheTtl = 60000;
+    int ldapCacheMaxSize = 1000;
     Map<String, UserAuth> users;  // the key is the username to locate the object
     private Config config;
     private Map<String, Object> mappedConfig;
@@ -110,6 +114,22 @@ public class BasicAuthConfig {
         this.allowBearerToken = allowBearerToken;
     }
 
+    public long getLdapCacheTtl() {
+        return ldapCacheTtl;
+    }
+
+    public void setLdapCacheTtl(long ldapCacheTtl) {
+        this.ldapCacheTtl = ldapCacheTtl;
+    }
+
+    public int getLdapCacheMaxSize() {
+        return ldapCacheMaxSize;
+    }
+
+    public void setLdapCacheMaxSize(int ldapCacheMaxSize) {
+        this.ldapCacheMaxSize = ldapCacheMaxSize;
+    }
+
     public Map<String, UserAuth> getUsers() { return users; }
 
     private void setConfigData() {
@@ -129,6 +149,14 @@ public class BasicAuthConfig {
         if(object != null && (Boolean) object) {
             setAllowBearerToken(true);
         }
+        object = mappedConfig.get(LDAP_CACHE_TTL);
+        if(object != null) {
+            setLdapCacheTtl(((Number) object).longValue());
+        }
+        object = mappedConfig.get(LDAP_CACHE_MAX_SIZE);
+        if(object != null) {
+            setLdapCacheMaxSize((Integer) object);
+        }
     }
 
     private void setConfigUser() {
@@ -50,6 +50,7 @@ public class BasicAuthHandler implements MiddlewareHandler {
     static final String BEARER_PREFIX = "BEARER";
     static final String BASIC_PREFIX = "BASIC";
     static BasicAuthConfig config;
+    static volatile CredentialCache credentialCache;
 
     static final String MISSING_AUTH_TOKEN = "ERR10002";
     static final String INVALID_BASIC_HEADER = "ERR10046";
@@ -62,6 +63,7 @@ public class BasicAuthHandler implements MiddlewareHandler {
 
     public BasicAuthHandler() {
         config = BasicAuthConfig.load();
+        credentialCache = new CredentialCache(config.getLdapCacheTtl(), config.getLdapCacheMaxSize());
         if (logger.isInfoEnabled()) logger.info("BasicAuthHandler is loaded.");
     }
 
@@ -73,6 +75,7 @@ public class BasicAuthHandler implements MiddlewareHandler {
     @Deprecated
     public BasicAuthHandler(BasicAuthConfig cfg) {
         config = cfg;
+        credentialCache = new CredentialCache(config.getLdapCacheTtl(), config.getLdapCacheMaxSize());
         if (logger.isInfoEnabled()) logger.info("BasicAuthHandler is loaded.");
     }
 
@@ -195,8 +198,13 @@ public class BasicAuthHandler implements MiddlewareHandler {
                 && StringUtils.isEmpty(user.getPassword())
                 && config.enableAD) {
                 // Call LdapUtil with LDAP authentication and authorization given user is matched, password is empty, and AD is enabled.
-                if(logger.isTraceEnabled()) logger.trace("Call LdapUtil with LDAP authentication and authorization for user = {}", username);
-                if (!handleLdapAuth(user, password)) {
+                if (credentialCache.isVerified(username, password)) {
+                    if(logger.isTraceEnabled()) logger.trace("LDAP credentials are found in the cache for user = {}", username);
+                } else if (exchange.isInIoThread()) {
+                    // the LDAP calls are blocking, so the request is handled again in a worker thread.
+                    exchange.dispatch(this);
+                    return false;
+                } else if (!handleLdapAuth(user, password)) {
                     setExchangeStatus(exchange, INVALID_USERNAME_OR_PASSWORD);
                     exchange.endExchange();
                     if(logger.isDebugEnabled())
@@ -250,11 +258,14 @@ public class BasicAuthHandler implements MiddlewareHandler {
      * @return true if Ldap auth success, false if Ldap auth failure
      */
     private static boolean handleLdapAuth(UserAuth user, String password) {
+        if(logger.isTraceEnabled()) logger.trace("Call LdapUtil with LDAP authentication and authorization for user = {}", user.getUsername());
         boolean isAuthenticated = LdapUtil.authenticate(user.getUsername(), password);
         if (!isAuthenticated) {
             logger.error("user '" + user.getUsername() + "' Ldap authentication failed");
+            credentialCache.invalidate(user.getUsername());
             return false;
         }
+        credentialCache.put(user.getUsername(), password);
         return true;
     }
 
@@ -338,5 +349,6 @@ public class BasicAuthHandler implements MiddlewareHandler {
     @Override
     public void reload() {
         config = BasicAuthConfig.load();
+        credentialCache = new CredentialCache(config.getLdapCacheTtl(), config.getLdapCacheMaxSize());
     }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.basicauth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A short-lived cache of the credentials that are verified by the LDAP server. The password is never kept in
+ * memory. Only a SHA-256 hash of the username and password with a random salt generated at startup is cached
+ * for each user, and the entry is removed once the LDAP server rejects the user again so that a changed or
+ * locked account is not accepted from the cache.
+ *
+ * @author Steve Hu
+ */
+class CredentialCache {
+    private final long ttlNanos;
+    private final int maxSize;
+    private final byte[] salt = new byte[16];
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param ttl time to live of the entries in milliseconds. The cache is disabled if it is not positive.
+     * @param maxSize the maximum number of users in the cache.
+     */
+    CredentialCache(long ttl, int maxSize) {
+        this.ttlNanos = ttl * 1_000_000L;
+        this.maxSize = maxSize;
+        new SecureRandom().nextBytes(salt);
+    }
+
+    boolean isEnabled() {
+        return ttlNanos > 0 && maxSize > 0;
+    }
+
+    /**
+     * @param username String
+     * @param password String
+     * @return true if the same username and password are verified within the ttl.
+     */
+    boolean isVerified(String username, String password) {
+        if(!isEnabled()) return false;
+        Entry entry = entries.get(username);
+        if(entry == null) return false;
+        if(System.nanoTime() - entry.expireAt >= 0) {
+            entries.remove(username, entry);
+            return false;
+        }
+        return MessageDigest.isEqual(entry.hash, hash(username, password));
+    }
+
+    void put(String username, String password) {
+        if(!isEnabled()) return;
+        if(entries.size() >= maxSize && !entries.containsKey(username)) {
+            purgeExpired();
+            if(entries.size() >= maxSize) return;
+        }
+        entries.put(username, new Entry(hash(username, password), System.nanoTime() + ttlNanos));
+    }
+
+    void invalidate(String username) {
+        entries.remove(username);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void purgeExpired() {
+        long now = System.nanoTime();
+        for(Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+            if(now - it.next().expireAt >= 0) it.remove();
+        }
+    }
+
+    private byte[] hash(String username, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            digest.update(username.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte)0);
+            return digest.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is required for every Java platform.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+        private final byte[] hash;
+        private final long expireAt;
+
+        private Entry(byte[] hash, long expireAt) {
+            this.hash = hash;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.basicauth;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CredentialCacheTest {
+    @Test
+    public void testVerified() {
+        CredentialCache cache = new CredentialCache(60000, 10);
+        Assert.assertFalse(cache.isVerified("ldapUser", "secret"));
+        cache.put("ldapUser", "secret");
+        Assert.assertTrue(cache.isVerified("ldapUser", "secret"));
+        Assert.assertFalse(cache.isVerified("ldapUser", "wrong"));
+        Assert.assertFalse(cache.isVerified("other", "secret"));
+    }
+
+    @Test
+    public void testInvalidate() {
+        CredentialCache cache = new CredentialCache(60000, 10);
+        cache.put("ldapUser", "secret");
+        cache.invalidate("ldapUser");
+        Assert.assertFalse(cache.isVerified("ldapUser", "secret"));
+    }
+
+    @Test
+    public void testExpired() throws Exception {
+        CredentialCache cache = new CredentialCache(1, 10);
+        cache.put("ldapUser", "secret");
+        Thread.sleep(5);
+        Assert.assertFalse(cache.isVerified("ldapUser", "secret"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testMaxSizeAndDisabled() {
+        CredentialCache cache = new CredentialCache(60000, 1);
+        cache.put("user1", "secret");
+        cache.put("user2", "secret");
+        Assert.assertFalse(cache.isVerified("user2", "secret"));
+        CredentialCache disabled = new CredentialCache(0, 10);
+        disabled.put("user1", "secret");
+        Assert.assertFalse(disabled.isVerified("user1", "secret"));
+    }
+}
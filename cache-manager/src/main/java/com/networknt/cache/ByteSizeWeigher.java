@@ -0,0 +1,72 @@
+package com.networknt.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.networknt.config.Config;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A weigher that estimates the bytes of a cache entry so that the cache can be bounded by the memory instead
+ * of the number of entries when the values are very different in size. The strings, byte arrays, numbers and
+ * the collections and maps of them are estimated by walking the structure. The other objects are serialized
+ * to JSON with the ObjectMapper of the Config and the length is used, so it is a good idea to put only the
+ * common types into a weighted cache if the entries are updated frequently.
+ *
+ * The estimate is approximate and only used to decide the eviction. It is not the retained size in the heap.
+ *
+ * @author Steve Hu
+ */
+public class ByteSizeWeigher implements Weigher<Object, Object> {
+    // the approximate header of an object and the reference to it.
+    static final int OBJECT_OVERHEAD = 16;
+    // the approximate bytes of an entry in a map or a collection besides the key and value.
+    static final int ENTRY_OVERHEAD = 32;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        long size = estimate(key) + estimate(value);
+        return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int)size;
+    }
+
+    /**
+     * Estimate the bytes of an object.
+     *
+     * @param object the object
+     * @return the estimated bytes
+     */
+    public static long estimate(Object object) {
+        if(object == null) return 0;
+        if(object instanceof String) {
+            return OBJECT_OVERHEAD + 2L * ((String)object).length();
+        }
+        if(object instanceof byte[]) {
+            return OBJECT_OVERHEAD + ((byte[])object).length;
+        }
+        if(object instanceof char[]) {
+            return OBJECT_OVERHEAD + 2L * ((char[])object).length;
+        }
+        if(object instanceof Number || object instanceof Boolean || object instanceof Character) {
+            return OBJECT_OVERHEAD + 8;
+        }
+        if(object instanceof Map) {
+            long size = OBJECT_OVERHEAD;
+            for(Map.Entry<?, ?> entry: ((Map<?, ?>)object).entrySet()) {
+                size += ENTRY_OVERHEAD + estimate(entry.getKey()) + estimate(entry.getValue());
+            }
+            return size;
+        }
+        if(object instanceof Collection) {
+            long size = OBJECT_OVERHEAD;
+            for(Object element: (Collection<?>)object) {
+                size += 8 + estimate(element);
+            }
+            return size;
+        }
+        try {
+            return OBJECT_OVERHEAD + Config.getInstance().getMapper().writeValueAsBytes(object).length;
+        } catch (Exception e) {
+            return OBJECT_OVERHEAD;
+        }
+    }
+}
@@ -20,8 +20,21 @@ public class CacheConfig {
     public static final String CACHE_NAME = "cacheName";
     public static final String EXPIRY_IN_MINUTES = "expiryInMinutes";
     public static final String MAX_SIZE = "maxSize";
+    public static final String REFRESH_IN_MINUTES = "refreshInMinutes";
+    public static final String MAX_WEIGHT = "maxWeight";
+    public static final String RECORD_STATS = "recordStats";
+    public static final String OFF_HEAP_SIZE = "offHeapSize";
+    public static final String OFF_HEAP_THRESHOLD = "offHeapThreshold";
+    public static final String MULTICAST_GROUP = "multicastGroup";
+    public static final String MULTICAST_PORT = "multicastPort";
+    public static final String MULTICAST_INTERFACE = "multicastInterface";
+    public static final String MULTICAST_TTL = "multicastTtl";
 
     List<CacheItem> caches;
+    String multicastGroup = "239.255.27.1";
+    int multicastPort = 45588;
+    String multicastInterface;
+    int multicastTtl = 1;
 
     private Config config;
     private Map<String, Object> mappedConfig;
@@ -38,6 +51,7 @@ public class CacheConfig {
     private CacheConfig(String configName) {
         config = Config.getInstance();
         mappedConfig = config.getJsonMapConfigNoCache(configName);
+        setConfigData();
         setConfigList();
     }
 
@@ -51,6 +65,7 @@ public class CacheConfig {
 
     void reload() {
         mappedConfig = config.getJsonMapConfigNoCache(CONFIG_NAME);
+        setConfigData();
         setConfigList();
     }
 
@@ -66,6 +81,49 @@ public class CacheConfig {
         this.caches = caches;
     }
 
+    public String getMulticastGroup() {
+        return multicastGroup;
+    }
+
+    public void setMulticastGroup(String multicastGroup) {
+        this.multicastGroup = multicastGroup;
+    }
+
+    public int getMulticastPort() {
+        return multicastPort;
+    }
+
+    public void setMulticastPort(int multicastPort) {
+        this.multicastPort = multicastPort;
+    }
+
+    public String getMulticastInterface() {
+        return multicastInterface;
+    }
+
+    public void setMulticastInterface(String multicastInterface) {
+        this.multicastInterface = multicastInterface;
+    }
+
+    public int getMulticastTtl() {
+        return multicastTtl;
+    }
+
+    public void setMulticastTtl(int multicastTtl) {
+        this.multicastTtl = multicastTtl;
+    }
+
+    private void setConfigData() {
+        Object object = mappedConfig.get(MULTICAST_GROUP);
+        if(object != null && !((String)object).isBlank()) multicastGroup = ((String)object).trim();
+        object = mappedConfig.get(MULTICAST_PORT);
+        if(object != null) multicastPort = (Integer)object;
+        object = mappedConfig.get(MULTICAST_INTERFACE);
+        if(object != null && !((String)object).isBlank()) multicastInterface = ((String)object).trim();
+        object = mappedConfig.get(MULTICAST_TTL);
+        if(object != null) multicastTtl = (Integer)object;
+    }
+
     public void setConfigList() {
         if (mappedConfig.get(CACHES) != null) {
             Object object = mappedConfig.get(CACHES);
@@ -92,6 +150,11 @@ public class CacheConfig {
                     cacheItem.setCacheName((String)value.get(CACHE_NAME));
                     cacheItem.setMaxSize((Integer)value.get(MAX_SIZE));
                     cacheItem.setExpiryInMinutes((Integer)value.get(EXPIRY_IN_MINUTES));
+                    if(value.get(REFRESH_IN_MINUTES) != null) cacheItem.setRefreshInMinutes((Integer)value.get(REFRESH_IN_MINUTES));
+                    if(value.get(MAX_WEIGHT) != null) cacheItem.setMaxWeight(((Number)value.get(MAX_WEIGHT)).longValue());
+                    if(value.get(RECORD_STATS) != null) cacheItem.setRecordStats((Boolean)value.get(RECORD_STATS));
+                    if(value.get(OFF_HEAP_SIZE) != null) cacheItem.setOffHeapSize(((Number)value.get(OFF_HEAP_SIZE)).longValue());
+                    if(value.get(OFF_HEAP_THRESHOLD) != null) cacheItem.setOffHeapThreshold((Integer)value.get(OFF_HEAP_THRESHOLD));
                     caches.add(cacheItem);
                 }
             } else {
@@ -1,16 +1,30 @@
 package com.networknt.cache;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.networknt.config.JsonMapper;
 import com.networknt.handler.LightHttpHandler;
+import com.networknt.httpstring.ContentType;
+import com.networknt.service.SingletonServiceFactory;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
 /**
  * This is one of the adm handlers that is used to explore the cache. It has an optional query
  * parameter to specify the cache name. If the cache name is not specified, it will return all
  * the general info about caches. If the cache name is specified, it will return the cache key
  * and value pairs in a list to the caller.
  *
+ * The general info of a cache contains the estimated size and the statistics if the recordStats
+ * is enabled for the cache in the cache.yml, and the usage of the off-heap tier if it is enabled.
+ *
  * If a user knows the cache name, he can use the cache name to get the cache directly from
  * the CacheManager.
  *
@@ -18,6 +32,8 @@ import org.slf4j.LoggerFactory;
  */
 public class CacheExplorerHandler implements LightHttpHandler {
     private static final Logger logger = LoggerFactory.getLogger(CacheExplorerHandler.class);
+    public static final String NAME = "name";
+
     public CacheExplorerHandler() {
         if(logger.isInfoEnabled()) logger.info("CacheExplorerHandler constructed");
     }
@@ -25,6 +41,51 @@ public class CacheExplorerHandler implements LightHttpHandler {
     @Override
     public void handleRequest(HttpServerExchange httpServerExchange) throws Exception {
         if(logger.isTraceEnabled()) logger.trace("CacheExplorerHandler handleRequest");
+        CacheManager cacheManager = SingletonServiceFactory.getBean(CacheManager.class);
+        Map<String, Object> result = new LinkedHashMap<>();
+        Deque<String> names = httpServerExchange.getQueryParameters().get(NAME);
+        if(cacheManager != null) {
+            if(names == null || names.isEmpty()) {
+                for(String cacheName: new TreeSet<>(cacheManager.getCacheNames())) {
+                    Cache<Object, Object> cache = cacheManager.getCache(cacheName);
+                    if(cache != null) result.put(cacheName, cacheInfo(cache, cacheManager.getStats(cacheName), cacheManager.getOffHeapStore(cacheName)));
+                }
+            } else {
+                Cache<Object, Object> cache = cacheManager.getCache(names.getFirst());
+                if(cache != null) {
+                    for(Map.Entry<Object, Object> entry: cache.asMap().entrySet()) {
+                        result.put(String.valueOf(entry.getKey()), entry.getValue());
+                    }
+                }
+            }
+        }
+        httpServerExchange.getResponseHeaders().put(Headers.CONTENT_TYPE, ContentType.APPLICATION_JSON.value());
+        httpServerExchange.getResponseSender().send(JsonMapper.toJson(result));
+    }
 
+    static Map<String, Object> cacheInfo(Cache<Object, Object> cache, CacheStats stats, OffHeapStore offHeap) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("estimatedSize", cache.estimatedSize());
+        if(stats != null) {
+            info.put("hitCount", stats.hitCount());
+            info.put("missCount", stats.missCount());
+            info.put("hitRate", stats.hitRate());
+            info.put("evictionCount", stats.evictionCount());
+            info.put("evictionWeight", stats.evictionWeight());
+            info.put("loadSuccessCount", stats.loadSuccessCount());
+            info.put("loadFailureCount", stats.loadFailureCount());
+            info.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+        }
+        if(offHeap != null) {
+            Map<String, Object> offHeapInfo = new LinkedHashMap<>();
+            offHeapInfo.put("size", offHeap.size());
+            offHeapInfo.put("usedBytes", offHeap.usedBytes());
+            offHeapInfo.put("capacity", offHeap.capacity());
+            offHeapInfo.put("hitCount", offHeap.hitCount());
+            offHeapInfo.put("missCount", offHeap.missCount());
+            offHeapInfo.put("evictionCount", offHeap.evictionCount());
+            info.put("offHeap", offHeapInfo);
+        }
+        return info;
     }
 }
@@ -0,0 +1,48 @@
+package com.networknt.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.networknt.service.SingletonServiceFactory;
+import com.networknt.utility.GaugeProvider;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Publish the statistics of the caches in the CacheManager to the metrics handlers so that the hit rate, the
+ * evictions and the load time of each cache are reported with the other metrics. The gauges read the statistics
+ * when the reporter runs, and the cache name is added as the cache tag. Only the caches that exist when the
+ * metrics handler starts are registered, and the statistics are only available if the recordStats is true for
+ * the cache.
+ *
+ * @author Steve Hu
+ */
+public class CacheGaugeProvider implements GaugeProvider {
+
+    @Override
+    public void register(Registrar registrar) {
+        CacheManager cacheManager = SingletonServiceFactory.getBean(CacheManager.class);
+        if(cacheManager == null) return;
+        for(String cacheName: cacheManager.getCacheNames()) {
+            Map<String, String> tags = Collections.singletonMap("cache", cacheName);
+            registrar.gauge("cache.estimated_size", tags, () -> {
+                Cache<Object, Object> cache = cacheManager.getCache(cacheName);
+                return cache == null ? 0L : cache.estimatedSize();
+            });
+            register(registrar, "hit_count", tags, cacheManager, cacheName, CacheStats::hitCount);
+            register(registrar, "miss_count", tags, cacheManager, cacheName, CacheStats::missCount);
+            register(registrar, "hit_rate", tags, cacheManager, cacheName, CacheStats::hitRate);
+            register(registrar, "eviction_count", tags, cacheManager, cacheName, CacheStats::evictionCount);
+            register(registrar, "load_failure_count", tags, cacheManager, cacheName, CacheStats::loadFailureCount);
+            register(registrar, "average_load_penalty", tags, cacheManager, cacheName, CacheStats::averageLoadPenalty);
+        }
+    }
+
+    private static void register(Registrar registrar, String name, Map<String, String> tags, CacheManager cacheManager, String cacheName, Function<CacheStats, Number> value) {
+        registrar.gauge("cache." + name, tags, () -> {
+            CacheStats stats = cacheManager.getStats(cacheName);
+            return value.apply(stats == null ? CacheStats.empty() : stats);
+        });
+    }
+}
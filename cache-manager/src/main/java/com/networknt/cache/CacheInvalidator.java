@@ -0,0 +1,163 @@
+package com.networknt.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.networknt.config.Config;
+import com.networknt.service.SingletonServiceFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Invalidate the cache entries in all the instances of the service. The cache or the keys are invalidated in
+ * the local CacheManager first, and then a message is published with the InvalidationTransport so that the
+ * other instances invalidate the same entries in their CacheManager once it is received. The messages sent by
+ * this instance are ignored when they come back from the transport.
+ *
+ * The keys are sent as JSON, so only the string keys are matched exactly in the other instances. The whole
+ * cache can be invalidated for the other key types.
+ *
+ * It is started by the CacheManager.getInstance() if an InvalidationTransport is configured in the service.yml.
+ *
+ * @author Steve Hu
+ */
+public class CacheInvalidator {
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidator.class);
+    static final String ORIGIN = "origin";
+    static final String CACHE = "cache";
+    static final String KEYS = "keys";
+    // keep a message in a datagram with the keys of a reasonable length.
+    static final int MAX_KEYS_PER_MESSAGE = 100;
+
+    private static volatile CacheInvalidator instance;
+
+    private final CacheManager cacheManager;
+    private final InvalidationTransport transport;
+    private final String origin = UUID.randomUUID().toString();
+
+    public CacheInvalidator(CacheManager cacheManager, InvalidationTransport transport) {
+        this.cacheManager = cacheManager;
+        this.transport = transport;
+    }
+
+    /**
+     * @return the invalidator started for the CacheManager or null if there is no transport configured
+     */
+    public static CacheInvalidator getInstance() {
+        return instance;
+    }
+
+    /**
+     * Start the invalidator for the cache manager if an InvalidationTransport is configured in the service.yml.
+     * It is only started once.
+     *
+     * @param cacheManager the cache manager
+     */
+    static void init(CacheManager cacheManager) {
+        if(instance != null) return;
+        synchronized (CacheInvalidator.class) {
+            if(instance != null) return;
+            InvalidationTransport transport = SingletonServiceFactory.getBean(InvalidationTransport.class);
+            if(transport == null) return;
+            CacheInvalidator invalidator = new CacheInvalidator(cacheManager, transport);
+            try {
+                invalidator.start();
+                instance = invalidator;
+            } catch (IOException e) {
+                logger.error("Failed to start the cache invalidation transport " + transport.getClass().getName(), e);
+            }
+        }
+    }
+
+    public void start() throws IOException {
+        transport.start(this::onMessage);
+    }
+
+    public void close() {
+        transport.close();
+    }
+
+    /**
+     * Invalidate all the entries of a cache in all the instances.
+     *
+     * @param cacheName the cache name
+     */
+    public void invalidate(String cacheName) {
+        invalidateLocal(cacheName, null);
+        publish(cacheName, null);
+    }
+
+    /**
+     * Invalidate the entries of the keys in a cache in all the instances.
+     *
+     * @param cacheName the cache name
+     * @param keys the keys
+     */
+    public void invalidate(String cacheName, Object... keys) {
+        invalidate(cacheName, Arrays.asList(keys));
+    }
+
+    /**
+     * Invalidate the entries of the keys in a cache in all the instances.
+     *
+     * @param cacheName the cache name
+     * @param keys the keys
+     */
+    public void invalidate(String cacheName, Collection<?> keys) {
+        invalidateLocal(cacheName, keys);
+        List<Object> batch = new ArrayList<>(Math.min(keys.size(), MAX_KEYS_PER_MESSAGE));
+        for(Object key: keys) {
+            batch.add(key);
+            if(batch.size() == MAX_KEYS_PER_MESSAGE) {
+                publish(cacheName, batch);
+                batch.clear();
+            }
+        }
+        if(!batch.isEmpty()) publish(cacheName, batch);
+    }
+
+    private void publish(String cacheName, List<Object> keys) {
+        Map<String, Object> message = new HashMap<>();
+        message.put(ORIGIN, origin);
+        message.put(CACHE, cacheName);
+        if(keys != null) message.put(KEYS, keys);
+        try {
+            transport.publish(Config.getInstance().getMapper().writeValueAsString(message));
+        } catch (IOException e) {
+            logger.error("Failed to serialize the invalidation message for cache " + cacheName, e);
+        }
+    }
+
+    void onMessage(String text) {
+        Map<String, Object> message;
+        try {
+            message = Config.getInstance().getMapper().readValue(text, new TypeReference<Map<String, Object>>() {});
+        } catch (IOException e) {
+            logger.error("Invalid cache invalidation message " + text, e);
+            return;
+        }
+        if(origin.equals(message.get(ORIGIN))) return;
+        String cacheName = (String)message.get(CACHE);
+        if(cacheName == null) return;
+        if(logger.isDebugEnabled()) logger.debug("Invalidate cache " + cacheName + " from " + message.get(ORIGIN));
+        invalidateLocal(cacheName, (Collection<?>)message.get(KEYS));
+    }
+
+    private void invalidateLocal(String cacheName, Collection<?> keys) {
+        Cache<Object, Object> cache = cacheManager.getCache(cacheName);
+        if(cache == null) return;
+        if(keys == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidateAll(keys);
+        }
+    }
+}
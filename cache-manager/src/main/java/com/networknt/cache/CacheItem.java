@@ -4,6 +4,15 @@ public class CacheItem {
     String cacheName;
     int expiryInMinutes;
     int maxSize;
+    // refresh an entry asynchronously on the first read after the period. Only used by the loading caches.
+    int refreshInMinutes;
+    // the maximum estimated bytes of the entries. If it is greater than 0, it is used instead of the maxSize.
+    long maxWeight;
+    boolean recordStats = true;
+    // the bytes of the off-heap tier for the large values evicted from the heap. 0 to disable the off-heap tier.
+    long offHeapSize;
+    // the minimum bytes of a serialized value to be moved to the off-heap tier.
+    int offHeapThreshold = 4096;
 
     public CacheItem() {
     }
@@ -37,4 +46,44 @@ public class CacheItem {
     public void setMaxSize(int maxSize) {
         this.maxSize = maxSize;
     }
+
+    public int getRefreshInMinutes() {
+        return refreshInMinutes;
+    }
+
+    public void setRefreshInMinutes(int refreshInMinutes) {
+        this.refreshInMinutes = refreshInMinutes;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public boolean isRecordStats() {
+        return recordStats;
+    }
+
+    public void setRecordStats(boolean recordStats) {
+        this.recordStats = recordStats;
+    }
+
+    public long getOffHeapSize() {
+        return offHeapSize;
+    }
+
+    public void setOffHeapSize(long offHeapSize) {
+        this.offHeapSize = offHeapSize;
+    }
+
+    public int getOffHeapThreshold() {
+        return offHeapThreshold;
+    }
+
+    public void setOffHeapThreshold(int offHeapThreshold) {
+        this.offHeapThreshold = offHeapThreshold;
+    }
 }
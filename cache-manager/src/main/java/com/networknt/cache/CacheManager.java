@@ -1,11 +1,19 @@
 package com.networknt.cache;
 
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.networknt.config.ConfigException;
 import com.networknt.service.SingletonServiceFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 public interface CacheManager {
     Logger logger = LoggerFactory.getLogger(CacheManager.class);
@@ -16,11 +24,13 @@ public interface CacheManager {
             if (cacheManager == null) {
                 logger.warn("No cache manager configured in service.yml; default to CaffeineCacheManager");
                 cacheManager = new CaffeineCacheManager();
-                for(CacheItem cacheItem: CacheConfig.load().getCaches()) {
-                    cacheManager.addCache(cacheItem.getCacheName(), cacheItem.getMaxSize(), cacheItem.getExpiryInMinutes());
+                for(CacheItem cacheItem: caches) {
+                    cacheManager.addCache(cacheItem);
                 }
                 SingletonServiceFactory.setBean(CacheManager.class.getName(), cacheManager);
             }
+            // subscribe to the invalidation from the other instances if a transport is configured.
+            CacheInvalidator.init(cacheManager);
             return cacheManager;
         } else {
             return null;
@@ -28,6 +38,111 @@ public interface CacheManager {
     }
 
     void addCache(String cacheName, long maxSize, long expiryInMinutes);
+
+    /**
+     * Add a cache with all the options of the cache item. The default implementation only uses the name, the
+     * maxSize and the expiryInMinutes for the cache managers that are written before the other options.
+     *
+     * The CaffeineCacheManager treats an expiryInMinutes of 0 as no expiry, and getInstance creates the caches in
+     * the cache.yml with this method. A cache with 0 expiryInMinutes was expired immediately after each write
+     * before, so set the expiryInMinutes if the entries should expire.
+     *
+     * @param cacheItem the cache item
+     */
+    default void addCache(CacheItem cacheItem) {
+        addCache(cacheItem.getCacheName(), cacheItem.getMaxSize(), cacheItem.getExpiryInMinutes());
+    }
+
+    /**
+     * Add a cache that calls the loader for the missing keys. The concurrent gets for the same missing key wait
+     * for one load. If the refreshInMinutes of the cache item is set, the stale entry is returned and reloaded in
+     * the background on the first get after the refresh period.
+     *
+     * @param cacheItem the cache item
+     * @param loader the loader for the missing or stale keys
+     * @return the loading cache
+     * @throws UnsupportedOperationException if the cache manager does not support the loading caches
+     */
+    default LoadingCache<Object, Object> addLoadingCache(CacheItem cacheItem, CacheLoader<Object, Object> loader) {
+        throw new UnsupportedOperationException("Loading cache is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Add a loading cache with the options of the cache item with the same name in the cache.yml.
+     *
+     * @param cacheName the cache name in the cache.yml
+     * @param loader the loader for the missing or stale keys
+     * @return the loading cache
+     * @throws UnsupportedOperationException if the cache manager does not support the loading caches
+     */
+    default LoadingCache<Object, Object> addLoadingCache(String cacheName, CacheLoader<Object, Object> loader) {
+        List<CacheItem> items = CacheConfig.load().getCaches();
+        if(items != null) {
+            for(CacheItem item: items) {
+                if(cacheName.equals(item.getCacheName())) return addLoadingCache(item, loader);
+            }
+        }
+        throw new ConfigException("Cache " + cacheName + " is not defined in " + CacheConfig.CONFIG_NAME);
+    }
+
+    /**
+     * Add a cache that loads the missing keys asynchronously. The returned futures complete when the loader is
+     * done so that the caller does not need to block an IO thread.
+     *
+     * @param cacheItem the cache item
+     * @param loader the asynchronous loader for the missing or stale keys
+     * @return the asynchronous loading cache
+     * @throws UnsupportedOperationException if the cache manager does not support the asynchronous loading caches
+     */
+    default AsyncLoadingCache<Object, Object> addAsyncLoadingCache(CacheItem cacheItem, AsyncCacheLoader<Object, Object> loader) {
+        throw new UnsupportedOperationException("Asynchronous loading cache is not supported by " + getClass().getName());
+    }
+
     Cache<Object, Object> getCache(String cacheName);
+
+    /**
+     * @param cacheName the cache name
+     * @return the loading cache or the synchronous view of an asynchronous loading cache. It is null if the
+     * cache does not exist or is not a loading cache.
+     */
+    default LoadingCache<Object, Object> getLoadingCache(String cacheName) {
+        Cache<Object, Object> cache = getCache(cacheName);
+        return cache instanceof LoadingCache ? (LoadingCache<Object, Object>)cache : null;
+    }
+
+    /**
+     * @param cacheName the cache name
+     * @return the asynchronous loading cache or null if the cache does not exist or is not an asynchronous one
+     */
+    default AsyncLoadingCache<Object, Object> getAsyncLoadingCache(String cacheName) {
+        return null;
+    }
+
+    /**
+     * @return the names of all the caches. It is empty by default as the older cache managers cannot list them,
+     * and these caches are not shown in the cache explorer or the metrics.
+     */
+    default Set<String> getCacheNames() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * @param cacheName the cache name
+     * @return the statistics of the cache or null if the cache does not exist. It is empty if the recordStats
+     * is false for the cache.
+     */
+    default CacheStats getStats(String cacheName) {
+        Cache<Object, Object> cache = getCache(cacheName);
+        return cache == null ? null : cache.stats();
+    }
+
+    /**
+     * @param cacheName the cache name
+     * @return the off-heap tier of the cache or null if the offHeapSize is not set for the cache
+     */
+    default OffHeapStore getOffHeapStore(String cacheName) {
+        return null;
+    }
+
     void removeCache(String cacheName);
 }
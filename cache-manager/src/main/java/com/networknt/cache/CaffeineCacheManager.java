@@ -1,14 +1,41 @@
 package com.networknt.cache;
 
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 public class CaffeineCacheManager implements CacheManager {
+    private static final Logger logger = LoggerFactory.getLogger(CaffeineCacheManager.class);
+    private static final ByteSizeWeigher WEIGHER = new ByteSizeWeigher();
     private final Map<String, Cache<Object, Object>> caches = new ConcurrentHashMap<>();
+    private final Map<String, AsyncLoadingCache<Object, Object>> asyncCaches = new ConcurrentHashMap<>();
+    private final Ticker ticker;
+
+    public CaffeineCacheManager() {
+        this(Ticker.systemTicker());
+    }
+
+    /**
+     * Only for testing to control the expiry and refresh of the caches.
+     * @param ticker the time source
+     */
+    CaffeineCacheManager(Ticker ticker) {
+        this.ticker = ticker;
+    }
 
     @Override
     public void addCache(String cacheName, long maximumSize, long expiryInMinutes) {
@@ -19,17 +46,107 @@ public class CaffeineCacheManager implements CacheManager {
         caches.put(cacheName, cache);
     }
 
+    @Override
+    public void addCache(CacheItem cacheItem) {
+        if(cacheItem.getOffHeapSize() > 0) {
+            OffHeapStore offHeap = new OffHeapStore(cacheItem.getOffHeapSize(), OffHeapStore.DEFAULT_BLOCK_SIZE);
+            long ttlNanos = TimeUnit.MINUTES.toNanos(Math.max(0, cacheItem.getExpiryInMinutes()));
+            // the expiry is set by the TieredCache to keep the remaining time to live of the entries across the tiers.
+            put(cacheItem.getCacheName(), TieredCache.build(builder(cacheItem, false, false), offHeap, cacheItem.getOffHeapThreshold(), ttlNanos));
+        } else {
+            put(cacheItem.getCacheName(), builder(cacheItem, false, true).build());
+        }
+    }
+
+    @Override
+    public LoadingCache<Object, Object> addLoadingCache(CacheItem cacheItem, CacheLoader<Object, Object> loader) {
+        warnOffHeap(cacheItem);
+        LoadingCache<Object, Object> cache = builder(cacheItem, true, true).build(loader);
+        put(cacheItem.getCacheName(), cache);
+        return cache;
+    }
+
+    @Override
+    public AsyncLoadingCache<Object, Object> addAsyncLoadingCache(CacheItem cacheItem, AsyncCacheLoader<Object, Object> loader) {
+        warnOffHeap(cacheItem);
+        AsyncLoadingCache<Object, Object> cache = builder(cacheItem, true, true).buildAsync(loader);
+        caches.put(cacheItem.getCacheName(), cache.synchronous());
+        asyncCaches.put(cacheItem.getCacheName(), cache);
+        return cache;
+    }
+
     @Override
     public Cache<Object, Object> getCache(String cacheName) {
         return caches.get(cacheName);
     }
 
+    @Override
+    public LoadingCache<Object, Object> getLoadingCache(String cacheName) {
+        Cache<Object, Object> cache = caches.get(cacheName);
+        return cache instanceof LoadingCache ? (LoadingCache<Object, Object>)cache : null;
+    }
+
+    @Override
+    public AsyncLoadingCache<Object, Object> getAsyncLoadingCache(String cacheName) {
+        return asyncCaches.get(cacheName);
+    }
+
+    @Override
+    public Set<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    @Override
+    public CacheStats getStats(String cacheName) {
+        Cache<Object, Object> cache = caches.get(cacheName);
+        return cache == null ? null : cache.stats();
+    }
+
+    @Override
+    public OffHeapStore getOffHeapStore(String cacheName) {
+        Cache<Object, Object> cache = caches.get(cacheName);
+        return cache instanceof TieredCache ? ((TieredCache)cache).getOffHeapStore() : null;
+    }
+
     @Override
     public void removeCache(String cacheName) {
         Cache<Object, Object> cache = caches.get(cacheName);
         if (cache != null) {
             cache.invalidateAll();
             caches.remove(cacheName);
+            asyncCaches.remove(cacheName);
+        }
+    }
+
+    private void put(String cacheName, Cache<Object, Object> cache) {
+        caches.put(cacheName, cache);
+        // a synchronous cache replaces an asynchronous one with the same name.
+        asyncCaches.remove(cacheName);
+    }
+
+    private Caffeine<Object, Object> builder(CacheItem cacheItem, boolean loading, boolean expireAfterWrite) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().ticker(ticker);
+        if(cacheItem.getMaxWeight() > 0) {
+            builder.maximumWeight(cacheItem.getMaxWeight()).weigher(WEIGHER);
+        } else {
+            builder.maximumSize(cacheItem.getMaxSize());
+        }
+        if(expireAfterWrite && cacheItem.getExpiryInMinutes() > 0) {
+            builder.expireAfterWrite(cacheItem.getExpiryInMinutes(), TimeUnit.MINUTES);
+        }
+        // refresh is only meaningful with a loader to reload the entry.
+        if(loading && cacheItem.getRefreshInMinutes() > 0) {
+            builder.refreshAfterWrite(cacheItem.getRefreshInMinutes(), TimeUnit.MINUTES);
+        }
+        if(cacheItem.isRecordStats()) {
+            builder.recordStats();
+        }
+        return builder;
+    }
+
+    private static void warnOffHeap(CacheItem cacheItem) {
+        if(cacheItem.getOffHeapSize() > 0) {
+            logger.warn("The off-heap tier is only supported by the caches without a loader and it is ignored for cache " + cacheItem.getCacheName());
         }
     }
 }
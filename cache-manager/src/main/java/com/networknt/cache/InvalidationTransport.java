@@ -0,0 +1,30 @@
+package com.networknt.cache;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * The transport of the cache invalidation messages between the instances of the service. The implementation is
+ * configured in the service.yml, and the CacheInvalidator is only started if there is one.
+ *
+ * @author Steve Hu
+ */
+public interface InvalidationTransport {
+    /**
+     * Start to receive the messages from the other instances.
+     *
+     * @param listener the consumer of the received messages
+     * @throws IOException if the transport cannot be started
+     */
+    void start(Consumer<String> listener) throws IOException;
+
+    /**
+     * Send a message to all the instances. A message that cannot be sent is logged and dropped, as the entries
+     * will expire anyway.
+     *
+     * @param message the message
+     */
+    void publish(String message);
+
+    void close();
+}
@@ -0,0 +1,34 @@
+package com.networknt.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * An InvalidationTransport that delivers the messages to all the started transports in the same JVM. It is used
+ * to test the invalidation of multiple cache managers without a network.
+ *
+ * @author Steve Hu
+ */
+public class LoopbackTransport implements InvalidationTransport {
+    private static final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private Consumer<String> listener;
+
+    @Override
+    public void start(Consumer<String> listener) {
+        this.listener = listener;
+        listeners.add(listener);
+    }
+
+    @Override
+    public void publish(String message) {
+        for(Consumer<String> l: listeners) {
+            l.accept(message);
+        }
+    }
+
+    @Override
+    public void close() {
+        if(listener != null) listeners.remove(listener);
+    }
+}
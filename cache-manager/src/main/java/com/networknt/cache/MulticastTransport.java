@@ -0,0 +1,95 @@
+package com.networknt.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * An InvalidationTransport that sends the messages as UDP datagrams to a multicast group that all the instances
+ * join. The group, port and the network interface are configured in the cache.yml. The multicast is only
+ * available if the instances are in the same network that routes it, and a lost datagram is not resent.
+ *
+ * @author Steve Hu
+ */
+public class MulticastTransport implements InvalidationTransport {
+    private static final Logger logger = LoggerFactory.getLogger(MulticastTransport.class);
+    static final int MAX_DATAGRAM_SIZE = 65507;
+
+    private final InetSocketAddress group;
+    private final NetworkInterface networkInterface;
+    private final int timeToLive;
+    private MulticastSocket socket;
+    private Thread receiver;
+    private volatile boolean running;
+
+    public MulticastTransport() throws IOException {
+        this(CacheConfig.load());
+    }
+
+    MulticastTransport(CacheConfig config) throws IOException {
+        this.group = new InetSocketAddress(InetAddress.getByName(config.getMulticastGroup()), config.getMulticastPort());
+        this.networkInterface = config.getMulticastInterface() == null ? null : NetworkInterface.getByName(config.getMulticastInterface());
+        this.timeToLive = config.getMulticastTtl();
+    }
+
+    @Override
+    public synchronized void start(Consumer<String> listener) throws IOException {
+        socket = new MulticastSocket(group.getPort());
+        socket.setTimeToLive(timeToLive);
+        if(networkInterface != null) socket.setNetworkInterface(networkInterface);
+        socket.joinGroup(group, networkInterface);
+        running = true;
+        receiver = new Thread(() -> {
+            byte[] buffer = new byte[MAX_DATAGRAM_SIZE];
+            while(running) {
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                try {
+                    socket.receive(packet);
+                    listener.accept(new String(packet.getData(), packet.getOffset(), packet.getLength(), StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    if(running) logger.error("Failed to receive the cache invalidation message", e);
+                } catch (RuntimeException e) {
+                    logger.error("Failed to handle the cache invalidation message", e);
+                }
+            }
+        }, "cache-invalidation-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+        if(logger.isInfoEnabled()) logger.info("MulticastTransport joined group " + group);
+    }
+
+    @Override
+    public void publish(String message) {
+        byte[] data = message.getBytes(StandardCharsets.UTF_8);
+        if(data.length > MAX_DATAGRAM_SIZE) {
+            logger.error("Cache invalidation message of " + data.length + " bytes is too large for a datagram and it is dropped.");
+            return;
+        }
+        try {
+            socket.send(new DatagramPacket(data, data.length, group));
+        } catch (IOException e) {
+            logger.error("Failed to send the cache invalidation message", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if(socket != null) {
+            try {
+                socket.leaveGroup(group, networkInterface);
+            } catch (IOException e) {
+                if(logger.isDebugEnabled()) logger.debug("Failed to leave the group " + group, e);
+            }
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.networknt.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An LRU store of serialized values outside the Java heap. The memory is allocated as direct ByteBuffer slabs
+ * that are split into fixed size blocks, and a value takes as many blocks as needed. The free blocks are kept
+ * in a stack so that allocation and release do not create garbage. When there are not enough free blocks for
+ * a new value, the least recently used values are evicted until the value fits.
+ *
+ * The store is used as the second tier of a cache so that the large values evicted from the heap are kept
+ * without adding to the GC pressure. The operations are synchronized as they are only called when an entry
+ * is moved between the tiers.
+ *
+ * @author Steve Hu
+ */
+public class OffHeapStore {
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+    // the maximum size of a direct buffer is limited by int, and a smaller slab is easier to allocate.
+    static final int MAX_SLAB_SIZE = 64 * 1024 * 1024;
+
+    private final int blockSize;
+    private final int blocksPerSlab;
+    private final ByteBuffer[] slabs;
+    private final int[] freeBlocks;
+    private int freeCount;
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param capacity the maximum bytes of the direct memory allocated
+     * @param blockSize the bytes of a block, which is the unit of the allocation
+     */
+    public OffHeapStore(long capacity, int blockSize) {
+        if(blockSize <= 0 || capacity < blockSize) {
+            throw new IllegalArgumentException("capacity " + capacity + " must be greater than the block size " + blockSize);
+        }
+        this.blockSize = blockSize;
+        this.blocksPerSlab = Math.max(1, MAX_SLAB_SIZE / blockSize);
+        long blocks = capacity / blockSize;
+        if(blocks > Integer.MAX_VALUE) blocks = Integer.MAX_VALUE;
+        int totalBlocks = (int)blocks;
+        int slabCount = (totalBlocks + blocksPerSlab - 1) / blocksPerSlab;
+        slabs = new ByteBuffer[slabCount];
+        for(int i = 0; i < slabCount; i++) {
+            int slabBlocks = Math.min(blocksPerSlab, totalBlocks - i * blocksPerSlab);
+            slabs[i] = ByteBuffer.allocateDirect(slabBlocks * blockSize);
+        }
+        freeBlocks = new int[totalBlocks];
+        // pop from the end so that the blocks are allocated in order.
+        for(int i = 0; i < totalBlocks; i++) {
+            freeBlocks[i] = totalBlocks - 1 - i;
+        }
+        freeCount = totalBlocks;
+    }
+
+    /**
+     * Put the serialized value and replace the existing one for the key. The least recently used values are
+     * evicted if there are not enough free blocks.
+     *
+     * @param key the key
+     * @param data the serialized value
+     * @param expireAt the System.nanoTime() after which the value is expired or 0 if it never expires
+     * @return false if the value is larger than the capacity of the store
+     */
+    public synchronized boolean put(Object key, byte[] data, long expireAt) {
+        release(entries.remove(key));
+        int needed = Math.max(1, (data.length + blockSize - 1) / blockSize);
+        if(needed > freeBlocks.length) return false;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while(freeCount < needed && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            release(eldest);
+            evictionCount.increment();
+        }
+        int[] blocks = new int[needed];
+        for(int i = 0; i < needed; i++) {
+            blocks[i] = freeBlocks[--freeCount];
+            int offset = i * blockSize;
+            write(blocks[i], data, offset, Math.min(blockSize, data.length - offset));
+        }
+        entries.put(key, new Entry(blocks, data.length, expireAt));
+        usedBytes += data.length;
+        return true;
+    }
+
+    /**
+     * Get the serialized value and keep it in the store.
+     *
+     * @param key the key
+     * @return the serialized value or null if it is not in the store or expired
+     */
+    public synchronized byte[] get(Object key) {
+        Entry entry = live(key);
+        return entry == null ? null : read(entry);
+    }
+
+    /**
+     * Remove the serialized value from the store and return it. This is used to promote a value to the heap.
+     *
+     * @param key the key
+     * @return the serialized value or null if it is not in the store or expired
+     */
+    public synchronized byte[] take(Object key) {
+        Entry entry = live(key);
+        if(entry == null) return null;
+        byte[] data = read(entry);
+        entries.remove(key);
+        release(entry);
+        return data;
+    }
+
+    /**
+     * @param key the key
+     * @return the System.nanoTime() after which the value is expired, or 0 if it never expires or it is not in the store
+     */
+    public synchronized long getExpireAt(Object key) {
+        Entry entry = entries.get(key);
+        return entry == null ? 0 : entry.expireAt;
+    }
+
+    public synchronized void remove(Object key) {
+        release(entries.remove(key));
+    }
+
+    public synchronized void clear() {
+        for(Entry entry: entries.values()) {
+            release(entry);
+        }
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the bytes of the serialized values in the store
+     */
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * @return the bytes of the direct memory allocated
+     */
+    public long capacity() {
+        return (long)freeBlocks.length * blockSize;
+    }
+
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    public long evictionCount() {
+        return evictionCount.sum();
+    }
+
+    private Entry live(Object key) {
+        Entry entry = entries.get(key);
+        if(entry != null && entry.expireAt != 0 && entry.expireAt - System.nanoTime() < 0) {
+            entries.remove(key);
+            release(entry);
+            entry = null;
+        }
+        if(entry == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return entry;
+    }
+
+    private void release(Entry entry) {
+        if(entry == null) return;
+        for(int block: entry.blocks) {
+            freeBlocks[freeCount++] = block;
+        }
+        usedBytes -= entry.length;
+    }
+
+    private void write(int block, byte[] data, int offset, int length) {
+        // the position of the slab is shared, which is safe as all the operations are synchronized.
+        ByteBuffer slab = slabs[block / blocksPerSlab];
+        slab.position((block % blocksPerSlab) * blockSize);
+        slab.put(data, offset, length);
+    }
+
+    private byte[] read(Entry entry) {
+        byte[] data = new byte[entry.length];
+        for(int i = 0; i < entry.blocks.length; i++) {
+            int block = entry.blocks[i];
+            int offset = i * blockSize;
+            ByteBuffer slab = slabs[block / blocksPerSlab];
+            slab.position((block % blocksPerSlab) * blockSize);
+            slab.get(data, offset, Math.min(blockSize, entry.length - offset));
+        }
+        return data;
+    }
+
+    private static final class Entry {
+        final int[] blocks;
+        final int length;
+        final long expireAt;
+
+        Entry(int[] blocks, int length, long expireAt) {
+            this.blocks = blocks;
+            this.length = length;
+            this.expireAt = expireAt;
+        }
+    }
+}
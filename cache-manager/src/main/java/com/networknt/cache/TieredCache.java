@@ -0,0 +1,311 @@
+package com.networknt.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * A cache with the heap Caffeine cache as the first tier and an OffHeapStore as the second tier. The entries
+ * are always added to the heap. When an entry is evicted from the heap because of the size and its serialized
+ * value is not less than the threshold, it is demoted to the off-heap store. When a key is not in the heap, the
+ * off-heap store is checked and the entry found is promoted back to the heap. So the hot and small entries stay
+ * on the heap and the large cold entries are moved out of the GC-managed space.
+ *
+ * An entry keeps the expiry of its original write when it moves between the tiers. Only the remaining time to
+ * live is passed to the off-heap store on demotion and to the heap on promotion, so moving back and forth never
+ * extends the life of an entry beyond the expiryInMinutes of the cache.
+ *
+ * Only the strings, byte arrays and Serializable values can be demoted. The asMap view is the heap tier only,
+ * and the statistics are the heap statistics, in which a promotion is counted as a miss.
+ *
+ * @author Steve Hu
+ */
+public class TieredCache implements Cache<Object, Object> {
+    private static final Logger logger = LoggerFactory.getLogger(TieredCache.class);
+    private static final byte TYPE_BYTES = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_SERIALIZED = 2;
+
+    private final Cache<Object, Object> heap;
+    private final OffHeapStore offHeap;
+
+    TieredCache(Cache<Object, Object> heap, OffHeapStore offHeap) {
+        this.heap = heap;
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * Build the heap cache with the builder and the off-heap store as the second tier. The heap entries expire
+     * after the time to live since they are written, and a promoted entry expires with the remaining time.
+     *
+     * @param builder the builder of the heap cache without the expiry
+     * @param offHeap the off-heap store
+     * @param threshold the minimum bytes of the serialized value to be demoted
+     * @param ttlNanos the time to live of the entries or 0 if they never expire
+     * @return TieredCache
+     */
+    static TieredCache build(Caffeine<Object, Object> builder, OffHeapStore offHeap, int threshold, long ttlNanos) {
+        AtomicReference<Cache<Object, Object>> heap = new AtomicReference<>();
+        if(ttlNanos > 0) builder.expireAfter(new WriteExpiry(ttlNanos));
+        // the listener is called in the eviction so that a concurrent get cannot miss in both tiers.
+        builder.evictionListener((key, value, cause) -> demote(heap.get(), offHeap, threshold, key, value, cause));
+        heap.set(builder.build());
+        return new TieredCache(heap.get(), offHeap);
+    }
+
+    public OffHeapStore getOffHeapStore() {
+        return offHeap;
+    }
+
+    @Override
+    public Object getIfPresent(Object key) {
+        Object value = heap.getIfPresent(key);
+        if(value == null) {
+            value = promote(key);
+        }
+        return value;
+    }
+
+    @Override
+    public Object get(Object key, Function<? super Object, ?> mappingFunction) {
+        Object value = getIfPresent(key);
+        return value != null ? value : heap.get(key, mappingFunction);
+    }
+
+    @Override
+    public Map<Object, Object> getAllPresent(Iterable<?> keys) {
+        Map<Object, Object> result = new HashMap<>(heap.getAllPresent(keys));
+        for(Object key: keys) {
+            if(!result.containsKey(key)) {
+                Object value = promote(key);
+                if(value != null) result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<Object, Object> getAll(Iterable<?> keys, Function<? super Set<?>, ? extends Map<?, ?>> mappingFunction) {
+        Map<Object, Object> result = new HashMap<>(getAllPresent(keys));
+        Set<Object> missing = new HashSet<>();
+        for(Object key: keys) {
+            if(!result.containsKey(key)) missing.add(key);
+        }
+        if(!missing.isEmpty()) {
+            Map<?, ?> loaded = mappingFunction.apply(missing);
+            for(Map.Entry<?, ?> entry: loaded.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+                if(missing.contains(entry.getKey())) result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        heap.put(key, value);
+        offHeap.remove(key);
+    }
+
+    @Override
+    public void putAll(Map<?, ?> map) {
+        heap.putAll(map);
+        for(Object key: map.keySet()) {
+            offHeap.remove(key);
+        }
+    }
+
+    @Override
+    public void invalidate(Object key) {
+        heap.invalidate(key);
+        offHeap.remove(key);
+    }
+
+    @Override
+    public void invalidateAll(Iterable<?> keys) {
+        heap.invalidateAll(keys);
+        for(Object key: keys) {
+            offHeap.remove(key);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        heap.invalidateAll();
+        offHeap.clear();
+    }
+
+    @Override
+    public long estimatedSize() {
+        return heap.estimatedSize() + offHeap.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return heap.stats();
+    }
+
+    @Override
+    public ConcurrentMap<Object, Object> asMap() {
+        return heap.asMap();
+    }
+
+    @Override
+    public void cleanUp() {
+        heap.cleanUp();
+    }
+
+    @Override
+    public Policy<Object, Object> policy() {
+        return heap.policy();
+    }
+
+    private Object promote(Object key) {
+        byte[] data;
+        long expireAt;
+        // read the expiry and take the value in one step of the store.
+        synchronized (offHeap) {
+            expireAt = offHeap.getExpireAt(key);
+            data = offHeap.take(key);
+        }
+        if(data == null) return null;
+        Object value = decode(data);
+        if(value == null) return null;
+        Object existing;
+        Optional<Policy.VarExpiration<Object, Object>> expiration = heap.policy().expireVariably();
+        if(expiration.isPresent() && expireAt != 0) {
+            long remaining = expireAt - System.nanoTime();
+            // expired after it is taken from the store.
+            if(remaining <= 0) return null;
+            existing = expiration.get().putIfAbsent(key, value, remaining, TimeUnit.NANOSECONDS);
+        } else {
+            existing = heap.asMap().putIfAbsent(key, value);
+        }
+        // keep the value put by another thread in the meantime.
+        return existing != null ? existing : value;
+    }
+
+    /**
+     * Move an entry evicted from the heap to the off-heap store if it is evicted because of the size and the
+     * serialized value is large enough. It is called in the eviction of the heap cache, where the entry is still
+     * visible to the expiry policy, so it is stored with its remaining time to live. The entry is dropped if the
+     * remaining time is not known.
+     *
+     * @param heap the heap cache
+     * @param offHeap the off-heap store
+     * @param threshold the minimum bytes of the serialized value to be demoted
+     * @param key the key
+     * @param value the value
+     * @param cause the removal cause
+     */
+    static void demote(Cache<Object, Object> heap, OffHeapStore offHeap, int threshold, Object key, Object value, RemovalCause cause) {
+        if(cause != RemovalCause.SIZE || key == null || value == null) return;
+        long expireAt = 0;
+        Optional<Policy.VarExpiration<Object, Object>> expiration = heap.policy().expireVariably();
+        if(expiration.isPresent()) {
+            OptionalLong remaining = expiration.get().getExpiresAfter(key, TimeUnit.NANOSECONDS);
+            if(!remaining.isPresent() || remaining.getAsLong() <= 0) return;
+            expireAt = System.nanoTime() + remaining.getAsLong();
+        }
+        byte[] data = encode(value);
+        if(data == null || data.length < threshold) return;
+        offHeap.put(key, data, expireAt);
+    }
+
+    static byte[] encode(Object value) {
+        if(value instanceof byte[]) {
+            byte[] bytes = (byte[])value;
+            byte[] data = new byte[bytes.length + 1];
+            data[0] = TYPE_BYTES;
+            System.arraycopy(bytes, 0, data, 1, bytes.length);
+            return data;
+        }
+        if(value instanceof String) {
+            byte[] bytes = ((String)value).getBytes(StandardCharsets.UTF_8);
+            byte[] data = new byte[bytes.length + 1];
+            data[0] = TYPE_STRING;
+            System.arraycopy(bytes, 0, data, 1, bytes.length);
+            return data;
+        }
+        if(value instanceof Serializable) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(TYPE_SERIALIZED);
+            try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+                oos.writeObject(value);
+            } catch (IOException e) {
+                // a Serializable object may still have a field that cannot be serialized.
+                if(logger.isDebugEnabled()) logger.debug("Value of " + value.getClass() + " cannot be serialized", e);
+                return null;
+            }
+            return out.toByteArray();
+        }
+        return null;
+    }
+
+    static Object decode(byte[] data) {
+        switch (data[0]) {
+            case TYPE_BYTES:
+                return Arrays.copyOfRange(data, 1, data.length);
+            case TYPE_STRING:
+                return new String(data, 1, data.length - 1, StandardCharsets.UTF_8);
+            default:
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data, 1, data.length - 1))) {
+                    return ois.readObject();
+                } catch (IOException | ClassNotFoundException e) {
+                    logger.error("Failed to deserialize the off-heap value", e);
+                    return null;
+                }
+        }
+    }
+
+    /**
+     * Expire the entries after the time to live since they are written. It replaces the expireAfterWrite of
+     * the heap cache so that a promoted entry can be put with its remaining time to live.
+     */
+    static final class WriteExpiry implements Expiry<Object, Object> {
+        private final long ttlNanos;
+
+        WriteExpiry(long ttlNanos) {
+            this.ttlNanos = ttlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            return ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return ttlNanos;
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -9,5 +9,13 @@ public class CacheConfigTest {
         CacheConfig config = CacheConfig.load();
         System.out.println("config = " + config);
         Assert.assertEquals(2, config.getCaches().size());
+        CacheItem cache1 = config.getCaches().get(0);
+        Assert.assertEquals(0, cache1.getRefreshInMinutes());
+        Assert.assertEquals(0, cache1.getMaxWeight());
+        Assert.assertTrue(cache1.isRecordStats());
+        CacheItem cache2 = config.getCaches().get(1);
+        Assert.assertEquals(10, cache2.getRefreshInMinutes());
+        Assert.assertEquals(1048576, cache2.getMaxWeight());
+        Assert.assertFalse(cache2.isRecordStats());
     }
 }
@@ -0,0 +1,85 @@
+package com.networknt.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CacheInvalidatorTest {
+    CaffeineCacheManager manager1;
+    CaffeineCacheManager manager2;
+    CacheInvalidator invalidator1;
+    CacheInvalidator invalidator2;
+
+    @Before
+    public void setUp() throws Exception {
+        manager1 = new CaffeineCacheManager();
+        manager2 = new CaffeineCacheManager();
+        for(CaffeineCacheManager manager: new CaffeineCacheManager[]{manager1, manager2}) {
+            manager.addCache(new CacheItem("dropdown", 60, 100));
+            manager.addCache(new CacheItem("jwk", 60, 100));
+        }
+        invalidator1 = new CacheInvalidator(manager1, new LoopbackTransport());
+        invalidator2 = new CacheInvalidator(manager2, new LoopbackTransport());
+        invalidator1.start();
+        invalidator2.start();
+    }
+
+    @After
+    public void tearDown() {
+        invalidator1.close();
+        invalidator2.close();
+    }
+
+    private static void fill(CaffeineCacheManager manager) {
+        manager.getCache("dropdown").put("country", "[]");
+        manager.getCache("dropdown").put("province", "[]");
+        manager.getCache("jwk").put("kid1", "key1");
+    }
+
+    @Test
+    public void testInvalidateKeys() {
+        fill(manager1);
+        fill(manager2);
+        invalidator1.invalidate("dropdown", "country");
+        for(CaffeineCacheManager manager: new CaffeineCacheManager[]{manager1, manager2}) {
+            Cache<Object, Object> cache = manager.getCache("dropdown");
+            Assert.assertNull(cache.getIfPresent("country"));
+            Assert.assertEquals("[]", cache.getIfPresent("province"));
+            Assert.assertEquals("key1", manager.getCache("jwk").getIfPresent("kid1"));
+        }
+    }
+
+    @Test
+    public void testInvalidateCache() {
+        fill(manager1);
+        fill(manager2);
+        invalidator2.invalidate("dropdown");
+        for(CaffeineCacheManager manager: new CaffeineCacheManager[]{manager1, manager2}) {
+            Assert.assertEquals(0, manager.getCache("dropdown").estimatedSize());
+            Assert.assertEquals("key1", manager.getCache("jwk").getIfPresent("kid1"));
+        }
+        // unknown cache is ignored.
+        invalidator2.invalidate("unknown", "key");
+    }
+
+    @Test
+    public void testBatchKeys() {
+        java.util.List<String> keys = new java.util.ArrayList<>();
+        for(int i = 0; i < 250; i++) {
+            manager2.getCache("jwk").put("kid" + i, "key" + i);
+            keys.add("kid" + i);
+        }
+        invalidator1.invalidate("jwk", keys);
+        Assert.assertEquals(0, manager2.getCache("jwk").estimatedSize());
+    }
+
+    @Test
+    public void testInvalidMessage() {
+        manager1.getCache("jwk").put("kid1", "key1");
+        invalidator1.onMessage("not json");
+        invalidator1.onMessage("{\"origin\":\"other\"}");
+        Assert.assertEquals("key1", manager1.getCache("jwk").getIfPresent("kid1"));
+    }
+}
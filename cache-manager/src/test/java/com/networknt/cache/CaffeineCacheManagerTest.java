@@ -0,0 +1,163 @@
+package com.networknt.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CaffeineCacheManagerTest {
+    @Test
+    public void testLoadingCacheRefresh() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(nanos::get);
+        CacheItem item = new CacheItem("loading", 60, 100);
+        item.setRefreshInMinutes(10);
+        AtomicInteger loads = new AtomicInteger();
+        LoadingCache<Object, Object> cache = cacheManager.addLoadingCache(item, key -> key + "-" + loads.incrementAndGet());
+        Assert.assertEquals("a-1", cache.get("a"));
+        Assert.assertEquals("a-1", cache.get("a"));
+        Assert.assertEquals(1, loads.get());
+
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(11));
+        // the stale value is returned and the reload is triggered.
+        // the reload runs in the common pool and the stale value is returned unless it completes right away.
+        Object value = cache.get("a");
+        Assert.assertTrue("a-1".equals(value) || "a-2".equals(value));
+        for(int i = 0; i < 100 && !"a-2".equals(cache.getIfPresent("a")); i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals("a-2", cache.getIfPresent("a"));
+        Assert.assertEquals(2, loads.get());
+
+        CacheStats stats = cacheManager.getStats("loading");
+        Assert.assertTrue(stats.hitCount() >= 3);
+        Assert.assertEquals(1, stats.missCount());
+        Assert.assertTrue(cacheManager.getCacheNames().contains("loading"));
+    }
+
+    @Test
+    public void testAsyncLoadingCache() throws Exception {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        AsyncLoadingCache<Object, Object> cache = cacheManager.addAsyncLoadingCache(new CacheItem("async", 10, 100),
+                (key, executor) -> CompletableFuture.completedFuture(key.toString().toUpperCase()));
+        Assert.assertEquals("A", cache.get("a").get());
+        Assert.assertSame(cache, cacheManager.getAsyncLoadingCache("async"));
+        // the synchronous view is available with the getCache.
+        Assert.assertEquals("A", cacheManager.getCache("async").getIfPresent("a"));
+        Assert.assertNotNull(cacheManager.getLoadingCache("async"));
+        cacheManager.removeCache("async");
+        Assert.assertNull(cacheManager.getAsyncLoadingCache("async"));
+    }
+
+    @Test
+    public void testWeightedCache() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        CacheItem item = new CacheItem("weighted", 10, 0);
+        item.setMaxWeight(10000);
+        cacheManager.addCache(item);
+        Cache<Object, Object> cache = cacheManager.getCache("weighted");
+        for(int i = 0; i < 100; i++) {
+            cache.put("key" + i, new byte[1000]);
+        }
+        cache.cleanUp();
+        Assert.assertTrue(cache.estimatedSize() < 10);
+        Assert.assertTrue(cacheManager.getStats("weighted").evictionCount() > 90);
+    }
+
+    @Test
+    public void testByteSizeWeigher() {
+        Assert.assertEquals(ByteSizeWeigher.OBJECT_OVERHEAD + 10, ByteSizeWeigher.estimate("12345"));
+        Assert.assertEquals(ByteSizeWeigher.OBJECT_OVERHEAD + 100, ByteSizeWeigher.estimate(new byte[100]));
+        Assert.assertTrue(ByteSizeWeigher.estimate(java.util.Collections.singletonMap("key", "value"))
+                > ByteSizeWeigher.estimate("key") + ByteSizeWeigher.estimate("value"));
+        Assert.assertTrue(ByteSizeWeigher.estimate(new CacheItem("name", 1, 1)) > ByteSizeWeigher.OBJECT_OVERHEAD);
+    }
+
+    @Test
+    public void testAddLoadingCacheFromConfig() throws Exception {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        LoadingCache<Object, Object> cache = cacheManager.addLoadingCache("cache2", key -> "v");
+        Assert.assertEquals("v", cache.get("k"));
+        // recordStats is false for cache2 in the values.yml
+        Assert.assertEquals(0, cacheManager.getStats("cache2").missCount());
+    }
+
+    @Test
+    public void testTieredCache() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        CacheItem item = new CacheItem("tiered", 10, 2);
+        item.setOffHeapSize(1024 * 1024);
+        item.setOffHeapThreshold(1000);
+        cacheManager.addCache(item);
+        Cache<Object, Object> cache = cacheManager.getCache("tiered");
+        Assert.assertTrue(cache instanceof TieredCache);
+        OffHeapStore offHeap = cacheManager.getOffHeapStore("tiered");
+
+        char[] chars = new char[2000];
+        java.util.Arrays.fill(chars, 'x');
+        String large = new String(chars);
+        cache.put("large", large);
+        cache.put("small", "s");
+        // evict all the entries from the heap by the size.
+        cache.policy().eviction().get().setMaximum(0);
+        cache.cleanUp();
+        cache.policy().eviction().get().setMaximum(2);
+        // the large value is demoted and the small one is dropped.
+        Assert.assertEquals(1, offHeap.size());
+        Assert.assertNull(cache.getIfPresent("small"));
+        Assert.assertEquals(large, cache.getIfPresent("large"));
+        // promoted back to the heap
+        Assert.assertEquals(0, offHeap.size());
+        Assert.assertEquals(large, cache.asMap().get("large"));
+
+        cache.invalidateAll();
+        Assert.assertEquals(0, cache.estimatedSize());
+    }
+
+    @Test
+    public void testTieredCacheKeepsExpiry() {
+        AtomicLong nanos = new AtomicLong();
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(nanos::get);
+        CacheItem item = new CacheItem("tieredExpiry", 10, 10);
+        item.setOffHeapSize(1024 * 1024);
+        item.setOffHeapThreshold(1);
+        cacheManager.addCache(item);
+        Cache<Object, Object> cache = cacheManager.getCache("tieredExpiry");
+        OffHeapStore offHeap = cacheManager.getOffHeapStore("tieredExpiry");
+
+        cache.put("key", "value");
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(6));
+        cache.policy().eviction().get().setMaximum(0);
+        cache.cleanUp();
+        cache.policy().eviction().get().setMaximum(10);
+        // only the remaining 4 minutes are kept in the off-heap store.
+        Assert.assertEquals(1, offHeap.size());
+        long remaining = offHeap.getExpireAt("key") - System.nanoTime();
+        Assert.assertTrue(remaining > 0 && remaining <= TimeUnit.MINUTES.toNanos(4));
+
+        // promoted back to the heap with the remaining time, not another 10 minutes.
+        Assert.assertEquals("value", cache.getIfPresent("key"));
+        long expiresAfter = cache.policy().expireVariably().get().getExpiresAfter("key", TimeUnit.NANOSECONDS).getAsLong();
+        Assert.assertTrue(expiresAfter <= TimeUnit.MINUTES.toNanos(4));
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(5));
+        Assert.assertNull(cache.getIfPresent("key"));
+        Assert.assertEquals(0, offHeap.size());
+    }
+
+    @Test
+    public void testTieredCodec() {
+        java.util.HashMap<String, Object> map = new java.util.HashMap<>();
+        map.put("key", java.util.Arrays.asList(1, 2, 3));
+        Assert.assertEquals(map, TieredCache.decode(TieredCache.encode(map)));
+        Assert.assertEquals("value", TieredCache.decode(TieredCache.encode("value")));
+        Assert.assertArrayEquals(new byte[]{1, 2}, (byte[])TieredCache.decode(TieredCache.encode(new byte[]{1, 2})));
+        Assert.assertNull(TieredCache.encode(new Object()));
+    }
+}
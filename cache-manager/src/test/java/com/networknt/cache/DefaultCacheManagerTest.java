@@ -1,9 +1,14 @@
 package com.networknt.cache;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 public class DefaultCacheManagerTest {
     @Test
     public void testDefaultCacheManager() {
@@ -24,4 +29,47 @@ public class DefaultCacheManagerTest {
         cache1.put("key", "value");
         Assert.assertEquals("value", cache1.getIfPresent("key"));
     }
+
+    /**
+     * A cache manager written before the loading caches only implements the original methods.
+     */
+    static class LegacyCacheManager implements CacheManager {
+        private final Map<String, Cache<Object, Object>> caches = new HashMap<>();
+
+        @Override
+        public void addCache(String cacheName, long maxSize, long expiryInMinutes) {
+            caches.put(cacheName, Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(expiryInMinutes, TimeUnit.MINUTES).recordStats().build());
+        }
+
+        @Override
+        public Cache<Object, Object> getCache(String cacheName) {
+            return caches.get(cacheName);
+        }
+
+        @Override
+        public void removeCache(String cacheName) {
+            caches.remove(cacheName);
+        }
+    }
+
+    @Test
+    public void testLegacyCacheManager() {
+        CacheManager cacheManager = new LegacyCacheManager();
+        cacheManager.addCache(new CacheItem("legacy", 10, 100));
+        Cache<Object, Object> cache = cacheManager.getCache("legacy");
+        cache.put("key", "value");
+        Assert.assertEquals("value", cache.getIfPresent("key"));
+        Assert.assertEquals(1, cacheManager.getStats("legacy").hitCount());
+        Assert.assertNull(cacheManager.getStats("unknown"));
+        Assert.assertNull(cacheManager.getLoadingCache("legacy"));
+        Assert.assertNull(cacheManager.getAsyncLoadingCache("legacy"));
+        Assert.assertNull(cacheManager.getOffHeapStore("legacy"));
+        Assert.assertTrue(cacheManager.getCacheNames().isEmpty());
+        try {
+            cacheManager.addLoadingCache(new CacheItem("loading", 10, 100), key -> key);
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+            // not supported by the legacy cache manager
+        }
+    }
 }
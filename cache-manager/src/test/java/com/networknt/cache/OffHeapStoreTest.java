@@ -0,0 +1,71 @@
+package com.networknt.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class OffHeapStoreTest {
+    private static byte[] bytes(int length, int seed) {
+        byte[] data = new byte[length];
+        for(int i = 0; i < length; i++) {
+            data[i] = (byte)(i * 31 + seed);
+        }
+        return data;
+    }
+
+    @Test
+    public void testPutGetAcrossBlocks() {
+        OffHeapStore store = new OffHeapStore(64 * 1024, 1024);
+        byte[] data = bytes(5000, 1);
+        Assert.assertTrue(store.put("a", data, 0));
+        Assert.assertArrayEquals(data, store.get("a"));
+        Assert.assertEquals(5000, store.usedBytes());
+        Assert.assertArrayEquals(data, store.take("a"));
+        Assert.assertNull(store.get("a"));
+        Assert.assertEquals(0, store.usedBytes());
+        Assert.assertEquals(1, store.missCount());
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        // 8 blocks and each value takes 3 blocks.
+        OffHeapStore store = new OffHeapStore(8 * 100, 100);
+        store.put("a", bytes(250, 1), 0);
+        store.put("b", bytes(250, 2), 0);
+        // touch a so that b is the eldest.
+        Assert.assertNotNull(store.get("a"));
+        Assert.assertTrue(store.put("c", bytes(250, 3), 0));
+        Assert.assertNull(store.get("b"));
+        Assert.assertArrayEquals(bytes(250, 1), store.get("a"));
+        Assert.assertArrayEquals(bytes(250, 3), store.get("c"));
+        Assert.assertEquals(1, store.evictionCount());
+        // larger than the capacity
+        Assert.assertFalse(store.put("d", bytes(900, 4), 0));
+    }
+
+    @Test
+    public void testReplaceAndExpire() {
+        OffHeapStore store = new OffHeapStore(4096, 256);
+        store.put("a", bytes(1000, 1), 0);
+        store.put("a", bytes(10, 2), 0);
+        Assert.assertArrayEquals(bytes(10, 2), store.get("a"));
+        Assert.assertEquals(10, store.usedBytes());
+        store.put("b", bytes(10, 3), System.nanoTime() - 1);
+        Assert.assertNull(store.get("b"));
+        Assert.assertEquals(1, store.size());
+        store.clear();
+        Assert.assertEquals(0, store.size());
+    }
+
+    @Test
+    public void testMultipleSlabs() {
+        OffHeapStore store = new OffHeapStore(OffHeapStore.MAX_SLAB_SIZE + 4096L, 4096);
+        for(int i = 0; i < 100; i++) {
+            store.put(i, bytes(100000, i), 0);
+        }
+        for(int i = 0; i < 100; i++) {
+            Assert.assertTrue(Arrays.equals(bytes(100000, i), store.get(i)));
+        }
+    }
+}
@@ -59,12 +59,32 @@ public final class ClientConfig {
     public static final long DEFAULT_CONNECTION_EXPIRE_TIME = 1000000;
     public static final int DEFAULT_MAX_CONNECTION_PER_HOST = 1000;
     public static final int DEFAULT_MIN_CONNECTION_PER_HOST = 250;
+    public static final int DEFAULT_SLIDING_WINDOW_SIZE = 100;
+    public static final int DEFAULT_MINIMUM_NUMBER_OF_CALLS = 10;
+    public static final int DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+    public static final int DEFAULT_SLOW_CALL_DURATION = 3000;
+    public static final int DEFAULT_SLOW_CALL_RATE_THRESHOLD = 100;
+    public static final int DEFAULT_HALF_OPEN_PROBES = 1;
+    public static final boolean DEFAULT_CIRCUIT_BREAKER_SERVER_ERRORS = false;
+    public static final int DEFAULT_RETRY_BUDGET_PERCENT = 10;
+    public static final int DEFAULT_RETRY_BUDGET_MIN_PER_SECOND = 10;
+    public static final int DEFAULT_HEDGE_MIN_DELAY = 10;
 
     private static final String CONNECTION_POOL_SIZE = "connectionPoolSize";
     private static final String MAX_REQUEST_PER_CONNECTION = "maxReqPerConn";
     private static final String CONNECTION_EXPIRE_TIME = "connectionExpireTime";
     private static final String MAX_CONNECTION_NUM_PER_HOST = "maxConnectionNumPerHost";
     private static final String MIN_CONNECTION_NUM_PER_HOST = "minConnectionNumPerHost";
+    private static final String SLIDING_WINDOW_SIZE = "slidingWindowSize";
+    private static final String MINIMUM_NUMBER_OF_CALLS = "minimumNumberOfCalls";
+    private static final String FAILURE_RATE_THRESHOLD = "failureRateThreshold";
+    private static final String SLOW_CALL_DURATION = "slowCallDuration";
+    private static final String SLOW_CALL_RATE_THRESHOLD = "slowCallRateThreshold";
+    private static final String HALF_OPEN_PROBES = "halfOpenProbes";
+    private static final String CIRCUIT_BREAKER_SERVER_ERRORS = "circuitBreakerServerErrors";
+    private static final String RETRY_BUDGET_PERCENT = "retryBudgetPercent";
+    private static final String RETRY_BUDGET_MIN_PER_SECOND = "retryBudgetMinPerSecond";
+    private static final String HEDGE_MIN_DELAY = "hedgeMinDelay";
 
     private final Config config;
     private final Map<String, Object> mappedConfig;
@@ -88,6 +108,16 @@ public final class ClientConfig {
     private long connectionExpireTime = DEFAULT_CONNECTION_EXPIRE_TIME;
     private int maxConnectionNumPerHost = DEFAULT_MAX_CONNECTION_PER_HOST;
     private int minConnectionNumPerHost = DEFAULT_MIN_CONNECTION_PER_HOST;
+    private int slidingWindowSize = DEFAULT_SLIDING_WINDOW_SIZE;
+    private int minimumNumberOfCalls = DEFAULT_MINIMUM_NUMBER_OF_CALLS;
+    private int failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+    private int slowCallDuration = DEFAULT_SLOW_CALL_DURATION;
+    private int slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+    private int halfOpenProbes = DEFAULT_HALF_OPEN_PROBES;
+    private boolean circuitBreakerServerErrors = DEFAULT_CIRCUIT_BREAKER_SERVER_ERRORS;
+    private int retryBudgetPercent = DEFAULT_RETRY_BUDGET_PERCENT;
+    private int retryBudgetMinPerSecond = DEFAULT_RETRY_BUDGET_MIN_PER_SECOND;
+    private int hedgeMinDelay = DEFAULT_HEDGE_MIN_DELAY;
 
     private static ClientConfig instance;
 
@@ -187,6 +217,36 @@ public final class ClientConfig {
         if (requestConfig.containsKey(MIN_CONNECTION_NUM_PER_HOST)) {
             minConnectionNumPerHost = (int) requestConfig.get(MIN_CONNECTION_NUM_PER_HOST);
         }
+        if (requestConfig.containsKey(SLIDING_WINDOW_SIZE)) {
+            slidingWindowSize = (int) requestConfig.get(SLIDING_WINDOW_SIZE);
+        }
+        if (requestConfig.containsKey(MINIMUM_NUMBER_OF_CALLS)) {
+            minimumNumberOfCalls = (int) requestConfig.get(MINIMUM_NUMBER_OF_CALLS);
+        }
+        if (requestConfig.containsKey(FAILURE_RATE_THRESHOLD)) {
+            failureRateThreshold = (int) requestConfig.get(FAILURE_RATE_THRESHOLD);
+        }
+        if (requestConfig.containsKey(SLOW_CALL_DURATION)) {
+            slowCallDuration = (int) requestConfig.get(SLOW_CALL_DURATION);
+        }
+        if (requestConfig.containsKey(SLOW_CALL_RATE_THRESHOLD)) {
+            slowCallRateThreshold = (int) requestConfig.get(SLOW_CALL_RATE_THRESHOLD);
+        }
+        if (requestConfig.containsKey(HALF_OPEN_PROBES)) {
+            halfOpenProbes = (int) requestConfig.get(HALF_OPEN_PROBES);
+        }
+        if (requestConfig.containsKey(CIRCUIT_BREAKER_SERVER_ERRORS)) {
+            circuitBreakerServerErrors = (boolean) requestConfig.get(CIRCUIT_BREAKER_SERVER_ERRORS);
+        }
+        if (requestConfig.containsKey(RETRY_BUDGET_PERCENT)) {
+            retryBudgetPercent = (int) requestConfig.get(RETRY_BUDGET_PERCENT);
+        }
+        if (requestConfig.containsKey(RETRY_BUDGET_MIN_PER_SECOND)) {
+            retryBudgetMinPerSecond = (int) requestConfig.get(RETRY_BUDGET_MIN_PER_SECOND);
+        }
+        if (requestConfig.containsKey(HEDGE_MIN_DELAY)) {
+            hedgeMinDelay = (int) requestConfig.get(HEDGE_MIN_DELAY);
+        }
     }
 
     private void setBufferSize() {
@@ -307,5 +367,45 @@ public final class ClientConfig {
         return minConnectionNumPerHost;
     }
 
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    public int getMinimumNumberOfCalls() {
+        return minimumNumberOfCalls;
+    }
+
+    public int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public int getSlowCallDuration() {
+        return slowCallDuration;
+    }
+
+    public int getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public int getHalfOpenProbes() {
+        return halfOpenProbes;
+    }
+
+    public boolean isCircuitBreakerServerErrors() {
+        return circuitBreakerServerErrors;
+    }
+
+    public int getRetryBudgetPercent() {
+        return retryBudgetPercent;
+    }
+
+    public int getRetryBudgetMinPerSecond() {
+        return retryBudgetMinPerSecond;
+    }
+
+    public int getHedgeMinDelay() {
+        return hedgeMinDelay;
+    }
+
     public boolean isMultipleAuthServers() { return multipleAuthServers; }
 }
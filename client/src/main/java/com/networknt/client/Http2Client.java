@@ -19,6 +19,7 @@
 package com.networknt.client;
 
 import com.networknt.client.circuitbreaker.CircuitBreaker;
+import com.networknt.client.circuitbreaker.CircuitBreakerRegistry;
 import com.networknt.client.http.*;
 import com.networknt.client.listener.ByteBufferReadChannelListener;
 import com.networknt.client.listener.ByteBufferWriteChannelListener;
@@ -41,7 +42,9 @@ import com.networknt.monad.Failure;
 import com.networknt.monad.Result;
 import com.networknt.service.SingletonServiceFactory;
 import com.networknt.status.Status;
+import com.networknt.utility.LatencyTracker;
 import com.networknt.utility.ModuleRegistry;
+import com.networknt.utility.RetryBudget;
 import com.networknt.config.TlsUtil;
 import com.networknt.utility.StringUtils;
 import io.opentracing.Tracer;
@@ -56,6 +59,8 @@ import io.undertow.server.DefaultByteBufferPool;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.AttachmentKey;
 import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import io.undertow.util.Methods;
 import io.undertow.util.StringReadChannelListener;
 import io.undertow.util.StringWriteChannelListener;
 import org.owasp.encoder.Encode;
@@ -84,7 +89,9 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import static io.undertow.client.http.HttpClientProvider.DISABLE_HTTPS_ENDPOINT_IDENTIFICATION_PROPERTY;
 
 /**
@@ -105,6 +112,10 @@ public class Http2Client {
             .set(Options.KEEP_ALIVE, true)
             .set(Options.WORKER_NAME, "Client").getMap();
     public static XnioWorker WORKER;
+    /**
+     * The methods that can be hedged as sending them twice has the same effect as sending them once.
+     */
+    private static final Set<HttpString> HEDGE_METHODS = Set.of(Methods.GET, Methods.HEAD, Methods.OPTIONS, Methods.PUT, Methods.DELETE);
     /**
      * @deprecated  As of release 1.6.11, replaced by {@link #getDefaultXnioSsl()}
      *              SSL is no longer statically initialized.
@@ -112,6 +123,7 @@ public class Http2Client {
     @Deprecated
     public static XnioSsl SSL;
     public static final AttachmentKey<String> RESPONSE_BODY = AttachmentKey.create(String.class);
+    public static final AttachmentKey<Object> RESPONSE_OBJECT = AttachmentKey.create(Object.class);
     public static AttachmentKey<ByteBuffer> BUFFER_BODY = AttachmentKey.create(ByteBuffer.class);
     public static final String HTTPS = "https";
     public static final String TLS = "tls";
@@ -279,6 +291,8 @@ public class Http2Client {
             return result.getIoFuture();
         }
         if(logger.isDebugEnabled()) logger.debug("Got a null or non open connection: {} from http2ClientConnectionPool. Creating a new one ...", connection);
+        // release the stream acquired on the connection that is closed.
+        http2ClientConnectionPool.resetConnectionStatus(connection);
         return connect(uri, worker, null, bufferPool, options);
     }
 
@@ -286,8 +300,7 @@ public class Http2Client {
         SimpleURIConnectionPool pool = pools.get(uri);
         if(pool == null) {
             SimpleConnectionMaker undertowConnectionMaker = SimpleClientConnectionMaker.instance();
-            pool = new SimpleURIConnectionPool(uri, ClientConfig.get().getConnectionExpireTime(), ClientConfig.get().getConnectionPoolSize(), null, worker, bufferPool, null, options, undertowConnectionMaker);
-            pools.putIfAbsent(uri, pool);
+            pool = pools.computeIfAbsent(uri, k -> new SimpleURIConnectionPool(k, ClientConfig.get().getConnectionExpireTime(), ClientConfig.get().getConnectionPoolSize(), null, worker, bufferPool, null, options, undertowConnectionMaker));
         }
         return pool.borrow(ClientConfig.get().getTimeout());
     }
@@ -312,6 +325,8 @@ public class Http2Client {
             return result.getIoFuture();
         }
         if(logger.isDebugEnabled()) logger.debug("Got a null or non open connection: {} from http2ClientConnectionPool. Creating a new one ...", connection);
+        // release the stream acquired on the connection that is closed.
+        http2ClientConnectionPool.resetConnectionStatus(connection);
         return connect(bindAddress, uri, worker, null, bufferPool, options);
     }
     @Deprecated
@@ -341,6 +356,15 @@ public class Http2Client {
         pools.get(token.uri()).restore(token);
     }
 
+    /**
+     * Get the connection pools used by the borrow and restore methods. It is used to report the pool metrics.
+     *
+     * @return an unmodifiable view of the connection pools by uri
+     */
+    public Map<URI, SimpleURIConnectionPool> getConnectionPools() {
+        return Collections.unmodifiableMap(pools);
+    }
+
     @Deprecated
     public IoFuture<ClientConnection> connect(final URI uri, final XnioWorker worker, XnioSsl ssl, ByteBufferPool bufferPool, OptionMap options) {
         if("https".equals(uri.getScheme()) && ssl == null) ssl = getDefaultXnioSsl();
@@ -362,17 +386,19 @@ public class Http2Client {
             return result.getIoFuture();
         }
         if(logger.isDebugEnabled()) logger.debug("Got a null or non open connection: {} from http2ClientConnectionPool. Creating a new one ...", connection);
+        // release the stream acquired on the connection that is closed.
+        http2ClientConnectionPool.resetConnectionStatus(connection);
         if("https".equals(uri.getScheme()) && ssl == null) ssl = getDefaultXnioSsl();
         return connect((InetSocketAddress) null, uri, worker, ssl, bufferPool, options);
     }
 
     public SimpleConnectionHolder.ConnectionToken borrow(final URI uri, final XnioWorker worker, XnioSsl ssl, ByteBufferPool bufferPool, OptionMap options) {
-        if(HTTPS.equals(uri.getScheme()) && ssl == null) ssl = getDefaultXnioSsl();
+        final XnioSsl xnioSsl = HTTPS.equals(uri.getScheme()) && ssl == null ? getDefaultXnioSsl() : ssl;
         SimpleURIConnectionPool pool = pools.get(uri);
         if(pool == null) {
             SimpleConnectionMaker undertowConnectionMaker = SimpleClientConnectionMaker.instance();
-            pool = new SimpleURIConnectionPool(uri, ClientConfig.get().getConnectionExpireTime(), ClientConfig.get().getConnectionPoolSize(), null, worker, bufferPool, ssl, options, undertowConnectionMaker);
-            pools.putIfAbsent(uri, pool);
+            // only one pool is created per uri, a pool that loses the race would hold connections nobody restores to
+            pool = pools.computeIfAbsent(uri, k -> new SimpleURIConnectionPool(k, ClientConfig.get().getConnectionExpireTime(), ClientConfig.get().getConnectionPoolSize(), null, worker, bufferPool, xnioSsl, options, undertowConnectionMaker));
         }
         return pool.borrow(ClientConfig.get().getTimeout());
     }
@@ -421,6 +447,8 @@ public class Http2Client {
             return result.getIoFuture();
         }
         if(logger.isDebugEnabled()) logger.debug("Got a null or non open connection: {} from http2ClientConnectionPool. Creating a new one ...", connection);
+        // release the stream acquired on the connection that is closed.
+        http2ClientConnectionPool.resetConnectionStatus(connection);
         return connect((InetSocketAddress) null, uri, ioThread, null, bufferPool, options);
     }
     @Deprecated
@@ -447,6 +475,8 @@ public class Http2Client {
             return result.getIoFuture();
         }
         if(logger.isDebugEnabled()) logger.debug("Got a null or non open connection: {} from http2ClientConnectionPool. Creating a new one ...", connection);
+        // release the stream acquired on the connection that is closed.
+        http2ClientConnectionPool.resetConnectionStatus(connection);
         return connect(bindAddress, uri, ioThread, null, bufferPool, options);
     }
     @Deprecated
@@ -469,6 +499,8 @@ public class Http2Client {
             return result.getIoFuture();
         }
         if(logger.isDebugEnabled()) logger.debug("Got a null or non open connection: {} from http2ClientConnectionPool. Creating a new one ...", connection);
+        // release the stream acquired on the connection that is closed.
+        http2ClientConnectionPool.resetConnectionStatus(connection);
         if("https".equals(uri.getScheme()) && ssl == null) ssl = getDefaultXnioSsl();
         return connect((InetSocketAddress) null, uri, ioThread, ssl, bufferPool, options);
     }
@@ -1233,37 +1265,32 @@ public class Http2Client {
         };
     }
 
+    /**
+     * Wrap the callService with a circuit breaker. The circuit is kept per host:port of the uri so that a
+     * failing host doesn't open the circuit of other hosts.
+     * @param uri URI of target service
+     * @param request request
+     * @param requestBody request body
+     * @return CircuitBreaker that can be called synchronously or asynchronously
+     */
     public CircuitBreaker getRequestService(URI uri, ClientRequest request, Optional<String> requestBody) {
-        return new CircuitBreaker(() -> callService(uri, request, requestBody));
+        return new CircuitBreaker(CircuitBreakerRegistry.key(uri), () -> callService(uri, request, requestBody));
     }
 
     public CircuitBreaker getRequestService(URI uri, ClientRequest request, Optional<String> requestBody, boolean isHttp2) {
-        return new CircuitBreaker(() -> callService(uri, request, requestBody, isHttp2));
+        return new CircuitBreaker(CircuitBreakerRegistry.key(uri), () -> callService(uri, request, requestBody, isHttp2));
     }
 
     /**
      * This method is used to call the service corresponding to the uri and obtain a response, connection pool is embedded.
+     * The body of the response is read with a StringResponseBodyConsumer into the RESPONSE_BODY attachment.
      * @param uri URI of target service
      * @param request request
      * @param requestBody request body
      * @return client response
      */
     public CompletableFuture<ClientResponse> callService(URI uri, ClientRequest request, Optional<String> requestBody) {
-        addHostHeader(request);
-        CompletableFuture<ClientResponse> futureClientResponse;
-        AtomicReference<ClientConnection> currentConnection = new AtomicReference<>(http2ClientConnectionPool.getConnection(uri));
-        if (currentConnection.get() != null && currentConnection.get().isOpen()) {
-            if(logger.isDebugEnabled()) logger.debug("Reusing the connection: {} to {}", currentConnection.toString(), uri.toString());
-            futureClientResponse = getFutureClientResponse(currentConnection.get(), uri, request, requestBody);
-        } else {
-            CompletableFuture<ClientConnection> futureConnection = this.connectAsync(uri);
-            futureClientResponse = futureConnection.thenComposeAsync(clientConnection -> {
-                currentConnection.set(clientConnection);
-                return getFutureClientResponse(clientConnection, uri, request, requestBody);
-            });
-        }
-        futureClientResponse.thenAcceptAsync(clientResponse -> http2ClientConnectionPool.resetConnectionStatus(currentConnection.get()));
-        return futureClientResponse;
+        return callService(uri, request, requestBody, new StringResponseBodyConsumer());
     }
 
     /**
@@ -1275,21 +1302,139 @@ public class Http2Client {
      * @return client response
      */
     public CompletableFuture<ClientResponse> callService(URI uri, ClientRequest request, Optional<String> requestBody, boolean isHttp2) {
+        return callService(uri, request, requestBody, isHttp2, new StringResponseBodyConsumer());
+    }
+
+    /**
+     * Call the service like callService, but pass the response body to the consumer chunk by chunk while it is
+     * read instead of reading it into the RESPONSE_BODY String. Use the JsonResponseBodyConsumer to decode a
+     * JSON response into a typed object without the String, or a custom consumer to handle the pooled buffers.
+     * Cancelling the returned future aborts the exchange.
+     *
+     * @param uri URI of target service
+     * @param request request
+     * @param requestBody request body
+     * @param consumer the consumer of the response body
+     * @return client response
+     */
+    public CompletableFuture<ClientResponse> callService(URI uri, ClientRequest request, Optional<String> requestBody, ResponseBodyConsumer consumer) {
+        return callService(uri, request, requestBody, ClientConfig.get().getRequestEnableHttp2(), consumer);
+    }
+
+    /**
+     * Call the service with a ResponseBodyConsumer like above, but connect with HTTP/2 based on the isHttp2 flag
+     * instead of the request.enableHttp2 in client.yml when a new connection is needed.
+     *
+     * @param uri URI of target service
+     * @param request request
+     * @param requestBody request body
+     * @param isHttp2 indicate if a new connection is created with HTTP/2
+     * @param consumer the consumer of the response body
+     * @return client response
+     */
+    public CompletableFuture<ClientResponse> callService(URI uri, ClientRequest request, Optional<String> requestBody, boolean isHttp2, ResponseBodyConsumer consumer) {
         addHostHeader(request);
         CompletableFuture<ClientResponse> futureClientResponse;
         AtomicReference<ClientConnection> currentConnection = new AtomicReference<>(http2ClientConnectionPool.getConnection(uri));
+        AtomicReference<CompletableFuture<ClientResponse>> currentExchange = new AtomicReference<>();
         if (currentConnection.get() != null && currentConnection.get().isOpen()) {
             if(logger.isDebugEnabled()) logger.debug("Reusing the connection: {} to {}", currentConnection.toString(), uri.toString());
-            futureClientResponse = getFutureClientResponse(currentConnection.get(), uri, request, requestBody);
+            futureClientResponse = getFutureClientResponse(currentConnection.get(), uri, request, requestBody, consumer);
         } else {
+            // release the stream acquired on a connection that is closed, the new connection replaces it.
+            http2ClientConnectionPool.resetConnectionStatus(currentConnection.getAndSet(null));
             CompletableFuture<ClientConnection> futureConnection = this.connectAsync(uri, isHttp2);
             futureClientResponse = futureConnection.thenComposeAsync(clientConnection -> {
                 currentConnection.set(clientConnection);
-                return getFutureClientResponse(clientConnection, uri, request, requestBody);
+                CompletableFuture<ClientResponse> exchangeFuture = getFutureClientResponse(clientConnection, uri, request, requestBody, consumer);
+                currentExchange.set(exchangeFuture);
+                return exchangeFuture;
             });
         }
-        futureClientResponse.thenAcceptAsync(clientResponse -> http2ClientConnectionPool.resetConnectionStatus(currentConnection.get()));
-        return futureClientResponse;
+        final CompletableFuture<ClientResponse> result = futureClientResponse;
+        result.whenComplete((clientResponse, throwable) -> {
+            // the cancellation is not passed to the future of the exchange by thenComposeAsync.
+            CompletableFuture<ClientResponse> exchangeFuture = currentExchange.get();
+            if (result.isCancelled() && exchangeFuture != null) exchangeFuture.cancel(true);
+            // release the stream of the connection even if the request has failed, otherwise the connection stays saturated.
+            http2ClientConnectionPool.resetConnectionStatus(currentConnection.get());
+        });
+        return result;
+    }
+
+    /**
+     * Call the service like callService, and send the same request again if there is no response after the 95th
+     * percentile of the recent response times of the host. The first response wins and the other request is
+     * cancelled. If the first request completes before the delay, the hedged request is not sent. Only the
+     * idempotent methods are hedged, and the hedged requests are limited by the retry budget of the host in
+     * client.yml so that they won't add more than retryBudgetPercent of load to a slow host.
+     *
+     * @param uri URI of target service
+     * @param request request
+     * @param requestBody request body
+     * @return client response
+     */
+    public CompletableFuture<ClientResponse> callServiceWithHedging(URI uri, ClientRequest request, Optional<String> requestBody) {
+        String target = CircuitBreakerRegistry.key(uri);
+        ClientConfig clientConfig = ClientConfig.get();
+        RetryBudget budget = RetryBudget.getBudget(target, clientConfig.getRetryBudgetPercent(), clientConfig.getRetryBudgetMinPerSecond());
+        LatencyTracker tracker = LatencyTracker.getTracker(target);
+        budget.onRequest();
+        long percentile95 = tracker.getPercentile95();
+        Supplier<CompletableFuture<ClientResponse>> call = () -> trackLatency(callService(uri, request, requestBody), tracker);
+        if (percentile95 < 0 || !HEDGE_METHODS.contains(request.getMethod())) {
+            return call.get();
+        }
+        long delay = Math.max(percentile95, clientConfig.getHedgeMinDelay());
+        return hedge(call, delay, budget);
+    }
+
+    /**
+     * Send the request with the call, and send it again if the result is not completed after the delay and the
+     * budget allows it. Once the result is completed, the requests that are still running are cancelled so that
+     * their exchanges are closed and their streams are released.
+     */
+    static CompletableFuture<ClientResponse> hedge(Supplier<CompletableFuture<ClientResponse>> call, long delay, RetryBudget budget) {
+        CompletableFuture<ClientResponse> result = new CompletableFuture<>();
+        // the number of requests that may still complete the result.
+        AtomicInteger pending = new AtomicInteger(1);
+        AtomicReference<CompletableFuture<ClientResponse>> hedged = new AtomicReference<>();
+        CompletableFuture<ClientResponse> primary = call.get();
+        result.whenComplete((clientResponse, throwable) -> {
+            primary.cancel(true);
+            CompletableFuture<ClientResponse> h = hedged.get();
+            if (h != null) h.cancel(true);
+        });
+        primary.whenComplete((clientResponse, throwable) -> completeHedged(result, clientResponse, throwable, pending, null));
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.isDone() || !budget.tryHedge()) return;
+            pending.incrementAndGet();
+            if(logger.isDebugEnabled()) logger.debug("Send hedged request to {} after {} ms.", budget.getTarget(), delay);
+            CompletableFuture<ClientResponse> h = call.get();
+            hedged.set(h);
+            // the result may be completed while the hedged request is being sent.
+            if (result.isDone()) h.cancel(true);
+            h.whenComplete((clientResponse, throwable) -> completeHedged(result, clientResponse, throwable, pending, budget));
+        });
+        return result;
+    }
+
+    private static CompletableFuture<ClientResponse> trackLatency(CompletableFuture<ClientResponse> future, LatencyTracker tracker) {
+        long start = System.currentTimeMillis();
+        future.thenRun(() -> tracker.record(System.currentTimeMillis() - start));
+        return future;
+    }
+
+    /**
+     * Complete the result with the first response. A failure only completes the result if the other request
+     * has failed too or has not been sent. The budget is passed for the hedged request to count its wins.
+     */
+    private static void completeHedged(CompletableFuture<ClientResponse> result, ClientResponse clientResponse, Throwable throwable, AtomicInteger pending, RetryBudget budget) {
+        if (throwable == null) {
+            if (result.complete(clientResponse) && budget != null) budget.onHedgeWin();
+        } else if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(throwable);
+        }
     }
 
     /**
@@ -1389,30 +1534,17 @@ public class Http2Client {
         return completableFuture;
     }
 
-    private CompletableFuture<ClientResponse> getFutureClientResponse(ClientConnection clientConnection, URI uri, ClientRequest request, Optional<String> requestBody) {
-        if (requestBody.isPresent()) {
-            if (logger.isDebugEnabled()) {
-                logger.debug("The request sent to {} = request header: {}, request body: {}", uri.toString(), request.getRequestHeaders().toString(), requestBody.get());
-            }
-            Http2ClientCompletableFutureWithRequest futureClientResponseWithRequest = new Http2ClientCompletableFutureWithRequest(requestBody.get());
-            try {
-                clientConnection.sendRequest(request, futureClientResponseWithRequest);
-            } catch (Exception e) {
-                futureClientResponseWithRequest.completeExceptionally(e);
-            }
-            return futureClientResponseWithRequest;
-        } else {
-            if (logger.isDebugEnabled()) {
-                logger.debug("The request sent to {} = request header: {}, request body is empty", uri.toString(), request.getRequestHeaders().toString());
-            }
-            Http2ClientCompletableFutureNoRequest futureClientResponseNoRequest = new Http2ClientCompletableFutureNoRequest();
-            try {
-                clientConnection.sendRequest(request, futureClientResponseNoRequest);
-            } catch (Exception e) {
-                futureClientResponseNoRequest.completeExceptionally(e);
-            }
-            return futureClientResponseNoRequest;
+    private CompletableFuture<ClientResponse> getFutureClientResponse(ClientConnection clientConnection, URI uri, ClientRequest request, Optional<String> requestBody, ResponseBodyConsumer consumer) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("The request sent to {} = request header: {}, request body: {}", uri.toString(), request.getRequestHeaders().toString(), requestBody.orElse("empty"));
         }
+        Http2ClientCompletableFutureStreaming futureClientResponse = new Http2ClientCompletableFutureStreaming(requestBody.orElse(null), consumer);
+        try {
+            clientConnection.sendRequest(request, futureClientResponse);
+        } catch (Exception e) {
+            futureClientResponse.completeExceptionally(e);
+        }
+        return futureClientResponse;
     }
 
     private void addHostHeader(ClientRequest request) {
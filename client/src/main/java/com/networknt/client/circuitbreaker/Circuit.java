@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.client.circuitbreaker;
+
+import com.networknt.client.ClientConfig;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The circuit of one host or serviceId. The outcome of the calls in the closed state is recorded in a
+ * sliding window, and the circuit is opened when there are errorThreshold consecutive failures or the
+ * failure rate or slow call rate of the window reaches its threshold. After resetTimeout, a limited
+ * number of probe calls are permitted in the half open state. The circuit is closed if all of them
+ * succeed and opened again as soon as one of them fails.
+ *
+ * All the state is kept in atomic fields and an immutable phase object, so no lock is taken on the
+ * request path.
+ *
+ * @author Steve Hu
+ */
+public class Circuit {
+    private final String key;
+    private final SlidingWindow window;
+    private final int minimumNumberOfCalls;
+    private final int failureRateThreshold;
+    private final long slowCallDuration;
+    private final int slowCallRateThreshold;
+    private final int errorThreshold;
+    private final long resetTimeout;
+    private final int halfOpenProbes;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicReference<Phase> phase = new AtomicReference<>(Phase.CLOSED);
+    // the last time the circuit is used, it is used to evict the idle circuits from the registry.
+    private volatile long lastUsed = System.currentTimeMillis();
+
+    /**
+     * The state of the circuit with the probe permits of the half open state. A new object is created
+     * for each transition so that a transition can be done with a single compare and set.
+     */
+    private static final class Phase {
+        static final Phase CLOSED = new Phase(State.CLOSE, 0, 0);
+
+        final State state;
+        final long openedAt;
+        final AtomicInteger probes;
+        final AtomicInteger successes = new AtomicInteger();
+
+        Phase(State state, long openedAt, int probes) {
+            this.state = state;
+            this.openedAt = openedAt;
+            this.probes = new AtomicInteger(probes);
+        }
+    }
+
+    Circuit(String key, ClientConfig config) {
+        this(key, config.getSlidingWindowSize(), config.getMinimumNumberOfCalls(), config.getFailureRateThreshold(),
+                config.getSlowCallDuration(), config.getSlowCallRateThreshold(), config.getErrorThreshold(),
+                config.getResetTimeout(), config.getHalfOpenProbes());
+    }
+
+    public Circuit(String key, int slidingWindowSize, int minimumNumberOfCalls, int failureRateThreshold, long slowCallDuration,
+            int slowCallRateThreshold, int errorThreshold, long resetTimeout, int halfOpenProbes) {
+        this.key = key;
+        this.window = new SlidingWindow(slidingWindowSize);
+        this.minimumNumberOfCalls = Math.max(1, Math.min(minimumNumberOfCalls, slidingWindowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallDuration = slowCallDuration;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.errorThreshold = errorThreshold;
+        this.resetTimeout = resetTimeout;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    }
+
+    /**
+     * Acquire the permission to make a call. It is always granted when the circuit is closed. Once the
+     * resetTimeout has elapsed, the first caller moves an open circuit to half open and the number of
+     * callers that are granted the permission is limited to halfOpenProbes until the circuit is closed.
+     *
+     * @return true if the call can be made
+     */
+    public boolean tryAcquirePermission() {
+        return tryAcquirePermission(System.currentTimeMillis());
+    }
+
+    boolean tryAcquirePermission(long now) {
+        lastUsed = now;
+        while (true) {
+            Phase current = phase.get();
+            switch (current.state) {
+                case CLOSE:
+                    return true;
+                case OPEN:
+                    if (now - current.openedAt < resetTimeout) return false;
+                    phase.compareAndSet(current, new Phase(State.HALF_OPEN, current.openedAt, halfOpenProbes));
+                    break;
+                default:
+                    int probes = current.probes.get();
+                    if (probes <= 0) return false;
+                    if (current.probes.compareAndSet(probes, probes - 1)) return true;
+            }
+        }
+    }
+
+    /**
+     * Check if a call would be permitted without acquiring the permission. It is used to skip the
+     * hosts with an open circuit when selecting a host.
+     *
+     * @return true if the circuit is closed or a probe call can be made
+     */
+    public boolean isCallPermitted() {
+        Phase current = phase.get();
+        switch (current.state) {
+            case CLOSE:
+                return true;
+            case OPEN:
+                return System.currentTimeMillis() - current.openedAt >= resetTimeout;
+            default:
+                return current.probes.get() > 0;
+        }
+    }
+
+    public void onSuccess(long durationMillis) {
+        onResult(false, durationMillis, System.currentTimeMillis());
+    }
+
+    public void onError(long durationMillis) {
+        onResult(true, durationMillis, System.currentTimeMillis());
+    }
+
+    void onResult(boolean failed, long durationMillis, long now) {
+        lastUsed = now;
+        boolean slow = durationMillis >= slowCallDuration;
+        Phase current = phase.get();
+        switch (current.state) {
+            case CLOSE:
+                window.record(failed, slow);
+                int consecutive = 0;
+                if (failed) {
+                    consecutive = consecutiveFailures.incrementAndGet();
+                } else {
+                    consecutiveFailures.set(0);
+                }
+                if ((errorThreshold > 0 && consecutive >= errorThreshold) || isRateExceeded()) {
+                    phase.compareAndSet(current, new Phase(State.OPEN, now, 0));
+                }
+                break;
+            case HALF_OPEN:
+                if (failed || slow) {
+                    phase.compareAndSet(current, new Phase(State.OPEN, now, 0));
+                } else if (current.successes.incrementAndGet() >= halfOpenProbes) {
+                    window.reset();
+                    consecutiveFailures.set(0);
+                    phase.compareAndSet(current, Phase.CLOSED);
+                }
+                break;
+            default:
+                // the call was started before the circuit was opened.
+                break;
+        }
+    }
+
+    private boolean isRateExceeded() {
+        int calls = window.getCalls();
+        if (calls < minimumNumberOfCalls) return false;
+        return (failureRateThreshold > 0 && window.getFailures() * 100 >= failureRateThreshold * calls)
+                || (slowCallRateThreshold > 0 && window.getSlowCalls() * 100 >= slowCallRateThreshold * calls);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public State getState() {
+        return phase.get().state;
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * @return the percentage of the failed calls in the sliding window or -1 if there are not enough calls.
+     */
+    public int getFailureRate() {
+        int calls = window.getCalls();
+        return calls < minimumNumberOfCalls ? -1 : window.getFailures() * 100 / calls;
+    }
+
+    /**
+     * @return the percentage of the slow calls in the sliding window or -1 if there are not enough calls.
+     */
+    public int getSlowCallRate() {
+        int calls = window.getCalls();
+        return calls < minimumNumberOfCalls ? -1 : window.getSlowCalls() * 100 / calls;
+    }
+}
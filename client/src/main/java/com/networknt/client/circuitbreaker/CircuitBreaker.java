@@ -19,66 +19,103 @@ package com.networknt.client.circuitbreaker;
 import com.networknt.client.ClientConfig;
 import io.undertow.client.ClientResponse;
 
-import java.time.Instant;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 /**
- * Circuit breaker implementation based on the configuration in client.yml
+ * Circuit breaker implementation based on the configuration in client.yml. The state is kept in the
+ * circuit of the host or serviceId from the CircuitBreakerRegistry, so that an instance can be created
+ * for each request.
+ *
+ * Only the timeouts and the exceptions are counted as failures by default, as the circuit is shared by all
+ * the callers of the host and the application errors of a few requests should not block the others. The 5xx
+ * responses are counted as well if circuitBreakerServerErrors is set in client.yml.
  *
  * @author Jeferson Perito
  */
 public class CircuitBreaker {
+    static final String DEFAULT_KEY = "default";
 
-    private Supplier<CompletableFuture<ClientResponse>> supplier;
-    private static AtomicInteger timeoutCount;
-    private long lastErrorTime;
+    private final Supplier<CompletableFuture<ClientResponse>> supplier;
+    private final Circuit circuit;
+    private final boolean countServerErrors;
 
     public CircuitBreaker(Supplier<CompletableFuture<ClientResponse>> supplier) {
+        this(DEFAULT_KEY, supplier);
+    }
+
+    /**
+     * @param key host:port or serviceId of the target service
+     * @param supplier the supplier that sends the request
+     */
+    public CircuitBreaker(String key, Supplier<CompletableFuture<ClientResponse>> supplier) {
+        this(CircuitBreakerRegistry.getCircuit(key), supplier, ClientConfig.get().isCircuitBreakerServerErrors());
+    }
+
+    CircuitBreaker(Circuit circuit, Supplier<CompletableFuture<ClientResponse>> supplier, boolean countServerErrors) {
+        this.circuit = circuit;
         this.supplier = supplier;
-        this.timeoutCount = new AtomicInteger(0);
+        this.countServerErrors = countServerErrors;
     }
 
+    /**
+     * Send the request and wait for the response.
+     *
+     * @return ClientResponse
+     * @throws TimeoutException if there is no response within the timeout in client.yml
+     * @throws ExecutionException if the request failed
+     * @throws InterruptedException if the thread is interrupted
+     * @throws CircuitBreakerOpenException if the circuit is open
+     */
     public ClientResponse call() throws TimeoutException, ExecutionException, InterruptedException {
-        State state = checkState();
-
         try {
-            if (State.OPEN == state) {
-                throw new IllegalStateException("circuit is opened.");
+            return callAsync().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw (TimeoutException) e.getCause();
+            }
+            if (e.getCause() instanceof CircuitBreakerOpenException) {
+                throw (CircuitBreakerOpenException) e.getCause();
             }
-
-            ClientResponse clientResponse = supplier.get().get(ClientConfig.get().getTimeout(), TimeUnit.MILLISECONDS);
-            timeoutCount = new AtomicInteger(0);
-
-            return clientResponse;
-        } catch (InterruptedException | ExecutionException e) {
-            throw e;
-        } catch (TimeoutException e) {
-            recordTimeout();
             throw e;
         }
     }
 
-    private State checkState() {
-        ClientConfig clientConfig = ClientConfig.get();
-
-        boolean isExtrapolatedResetTimeout = Instant.now().toEpochMilli() - lastErrorTime > clientConfig.getResetTimeout();
-        boolean isExtrapolatedErrorThreshold = timeoutCount.get() >= clientConfig.getErrorThreshold();
-        if (isExtrapolatedErrorThreshold && isExtrapolatedResetTimeout) {
-            return State.HALF_OPEN;
+    /**
+     * Send the request without blocking the caller. The returned future is completed exceptionally with
+     * a CircuitBreakerOpenException if the circuit is open or a TimeoutException if there is no response
+     * within the timeout in client.yml. The outcome is recorded in the circuit when the future completes.
+     *
+     * @return CompletableFuture of ClientResponse
+     */
+    public CompletableFuture<ClientResponse> callAsync() {
+        if (!circuit.tryAcquirePermission()) {
+            return CompletableFuture.failedFuture(new CircuitBreakerOpenException(circuit.getKey()));
         }
-        if (timeoutCount.get() >= clientConfig.getErrorThreshold()) {
-            return State.OPEN;
+        long start = System.currentTimeMillis();
+        CompletableFuture<ClientResponse> future;
+        try {
+            // copy so that the timeout doesn't complete the future of the request itself.
+            future = supplier.get().copy();
+        } catch (RuntimeException e) {
+            circuit.onError(System.currentTimeMillis() - start);
+            return CompletableFuture.failedFuture(e);
         }
-        return State.CLOSE;
+        return future.orTimeout(ClientConfig.get().getTimeout(), TimeUnit.MILLISECONDS)
+                .whenComplete((clientResponse, throwable) -> {
+                    long duration = System.currentTimeMillis() - start;
+                    if (throwable != null || (countServerErrors && clientResponse.getResponseCode() >= 500)) {
+                        circuit.onError(duration);
+                    } else {
+                        circuit.onSuccess(duration);
+                    }
+                });
     }
 
-    private void recordTimeout() {
-        timeoutCount.getAndIncrement();
-        lastErrorTime = Instant.now().toEpochMilli();
+    public Circuit getCircuit() {
+        return circuit;
     }
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.client.circuitbreaker;
+
+/**
+ * Thrown or used to complete the future exceptionally when the circuit of the target host or serviceId
+ * is open. It extends IllegalStateException which was thrown for an open circuit before.
+ *
+ * @author Steve Hu
+ */
+public class CircuitBreakerOpenException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+    private final String key;
+
+    public CircuitBreakerOpenException(String key) {
+        super("circuit is opened.");
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.client.circuitbreaker;
+
+import com.networknt.client.ClientConfig;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Keeps one circuit per host or serviceId so that a failing downstream doesn't open or close the
+ * circuit of the other downstream services.
+ *
+ * The number of circuits is bounded. When the bound is reached, the least recently used circuits are
+ * evicted, and the closed ones go first so that an open circuit keeps protecting its host.
+ *
+ * @author Steve Hu
+ */
+public final class CircuitBreakerRegistry {
+    static final int DEFAULT_MAX_CIRCUITS = 10000;
+    private static final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+    private static volatile int maxCircuits = DEFAULT_MAX_CIRCUITS;
+
+    private CircuitBreakerRegistry() {
+    }
+
+    /**
+     * Get the circuit of a host or serviceId. It is created with the configuration in client.yml on the first call.
+     *
+     * @param key host:port or serviceId
+     * @return Circuit
+     */
+    public static Circuit getCircuit(String key) {
+        return getCircuit(key, k -> new Circuit(k, ClientConfig.get()));
+    }
+
+    /**
+     * Get the circuit of a key and create it with the factory on the first call. It is used by the modules that
+     * configure their circuits separately from client.yml, and they should prefix the key to avoid a collision.
+     *
+     * @param key the key of the circuit
+     * @param factory creates the circuit of the key
+     * @return Circuit
+     */
+    public static Circuit getCircuit(String key, Function<String, Circuit> factory) {
+        Circuit circuit = circuits.get(key);
+        if (circuit != null) return circuit;
+        if (circuits.size() >= maxCircuits) evict();
+        return circuits.computeIfAbsent(key, factory);
+    }
+
+    private static synchronized void evict() {
+        if (circuits.size() < maxCircuits) return;
+        List<Map.Entry<String, Circuit>> entries = new ArrayList<>(circuits.entrySet());
+        entries.sort(Comparator.<Map.Entry<String, Circuit>>comparingInt(e -> e.getValue().getState() == State.CLOSE ? 0 : 1)
+                .thenComparingLong(e -> e.getValue().getLastUsed()));
+        // leave a quarter of the bound free so that the eviction is not done on every new circuit.
+        int target = maxCircuits - Math.max(1, maxCircuits / 4);
+        for (int i = 0; i < entries.size() && circuits.size() > target; i++) {
+            circuits.remove(entries.get(i).getKey(), entries.get(i).getValue());
+        }
+    }
+
+    public static Circuit getCircuit(URI uri) {
+        return getCircuit(key(uri));
+    }
+
+    /**
+     * @param uri the uri of the target service
+     * @return the host:port of the uri or the host if there is no port in the uri.
+     */
+    public static String key(URI uri) {
+        return uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+    }
+
+    public static Map<String, Circuit> getCircuits() {
+        return Collections.unmodifiableMap(circuits);
+    }
+
+    /**
+     * For testing purpose
+     */
+    public static void clear() {
+        circuits.clear();
+    }
+
+    /**
+     * For testing purpose
+     */
+    static void setMaxCircuits(int max) {
+        maxCircuits = max;
+    }
+}
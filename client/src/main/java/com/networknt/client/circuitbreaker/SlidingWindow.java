@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.client.circuitbreaker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free ring buffer that keeps the outcome of the most recent calls. Each slot is replaced with
+ * getAndSet so that the aggregated counters are always adjusted by exactly the outcome that has been
+ * evicted from the slot, even when several threads record at the same time.
+ *
+ * @author Steve Hu
+ */
+final class SlidingWindow {
+    private static final int CALL = 1;
+    private static final int FAILED = 2;
+    private static final int SLOW = 4;
+
+    private final AtomicIntegerArray outcomes;
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger slowCalls = new AtomicInteger();
+
+    SlidingWindow(int size) {
+        this.outcomes = new AtomicIntegerArray(Math.max(1, size));
+    }
+
+    void record(boolean failed, boolean slow) {
+        int outcome = CALL | (failed ? FAILED : 0) | (slow ? SLOW : 0);
+        int index = (int) (cursor.getAndIncrement() % outcomes.length());
+        adjust(outcomes.getAndSet(index, outcome), -1);
+        adjust(outcome, 1);
+    }
+
+    void reset() {
+        for (int i = 0; i < outcomes.length(); i++) {
+            adjust(outcomes.getAndSet(i, 0), -1);
+        }
+    }
+
+    private void adjust(int outcome, int delta) {
+        if ((outcome & CALL) == 0) return;
+        calls.addAndGet(delta);
+        if ((outcome & FAILED) != 0) failures.addAndGet(delta);
+        if ((outcome & SLOW) != 0) slowCalls.addAndGet(delta);
+    }
+
+    int getCalls() {
+        return calls.get();
+    }
+
+    int getFailures() {
+        return failures.get();
+    }
+
+    int getSlowCalls() {
+        return slowCalls.get();
+    }
+}
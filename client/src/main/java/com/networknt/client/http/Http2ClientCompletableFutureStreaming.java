@@ -0,0 +1,128 @@
+package com.networknt.client.http;
+
+import com.networknt.client.listener.StreamingReadChannelListener;
+import io.undertow.client.ClientCallback;
+import io.undertow.client.ClientExchange;
+import io.undertow.client.ClientResponse;
+import io.undertow.util.StringWriteChannelListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.ChannelListeners;
+import org.xnio.IoUtils;
+import org.xnio.channels.StreamSinkChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The future of a request whose response body is passed to a ResponseBodyConsumer chunk by chunk instead of
+ * being read into a String. The request body is optional and sent as a String like the other futures.
+ *
+ * @author Steve Hu
+ */
+public class Http2ClientCompletableFutureStreaming extends CompletableFuture<ClientResponse> implements ClientCallback<ClientExchange> {
+    private Logger logger = LoggerFactory.getLogger(Http2ClientCompletableFutureStreaming.class);
+
+    private final String requestBody;
+    private final ResponseBodyConsumer consumer;
+    private volatile ClientExchange exchange;
+
+    public Http2ClientCompletableFutureStreaming(String requestBody, ResponseBodyConsumer consumer) {
+        this.requestBody = requestBody;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void completed(ClientExchange result) {
+        exchange = result;
+        if (isCancelled()) {
+            abort(result);
+            return;
+        }
+        if (requestBody != null) {
+            new StringWriteChannelListener(requestBody).setup(result.getRequestChannel());
+        }
+        result.setResponseListener(new ClientCallback<ClientExchange>() {
+            @Override
+            public void completed(final ClientExchange result) {
+                final ClientResponse response = result.getResponse();
+                try {
+                    consumer.onResponse(response);
+                } catch (RuntimeException e) {
+                    logger.error("Exception:", e);
+                    IoUtils.safeClose(result.getResponseChannel());
+                    completeExceptionally(e);
+                    return;
+                }
+                new StreamingReadChannelListener(result.getConnection().getBufferPool()) {
+                    @Override
+                    protected void chunkRead(ByteBuffer buffer) throws IOException {
+                        consumer.onChunk(buffer);
+                    }
+
+                    @Override
+                    protected void bodyDone() throws IOException {
+                        consumer.onComplete(response);
+                        complete(response);
+                    }
+
+                    @Override
+                    protected void error(IOException e) {
+                        logger.error("IOException:", e);
+                        completeExceptionally(e);
+                    }
+                }.setup(result.getResponseChannel());
+            }
+
+            @Override
+            public void failed(IOException e) {
+                logger.error("IOException:", e);
+                completeExceptionally(e);
+            }
+        });
+        if (requestBody == null) {
+            try {
+                result.getRequestChannel().shutdownWrites();
+                if(!result.getRequestChannel().flush()) {
+                    result.getRequestChannel().getWriteSetter().set(ChannelListeners.<StreamSinkChannel>flushingChannelListener(null, null));
+                    result.getRequestChannel().resumeWrites();
+                }
+            } catch (IOException e) {
+                logger.error("IOException:", e);
+                completeExceptionally(e);
+            }
+        }
+    }
+
+    @Override
+    public void failed(IOException e) {
+        logger.error("IOException:", e);
+        completeExceptionally(e);
+    }
+
+    /**
+     * Cancel the future and abort the exchange if the request has been sent. An HTTP/2 stream is reset by closing
+     * its channels so that the other streams of the connection are not affected. An HTTP/1.1 connection is closed
+     * as it cannot be reused before the rest of the response is read.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        ClientExchange current = exchange;
+        if (cancelled && current != null) {
+            abort(current);
+        }
+        return cancelled;
+    }
+
+    private void abort(ClientExchange exchange) {
+        if(logger.isDebugEnabled()) logger.debug("Abort the cancelled exchange {}", exchange.getRequest().getPath());
+        if (exchange.getConnection().isMultiplexingSupported()) {
+            IoUtils.safeClose(exchange.getRequestChannel());
+            IoUtils.safeClose(exchange.getResponseChannel());
+        } else {
+            IoUtils.safeClose(exchange.getConnection());
+        }
+    }
+}
@@ -2,296 +2,415 @@ package com.networknt.client.http;
 
 import com.networknt.client.ClientConfig;
 import io.undertow.client.ClientConnection;
+import io.undertow.protocols.http2.Http2Channel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.Field;
 import java.net.URI;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A connection pool that caches connections based on the peer address by using LRU.
  * To optimize the establishment mechanism of http/1.1 and http/2 connections.
  *
+ * Each cached connection counts its in-flight requests (streams). An http/1.1 connection has one stream, and an
+ * http/2 connection has as many streams as the SETTINGS_MAX_CONCURRENT_STREAMS advertised by the peer, or no limit
+ * if the peer doesn't advertise one. The getConnection selects the least loaded connection of the host that has a
+ * free stream, and it returns null when all the connections are saturated so that the caller opens a new one. The
+ * stream is released by the resetConnectionStatus when the request is completed.
+ *
+ * There is no global lock. The connections of a host are in a copy-on-write list that is only modified under the
+ * lock of the host when a connection is added or removed, and a stream is acquired with a compare-and-set on the
+ * counter of the connection.
+ *
+ * A connection that is removed from the pool, or a new connection that is not needed, is parked instead of closed
+ * as other requests may still use it. Its streams are still released by the resetConnectionStatus, and it is closed
+ * once the last stream is released, so a long request such as a Consul blocking query is never cut off.
+ *
  * @author Jiachen Sun
  */
 public class Http2ClientConnectionPool {
-    private enum ConnectionStatus {HANGING, AVAILABLE, CLOSE, MULTIPLEX_SUPPORT}
-
     private static final Logger logger = LoggerFactory.getLogger(Http2ClientConnectionPool.class);
+    // the Http2Channel of the Http2ClientConnection has the settings of the peer, but there is no accessor for it.
+    private static final Field HTTP2_CHANNEL_FIELD = http2ChannelField();
 
-    private final Map<String, List<CachedConnection>> connectionPool;
-    private static Map<String, List<CachedConnection>> clientConnectionParkedMap = new HashMap<>();
+    private static volatile Http2ClientConnectionPool http2ClientConnectionPool;
 
-    private final Map<ClientConnection, ConnectionStatus> connectionStatusMap;
-
-    private static Http2ClientConnectionPool http2ClientConnectionPool;
-
-    private AtomicInteger connectionCount;
+    private final Map<String, HostConnections> connectionPool = new ConcurrentHashMap<>();
+    private final Map<ClientConnection, CachedConnection> connectionIndex = new ConcurrentHashMap<>();
+    private final Map<ClientConnection, CachedConnection> parkedConnections = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger(0);
+    private final int poolSize;
 
     private Http2ClientConnectionPool() {
-        int poolSize = ClientConfig.get().getConnectionPoolSize();
-        connectionCount = new AtomicInteger(0);
-        // Initialize a LRU to cache the ClientConnection based on peer address
-        connectionPool = Collections.synchronizedMap(new LinkedHashMap<String, List<CachedConnection>>((int) Math.ceil(poolSize / 0.75f) + 1, 0.75f, true) {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<String, List<CachedConnection>> eldest) {
-                if (connectionPool.size() > poolSize) {
-                    for (CachedConnection connection : eldest.getValue()) {
-                        connectionStatusMap.remove(connection.get());
-                        connectionCount.getAndDecrement();
-                    }
-                    return true;
-                }
-                return false;
-            }
-        });
-        connectionStatusMap = new ConcurrentHashMap<>((int) Math.ceil(poolSize / 0.75f) + 1, 0.75f);
+        poolSize = ClientConfig.get().getConnectionPoolSize();
     }
 
     public static Http2ClientConnectionPool getInstance() {
         if (http2ClientConnectionPool == null) {
-            http2ClientConnectionPool = new Http2ClientConnectionPool();
+            synchronized (Http2ClientConnectionPool.class) {
+                if (http2ClientConnectionPool == null) {
+                    http2ClientConnectionPool = new Http2ClientConnectionPool();
+                }
+            }
         }
         return http2ClientConnectionPool;
     }
 
-    public synchronized ClientConnection getConnection(URI uri) {
+    /**
+     * Get a cached connection for the uri and acquire a stream on it. The caller must call resetConnectionStatus
+     * with the connection once the request is completed.
+     *
+     * @param uri the uri of the host
+     * @return the least loaded connection with a free stream or null if there is none
+     */
+    public ClientConnection getConnection(URI uri) {
         if (uri == null) {
             return null;
         }
         String uriString = uri.toString();
-        List<CachedConnection> result = connectionPool.get(uriString);
-        if (result == null) {
-            synchronized (Http2ClientConnectionPool.class) {
-                if(logger.isDebugEnabled()) logger.debug("Second try of getting connections for uri: {}", uriString);
-                result = connectionPool.get(uriString);
-            }
+        HostConnections host = connectionPool.get(uriString);
+        if (host == null) {
+            if(logger.isDebugEnabled()) logger.debug("Got no connections for uri: {}", uriString);
+            return null;
         }
-        if(logger.isDebugEnabled()) logger.debug("Got {} connections for uri: {}", result != null ? result.size() : null, uriString);
-        CachedConnection cachedConnection = selectConnection(uri, result, false);
-        if(logger.isDebugEnabled()) logger.debug("Got cached connection: {} for uri: {}", cachedConnection, uriString);
-        if (cachedConnection != null) {
-            hangConnection(uri, cachedConnection);
-            return cachedConnection.get();
+        host.lastAccess = System.nanoTime();
+        // another thread may take the selected stream first, in that case select again.
+        for (int attempt = 0; attempt < 3; attempt++) {
+            CachedConnection cachedConnection = selectConnection(uri, host);
+            if (cachedConnection == null) {
+                if(logger.isDebugEnabled()) logger.debug("All {} connections are saturated for uri: {}", host.connections.size(), uriString);
+                return null;
+            }
+            if (cachedConnection.acquire()) {
+                if (!cachedConnection.get().isOpen()) {
+                    // closed by the peer after it was selected, release the stream and select again.
+                    resetConnectionStatus(cachedConnection.get());
+                    continue;
+                }
+                if(logger.isDebugEnabled()) logger.debug("Got cached connection: {} with {} streams for uri: {}", cachedConnection.get(), cachedConnection.activeStreams.get(), uriString);
+                return cachedConnection.get();
+            }
+            if (cachedConnection.parked) {
+                // the acquire has released the stream of a connection parked in between, close it if it was the last.
+                closeIfIdle(cachedConnection);
+            }
         }
         return null;
     }
 
-    public synchronized void cacheConnection(URI uri, ClientConnection connection) {
-        CachedConnection cachedConnection = getAndRemoveClosedConnection(uri);
-        if (cachedConnection == null || getConnectionStatus(uri, cachedConnection) != ConnectionStatus.MULTIPLEX_SUPPORT) {
-            if(logger.isDebugEnabled()) logger.debug("Cached connection: {} is either null or not support multiplex", cachedConnection);
-            CachedConnection newConnection = new CachedConnection(connection);
-            connectionPool.computeIfAbsent(uri.toString(), k -> new LinkedList<>()).add(newConnection);
-            connectionCount.getAndIncrement();
-        }
-    }
-
-    private synchronized CachedConnection getAndRemoveClosedConnection(URI uri) {
-        if (uri == null) {
-            return null;
+    /**
+     * Cache a new connection that the caller has opened for a request, so the connection has one stream in use.
+     * A connection is only opened when all cached connections are saturated, but concurrent callers may open more
+     * connections than needed. An http/2 connection that isn't needed is parked and closed later.
+     *
+     * @param uri the uri of the host
+     * @param connection the new connection
+     */
+    public void cacheConnection(URI uri, ClientConnection connection) {
+        if (uri == null || connection == null) {
+            return;
         }
+        closeIdleParkedConnections();
         String uriString = uri.toString();
-        List<CachedConnection> result = connectionPool.get(uriString);
-        if (result == null) {
-            synchronized (Http2ClientConnectionPool.class) {
-                result = connectionPool.get(uriString);
+        HostConnections host = connectionPool.computeIfAbsent(uriString, k -> new HostConnections());
+        host.lastAccess = System.nanoTime();
+        CachedConnection newConnection = new CachedConnection(connection);
+        newConnection.activeStreams.set(1);
+        newConnection.requestCount.set(1);
+
+        // the check of the number of connections and the add must be atomic, or concurrent callers exceed the maximum.
+        synchronized (host) {
+            removeClosedConnections(uri, host);
+            if (connection.isMultiplexingSupported() && selectConnection(uri, host) != null) {
+                if(logger.isDebugEnabled()) logger.debug("An http/2 connection with free streams is cached for uri: {}, park the new connection", uriString);
+                park(newConnection);
+                return;
+            }
+            if (host.connections.size() >= ClientConfig.get().getMaxConnectionNumPerHost()) {
+                if(logger.isDebugEnabled()) logger.debug("The maximum number of connections is reached for uri: {}, park the new connection", uriString);
+                park(newConnection);
+                return;
             }
+            shrink(uri, host);
+            connectionIndex.put(connection, newConnection);
+            host.connections.add(newConnection);
+            connectionCount.getAndIncrement();
         }
-        if(logger.isDebugEnabled()) logger.debug("Got {} cache connections for uri: {} from connectionPool", result != null ? result.size() : null, uriString);
-        return selectConnection(uri, result, true);
+        evictLeastRecentlyUsedHost();
     }
 
-    private void handleParkedConnection(URI uri, CachedConnection connection) {
-        if(connection == null) {
-            return;
-        }
-        if (uri == null) {
+    /**
+     * Release the stream of a connection that was acquired by the getConnection or the cacheConnection. A parked
+     * connection is closed when its last stream is released.
+     *
+     * @param connection the connection of the completed request
+     */
+    public void resetConnectionStatus(ClientConnection connection) {
+        if (connection == null) {
             return;
         }
-        String host = uri.toString();
-        List<CachedConnection> parkedConList = clientConnectionParkedMap.get(host);
-        if(parkedConList == null) {
-            parkedConList = new ArrayList<>();
-            clientConnectionParkedMap.put(host, parkedConList);
+        CachedConnection cachedConnection = connectionIndex.get(connection);
+        if (cachedConnection == null) {
+            cachedConnection = parkedConnections.get(connection);
         }
-        if(logger.isDebugEnabled()) logger.debug("Total parked connection for the host {} is {}", host, parkedConList.size());
-        Iterator<CachedConnection> iter = parkedConList.iterator();
-        while(iter.hasNext()) {
-            // the isParkedConnectionExpired will close the connection.
-            if(iter.next().isParkedConnectionExpired()) {
-                iter.remove();
-                if(logger.isDebugEnabled()) logger.debug("Removing the expired Parked Connection for the host {}", host);
+        if (cachedConnection != null) {
+            cachedConnection.release();
+            if (cachedConnection.parked) {
+                closeIfIdle(cachedConnection);
             }
         }
-        try {
-            if(connection.get().isOpen()) {
-                parkedConList.add(connection);
-                if(logger.isDebugEnabled()) logger.debug("Parked the connection for the host {}, total parked count is {}", host, parkedConList.size());
+    }
+
+    /**
+     * Select the open connection with the fewest active streams that is below its stream limit. The closed and
+     * expired connections are removed from the host while iterating.
+     */
+    private CachedConnection selectConnection(URI uri, HostConnections host) {
+        CachedConnection selected = null;
+        int selectedStreams = Integer.MAX_VALUE;
+        boolean removed = false;
+        for (CachedConnection connection : host.connections) {
+            if (!connection.isOpen()) {
+                removed = true;
+                continue;
+            }
+            int streams = connection.activeStreams.get();
+            if (streams < connection.maxStreams() && streams < selectedStreams) {
+                selected = connection;
+                selectedStreams = streams;
+                if (streams == 0) break;
             }
-        } catch(Exception ignored) {
-            //ignore any exceptions in this catch. Exception logged on info level.
-            if(logger.isInfoEnabled()) logger.info("Exception while handling the parked connection. Exception is :", ignored);
         }
+        if (removed) {
+            removeClosedConnections(uri, host);
+        }
+        return selected;
     }
 
-    private synchronized CachedConnection selectConnection(URI uri, List<CachedConnection> connections, boolean isRemoveClosedConnection) {
-        if (connections != null) {
-            if(logger.isDebugEnabled()) logger.debug("Before removing max connections per host from list of {} connections for uri: {} ...", connections.size(), uri);
-            if (connections.size() > ClientConfig.get().getMaxConnectionNumPerHost() * 0.75) {
-                while (connections.size() > ClientConfig.get().getMinConnectionNumPerHost() && connections.size() > 0) {
-                    connections.remove(0);
-                }
+    private void removeClosedConnections(URI uri, HostConnections host) {
+        for (CachedConnection connection : host.connections) {
+            if (!connection.isOpen() && host.connections.remove(connection)) {
+                remove(connection);
+                if(logger.isDebugEnabled()) logger.debug("Removed closed or expired connection for uri: {}", uri);
             }
-            if(logger.isDebugEnabled()) logger.debug("After removing max connections per host from list of {} connections for uri: {} ...", connections.size(), uri);
-            if (isRemoveClosedConnection) {
-                Iterator<CachedConnection> iterator = connections.iterator();
-                while (iterator.hasNext()) {
-                    CachedConnection connection = iterator.next();
-                    if (connection != null) {
-                        ConnectionStatus status = getConnectionStatus(uri, connection);
-                        if (ConnectionStatus.CLOSE == status) {
-                            // Remove unavailable connection from the list.
-                            iterator.remove();
-                               connectionStatusMap.remove(connection.get());
-                            connectionCount.getAndDecrement();
-                        }
-                    }
-                }
-                if(logger.isDebugEnabled()) logger.debug("After removing closed connections, {} connections left in the list for uri: {}", connections.size(), uri);
+        }
+    }
+
+    /**
+     * When the number of connections of a host reaches 0.75 * maxConnectionNumPerHost, the least recently used idle
+     * connections are removed until there are minConnectionNumPerHost connections.
+     */
+    private void shrink(URI uri, HostConnections host) {
+        if (host.connections.size() <= ClientConfig.get().getMaxConnectionNumPerHost() * 0.75) {
+            return;
+        }
+        List<CachedConnection> idle = new ArrayList<>();
+        for (CachedConnection connection : host.connections) {
+            if (connection.activeStreams.get() == 0) idle.add(connection);
+        }
+        idle.sort(Comparator.comparingLong(c -> c.lastAccess));
+        int excess = host.connections.size() - ClientConfig.get().getMinConnectionNumPerHost();
+        for (int i = 0; i < idle.size() && excess > 0; i++) {
+            if (host.connections.remove(idle.get(i))) {
+                remove(idle.get(i));
+                excess--;
             }
-            if (connections.size() > 0) {
-                if(logger.isDebugEnabled()) logger.debug("Selecting a valid connections from cached {} connections for uri: {} ...", connections.size(), uri);
-                // Balance the selection of each connection
-                int randomInt = ThreadLocalRandom.current().nextInt(0, connections.size());
-                for (int i = 0; i < connections.size(); i++) {
-                    CachedConnection connection = connections.get((i + randomInt) % connections.size());
-                    ConnectionStatus status = getConnectionStatus(uri, connection);
-                    // Return non-hanging connection
-                    if (status == ConnectionStatus.AVAILABLE || status == ConnectionStatus.MULTIPLEX_SUPPORT) {
-                        return connection;
-                    }
-                    logger.warn("Connection status for uri: {} is {}", uri, status);
+        }
+        if(logger.isDebugEnabled()) logger.debug("After removing least recently used connections, {} connections left in the list for uri: {}", host.connections.size(), uri);
+    }
+
+    /**
+     * The number of hosts is limited by the connectionPoolSize. Once it is exceeded, the connections of the least
+     * recently used host are removed.
+     */
+    private void evictLeastRecentlyUsedHost() {
+        if (connectionPool.size() <= poolSize) {
+            return;
+        }
+        Map.Entry<String, HostConnections> eldest = null;
+        for (Map.Entry<String, HostConnections> entry : connectionPool.entrySet()) {
+            if (eldest == null || entry.getValue().lastAccess < eldest.getValue().lastAccess) eldest = entry;
+        }
+        if (eldest != null && connectionPool.remove(eldest.getKey(), eldest.getValue())) {
+            synchronized (eldest.getValue()) {
+                for (CachedConnection connection : eldest.getValue().connections) {
+                    remove(connection);
                 }
-                logger.warn("None of the connection cached can be used for uri: {}", uri);
             }
         }
-        return null;
     }
 
-    private ConnectionStatus getConnectionStatus(URI uri, CachedConnection connection) {
-        ConnectionStatus status = connectionStatusMap.get(connection.get());
-        if (status == null) {
-            synchronized (Http2ClientConnectionPool.class) {
-                status = connectionStatusMap.get(connection.get());
-            }
+    /**
+     * Stop tracking a connection. It may still be used by other requests, so it is parked instead of closed.
+     */
+    private void remove(CachedConnection connection) {
+        if (connectionIndex.remove(connection.get(), connection)) {
+            connectionCount.getAndDecrement();
         }
-        if (connection == null || !connection.isOpen()) {
-            if (connection == null) {
-                return ConnectionStatus.CLOSE;
-            } else {
-                handleParkedConnection(uri, connection);
-                return ConnectionStatus.CLOSE;
-            }
+        park(connection);
+    }
 
-        } else if (connection.isHttp2Connection()) {
-            return ConnectionStatus.MULTIPLEX_SUPPORT;
+    private void park(CachedConnection connection) {
+        try {
+            if (connection.get().isOpen()) {
+                parkedConnections.put(connection.get(), connection);
+                // set after it is in the map, so a stream released from now on finds it and closes it.
+                connection.parked = true;
+                closeIfIdle(connection);
+            }
+        } catch (Exception ignored) {
+            //ignore any exceptions in this catch. Exception logged on info level.
+            if(logger.isInfoEnabled()) logger.info("Exception while handling the parked connection. Exception is :", ignored);
         }
-        return status;
     }
 
-    public void resetConnectionStatus(ClientConnection connection) {
-        if (connection != null) {
-            if (!connection.isOpen()) {
-                connectionStatusMap.remove(connection);
-            } else if (connection.isMultiplexingSupported()) {
-                connectionStatusMap.put(connection, ConnectionStatus.MULTIPLEX_SUPPORT);
-            } else {
-                connectionStatusMap.put(connection, ConnectionStatus.AVAILABLE);
+    /**
+     * Close a parked connection only when there is no stream in use. Otherwise, it is closed when the last stream
+     * is released.
+     */
+    private void closeIfIdle(CachedConnection connection) {
+        if (connection.activeStreams.get() == 0 && parkedConnections.remove(connection.get(), connection)) {
+            if(logger.isDebugEnabled()) logger.debug("Close the parked connection {} as it has no active streams", connection.get());
+            try {
+                connection.get().close();
+            } catch (Exception ignored) {
+                if(logger.isInfoEnabled()) logger.info("Exception while closing the parked connection. This exception is suppressed. Exception is {}", ignored);
             }
         }
     }
 
-    private void hangConnection(URI uri, CachedConnection connection) {
-        if (connection != null) {
-            // Increase the request count for the connection for every invocation
-            connection.incrementRequestCount();
-            ConnectionStatus status = getConnectionStatus(uri, connection);
-            if(logger.isDebugEnabled()) logger.debug("Got connection status: {} for uri: {} before hang it", status, uri);
-            // Hanging new or old Http/1.1 connection
-            if ((status == null && !connection.isHttp2Connection()) || status == ConnectionStatus.AVAILABLE) {
-                connectionStatusMap.put(connection.get(), ConnectionStatus.HANGING);
+    /**
+     * Remove the parked connections that are closed by the peer, and close the idle ones that were missed because
+     * a stream was released while the connection was being parked.
+     */
+    private void closeIdleParkedConnections() {
+        for (CachedConnection parked : parkedConnections.values()) {
+            if (!parked.get().isOpen()) {
+                parkedConnections.remove(parked.get(), parked);
+            } else {
+                closeIfIdle(parked);
             }
         }
     }
 
+    int numberOfParkedConnections() {
+        return parkedConnections.size();
+    }
+
     public int numberOfConnections() {
         return connectionCount.get();
     }
 
     public void clear() {
-        this.connectionCount = new AtomicInteger(0);
-        connectionStatusMap.clear();
         connectionPool.clear();
+        connectionIndex.clear();
+        parkedConnections.clear();
+        connectionCount.set(0);
+    }
+
+    private static Field http2ChannelField() {
+        try {
+            Field field = io.undertow.client.http2.Http2ClientConnection.class.getDeclaredField("http2Channel");
+            field.setAccessible(true);
+            return field;
+        } catch (Exception e) {
+            logger.warn("Cannot access the Http2Channel of the Http2ClientConnection, the stream limit of the peer is ignored", e);
+            return null;
+        }
     }
 
-    private class CachedConnection {
-        private AtomicInteger requestCount;
-        private ClientConnection clientConnection;
-        private long lifeStartTime;
-        private long ttlParked = 100*1000; // default to 1 minutes to closed the parked connection.
-        private long lifeStartTimeParked;
-        private int maxReqCount = ClientConfig.get().getMaxRequestPerConnection();
-        private long expireTime = ClientConfig.get().getConnectionExpireTime();
+    private static class HostConnections {
+        private final List<CachedConnection> connections = new CopyOnWriteArrayList<>();
+        private volatile long lastAccess = System.nanoTime();
+    }
+
+    private static class CachedConnection {
+        private final AtomicInteger requestCount = new AtomicInteger(0);
+        private final AtomicInteger activeStreams = new AtomicInteger(0);
+        private final ClientConnection clientConnection;
+        private final Http2Channel http2Channel;
+        private final long lifeStartTime;
+        private volatile boolean parked;
+        private volatile long lastAccess;
+        private final int maxReqCount = ClientConfig.get().getMaxRequestPerConnection();
+        private final long expireTime = ClientConfig.get().getConnectionExpireTime();
 
         protected CachedConnection(ClientConnection connection) {
-            requestCount = new AtomicInteger(0);
             this.clientConnection = connection;
+            this.http2Channel = http2Channel(connection);
             this.lifeStartTime = System.currentTimeMillis();
+            this.lastAccess = lifeStartTime;
+        }
+
+        private static Http2Channel http2Channel(ClientConnection connection) {
+            if (HTTP2_CHANNEL_FIELD == null || !(connection instanceof io.undertow.client.http2.Http2ClientConnection)) {
+                return null;
+            }
+            try {
+                return (Http2Channel) HTTP2_CHANNEL_FIELD.get(connection);
+            } catch (IllegalAccessException e) {
+                return null;
+            }
         }
 
+        /**
+         * @return false if the connection is closed, expired or has served the maximum number of requests
+         */
         public boolean isOpen() {
             if (System.currentTimeMillis() - lifeStartTime >= expireTime || (requestCount.get() >= maxReqCount && maxReqCount != -1)) {
-                logger.debug("Connection expired. Start time of this connection is {}. The total request count is {}", new Date(this.lifeStartTime), this.requestCount);
-                this.lifeStartTimeParked = System.currentTimeMillis(); // Start the life time of the parked connection
-                this.requestCount = new AtomicInteger(0);
+                if(logger.isDebugEnabled()) logger.debug("Connection expired. Start time of this connection is {}. The total request count is {}", new Date(this.lifeStartTime), this.requestCount);
                 //cannot directly close connection since there may be some other threads using the connection with request now
-//                try {
-//                    this.clientConnection.close();
-//                } catch (Exception ignored) {
-//                }
                 return false;
             }
             return this.clientConnection.isOpen();
         }
 
-        protected boolean isHttp2Connection() {
-            return this.clientConnection.isMultiplexingSupported();
-        }
-
-        public ClientConnection get() {
-            return this.clientConnection;
+        /**
+         * The stream limit advertised by the peer is read on each selection as the peer can change it at any time.
+         */
+        protected int maxStreams() {
+            if (!clientConnection.isMultiplexingSupported()) {
+                return 1;
+            }
+            int max = http2Channel == null ? -1 : http2Channel.getSendMaxConcurrentStreams();
+            return max > 0 ? max : Integer.MAX_VALUE;
         }
 
-        protected void incrementRequestCount() {
-            this.requestCount.getAndIncrement();
+        protected boolean acquire() {
+            int streams;
+            do {
+                streams = activeStreams.get();
+                if (streams >= maxStreams()) {
+                    return false;
+                }
+            } while (!activeStreams.compareAndSet(streams, streams + 1));
+            if (parked) {
+                // the connection was parked after it was selected, so it may be closed any time.
+                release();
+                return false;
+            }
+            requestCount.getAndIncrement();
+            lastAccess = System.currentTimeMillis();
+            return true;
         }
 
-        public boolean isParkedConnectionExpired() {
-            if(System.currentTimeMillis() > (this.lifeStartTimeParked + this.ttlParked)) {
-                if(logger.isDebugEnabled()) logger.debug("ParkedConnection expired. Start time of this parked connection is {}", new Date(this.lifeStartTimeParked));
-                try {
-                    this.clientConnection.close();
-                } catch (Exception ignored){
-                    if(logger.isInfoEnabled()) logger.info("Exception while closing the parked connection. This exception is suppressed. Exception is {}", ignored);
+        protected void release() {
+            int streams;
+            do {
+                streams = activeStreams.get();
+                if (streams <= 0) {
+                    return;
                 }
-                return true;
-            }
-            return false;
+            } while (!activeStreams.compareAndSet(streams, streams - 1));
         }
 
+        public ClientConnection get() {
+            return this.clientConnection;
+        }
     }
 }
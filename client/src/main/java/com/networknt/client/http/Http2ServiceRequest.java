@@ -1,5 +1,6 @@
 package com.networknt.client.http;
 
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.networknt.client.Http2Client;
 import com.networknt.client.model.HttpVerb;
@@ -14,6 +15,7 @@ import com.networknt.service.SingletonServiceFactory;
 import com.networknt.status.HttpStatus;
 import com.networknt.status.Status;
 import io.undertow.client.ClientRequest;
+import io.undertow.client.ClientResponse;
 import io.undertow.util.Headers;
 import io.undertow.util.HttpString;
 
@@ -84,6 +86,49 @@ public class Http2ServiceRequest {
                 response -> new Http2ServiceResponse(response));
     }
 
+    /**
+     * Call the service and pass the response body to the consumer while it is read. The body is not available
+     * as a String in the Http2ServiceResponse unless the consumer puts it into the RESPONSE_BODY attachment.
+     * Cancelling the returned future aborts the exchange.
+     *
+     * @param consumer the consumer of the response body
+     * @return the future of the response
+     */
+    public CompletableFuture<Http2ServiceResponse> call(ResponseBodyConsumer consumer) {
+        processClientRequest();
+        CompletableFuture<ClientResponse> exchange = http2Client.callService(hostURI, clientRequest, requestBody, consumer);
+        return cancelWith(exchange.thenApplyAsync(response -> new Http2ServiceResponse(response)), exchange);
+    }
+
+    /**
+     * The cancellation of a dependent future is not passed to the future it depends on, so it is done here to
+     * abort the exchange when the caller cancels the future that is returned.
+     */
+    private static <T> CompletableFuture<T> cancelWith(CompletableFuture<T> dependent, CompletableFuture<?> source) {
+        dependent.whenComplete((r, t) -> {
+            if (dependent.isCancelled()) source.cancel(true);
+        });
+        return dependent;
+    }
+
+    /**
+     * Call the service and decode the body of the responses with a valid status code into the type while it is
+     * read. The body of the other responses is kept as a String for the error message. An empty body is kept as an
+     * empty String as well, so getTypedClientResponse fails on it with the error of Jackson like before instead of
+     * returning null.
+     */
+    private CompletableFuture<Http2ServiceResponse> callForType(JavaType type) {
+        return this.call(new JsonResponseBodyConsumer(objectMapper, type, this::isValidStatusCode));
+    }
+
+    private boolean isValidStatusCode(int statusCode) {
+        try {
+            return optionallyValidateClientResponseStatusCode(statusCode);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
     public CompletableFuture<Result<Http2ServiceResponse>> callForResult() {
         return this.call().thenComposeAsync(http2ServiceResponse -> {
             CompletableFuture<Result<Http2ServiceResponse>> completableFuture = new CompletableFuture<>();
@@ -123,7 +168,8 @@ public class Http2ServiceRequest {
     }
 
     public <ResponseType> CompletableFuture<ResponseType> callForTypedObject(Class<ResponseType> responseTypeClass) {
-        return this.call().thenComposeAsync(http2ServiceResponse -> {
+        CompletableFuture<Http2ServiceResponse> call = this.callForType(objectMapper.constructType(responseTypeClass));
+        return cancelWith(call.thenComposeAsync(http2ServiceResponse -> {
             CompletableFuture<ResponseType> completableFuture = new CompletableFuture<>();
             try {
                 if (optionallyValidateClientResponseStatusCode(http2ServiceResponse.getClientResponseStatusCode())) {
@@ -135,11 +181,11 @@ public class Http2ServiceRequest {
                 completableFuture.completeExceptionally(e);
             }
             return completableFuture;
-        });
+        }), call);
     }
 
     public <ResponseType> CallWaiter callForTypedObject(Class<ResponseType> responseTypeClass, Consumer<ResponseType> callback, Consumer<Exception> exceptionHandler) {
-        return new CallWaiter(this.call().thenAcceptAsync(http2ServiceResponse -> {
+        return new CallWaiter(this.callForType(objectMapper.constructType(responseTypeClass)).thenAcceptAsync(http2ServiceResponse -> {
             try {
                 if (optionallyValidateClientResponseStatusCode(http2ServiceResponse.getClientResponseStatusCode())) {
                     callback.accept(http2ServiceResponse.getTypedClientResponse(responseTypeClass));
@@ -153,7 +199,8 @@ public class Http2ServiceRequest {
     }
 
     public <ResponseType> CompletableFuture<List<ResponseType>> callForTypedList(Class<ResponseType> responseTypeClass) {
-        return this.call().thenComposeAsync(http2ServiceResponse -> {
+        CompletableFuture<Http2ServiceResponse> call = this.callForType(objectMapper.getTypeFactory().constructCollectionType(List.class, responseTypeClass));
+        return cancelWith(call.thenComposeAsync(http2ServiceResponse -> {
             CompletableFuture<List<ResponseType>> completableFuture = new CompletableFuture<>();
             try {
                 if (optionallyValidateClientResponseStatusCode(http2ServiceResponse.getClientResponseStatusCode())) {
@@ -165,11 +212,11 @@ public class Http2ServiceRequest {
                 completableFuture.completeExceptionally(e);
             }
             return completableFuture;
-        });
+        }), call);
     }
 
     public <ResponseType> CallWaiter callForTypedList(Class<ResponseType> responseTypeClass, Consumer<List<ResponseType>> callback, Consumer<Exception> exceptionHandler) {
-        return new CallWaiter(this.call().thenAcceptAsync(http2ServiceResponse -> {
+        return new CallWaiter(this.callForType(objectMapper.getTypeFactory().constructCollectionType(List.class, responseTypeClass)).thenAcceptAsync(http2ServiceResponse -> {
             try {
                 if (optionallyValidateClientResponseStatusCode(http2ServiceResponse.getClientResponseStatusCode())) {
                     callback.accept(http2ServiceResponse.getTypedListClientResponse(responseTypeClass));
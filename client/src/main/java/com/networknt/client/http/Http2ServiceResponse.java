@@ -30,10 +30,18 @@ public class Http2ServiceResponse {
     }
 
     public <ResponseType> ResponseType getTypedClientResponse(Class<? extends ResponseType> clazz) throws Exception {
-            return this.objectMapper.readValue(this.getClientResponseBody(), clazz);
+        // the body has been decoded while it was read if the request was sent with a JsonResponseBodyConsumer.
+        if (clientResponse.getAttachment(Http2Client.RESPONSE_BODY) == null) {
+            return clazz.cast(clientResponse.getAttachment(Http2Client.RESPONSE_OBJECT));
+        }
+        return this.objectMapper.readValue(this.getClientResponseBody(), clazz);
     }
 
+    @SuppressWarnings("unchecked")
     public <ResponseType> List<ResponseType> getTypedListClientResponse(Class<? extends ResponseType> clazz) throws Exception {
+        if (clientResponse.getAttachment(Http2Client.RESPONSE_BODY) == null) {
+            return (List<ResponseType>) clientResponse.getAttachment(Http2Client.RESPONSE_OBJECT);
+        }
         return this.objectMapper.readValue(this.getClientResponseBody(), objectMapper.getTypeFactory().constructCollectionType(List.class, clazz));
     }
 }
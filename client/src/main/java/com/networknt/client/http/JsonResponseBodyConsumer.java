@@ -0,0 +1,119 @@
+package com.networknt.client.http;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.networknt.client.Http2Client;
+import io.undertow.client.ClientResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.function.IntPredicate;
+
+/**
+ * Decode a JSON response into a typed object with the non-blocking parser of Jackson while the body is read.
+ * The tokens are collected in a TokenBuffer, which is much smaller than the String of the body, and bound to
+ * the type once the body is complete. The object is put into the RESPONSE_OBJECT attachment of the response.
+ *
+ * The body of a response with a status code that is not decoded, an error response for example, is put into
+ * the RESPONSE_BODY attachment as a String so that it can be logged or returned in the error status. So is an
+ * empty body, which keeps the error of binding an empty String to the type for the callers.
+ *
+ * A RuntimeException of the parser or the binding is rethrown as an IOException to fail the response.
+ *
+ * @author Steve Hu
+ */
+public class JsonResponseBodyConsumer implements ResponseBodyConsumer {
+    private final ObjectMapper objectMapper;
+    private final JavaType type;
+    private final IntPredicate decodeStatus;
+
+    private JsonParser parser;
+    private ByteArrayFeeder feeder;
+    private TokenBuffer tokens;
+    private boolean hasContent;
+    private StringResponseBodyConsumer raw;
+    private byte[] bytes;
+
+    /**
+     * @param objectMapper the mapper to bind the object
+     * @param type the type of the object
+     * @param decodeStatus the status codes of the responses to be decoded
+     */
+    public JsonResponseBodyConsumer(ObjectMapper objectMapper, JavaType type, IntPredicate decodeStatus) {
+        this.objectMapper = objectMapper;
+        this.type = type;
+        this.decodeStatus = decodeStatus;
+    }
+
+    @Override
+    public void onResponse(ClientResponse response) {
+        if (decodeStatus.test(response.getResponseCode())) {
+            try {
+                parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+                feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+                tokens = new TokenBuffer(objectMapper, false);
+                return;
+            } catch (IOException e) {
+                // fall back to the String body
+                parser = null;
+            }
+        }
+        raw = new StringResponseBodyConsumer();
+    }
+
+    @Override
+    public void onChunk(ByteBuffer buffer) throws IOException {
+        if (parser == null) {
+            raw.onChunk(buffer);
+            return;
+        }
+        int length = buffer.remaining();
+        if (bytes == null || bytes.length < length) {
+            bytes = new byte[length];
+        }
+        buffer.get(bytes, 0, length);
+        try {
+            // the parser has consumed the previous chunk as all the available tokens have been copied.
+            feeder.feedInput(bytes, 0, length);
+            copyTokens();
+        } catch (RuntimeException e) {
+            throw new IOException("Failed to decode the response body", e);
+        }
+    }
+
+    @Override
+    public void onComplete(ClientResponse response) throws IOException {
+        if (parser == null) {
+            if (raw == null) raw = new StringResponseBodyConsumer();
+            raw.onComplete(response);
+            return;
+        }
+        try {
+            feeder.endOfInput();
+            copyTokens();
+            if (!hasContent) {
+                response.putAttachment(Http2Client.RESPONSE_BODY, "");
+                return;
+            }
+            try (JsonParser tokenParser = tokens.asParser(objectMapper)) {
+                response.putAttachment(Http2Client.RESPONSE_OBJECT, objectMapper.readValue(tokenParser, type));
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Failed to decode the response body", e);
+        } finally {
+            parser.close();
+        }
+    }
+
+    private void copyTokens() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            tokens.copyCurrentEvent(parser);
+            hasContent = true;
+        }
+    }
+}
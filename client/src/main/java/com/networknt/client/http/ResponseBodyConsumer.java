@@ -0,0 +1,43 @@
+package com.networknt.client.http;
+
+import io.undertow.client.ClientResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Consume the body of a response chunk by chunk while it is read from the connection. It is passed to the
+ * Http2Client.callService so that a large response can be decoded or forwarded without being converted to
+ * a String first.
+ *
+ * The consumer is used by one response only and the methods are called by the IO thread of the connection
+ * in the order of onResponse, onChunk for each chunk and onComplete.
+ *
+ * @author Steve Hu
+ */
+public interface ResponseBodyConsumer {
+    /**
+     * Called when the status and the headers of the response are received and before the body is read.
+     *
+     * @param response the client response
+     */
+    default void onResponse(ClientResponse response) {
+    }
+
+    /**
+     * Called for each chunk of the body. The buffer is a pooled buffer that is reused after the method returns,
+     * so the bytes must be copied or consumed before that.
+     *
+     * @param buffer the chunk of the body
+     * @throws IOException if the chunk cannot be consumed and the response should be failed
+     */
+    void onChunk(ByteBuffer buffer) throws IOException;
+
+    /**
+     * Called when the whole body has been read. The result can be put into the attachment of the response.
+     *
+     * @param response the client response
+     * @throws IOException if the body cannot be completed and the response should be failed
+     */
+    void onComplete(ClientResponse response) throws IOException;
+}
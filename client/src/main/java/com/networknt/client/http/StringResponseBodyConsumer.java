@@ -0,0 +1,44 @@
+package com.networknt.client.http;
+
+import com.networknt.client.Http2Client;
+import io.undertow.client.ClientResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Collect the response body and put it into the RESPONSE_BODY attachment of the response as a UTF-8 String.
+ * It is the consumer behind the String based callService of the Http2Client, so the String API is read with
+ * the same streaming path as the other consumers.
+ *
+ * @author Steve Hu
+ */
+public class StringResponseBodyConsumer implements ResponseBodyConsumer {
+    private static final Logger logger = LoggerFactory.getLogger(StringResponseBodyConsumer.class);
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    @Override
+    public void onChunk(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            body.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+        } else {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            body.write(bytes, 0, bytes.length);
+        }
+    }
+
+    @Override
+    public void onComplete(ClientResponse response) {
+        String string = new String(body.toByteArray(), StandardCharsets.UTF_8);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Service call response = {}", string);
+        }
+        response.putAttachment(Http2Client.RESPONSE_BODY, string);
+    }
+}
@@ -0,0 +1,73 @@
+package com.networknt.client.listener;
+
+import io.undertow.connector.ByteBufferPool;
+import io.undertow.connector.PooledByteBuffer;
+import org.xnio.ChannelListener;
+import org.xnio.IoUtils;
+import org.xnio.channels.StreamSourceChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A Channel Listener that passes each chunk of the response to the subclass as soon as it is read instead of
+ * accumulating the whole body. The buffer is taken from the pool for each read and returned to the pool once
+ * the chunk is consumed, so the subclass must not keep a reference to it after chunkRead returns.
+ *
+ * A RuntimeException thrown by chunkRead or bodyDone closes the channel and is passed to error wrapped in an
+ * IOException, so that the subclass can always fail the response instead of leaving it incomplete.
+ *
+ * @author Steve Hu
+ */
+public abstract class StreamingReadChannelListener implements ChannelListener<StreamSourceChannel> {
+    private final ByteBufferPool bufferPool;
+
+    public StreamingReadChannelListener(ByteBufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    public void setup(StreamSourceChannel channel) {
+        if (read(channel) == 0) {
+            channel.getReadSetter().set(this);
+            channel.resumeReads();
+        }
+    }
+
+    @Override
+    public void handleEvent(StreamSourceChannel channel) {
+        read(channel);
+    }
+
+    private int read(StreamSourceChannel channel) {
+        try (PooledByteBuffer resource = bufferPool.allocate()) {
+            ByteBuffer buffer = resource.getBuffer();
+            int r;
+            do {
+                buffer.clear();
+                r = channel.read(buffer);
+                if (r == -1) {
+                    IoUtils.safeClose(channel);
+                    bodyDone();
+                } else if (r > 0) {
+                    buffer.flip();
+                    chunkRead(buffer);
+                }
+            } while (r > 0);
+            return r;
+        } catch (IOException e) {
+            IoUtils.safeClose(channel);
+            error(e);
+            return -1;
+        } catch (RuntimeException e) {
+            IoUtils.safeClose(channel);
+            error(new IOException("Failed to consume the response body", e));
+            return -1;
+        }
+    }
+
+    protected abstract void chunkRead(ByteBuffer buffer) throws IOException;
+
+    protected abstract void bodyDone() throws IOException;
+
+    protected abstract void error(IOException e);
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.client.rest;
+
+import com.networknt.client.model.ServiceDef;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The non-blocking counterpart of the RestClient. Each method returns as soon as the request is sent and the
+ * future is completed with the converted object by the IO thread, so no worker thread waits for the response.
+ * The future is completed exceptionally with a RestClientException if the call fails or the response status
+ * code is not valid. Cancelling the future aborts the exchange. Use the RestFutures to fan out to several
+ * services and join the results with a deadline for each call.
+ *
+ * @author Steve Hu
+ */
+public interface AsyncRestClient {
+    /**
+     * Retrieve a representation by doing a GET on the specified URL.
+     * @param url the URL example: https://localhost:8443 ;  https://"com.networknt.hello-1
+     * @param path the path of the service call, for example: /v1/hello
+     * @param responseType the type of the return value
+     * @param <T> This is the type parameter
+     * @return the future of the converted object
+     */
+    <T> CompletableFuture<T> get(String url, String path, Class<T> responseType);
+
+    /**
+     * Retrieve a representation by doing a GET on the specified URL with the headers.
+     * @param url the URL example: https://localhost:8443 ;  https://"com.networknt.hello-1
+     * @param path the path of the service call, for example: /v1/hello
+     * @param responseType the type of the return value
+     * @param headerMap the map containing header setting map
+     * @param <T> This is the type parameter
+     * @return the future of the converted object
+     */
+    <T> CompletableFuture<T> get(String url, String path, Class<T> responseType, Map<String, ?> headerMap);
+
+    /**
+     * Retrieve a representation by doing a GET on the service.
+     * @param serviceDef the URL service definition
+     * @param path the path of the service call, for example: /v1/hello
+     * @param responseType the type of the return value
+     * @param <T> This is the type parameter
+     * @return the future of the converted object
+     */
+    <T> CompletableFuture<T> get(ServiceDef serviceDef, String path, Class<T> responseType);
+
+    /**
+     * Retrieve a representation by doing a GET on the service with the headers.
+     * @param serviceDef the URL service definition
+     * @param path the path of the service call, for example: /v1/hello
+     * @param responseType the type of the return value
+     * @param headerMap the map containing header setting map
+     * @param <T> This is the type parameter
+     * @return the future of the converted object
+     */
+    <T> CompletableFuture<T> get(ServiceDef serviceDef, String path, Class<T> responseType, Map<String, ?> headerMap);
+
+    /**
+     * Retrieve a representation by doing a POST on the specified URL.
+     * @param url the URL example: https://localhost:8443 ;  https://"com.networknt.hello-1
+     * @param path the path of the service call, for example: /v1/hello
+     * @param responseType the type of the return value
+     * @param headerMap the map containing header setting map
+     * @param requestBody REQUEST BODY
+     * @param <T> This is the type parameter
+     * @return the future of the converted object
+     */
+    <T> CompletableFuture<T> post(String url, String path, Class<T> responseType, Map<String, ?> headerMap, String requestBody);
+
+    /**
+     * Retrieve a representation by doing a POST on the service.
+     * @param serviceDef the URL service definition
+     * @param path the path of the service call, for example: /v1/hello
+     * @param responseType the type of the return value
+     * @param headerMap the map containing header setting map
+     * @param requestBody REQUEST BODY
+     * @param <T> This is the type parameter
+     * @return the future of the converted object
+     */
+    <T> CompletableFuture<T> post(ServiceDef serviceDef, String path, Class<T> responseType, Map<String, ?> headerMap, String requestBody);
+
+    /**
+     * Retrieve a representation by doing a PUT on the specified URL.
+     * @param url the URL example: https://localhost:8443 ;  https://"com.networknt.hello-1
+     * @param path the path of the service call, for example: /v1/hello
+     * @param responseType the type of the return value
+     * @param headerMap the map containing header setting map
+     * @param requestBody REQUEST BODY
+     * @param <T> This is the type parameter
+     * @return the future of the converted object
+     */
+    <T> CompletableFuture<T> put(String url, String path, Class<T> responseType, Map<String, ?> headerMap, String requestBody);
+
+    /**
+     * Retrieve a representation by doing a PUT on the service.
+     * @param serviceDef the URL service definition
+     * @param path the path of the service call, for example: /v1/hello
+     * @param responseType the type of the return value
+     * @param headerMap the map containing header setting map
+     * @param requestBody REQUEST BODY
+     * @param <T> This is the type parameter
+     * @return the future of the converted object
+     */
+    <T> CompletableFuture<T> put(ServiceDef serviceDef, String path, Class<T> responseType, Map<String, ?> headerMap, String requestBody);
+
+    /**
+     * Retrieve a representation by doing a DELETE on the specified URL.
+     * @param url the URL example: https://localhost:8443 ;  https://"com.networknt.hello-1
+     * @param path the path of the service call, for example: /v1/hello
+     * @param responseType the type of the return value
+     * @param headerMap the map containing header setting map
+     * @param <T> This is the type parameter
+     * @return the future of the converted object
+     */
+    <T> CompletableFuture<T> delete(String url, String path, Class<T> responseType, Map<String, ?> headerMap);
+
+    /**
+     * Retrieve a representation by doing a DELETE on the service.
+     * @param serviceDef the URL service definition
+     * @param path the path of the service call, for example: /v1/hello
+     * @param responseType the type of the return value
+     * @param headerMap the map containing header setting map
+     * @param <T> This is the type parameter
+     * @return the future of the converted object
+     */
+    <T> CompletableFuture<T> delete(ServiceDef serviceDef, String path, Class<T> responseType, Map<String, ?> headerMap);
+}
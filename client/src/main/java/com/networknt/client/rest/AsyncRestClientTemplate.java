@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.client.rest;
+
+import com.networknt.client.http.Http2ServiceRequest;
+import com.networknt.client.model.ServiceDef;
+import com.networknt.status.HttpStatus;
+import io.undertow.util.HttpString;
+import io.undertow.util.Methods;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The default AsyncRestClient that sends the requests with the Http2ServiceRequest like the RestClientTemplate
+ * but returns the future of the response instead of waiting for it.
+ *
+ * @author Steve Hu
+ */
+public class AsyncRestClientTemplate implements AsyncRestClient {
+
+    private static Logger logger = LoggerFactory.getLogger(AsyncRestClientTemplate.class);
+    private static final String ERROR_STRING = "execute the restful API call error:";
+
+    Optional<List<HttpStatus>> statusCodesValid = Optional.empty();
+
+    public void setStatusCodesValid(List<HttpStatus> statusCodesValid) {
+        this.statusCodesValid = Optional.of(statusCodesValid);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> get(String url, String path, Class<T> responseType) {
+        return get(url, path, responseType, null);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> get(String url, String path, Class<T> responseType, Map<String, ?> headerMap) {
+        return execute(url, path, responseType, headerMap, Methods.GET, null);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> get(ServiceDef serviceDef, String path, Class<T> responseType) {
+        return get(serviceDef, path, responseType, null);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> get(ServiceDef serviceDef, String path, Class<T> responseType, Map<String, ?> headerMap) {
+        return execute(serviceDef, path, responseType, headerMap, Methods.GET, null);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> post(String url, String path, Class<T> responseType, Map<String, ?> headerMap, String requestBody) {
+        return execute(url, path, responseType, headerMap, Methods.POST, requestBody);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> post(ServiceDef serviceDef, String path, Class<T> responseType, Map<String, ?> headerMap, String requestBody) {
+        return execute(serviceDef, path, responseType, headerMap, Methods.POST, requestBody);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> put(String url, String path, Class<T> responseType, Map<String, ?> headerMap, String requestBody) {
+        return execute(url, path, responseType, headerMap, Methods.PUT, requestBody);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> put(ServiceDef serviceDef, String path, Class<T> responseType, Map<String, ?> headerMap, String requestBody) {
+        return execute(serviceDef, path, responseType, headerMap, Methods.PUT, requestBody);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> delete(String url, String path, Class<T> responseType, Map<String, ?> headerMap) {
+        return execute(url, path, responseType, headerMap, Methods.DELETE, null);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> delete(ServiceDef serviceDef, String path, Class<T> responseType, Map<String, ?> headerMap) {
+        return execute(serviceDef, path, responseType, headerMap, Methods.DELETE, null);
+    }
+
+    protected <T> CompletableFuture<T> execute(String url, String path, Class<T> responseType, Map<String, ?> headerMap, HttpString method, String requestBody) {
+        try {
+            return send(new Http2ServiceRequest(new URI(url), path, method), responseType, headerMap, requestBody);
+        } catch (Exception e) {
+            return failed(e);
+        }
+    }
+
+    protected <T> CompletableFuture<T> execute(ServiceDef serviceDef, String path, Class<T> responseType, Map<String, ?> headerMap, HttpString method, String requestBody) {
+        try {
+            return send(new Http2ServiceRequest(serviceDef, path, method), responseType, headerMap, requestBody);
+        } catch (Exception e) {
+            return failed(e);
+        }
+    }
+
+    private <T> CompletableFuture<T> send(Http2ServiceRequest http2ServiceRequest, Class<T> responseType, Map<String, ?> headerMap, String requestBody) {
+        if (statusCodesValid.isPresent()) http2ServiceRequest.setStatusCodesValid(statusCodesValid.get());
+        http2ServiceRequest.setRequestHeaders(headerMap);
+        if (requestBody != null) http2ServiceRequest.setRequestBody(requestBody);
+        CompletableFuture<T> call = http2ServiceRequest.callForTypedObject(responseType);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        call.whenComplete((value, throwable) -> {
+            if (throwable == null) {
+                result.complete(value);
+            } else {
+                Throwable cause = RestFutures.unwrap(throwable);
+                logger.error(ERROR_STRING + cause);
+                result.completeExceptionally(new RestClientException(ERROR_STRING, cause));
+            }
+        });
+        return RestFutures.cancelWith(result, call);
+    }
+
+    private static <T> CompletableFuture<T> failed(Exception e) {
+        logger.error(ERROR_STRING + e);
+        return CompletableFuture.failedFuture(new RestClientException(ERROR_STRING, e));
+    }
+}
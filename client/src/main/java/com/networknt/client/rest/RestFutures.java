@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.client.rest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The helpers to fan out the calls of the AsyncRestClient and join the results without blocking a thread. Each
+ * call is given its own deadline, and a call that misses the deadline or is no longer needed is cancelled so that
+ * its exchange is aborted instead of being left to complete in the background.
+ *
+ * @author Steve Hu
+ */
+public final class RestFutures {
+
+    private RestFutures() {
+    }
+
+    /**
+     * Limit the time of a call. The returned future is completed exceptionally with a TimeoutException after the
+     * timeout, and the call is cancelled if the returned future is completed before the call, by the timeout or
+     * a cancellation. On the timeout, the call is cancelled before the returned future fails.
+     *
+     * @param future the future of the call
+     * @param timeoutMillis the deadline of the call in milliseconds
+     * @param <T> the type of the result
+     * @return the future of the call with the deadline
+     */
+    public static <T> CompletableFuture<T> withDeadline(CompletableFuture<T> future, long timeoutMillis) {
+        CompletableFuture<T> timer = future.copy().orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        CompletableFuture<T> deadline = new CompletableFuture<>();
+        // the dependents of a future run in the reverse order of registration, so the call is cancelled here
+        // before the deadline is completed instead of in a dependent of the deadline.
+        timer.whenComplete((r, t) -> {
+            if (t == null) {
+                deadline.complete(r);
+            } else {
+                if (!future.isDone()) future.cancel(true);
+                deadline.completeExceptionally(t);
+            }
+        });
+        deadline.whenComplete((r, t) -> {
+            if (t != null && !future.isDone()) future.cancel(true);
+        });
+        return deadline;
+    }
+
+    /**
+     * Join the results of all the calls in the same order. The returned future fails as soon as one of the calls
+     * fails or misses its deadline, and the other calls are cancelled.
+     *
+     * @param futures the futures of the calls
+     * @param timeoutMillis the deadline of each call in milliseconds
+     * @param <T> the type of the result
+     * @return the future of the results
+     */
+    public static <T> CompletableFuture<List<T>> all(List<CompletableFuture<T>> futures, long timeoutMillis) {
+        List<CompletableFuture<T>> calls = withDeadline(futures, timeoutMillis);
+        CompletableFuture<List<T>> result = new CompletableFuture<>();
+        if (calls.isEmpty()) {
+            result.complete(Collections.emptyList());
+            return result;
+        }
+        AtomicInteger remaining = new AtomicInteger(calls.size());
+        for (CompletableFuture<T> call : calls) {
+            call.whenComplete((r, t) -> {
+                if (t != null) {
+                    if (result.completeExceptionally(unwrap(t))) cancelAll(calls);
+                } else if (remaining.decrementAndGet() == 0) {
+                    List<T> values = new ArrayList<>(calls.size());
+                    for (CompletableFuture<T> completed : calls) {
+                        values.add(completed.join());
+                    }
+                    result.complete(values);
+                }
+            });
+        }
+        return cancelWith(result, calls);
+    }
+
+    /**
+     * Return the result of the first call that succeeds and cancel the other calls. The returned future fails
+     * with the failure of the last call only if all the calls fail or miss their deadline.
+     *
+     * @param futures the futures of the calls
+     * @param timeoutMillis the deadline of each call in milliseconds
+     * @param <T> the type of the result
+     * @return the future of the first result
+     */
+    public static <T> CompletableFuture<T> any(List<CompletableFuture<T>> futures, long timeoutMillis) {
+        List<CompletableFuture<T>> calls = withDeadline(futures, timeoutMillis);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (calls.isEmpty()) {
+            result.completeExceptionally(new IllegalArgumentException("no call to wait for"));
+            return result;
+        }
+        AtomicInteger remaining = new AtomicInteger(calls.size());
+        for (CompletableFuture<T> call : calls) {
+            call.whenComplete((r, t) -> {
+                if (t == null) {
+                    if (result.complete(r)) cancelAll(calls);
+                } else if (remaining.decrementAndGet() == 0) {
+                    result.completeExceptionally(unwrap(t));
+                }
+            });
+        }
+        return cancelWith(result, calls);
+    }
+
+    /**
+     * Cancel the source when the dependent future is cancelled, as the cancellation is not passed to the future
+     * that a dependent future is created from.
+     *
+     * @param dependent the future that is returned to the caller
+     * @param source the future of the call
+     * @param <T> the type of the result
+     * @return the dependent future
+     */
+    public static <T> CompletableFuture<T> cancelWith(CompletableFuture<T> dependent, CompletableFuture<?> source) {
+        return cancelWith(dependent, Collections.singletonList(source));
+    }
+
+    static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    private static <T> List<CompletableFuture<T>> withDeadline(List<CompletableFuture<T>> futures, long timeoutMillis) {
+        List<CompletableFuture<T>> calls = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            calls.add(withDeadline(future, timeoutMillis));
+        }
+        return calls;
+    }
+
+    private static <T> CompletableFuture<T> cancelWith(CompletableFuture<T> dependent, List<? extends CompletableFuture<?>> sources) {
+        dependent.whenComplete((r, t) -> {
+            if (dependent.isCancelled()) cancelAll(sources);
+        });
+        return dependent;
+    }
+
+    private static void cancelAll(List<? extends CompletableFuture<?>> futures) {
+        for (CompletableFuture<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+}
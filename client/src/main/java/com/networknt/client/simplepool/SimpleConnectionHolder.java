@@ -31,7 +31,8 @@ import java.net.URI;
 import java.util.Set;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /***
  * A SimpleConnectionHolder is a simplified interface for a connection, that also keeps track of the connection's state.
@@ -89,10 +90,19 @@ import java.util.concurrent.ConcurrentHashMap;
  *   This is important when calculating an aggregate state based on the values of 2 or more time-dependent states.
  *
  *   Not doing so (i.e.: not freezing the time) may allow inconsistent states to be reached.
+ *
+ * Thread Safety
+ *   The holder doesn't use a monitor. The number of borrowed tokens is an atomic counter that is also used as the
+ *   closed marker (-1), so a borrow and a close can never both succeed: a borrow only increments a counter that is
+ *   not negative and below MAX_BORROWS, and a close only moves the counter from 0 to -1 after the connection has
+ *   expired.
  */
 public final class SimpleConnectionHolder {
     private static final Logger logger = LoggerFactory.getLogger(SimpleConnectionHolder.class);
 
+    // the value of the borrows counter after the connection has been closed by the pool
+    private static final int CLOSED = -1;
+
     // how long a connection can be eligible to be borrowed
     private final long EXPIRE_TIME;
 
@@ -119,8 +129,13 @@ public final class SimpleConnectionHolder {
     private final SimpleConnectionMaker connectionMaker;
     private final SimpleConnection connection;
 
-    /** a Set containing all borrowed connection tokens */
-    private final Set<ConnectionToken> borrowedTokens = ConcurrentHashMap.newKeySet();
+    /** the number of borrowed connection tokens, or CLOSED once the pool has closed the connection */
+    private final AtomicInteger borrows = new AtomicInteger(0);
+
+    /** true while the holder is in the idle deque or an affinity slot of the connection pool */
+    private final AtomicBoolean queued = new AtomicBoolean(false);
+
+    private final AtomicBoolean firstUse = new AtomicBoolean(true);
 
     /***
      * Connections and ConnectionHolders are paired 1-1. For every connection there is a single ConnectionHolder and
@@ -169,8 +184,8 @@ public final class SimpleConnectionHolder {
         // create initial connection to uri
         connection = connectionMaker.makeConnection(connectionCreateTimeout, bindAddress, uri, worker, ssl, bufferPool, options, allCreatedConnections);
         // throw exception if connection creation failed
-        if(!connection.isOpen()) {
-            logger.debug("{} closed connection", logLabel(connection, now));
+        if(connection == null || !connection.isOpen()) {
+            logger.debug("[{}] closed connection", port(connection));
             throw new RuntimeException("[" + port(connection) + "] Error creating connection to " + uri.toString());
 
         // start life-timer and determine connection type
@@ -180,11 +195,10 @@ public final class SimpleConnectionHolder {
             // HTTP/1.1 connections have a MAX_BORROW of 1, while HTTP/2 connections can have > 1 MAX_BORROWS
             MAX_BORROWS = connection().isMultiplexingSupported() ? Integer.MAX_VALUE : 1;
 
-            logger.debug("{} New connection : {}", logLabel(connection, now), MAX_BORROWS > 1 ? "HTTP/2" : "HTTP/1.1");
+            if(logger.isDebugEnabled()) logger.debug("{} New connection : {}", logLabel(connection, now), MAX_BORROWS > 1 ? "HTTP/2" : "HTTP/1.1");
         }
     }
 
-    private volatile boolean firstUse = true;
     /**
      * State Transition - Borrow
      *
@@ -193,49 +207,58 @@ public final class SimpleConnectionHolder {
      * @return returns a ConnectionToken representing this borrow of the connection
      * @throws RuntimeException if connection closed or attempt to borrow after pool is full
      */
-    public synchronized ConnectionToken borrow(long connectionCreateTimeout, long now) throws RuntimeException {
+    public ConnectionToken borrow(long connectionCreateTimeout, long now) throws RuntimeException {
         /***
          * Connections can only be borrowed when the connection is in a BORROWABLE state.
          *
          * This will throw an IllegalStateException if borrow is called when the connection is not borrowable.
-         * This means that users need to check the state of the connection (i.e.: the state of the ConnectionHolder)
-         * before using it, e.g.:
-         *
-         *     ConnectionToken connectionToken = null;
-         *     long now = System.currentTimeMillis();
-         *
-         *     if(connectionHolder.borrowable(now))
-         *         connectionToken = connectionHolder.borrow(connectionCreateTimeout, now);
-         *
-         * Also note the use of a single consistent value for the current time ('now'). This ensures
-         * that the state returned in the 'if' statement will still be true in the 'borrow' statement
-         * (as long as the connection does not close between the 'if' and 'borrow').
-         *
+         * The connection pool uses tryBorrow() instead, which returns null in that case, as the state can change
+         * between checking it and borrowing when there is no lock.
          */
-        ConnectionToken connectionToken;
-
-        if(borrowable(now)) {
-            if (firstUse) {
-                firstUse = false;
-                connectionToken = new ConnectionToken(connection);
-            } else {
-                SimpleConnection reusedConnection = connectionMaker.reuseConnection(connectionCreateTimeout, connection);
-                connectionToken = new ConnectionToken(reusedConnection);
-            }
+        ConnectionToken connectionToken = tryBorrow(connectionCreateTimeout, now);
+        if(connectionToken != null)
+            return connectionToken;
 
-            // add connectionToken to the Set of borrowed tokens
-            borrowedTokens.add(connectionToken);
+        if(closed())
+            throw new RuntimeException("Connection was unexpectedly closed");
+        else
+            throw new IllegalStateException("Attempt made to borrow connection outside of BORROWABLE state");
+    }
 
-            logger.debug("{} borrow - connection now has {} borrows", logLabel(connection, now), borrowedTokens.size());
+    /**
+     * State Transition - Borrow if the connection is BORROWABLE
+     *
+     * @param connectionCreateTimeout the amount of time to wait for a connection to be created before throwing an exception
+     * @param now the time at which to evaluate whether the connection is borrowable or not
+     * @return a ConnectionToken representing this borrow of the connection or null if the connection is not borrowable
+     * @throws RuntimeException if the connection cannot be reused
+     */
+    public ConnectionToken tryBorrow(long connectionCreateTimeout, long now) throws RuntimeException {
+        if(closed() || expired(now))
+            return null;
+
+        // claim a borrow before the token is created, the counter is the only shared state
+        int current;
+        do {
+            current = borrows.get();
+            if(current < 0 || current >= MAX_BORROWS)
+                return null;
+        } while(!borrows.compareAndSet(current, current + 1));
 
-            return connectionToken;
-        }
-        else {
-            if(closed())
-                throw new RuntimeException("Connection was unexpectedly closed");
+        ConnectionToken connectionToken;
+        try {
+            if(firstUse.compareAndSet(true, false))
+                connectionToken = new ConnectionToken(connection);
             else
-                throw new IllegalStateException("Attempt made to borrow connection outside of BORROWABLE state");
+                connectionToken = new ConnectionToken(connectionMaker.reuseConnection(connectionCreateTimeout, connection));
+        } catch (RuntimeException e) {
+            borrows.decrementAndGet();
+            throw e;
         }
+
+        if(logger.isDebugEnabled()) logger.debug("{} borrow - connection now has {} borrows", logLabel(connection, now), borrowCount());
+
+        return connectionToken;
     }
 
     /**
@@ -245,12 +268,16 @@ public final class SimpleConnectionHolder {
      *       ConnectionTokens have been restored.
      *
      * @param connectionToken the ConnectionToken representing the borrow of the connection
+     * @return true if the token was restored and false if it had already been restored
      */
-    public synchronized void restore(ConnectionToken connectionToken) {
-        borrowedTokens.remove(connectionToken);
+    public boolean restore(ConnectionToken connectionToken) {
+        if(!connectionToken.restored.compareAndSet(false, true))
+            return false;
 
-        long now = System.currentTimeMillis();
-        logger.debug("{} restore - connection now has {} borrows", logLabel(connection, now), borrowedTokens.size());
+        borrows.decrementAndGet();
+
+        if(logger.isDebugEnabled()) logger.debug("{} restore - connection now has {} borrows", logLabel(connection, System.currentTimeMillis()), borrowCount());
+        return true;
     }
 
     /**
@@ -259,29 +286,39 @@ public final class SimpleConnectionHolder {
      * @param now the time at which to evaluate whether this connection is closable or not
      * @return true if the connection was closed and false otherwise
      */
-    public synchronized boolean safeClose(long now) {
-        logger.debug("{} close - closing connection with {} borrows...", logLabel(connection, now), borrowedTokens.size());
+    public boolean safeClose(long now) {
+        /**
+        Ensures that a connection is never closed unless the connection is in the NOT_BORROWED_EXPIRED state
+        This is vital to ensure that connections are never closed until after all processes that
+        borrowed them are no longer using them
+        */
+        if(!tryClose(now))
+            throw new IllegalStateException();
+        return true;
+    }
 
+    /**
+     * State Transition - Close if the connection is in the NOT_BORROWED_EXPIRED state
+     *
+     * @param now the time at which to evaluate whether this connection is closable or not
+     * @return true if the connection is closed and false if it is still borrowed or not expired
+     */
+    public boolean tryClose(long now) {
         /**
         Connection may still be open even if closed == true
         However, for consistency, we treat the connection as closed as soon as closed == true,
         even if IoUtils.safeClose(connection) has not completed closing the connection yet
         */
-        if(closed())
+        if(closed)
             return true;
 
-        /**
-        Ensures that a connection is never closed unless the connection is in the NOT_BORROWED_EXPIRED state
-        This is vital to ensure that connections are never closed until after all processes that
-        borrowed them are no longer using them
-        */
-        boolean notBorrowedExpired = !borrowed() && expired(now);
-        if(notBorrowedExpired != true)
-            throw new IllegalStateException();
+        if(!expired(now) || !borrows.compareAndSet(0, CLOSED))
+            return false;
 
+        if(logger.isDebugEnabled()) logger.debug("[{}] close - closing expired connection", port(connection));
         closed = true;
         connection.safeClose();
-        return closed;
+        return true;
     }
 
     /**
@@ -289,7 +326,7 @@ public final class SimpleConnectionHolder {
      *
      * @return true if the connection is closed and false otherwise
      */
-    public synchronized boolean closed() {
+    public boolean closed() {
         if(closed)
             return closed;
 
@@ -305,7 +342,7 @@ public final class SimpleConnectionHolder {
      * @param now the time at which to evaluate whether this connection has expired or not
      * @return true if the connection has expired and false otherwise
      */
-    public synchronized boolean expired(long now) {
+    public boolean expired(long now) {
         return now - startTime >= EXPIRE_TIME;
     }
 
@@ -314,17 +351,17 @@ public final class SimpleConnectionHolder {
      *
      * @return true if the connection is currently borrowed and false otherwise
      */
-    public synchronized boolean borrowed() {
-        return borrowedTokens.size() > 0;
+    public boolean borrowed() {
+        return borrows.get() > 0;
     }
 
     /**
      * State Property - isAtMaxBorrows
-     * 
+     *
      * @return true if the connection is at its maximum number of borrows, and false otherwise
      */
-    public synchronized boolean maxBorrowed() {
-        return borrowedTokens.size() >= MAX_BORROWS;
+    public boolean maxBorrowed() {
+        return borrows.get() >= MAX_BORROWS;
     }
 
     /**
@@ -333,8 +370,41 @@ public final class SimpleConnectionHolder {
      * @param now the time at which to evaluate the borrowability of this connection
      * @return true if the connection is borrowable and false otherwise
      */
-    public synchronized boolean borrowable(long now) {
-        return connection.isOpen() && !expired(now) && !maxBorrowed();
+    public boolean borrowable(long now) {
+        int current = borrows.get();
+        return connection.isOpen() && !expired(now) && current >= 0 && current < MAX_BORROWS;
+    }
+
+    /**
+     * State Property - isMultiplexed
+     *
+     * @return true if the connection can be borrowed by more than one process at a time (HTTP/2)
+     */
+    public boolean multiplexed() {
+        return MAX_BORROWS > 1;
+    }
+
+    /**
+     * @return the number of borrowed tokens that have not been restored
+     */
+    public int borrowCount() {
+        return Math.max(borrows.get(), 0);
+    }
+
+    /**
+     * Marks the holder as queued in the idle deque or an affinity slot of the pool.
+     *
+     * @return true if the holder was not queued, so that a holder is only queued once
+     */
+    boolean enqueue() {
+        return queued.compareAndSet(false, true);
+    }
+
+    /**
+     * Marks the holder as taken out of the idle deque or an affinity slot of the pool.
+     */
+    void dequeue() {
+        queued.set(false);
     }
 
     /**
@@ -348,25 +418,25 @@ public final class SimpleConnectionHolder {
         private final SimpleConnection connection;
         private final SimpleConnectionHolder holder;
         private final URI uri;
+        private final Thread borrower;
+        private final AtomicBoolean restored = new AtomicBoolean(false);
 
         ConnectionToken(SimpleConnection connection) {
             this.connection = connection;
             this.holder = SimpleConnectionHolder.this;
             this.uri = SimpleConnectionHolder.this.uri;
+            this.borrower = Thread.currentThread();
         }
 
         SimpleConnectionHolder holder() { return holder; }
         SimpleConnection connection() { return connection; }
+        Thread borrower() { return borrower; }
         public Object getRawConnection() { return connection.getRawConnection(); }
         public URI uri() { return uri; }
     }
 
     /***
      * For logging
-     *
-     * NOTE: Thread Safety
-     *     This method is private, and is only called either directly or transitively by synchronized
-     *     methods in this class.
      */
     private String logLabel(SimpleConnection connection, long now) {
         return "[" + port(connection) + ": " + state(now) + "]";
@@ -374,12 +444,8 @@ public final class SimpleConnectionHolder {
 
     /***
      * For logging
-     *
-     * NOTE: Thread Safety
-     *     This method is private, and is only called either directly or transitively by synchronized
-     *     methods in this class.
      */
-    private static String port(SimpleConnection connection) {
+    static String port(SimpleConnection connection) {
         if(connection == null) return "NULL";
         String url = connection.getLocalAddress();
         int semiColon = url.lastIndexOf(":");
@@ -389,13 +455,9 @@ public final class SimpleConnectionHolder {
 
     /***
      * For logging
-     *
-     * NOTE: Thread Safety
-     *     This method is private, and is only called either directly or transitively by synchronized
-     *     methods in this class.
      */
     private enum State { CLOSED, BORROWABLE, NOT_BORROWABLE, NOT_BORROWED, VALID, BORROWED, EXPIRED }
-    private String state(long now) {
+    String state(long now) {
         List<State> stateList = new ArrayList<>();
         if(closed())        { stateList.add(State.CLOSED); }
         if(borrowed())      { stateList.add(State.BORROWED);} else{ stateList.add(State.NOT_BORROWED);}
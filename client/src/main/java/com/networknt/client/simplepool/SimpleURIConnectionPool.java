@@ -23,28 +23,57 @@ import io.undertow.connector.ByteBufferPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnio.OptionMap;
-import org.xnio.XnioIoThread;
 import org.xnio.XnioWorker;
 import org.xnio.ssl.XnioSsl;
 
+import java.lang.ref.WeakReference;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 /***
     A connection pool for a single URI.
-    Connection pool contains 4 Sets of ConnectionHolders:
+
+    The borrow and restore paths don't take a lock. A connection is selected in this order:
+
+        1. multiplexed:     the current HTTP/2 connection, it can be borrowed by any number of threads at a time
+        2. affinity slot:   the HTTP/1.1 connection the calling thread restored last (if it is still borrowable)
+        3. idle deque:      the HTTP/1.1 connections that have been restored and are not borrowed (most recent first)
+
+    Each selection is O(1). The borrow itself is an atomic compare-and-set on the borrow counter of the
+    SimpleConnectionHolder, so a connection that is referenced by a slot or the deque but has been borrowed or
+    expired in the meantime is simply skipped. Only the creation of a new connection is serialized, so that
+    concurrent callers don't open more connections than needed (only one HTTP/2 connection is normally needed).
+
+    The pool tracks 2 Sets of connections:
 
         1. allCreatedConnections    all connections created by connection makers are added to this set
-        2. allKnownConnections:     the set of all connections tracked by the connection pool
-        3. Borrowable:              connection that can be borrowed from
-        4. Borrowed:                connections that have borrowed tokens
-        5. notBorrowedExpired:      connections that have no borrowed tokens -- only these can be closed by the pool
+        2. allKnownConnections:     all connections tracked by the connection pool with their holders
+
+    Expired connections that are not borrowed, connections that have unexpectedly closed and leaked connections
+    are handled by a background sweeper instead of on every borrow and restore. The pool is also swept inline
+    when it is full, so that expired connections can be replaced right away.
 */
 public final class SimpleURIConnectionPool {
     private static final Logger logger = LoggerFactory.getLogger(SimpleURIConnectionPool.class);
+    /** the interval of the background sweeper in milliseconds */
+    private static final long SWEEP_INTERVAL = 1000;
+    private static final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "SimpleURIConnectionPool-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final SimpleConnectionMaker connectionMaker;
     private final long EXPIRY_TIME;
     private final int poolSize;
@@ -55,27 +84,40 @@ public final class SimpleURIConnectionPool {
     private XnioSsl ssl;
     private OptionMap options;
 
-
-    /** Connection Pool Sets
-     *  These sets determine the mutable state of the connection pool
-     */
     /** The set of all connections created by the SimpleConnectionMaker for this uri */
     private final Set<SimpleConnection> allCreatedConnections = ConcurrentHashMap.newKeySet();
-    /** The set containing all connections known to this connection pool (It is not considered a state set) */
-    private final Set<SimpleConnectionHolder> allKnownConnections = new HashSet<>();
-    /**
-     * State Sets
-     * The existence or non-existence of a connection in one of these sets means that the connection is or is not in
-     * one of these states. A connection can be in multiple state sets at a time (e.g.: a connection can be both borrowed and borrowable) */
-    private final Set<SimpleConnectionHolder> borrowable = new HashSet<>();
-    private final Set<SimpleConnectionHolder> borrowed = new HashSet<>();
-    private final Set<SimpleConnectionHolder> notBorrowedExpired = new HashSet<>();
+    /** All connections known to this connection pool and their holders */
+    private final Map<SimpleConnection, SimpleConnectionHolder> allKnownConnections = new ConcurrentHashMap<>();
+
+    /** The HTTP/2 connection that is shared by all borrowers */
+    private final AtomicReference<SimpleConnectionHolder> multiplexed = new AtomicReference<>();
+    /** The HTTP/1.1 connection last restored by each thread */
+    private final ThreadLocal<SimpleConnectionHolder> affinity = new ThreadLocal<>();
+    /** The other restored HTTP/1.1 connections */
+    private final ConcurrentLinkedDeque<SimpleConnectionHolder> idle = new ConcurrentLinkedDeque<>();
+
+    /** serializes the creation of connections, it is never held by the borrow and restore of existing connections */
+    private final ReentrantLock createLock = new ReentrantLock();
+    private volatile boolean creating = false;
+
+    /** only one sweep runs at a time, the leak candidates are only accessed by the sweep */
+    private final AtomicBoolean sweeping = new AtomicBoolean(false);
+    private final Set<SimpleConnection> leakCandidates = new HashSet<>();
+    private final ScheduledFuture<?> sweeperTask;
+
+    /** metrics */
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder createCount = new LongAdder();
+    private final LongAdder closeCount = new LongAdder();
+    private final LongAdder exhaustedCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
 
     public SimpleURIConnectionPool(URI uri, long expireTime, int poolSize, SimpleConnectionMaker connectionMaker) {
         EXPIRY_TIME = expireTime;
         this.uri = uri;
         this.poolSize = poolSize;
         this.connectionMaker = connectionMaker;
+        this.sweeperTask = scheduleSweeper(this);
     }
 
     public SimpleURIConnectionPool(URI uri, long expireTime, int poolSize, InetSocketAddress bindAddress, XnioWorker worker, ByteBufferPool bufferPool, XnioSsl ssl, OptionMap options, SimpleConnectionMaker connectionMaker) {
@@ -88,6 +130,30 @@ public final class SimpleURIConnectionPool {
         this.ssl = ssl;
         this.options = options;
         this.connectionMaker = connectionMaker;
+        this.sweeperTask = scheduleSweeper(this);
+    }
+
+    /**
+     * The sweeper task only holds a weak reference to the pool, and it cancels itself once the pool is gone.
+     */
+    private static ScheduledFuture<?> scheduleSweeper(SimpleURIConnectionPool pool) {
+        final WeakReference<SimpleURIConnectionPool> reference = new WeakReference<>(pool);
+        final AtomicReference<ScheduledFuture<?>> self = new AtomicReference<>();
+        ScheduledFuture<?> future = sweeper.scheduleWithFixedDelay(() -> {
+            SimpleURIConnectionPool p = reference.get();
+            if(p == null) {
+                ScheduledFuture<?> f = self.get();
+                if(f != null) f.cancel(false);
+                return;
+            }
+            try {
+                p.sweep(System.currentTimeMillis());
+            } catch (Throwable e) {
+                logger.error("Failed to sweep the connection pool for " + p.uri, e);
+            }
+        }, SWEEP_INTERVAL, SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+        self.set(future);
+        return future;
     }
 
     /***
@@ -96,26 +162,15 @@ public final class SimpleURIConnectionPool {
      * @return a connection token that represents the borrowing of a connection by a thread
      * @throws RuntimeException if an attempt is made to exceed the maximum size of the connection pool
      */
-    public synchronized SimpleConnectionHolder.ConnectionToken borrow(long createConnectionTimeout) throws RuntimeException {
+    public SimpleConnectionHolder.ConnectionToken borrow(long createConnectionTimeout) throws RuntimeException {
         long now = System.currentTimeMillis();
-        final SimpleConnectionHolder holder;
-
-        readAllConnectionHolders(now);
 
-        if(borrowable.size() > 0) {
-            holder = borrowable.toArray(new SimpleConnectionHolder[0])[ThreadLocalRandom.current().nextInt(borrowable.size())];
-        } else {
-            if (allKnownConnections.size() < poolSize) {
-                holder = new SimpleConnectionHolder(EXPIRY_TIME, createConnectionTimeout, uri, bindAddress, worker, bufferPool, ssl, options, allCreatedConnections, connectionMaker);
-                allKnownConnections.add(holder);
-            } else
-                throw new RuntimeException("An attempt was made to exceed the maximum size was of the " + uri.toString() + " connection pool");
-        }
-
-        SimpleConnectionHolder.ConnectionToken connectionToken = holder.borrow(createConnectionTimeout, now);
-        readConnectionHolder(holder, now, () -> allKnownConnections.remove(holder));
+        SimpleConnectionHolder.ConnectionToken connectionToken = borrowExisting(createConnectionTimeout, now);
+        if(connectionToken == null)
+            connectionToken = borrowNew(createConnectionTimeout, now);
 
-        logger.debug(showConnections("borrow"));
+        borrowCount.increment();
+        if(logger.isDebugEnabled()) logger.debug(showConnections("borrow", now));
 
         return connectionToken;
     }
@@ -129,229 +184,244 @@ public final class SimpleURIConnectionPool {
      *
      * @param connectionToken the connection token that represents the borrowing of a connection by a thread
      */
-    public synchronized void restore(SimpleConnectionHolder.ConnectionToken connectionToken) {
+    public void restore(SimpleConnectionHolder.ConnectionToken connectionToken) {
         if(connectionToken == null)
             return;
 
         SimpleConnectionHolder holder = connectionToken.holder();
         long now = System.currentTimeMillis();
 
-        holder.restore(connectionToken);
-        readAllConnectionHolders(now);
+        if(!holder.restore(connectionToken))
+            return;
+
+        // the HTTP/2 connection stays shared, a restored HTTP/1.1 connection is queued to be borrowed again
+        if(!holder.multiplexed() && holder.borrowable(now) && allKnownConnections.containsKey(holder.connection()) && holder.enqueue()) {
+            if(connectionToken.borrower() == Thread.currentThread() && affinity.get() == null)
+                affinity.set(holder);
+            else
+                idle.offerFirst(holder);
+        }
 
-        logger.debug(showConnections("restore"));
+        if(logger.isDebugEnabled()) logger.debug(showConnections("restore", now));
     }
 
     /**
-     * A key method that orchestrates the update of the connection pool's state
-     * It is guaranteed to run every time a transition method is called on SimpleURIConnectionPool
-     *
-     * NOTE: Thread Safety
-     *     This method is private, and is only called either directly or transitively by synchronized
-     *     methods in this class.
+     * Borrow from a connection that is already open
      *
-     * Note:
-     *     'knownConnectionHolders::remove' is just Java syntactic sugar for '() -> knownConnectionHolders.remove()'
-     *
-     * @param now the current time in ms
+     * @return the token or null if there is no borrowable connection in the multiplexed slot, affinity slot or idle deque
      */
-    private void readAllConnectionHolders(long now)
-    {
-        /**
-         * Sweep all known connections and update sets
-         *
-         * Remove any connections that have unexpectedly closed
-         * Move all remaining connections to appropriate sets based on their properties
-         */
-        final Iterator<SimpleConnectionHolder> knownConnectionHolders = allKnownConnections.iterator();
-        while (knownConnectionHolders.hasNext()) {
-            SimpleConnectionHolder connection = knownConnectionHolders.next();
-
-            // remove connections that have unexpectedly closed
-            if (connection.closed()) {
-                logger.debug("[{}: CLOSED]: Connection unexpectedly closed - Removing from known-connections set", port(connection.connection()));
-                readConnectionHolder(connection, now, knownConnectionHolders::remove);
-            }
-            // else, move connections to correct sets
-            else {
-                readConnectionHolder(connection, now, knownConnectionHolders::remove);
-
-                // close and remove connections if they are in a closeable set
-                if (notBorrowedExpired.contains(connection)) {
-                    connection.safeClose(now);
-                    readConnectionHolder(connection, now, knownConnectionHolders::remove);
+    private SimpleConnectionHolder.ConnectionToken borrowExisting(long createConnectionTimeout, long now) {
+        SimpleConnectionHolder.ConnectionToken connectionToken;
+
+        SimpleConnectionHolder holder = multiplexed.get();
+        if(holder != null) {
+            connectionToken = holder.tryBorrow(createConnectionTimeout, now);
+            if(connectionToken != null)
+                return connectionToken;
+            if(!holder.borrowable(now))
+                multiplexed.compareAndSet(holder, null);
+        }
+
+        holder = affinity.get();
+        if(holder != null) {
+            affinity.remove();
+            holder.dequeue();
+            connectionToken = holder.tryBorrow(createConnectionTimeout, now);
+            if(connectionToken != null)
+                return connectionToken;
+        }
+
+        // holders that have been borrowed in the meantime, expired or closed are dropped from the deque
+        while((holder = idle.pollFirst()) != null) {
+            holder.dequeue();
+            connectionToken = holder.tryBorrow(createConnectionTimeout, now);
+            if(connectionToken != null)
+                return connectionToken;
+        }
+        return null;
+    }
+
+    /**
+     * Create a new connection, or borrow from a connection that became borrowable while waiting for the creation
+     * lock. If the pool is full, the expired connections are closed and all known connections are checked before
+     * giving up.
+     */
+    private SimpleConnectionHolder.ConnectionToken borrowNew(long createConnectionTimeout, long now) {
+        createLock.lock();
+        try {
+            // another thread may have created a connection (e.g. the HTTP/2 connection) while waiting for the lock
+            SimpleConnectionHolder.ConnectionToken connectionToken = borrowExisting(createConnectionTimeout, now);
+            if(connectionToken != null)
+                return connectionToken;
+
+            if(allKnownConnections.size() >= poolSize) {
+                sweep(now);
+                connectionToken = borrowAnyKnown(createConnectionTimeout, now);
+                if(connectionToken != null)
+                    return connectionToken;
+                if(allKnownConnections.size() >= poolSize) {
+                    exhaustedCount.increment();
+                    throw new RuntimeException("An attempt was made to exceed the maximum size was of the " + uri.toString() + " connection pool");
                 }
             }
+
+            final SimpleConnectionHolder holder;
+            creating = true;
+            try {
+                holder = new SimpleConnectionHolder(EXPIRY_TIME, createConnectionTimeout, uri, bindAddress, worker, bufferPool, ssl, options, allCreatedConnections, connectionMaker);
+                allKnownConnections.put(holder.connection(), holder);
+            } finally {
+                creating = false;
+            }
+            createCount.increment();
+
+            connectionToken = holder.borrow(createConnectionTimeout, now);
+            if(holder.multiplexed())
+                multiplexed.set(holder);
+            return connectionToken;
+        } finally {
+            createLock.unlock();
         }
+    }
 
-        // find and close any leaked connections
-        findAndCloseLeakedConnections();
+    /**
+     * The slow path when the pool is full: a connection may be borrowable but referenced only by the affinity slot
+     * of another thread. The least borrowed connection is selected so that HTTP/2 streams are spread.
+     */
+    private SimpleConnectionHolder.ConnectionToken borrowAnyKnown(long createConnectionTimeout, long now) {
+        List<SimpleConnectionHolder> candidates = new ArrayList<>(allKnownConnections.values());
+        candidates.sort(Comparator.comparingInt(SimpleConnectionHolder::borrowCount));
+        for(SimpleConnectionHolder holder : candidates) {
+            SimpleConnectionHolder.ConnectionToken connectionToken = holder.tryBorrow(createConnectionTimeout, now);
+            if(connectionToken != null) {
+                if(holder.multiplexed())
+                    multiplexed.compareAndSet(null, holder);
+                return connectionToken;
+            }
+        }
+        return null;
     }
 
-    private interface RemoveFromAllKnownConnections { void remove(); }
-    /***
-     * This method reads a connection and moves it to the correct sets based on its properties.
-     * It will also remove a connection from all sets (i.e.: stop tracking the connection) if it is closed.
-     *
-     * NOTE: Closing connections and modifying sets
-     *     readConnectionHolder() and findAndCloseLeakedConnections() are the only two methods that close connections
-     *     and modify sets. This can be helpful to know for debugging since the sets comprise the entirety of the
-     *     mutable state of this SimpleURIConnectionPool objects
-     *
-     * NOTE: Thread Safety
-     *     This method is private, and is only called either directly or transitively by synchronized
-     *     methods in this class.
+    /**
+     * Close the expired connections that are not borrowed, stop tracking the connections that have closed and
+     * close the leaked connections. It is called by the background sweeper and when the pool is full.
      *
-     * @param connection
-     * @param now
-     * @param knownConnections a lambda expression to remove a closed-connection from allKnownConnections, either using
-     *                         an Iterator of allKnownConnections, or directly using allKnownConnections.remove()
+     * @param now the current time in ms
      */
-    private void readConnectionHolder(SimpleConnectionHolder connection, long now, RemoveFromAllKnownConnections knownConnections) {
-
-        /**
-         * Remove all references to closed connections
-         * After the connection is removed, the only reference to it will be in any unrestored ConnectionTokens,
-         * however, ConnectionTokens restored after the connection is closed will not be re-added to any sets
-         * (and will therefore be garbage collected)
-         */
-        if(connection.closed()) {
-            logger.debug("[{}: CLOSED]: Connection closed - Stopping connection tracking", port(connection.connection()));
-
-            allCreatedConnections.remove(connection.connection());  // connection.connection() returns a SimpleConnection
-            knownConnections.remove();  // this will remove the connection from allKnownConnections directly, or via Iterator
-
-            borrowable.remove(connection);
-            borrowed.remove(connection);
-            notBorrowedExpired.remove(connection);
+    void sweep(long now) {
+        if(!sweeping.compareAndSet(false, true))
             return;
+        try {
+            for(SimpleConnectionHolder holder : allKnownConnections.values()) {
+                if(holder.closed()) {
+                    logger.debug("[{}: CLOSED]: Connection closed - Stopping connection tracking", SimpleConnectionHolder.port(holder.connection()));
+                    untrack(holder);
+                } else if(!holder.borrowed() && holder.expired(now) && holder.tryClose(now)) {
+                    closeCount.increment();
+                    untrack(holder);
+                }
+            }
+            findAndCloseLeakedConnections();
+        } finally {
+            sweeping.set(false);
         }
-
-        // if connection is open, move it to the correct state-sets based on its properties
-        boolean isExpired =             connection.expired(now);
-        boolean isBorrowed =            connection.borrowed();
-        boolean isBorrowable =          connection.borrowable(now);
-        boolean isNotBorrowedExpired =  !isBorrowed && isExpired;
-
-        updateSet(borrowable, isBorrowable, connection);
-        updateSet(borrowed, isBorrowed, connection);
-        updateSet(notBorrowedExpired, isNotBorrowedExpired, connection);
     }
 
-    /***
-     * Takes a Set, a boolean, and a connectionHolder
-     * If the boolean is true, it will add the connectionHolder to the Set, otherwise, it will remove it from the Set
-     *
-     * NOTE: Thread Safety
-     *     This method is private, and is only called either directly or transitively by synchronized
-     *     methods in this class.
-     *
-     * @param set the set to potentially add or remove the connectionHolder from
-     * @param isMember if true, it will add connectionHolder to set, otherwise, it will remove connectionHolder from set
-     * @param connectionHolder the connectionHolder to add or remove from the set
-     */
-    private void updateSet(Set<SimpleConnectionHolder> set, boolean isMember, SimpleConnectionHolder connectionHolder) {
-        if(isMember)
-            set.add(connectionHolder);
-        else
-            set.remove(connectionHolder);
+    private void untrack(SimpleConnectionHolder holder) {
+        allKnownConnections.remove(holder.connection(), holder);
+        allCreatedConnections.remove(holder.connection());
+        multiplexed.compareAndSet(holder, null);
+        // a closed holder left in the idle deque or an affinity slot is dropped when it is polled
+        if(idle.remove(holder))
+            holder.dequeue();
     }
 
     /**
      * Remove leaked connections
      * A leaked connection is any connection that was created by a SimpleConnectionMaker, but was not returned by the
-     * SimpleConnectionHolder.borrow() method. This can happen if an error occurs (specifically, if an exception is
+     * SimpleConnectionHolder constructor. This can happen if an error occurs (specifically, if an exception is
      * thrown) during the creation of a SimpleConnectionHolder. A SimpleConnectionHolder can fail to instantiate
      * (after it has created a new connection) if, for example:
      *
      *     1) the connection-creation callback thread finishes creating the connection after a timeout has occurred
      *     2) the raw connection unexpectedly closes during the creation of its SimpleConnectionHolder
      *
-     * NOTE: Closing connection and modifying sets
-     *     readConnectionHolder() and findAndCloseLeakedConnections() are the only two methods that close connections
-     *     and modify sets. This can be helpful to know for debugging since the sets comprise the entirety of the
-     *     mutable state of this SimpleURIConnectionPool objects
+     * As connections are created without a pool-wide lock, an untracked connection might still belong to a creation
+     * in progress. So it is only closed if it is still untracked in the next sweep and no creation is in progress.
      */
     private void findAndCloseLeakedConnections()
     {
-        // remove all connections that the connection pool is tracking, from the set of all created connections
-        for(SimpleConnectionHolder knownConnection: allKnownConnections)
-            allCreatedConnections.remove(knownConnection.connection());
-
-        // any remaining connections are leaks, and can now be safely closed
-        if(allCreatedConnections.size() > 0) {
-            logger.debug("{} untracked connection found", allCreatedConnections.size());
+        if(creating)
+            return;
 
-            Iterator<SimpleConnection> leakedConnections = allCreatedConnections.iterator();
-            while(leakedConnections.hasNext()) {
-                SimpleConnection leakedConnection = leakedConnections.next();
+        Iterator<SimpleConnection> createdConnections = allCreatedConnections.iterator();
+        while(createdConnections.hasNext()) {
+            SimpleConnection createdConnection = createdConnections.next();
+            if(allKnownConnections.containsKey(createdConnection)) {
+                leakCandidates.remove(createdConnection);
+                continue;
+            }
+            if(!leakCandidates.remove(createdConnection)) {
+                leakCandidates.add(createdConnection);
+                continue;
+            }
 
-                if(leakedConnection.isOpen()) {
-                    leakedConnection.safeClose();
-                    logger.debug("Connection closed {} -> {}", port(leakedConnection), uri.toString());
-                } else
-                    logger.debug("Connection was already closed {} -> {}", port(leakedConnection), uri.toString());
+            // untracked in two sweeps and no creation in progress, it is a leak and can now be safely closed
+            if(createdConnection.isOpen()) {
+                createdConnection.safeClose();
+                logger.debug("Connection closed {} -> {}", SimpleConnectionHolder.port(createdConnection), uri.toString());
+            } else
+                logger.debug("Connection was already closed {} -> {}", SimpleConnectionHolder.port(createdConnection), uri.toString());
 
-                leakedConnections.remove();
-            }
+            leakCount.increment();
+            createdConnections.remove();
         }
+        leakCandidates.retainAll(allCreatedConnections);
     }
 
-
-    /***
-     * For logging
-     *
-     * NOTE: Thread Safety
-     *     This method is private, and is only called either directly or transitively by synchronized
-     *     methods in this class.
-     *
-     * NOTE: Iteration Safety
-     *     This method should not be used inside loops that iterate through elements of borrowable, borrowed,
-     *     notBorrowedExpired, or allKnownConnections sets
+    /**
+     * Stops the background sweeper of this pool. The connections are not closed.
      */
-    private String showConnections(String transitionName) {
-        return "After " + transitionName + " - " +
-                showConnections("BORROWABLE", borrowable) +
-                showConnections("BORROWED", borrowed) +
-                showConnections("NOT_BORROWED_EXPIRED", notBorrowedExpired) +
-                showConnections("TRACKED", allKnownConnections);
+    public void close() {
+        sweeperTask.cancel(false);
     }
 
-    /***
-     * For logging
-     *
-     * NOTE: Thread Safety
-     *     This method is private, and is only called either directly or transitively by synchronized
-     *     methods in this class.
-     */
-    private static String showConnections(String name, Set<SimpleConnectionHolder> set) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("[").append(name).append(": ");
-        if(set.size() == 0)
-            sb.append("0");
-        else {
-            int numCons = set.size();
-            for (SimpleConnectionHolder holder : set) {
-                sb.append(port(holder.connection()));
-                if (--numCons > 0) sb.append(" ");
-            }
-        }
-        sb.append("] ");
-        return sb.toString();
+    public URI getUri() { return uri; }
+
+    /** @return the number of connections tracked by the pool */
+    public int getConnectionCount() { return allKnownConnections.size(); }
+
+    /** @return the number of tracked connections that have at least one borrowed token */
+    public int getBorrowedConnectionCount() {
+        int count = 0;
+        for(SimpleConnectionHolder holder : allKnownConnections.values())
+            if(holder.borrowed()) count++;
+        return count;
+    }
+
+    /** @return the number of borrowed tokens that have not been restored, i.e. the in-flight requests */
+    public int getBorrowedTokenCount() {
+        int count = 0;
+        for(SimpleConnectionHolder holder : allKnownConnections.values())
+            count += holder.borrowCount();
+        return count;
     }
 
+    public int getPoolSize() { return poolSize; }
+    public long getBorrowCount() { return borrowCount.sum(); }
+    public long getCreateCount() { return createCount.sum(); }
+    public long getCloseCount() { return closeCount.sum(); }
+    public long getExhaustedCount() { return exhaustedCount.sum(); }
+    public long getLeakCount() { return leakCount.sum(); }
+
     /***
      * For logging
-     *
-     * NOTE: Thread Safety
-     *     This method is private, and is only called either directly or transitively by synchronized
-     *     methods in this class.
      */
-    private static String port(SimpleConnection connection) {
-        if(connection == null) return "NULL";
-        String url = connection.getLocalAddress();
-        int semiColon = url.lastIndexOf(":");
-        if(semiColon == - 1) return "PORT?";
-        return url.substring(url.lastIndexOf(":")+1);
+    private String showConnections(String transitionName, long now) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("After ").append(transitionName).append(" - [TRACKED: ").append(allKnownConnections.size()).append("] ");
+        for(SimpleConnectionHolder holder : allKnownConnections.values())
+            sb.append("[").append(SimpleConnectionHolder.port(holder.connection())).append(": ").append(holder.state(now)).append("] ");
+        return sb.toString();
     }
 }
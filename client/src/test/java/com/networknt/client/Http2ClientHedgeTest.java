@@ -0,0 +1,103 @@
+package com.networknt.client;
+
+import com.networknt.utility.RetryBudget;
+import io.undertow.client.ClientResponse;
+import io.undertow.util.Protocols;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class Http2ClientHedgeTest {
+    private static final long DELAY = 200;
+
+    /**
+     * Returns the futures in order, one per call, and records when each call is made.
+     */
+    private static class Calls implements Supplier<CompletableFuture<ClientResponse>> {
+        private final List<CompletableFuture<ClientResponse>> futures = new ArrayList<>();
+        private final List<Long> times = new ArrayList<>();
+        private final long start = System.nanoTime();
+
+        Calls(int count) {
+            for (int i = 0; i < count; i++) futures.add(new CompletableFuture<>());
+        }
+
+        @Override
+        public synchronized CompletableFuture<ClientResponse> get() {
+            times.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return futures.get(times.size() - 1);
+        }
+
+        synchronized int count() {
+            return times.size();
+        }
+    }
+
+    private static ClientResponse response(int code) {
+        return new ClientResponse(code, "", Protocols.HTTP_1_1);
+    }
+
+    @Test
+    public void testHedgeAfterDelayAndCancelLoser() throws Exception {
+        RetryBudget budget = new RetryBudget("localhost:8443", 10, 5);
+        Calls calls = new Calls(2);
+        CompletableFuture<ClientResponse> result = Http2Client.hedge(calls, DELAY, budget);
+        Thread.sleep(DELAY / 2);
+        Assert.assertEquals("hedged request is sent before the delay", 1, calls.count());
+        // the primary never responds, so the hedged request is sent after the delay.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (calls.count() < 2 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        Assert.assertEquals(2, calls.count());
+        Assert.assertTrue(calls.times.get(1) >= DELAY);
+        calls.futures.get(1).complete(response(200));
+        Assert.assertEquals(200, result.get(1, TimeUnit.SECONDS).getResponseCode());
+        // the primary is the loser and is cancelled.
+        Assert.assertTrue(calls.futures.get(0).isCancelled());
+        Assert.assertEquals(1, budget.getHedges());
+        Assert.assertEquals(1, budget.getHedgeWins());
+    }
+
+    @Test
+    public void testPrimaryWinsAndCancelsHedged() throws Exception {
+        RetryBudget budget = new RetryBudget("localhost:8443", 10, 5);
+        Calls calls = new Calls(2);
+        CompletableFuture<ClientResponse> result = Http2Client.hedge(calls, DELAY, budget);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (calls.count() < 2 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        calls.futures.get(0).complete(response(200));
+        Assert.assertEquals(200, result.get(1, TimeUnit.SECONDS).getResponseCode());
+        Assert.assertTrue(calls.futures.get(1).isCancelled());
+        Assert.assertEquals(0, budget.getHedgeWins());
+    }
+
+    @Test
+    public void testNoHedgeWhenPrimaryCompletes() throws Exception {
+        RetryBudget budget = new RetryBudget("localhost:8443", 10, 5);
+        Calls calls = new Calls(2);
+        CompletableFuture<ClientResponse> result = Http2Client.hedge(calls, DELAY, budget);
+        calls.futures.get(0).complete(response(200));
+        Assert.assertEquals(200, result.get(1, TimeUnit.SECONDS).getResponseCode());
+        Thread.sleep(DELAY * 2);
+        Assert.assertEquals(1, calls.count());
+        Assert.assertEquals(0, budget.getHedges());
+    }
+
+    @Test
+    public void testNoHedgeWhenBudgetIsUsedUp() throws Exception {
+        // no deposit and no minimum, so there is no token for a hedged request.
+        RetryBudget budget = new RetryBudget("localhost:8443", 0, 0);
+        Calls calls = new Calls(2);
+        CompletableFuture<ClientResponse> result = Http2Client.hedge(calls, DELAY, budget);
+        Thread.sleep(DELAY * 2);
+        Assert.assertEquals(1, calls.count());
+        Assert.assertFalse(result.isDone());
+        Assert.assertEquals(1, budget.getRejected());
+        calls.futures.get(0).complete(response(200));
+        Assert.assertEquals(200, result.get(1, TimeUnit.SECONDS).getResponseCode());
+    }
+}
@@ -19,6 +19,7 @@
 package com.networknt.client;
 
 import com.networknt.client.circuitbreaker.CircuitBreaker;
+import com.networknt.client.circuitbreaker.CircuitBreakerRegistry;
 import com.networknt.client.http.Http2ClientConnectionPool;
 import com.networknt.client.simplepool.SimpleConnectionHolder;
 import com.networknt.config.Config;
@@ -102,6 +103,8 @@ public class Http2ClientTest extends Http2ClientBase {
     @Before
     public void setUp() {
         slowCount = 0;
+        // the circuits are shared per host, so the failures of the previous test would open the circuit of this one.
+        CircuitBreakerRegistry.clear();
     }
 
     @BeforeClass
@@ -0,0 +1,196 @@
+package com.networknt.client.circuitbreaker;
+
+import com.networknt.client.ClientConfig;
+import io.undertow.client.ClientResponse;
+import io.undertow.util.Protocols;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CircuitTest {
+
+    private static Circuit circuit(int errorThreshold, int halfOpenProbes) {
+        // window of 10 calls, rates evaluated after 4 calls, 50% failure rate, 100ms slow call at 80%, 1s reset timeout.
+        return new Circuit("test", 10, 4, 50, 100, 80, errorThreshold, 1000, halfOpenProbes);
+    }
+
+    private static ClientResponse response(int code) {
+        return new ClientResponse(code, "", Protocols.HTTP_1_1);
+    }
+
+    @After
+    public void tearDown() {
+        CircuitBreakerRegistry.clear();
+        CircuitBreakerRegistry.setMaxCircuits(CircuitBreakerRegistry.DEFAULT_MAX_CIRCUITS);
+    }
+
+    @Test
+    public void testConsecutiveFailures() {
+        Circuit circuit = circuit(2, 1);
+        long now = System.currentTimeMillis();
+        circuit.onResult(true, 1, now);
+        circuit.onResult(false, 1, now);
+        circuit.onResult(true, 1, now);
+        Assert.assertEquals(State.CLOSE, circuit.getState());
+        circuit.onResult(true, 1, now);
+        Assert.assertEquals(State.OPEN, circuit.getState());
+        Assert.assertFalse(circuit.tryAcquirePermission(now + 999));
+    }
+
+    @Test
+    public void testFailureRate() {
+        Circuit circuit = circuit(0, 1);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            circuit.onResult(false, 1, now);
+        }
+        // 4 failures out of the last 10 calls
+        for (int i = 0; i < 4; i++) {
+            circuit.onResult(true, 1, now);
+            circuit.onResult(false, 1, now);
+        }
+        Assert.assertEquals(40, circuit.getFailureRate());
+        Assert.assertEquals(State.CLOSE, circuit.getState());
+        circuit.onResult(true, 1, now);
+        Assert.assertEquals(50, circuit.getFailureRate());
+        Assert.assertEquals(State.OPEN, circuit.getState());
+    }
+
+    @Test
+    public void testSlowCallRate() {
+        Circuit circuit = circuit(0, 1);
+        long now = System.currentTimeMillis();
+        Assert.assertEquals(-1, circuit.getSlowCallRate());
+        for (int i = 0; i < 3; i++) {
+            circuit.onResult(false, 200, now);
+        }
+        // not enough calls to evaluate the rate
+        Assert.assertEquals(State.CLOSE, circuit.getState());
+        circuit.onResult(false, 200, now);
+        Assert.assertEquals(State.OPEN, circuit.getState());
+    }
+
+    @Test
+    public void testHalfOpenProbes() {
+        Circuit circuit = circuit(1, 2);
+        long now = System.currentTimeMillis();
+        circuit.onResult(true, 1, now);
+        Assert.assertFalse(circuit.tryAcquirePermission(now + 500));
+        // only two probes are permitted after the reset timeout
+        Assert.assertTrue(circuit.tryAcquirePermission(now + 1000));
+        Assert.assertEquals(State.HALF_OPEN, circuit.getState());
+        Assert.assertTrue(circuit.tryAcquirePermission(now + 1000));
+        Assert.assertFalse(circuit.tryAcquirePermission(now + 1000));
+        circuit.onResult(false, 1, now + 1000);
+        Assert.assertEquals(State.HALF_OPEN, circuit.getState());
+        circuit.onResult(false, 1, now + 1000);
+        Assert.assertEquals(State.CLOSE, circuit.getState());
+        Assert.assertEquals(-1, circuit.getFailureRate());
+
+        // a failed probe opens the circuit again
+        circuit.onResult(true, 1, now + 2000);
+        Assert.assertTrue(circuit.tryAcquirePermission(now + 3000));
+        circuit.onResult(true, 1, now + 3000);
+        Assert.assertEquals(State.OPEN, circuit.getState());
+        Assert.assertFalse(circuit.tryAcquirePermission(now + 3500));
+    }
+
+    @Test
+    public void testConcurrentProbes() throws Exception {
+        Circuit circuit = circuit(1, 3);
+        long now = System.currentTimeMillis();
+        circuit.onResult(true, 1, now);
+        AtomicInteger permitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[16];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < 100; j++) {
+                        if (circuit.tryAcquirePermission(now + 1000)) permitted.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(3, permitted.get());
+    }
+
+    @Test
+    public void testCircuitPerKey() throws Exception {
+        CircuitBreaker failing = new CircuitBreaker("host1:8443", () -> CompletableFuture.failedFuture(new IOException("connection refused")));
+        CircuitBreaker healthy = new CircuitBreaker("host2:8443", () -> CompletableFuture.completedFuture(response(200)));
+        int errorThreshold = ClientConfig.get().getErrorThreshold();
+        for (int i = 0; i < errorThreshold; i++) {
+            try {
+                failing.call();
+                Assert.fail("the call has failed");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof IOException);
+            }
+        }
+        Assert.assertEquals(State.OPEN, CircuitBreakerRegistry.getCircuit("host1:8443").getState());
+        try {
+            failing.callAsync().get();
+            Assert.fail("the circuit is open");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof CircuitBreakerOpenException);
+        }
+        try {
+            failing.call();
+            Assert.fail("the circuit is open");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("circuit is opened.", e.getMessage());
+        }
+        Assert.assertEquals(200, healthy.call().getResponseCode());
+        Assert.assertEquals(State.CLOSE, healthy.getCircuit().getState());
+    }
+
+    @Test
+    public void testServerErrorsCountedOnlyIfEnabled() throws Exception {
+        int errorThreshold = ClientConfig.get().getErrorThreshold();
+        Assert.assertFalse(ClientConfig.get().isCircuitBreakerServerErrors());
+        CircuitBreaker byDefault = new CircuitBreaker("host3:8443", () -> CompletableFuture.completedFuture(response(500)));
+        for (int i = 0; i < errorThreshold * 2; i++) {
+            Assert.assertEquals(500, byDefault.call().getResponseCode());
+        }
+        Assert.assertEquals(State.CLOSE, byDefault.getCircuit().getState());
+
+        CircuitBreaker enabled = new CircuitBreaker(CircuitBreakerRegistry.getCircuit("host4:8443"), () -> CompletableFuture.completedFuture(response(500)), true);
+        for (int i = 0; i < errorThreshold; i++) {
+            Assert.assertEquals(500, enabled.call().getResponseCode());
+        }
+        Assert.assertEquals(State.OPEN, enabled.getCircuit().getState());
+    }
+
+    @Test
+    public void testRegistryBounded() {
+        CircuitBreakerRegistry.setMaxCircuits(4);
+        long now = System.currentTimeMillis();
+        Circuit open = CircuitBreakerRegistry.getCircuit("open", k -> circuit(1, 1));
+        open.onResult(true, 1, now);
+        Assert.assertEquals(State.OPEN, open.getState());
+        for (int i = 0; i < 3; i++) {
+            CircuitBreakerRegistry.getCircuit("closed" + i, k -> circuit(1, 1)).tryAcquirePermission(now + i);
+        }
+        Assert.assertEquals(4, CircuitBreakerRegistry.getCircuits().size());
+        // the least recently used closed circuit is evicted, and the open circuit is kept.
+        CircuitBreakerRegistry.getCircuit("new", k -> circuit(1, 1));
+        Assert.assertEquals(4, CircuitBreakerRegistry.getCircuits().size());
+        Assert.assertFalse(CircuitBreakerRegistry.getCircuits().containsKey("closed0"));
+        Assert.assertSame(open, CircuitBreakerRegistry.getCircuits().get("open"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.networknt.client.http;
+
+import com.networknt.client.Http2Client;
+import io.undertow.client.ClientCallback;
+import io.undertow.client.ClientConnection;
+import io.undertow.client.ClientExchange;
+import io.undertow.client.ClientRequest;
+import io.undertow.client.ClientResponse;
+import io.undertow.server.DefaultByteBufferPool;
+import io.undertow.util.Protocols;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.xnio.channels.StreamSinkChannel;
+import org.xnio.channels.StreamSourceChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class Http2ClientCompletableFutureStreamingTest {
+
+    private static ClientExchange exchange(boolean http2) throws Exception {
+        ClientConnection connection = mock(ClientConnection.class);
+        when(connection.isMultiplexingSupported()).thenReturn(http2);
+        ClientExchange exchange = mock(ClientExchange.class);
+        when(exchange.getConnection()).thenReturn(connection);
+        when(exchange.getRequest()).thenReturn(new ClientRequest().setPath("/v1/pets"));
+        StreamSinkChannel requestChannel = mock(StreamSinkChannel.class);
+        when(requestChannel.flush()).thenReturn(true);
+        when(exchange.getRequestChannel()).thenReturn(requestChannel);
+        when(exchange.getResponseChannel()).thenReturn(mock(StreamSourceChannel.class));
+        return exchange;
+    }
+
+    @Test
+    public void testCancelClosesHttp11Connection() throws Exception {
+        Http2ClientCompletableFutureStreaming future = new Http2ClientCompletableFutureStreaming(null, mock(ResponseBodyConsumer.class));
+        ClientExchange exchange = exchange(false);
+        future.completed(exchange);
+        assertTrue(future.cancel(true));
+        verify(exchange.getConnection()).close();
+    }
+
+    @Test
+    public void testCancelResetsHttp2Stream() throws Exception {
+        Http2ClientCompletableFutureStreaming future = new Http2ClientCompletableFutureStreaming(null, mock(ResponseBodyConsumer.class));
+        ClientExchange exchange = exchange(true);
+        future.completed(exchange);
+        assertTrue(future.cancel(true));
+        verify(exchange.getResponseChannel()).close();
+        verify(exchange.getConnection(), never()).close();
+    }
+
+    @Test
+    public void testCancelBeforeSent() throws Exception {
+        Http2ClientCompletableFutureStreaming future = new Http2ClientCompletableFutureStreaming(null, mock(ResponseBodyConsumer.class));
+        assertTrue(future.cancel(true));
+        ClientExchange exchange = exchange(false);
+        future.completed(exchange);
+        verify(exchange.getConnection()).close();
+        verify(exchange, never()).setResponseListener(any());
+    }
+
+    /**
+     * Complete the exchange and the response of the future, and return the body of the response in one read.
+     */
+    private static void respond(Http2ClientCompletableFutureStreaming future, String body) throws Exception {
+        ClientExchange exchange = exchange(true);
+        when(exchange.getConnection().getBufferPool()).thenReturn(new DefaultByteBufferPool(false, 1024));
+        when(exchange.getResponse()).thenReturn(new ClientResponse(200, "", Protocols.HTTP_1_1));
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        when(exchange.getResponseChannel().read(any(ByteBuffer.class))).thenAnswer(invocation -> {
+            invocation.<ByteBuffer>getArgument(0).put(bytes);
+            return bytes.length;
+        }).thenReturn(-1);
+        future.completed(exchange);
+        ArgumentCaptor<ClientCallback<ClientExchange>> listener = ArgumentCaptor.forClass(ClientCallback.class);
+        verify(exchange).setResponseListener(listener.capture());
+        listener.getValue().completed(exchange);
+    }
+
+    private static Throwable failure(Http2ClientCompletableFutureStreaming future) throws Exception {
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    @Test
+    public void testBody() throws Exception {
+        Http2ClientCompletableFutureStreaming future = new Http2ClientCompletableFutureStreaming(null, new StringResponseBodyConsumer());
+        respond(future, "{\"id\":1}");
+        assertEquals("{\"id\":1}", future.get(1, TimeUnit.SECONDS).getAttachment(Http2Client.RESPONSE_BODY));
+    }
+
+    @Test
+    public void testChunkRuntimeExceptionFails() throws Exception {
+        ResponseBodyConsumer consumer = mock(ResponseBodyConsumer.class);
+        doThrow(new IllegalStateException("chunk")).when(consumer).onChunk(any());
+        Http2ClientCompletableFutureStreaming future = new Http2ClientCompletableFutureStreaming(null, consumer);
+        respond(future, "{}");
+        Throwable cause = failure(future);
+        assertTrue(cause instanceof IOException);
+        assertTrue(cause.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testCompleteRuntimeExceptionFails() throws Exception {
+        ResponseBodyConsumer consumer = mock(ResponseBodyConsumer.class);
+        doThrow(new IllegalStateException("complete")).when(consumer).onComplete(any());
+        Http2ClientCompletableFutureStreaming future = new Http2ClientCompletableFutureStreaming(null, consumer);
+        respond(future, "{}");
+        assertTrue(failure(future).getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testResponseRuntimeExceptionFails() throws Exception {
+        ResponseBodyConsumer consumer = mock(ResponseBodyConsumer.class);
+        doThrow(new IllegalStateException("response")).when(consumer).onResponse(any());
+        Http2ClientCompletableFutureStreaming future = new Http2ClientCompletableFutureStreaming(null, consumer);
+        respond(future, "{}");
+        assertTrue(failure(future) instanceof IllegalStateException);
+        verify(consumer, never()).onChunk(any());
+    }
+}
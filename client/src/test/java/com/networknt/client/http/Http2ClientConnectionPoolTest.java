@@ -0,0 +1,153 @@
+package com.networknt.client.http;
+
+import com.networknt.client.ClientConfig;
+import io.undertow.client.ClientConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class Http2ClientConnectionPoolTest {
+    private static final URI uri = URI.create("https://localhost:9443");
+    private final Http2ClientConnectionPool pool = Http2ClientConnectionPool.getInstance();
+
+    private static ClientConnection connection(boolean http2) {
+        ClientConnection connection = mock(ClientConnection.class);
+        when(connection.isOpen()).thenReturn(true);
+        when(connection.isMultiplexingSupported()).thenReturn(http2);
+        return connection;
+    }
+
+    @Before
+    public void setUp() {
+        pool.clear();
+    }
+
+    @After
+    public void tearDown() {
+        pool.clear();
+    }
+
+    @Test
+    public void testHttp11ConnectionHasOneStream() {
+        ClientConnection connection = connection(false);
+        // the new connection is used by the caller that opened it
+        pool.cacheConnection(uri, connection);
+        assertNull(pool.getConnection(uri));
+        pool.resetConnectionStatus(connection);
+        assertSame(connection, pool.getConnection(uri));
+        assertNull(pool.getConnection(uri));
+
+        // a second connection is only cached when the first one is saturated
+        ClientConnection second = connection(false);
+        pool.cacheConnection(uri, second);
+        assertEquals(2, pool.numberOfConnections());
+        pool.resetConnectionStatus(second);
+        assertSame(second, pool.getConnection(uri));
+    }
+
+    @Test
+    public void testLeastLoadedConnection() {
+        ClientConnection first = connection(false);
+        ClientConnection second = connection(false);
+        pool.cacheConnection(uri, first);
+        pool.cacheConnection(uri, second);
+        pool.resetConnectionStatus(second);
+        assertSame(second, pool.getConnection(uri));
+        pool.resetConnectionStatus(first);
+        assertSame(first, pool.getConnection(uri));
+        // releasing twice doesn't make the connection available twice
+        pool.resetConnectionStatus(first);
+        pool.resetConnectionStatus(first);
+        assertSame(first, pool.getConnection(uri));
+        assertNull(pool.getConnection(uri));
+    }
+
+    @Test
+    public void testHttp2ConnectionIsShared() {
+        ClientConnection connection = connection(true);
+        pool.cacheConnection(uri, connection);
+        for (int i = 0; i < 100; i++) {
+            assertSame(connection, pool.getConnection(uri));
+        }
+        // another http/2 connection is not needed as the cached one is not saturated
+        pool.cacheConnection(uri, connection(true));
+        assertEquals(1, pool.numberOfConnections());
+    }
+
+    @Test
+    public void testClosedConnectionRemoved() {
+        ClientConnection connection = connection(false);
+        pool.cacheConnection(uri, connection);
+        pool.resetConnectionStatus(connection);
+        when(connection.isOpen()).thenReturn(false);
+        assertNull(pool.getConnection(uri));
+        assertEquals(0, pool.numberOfConnections());
+    }
+
+    @Test
+    public void testStreamReleasedIfClosedAfterSelection() {
+        ClientConnection connection = connection(false);
+        pool.cacheConnection(uri, connection);
+        pool.resetConnectionStatus(connection);
+        // open when it is selected, closed when it is checked after the acquire, and open again from the next selection
+        when(connection.isOpen()).thenReturn(true, false, true);
+        // the connection is selected again, and its only stream can be acquired again only if it was released
+        assertSame(connection, pool.getConnection(uri));
+        verify(connection, times(4)).isOpen();
+    }
+
+    @Test
+    public void testParkedConnectionClosedWhenIdle() throws Exception {
+        ClientConnection first = connection(true);
+        pool.cacheConnection(uri, first);
+        // the new connection is not needed, but the caller that opened it is still using it
+        ClientConnection second = connection(true);
+        pool.cacheConnection(uri, second);
+        assertEquals(1, pool.numberOfConnections());
+        assertEquals(1, pool.numberOfParkedConnections());
+        verify(second, never()).close();
+        pool.resetConnectionStatus(second);
+        verify(second).close();
+        assertEquals(0, pool.numberOfParkedConnections());
+        verify(first, never()).close();
+    }
+
+    @Test
+    public void testMaxConnectionsPerHost() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                // all the connections are in use, so none of them is parked for a free stream
+                for (int j = 0; j < 150; j++) {
+                    pool.cacheConnection(uri, connection(false));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertEquals(ClientConfig.get().getMaxConnectionNumPerHost(), pool.numberOfConnections());
+    }
+}
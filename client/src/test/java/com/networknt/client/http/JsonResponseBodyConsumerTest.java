@@ -0,0 +1,109 @@
+package com.networknt.client.http;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.networknt.client.Http2Client;
+import com.networknt.client.rest.Pet;
+import com.networknt.config.Config;
+import io.undertow.client.ClientResponse;
+import io.undertow.util.Protocols;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JsonResponseBodyConsumerTest {
+    private final ObjectMapper mapper = Config.getInstance().getMapper();
+
+    private static void feed(ResponseBodyConsumer consumer, ClientResponse response, String body, int chunkSize) throws Exception {
+        consumer.onResponse(response);
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        // the chunks are read from one buffer like the pooled buffer of the connection
+        ByteBuffer buffer = ByteBuffer.allocateDirect(chunkSize);
+        for (int i = 0; i < bytes.length; i += chunkSize) {
+            buffer.clear();
+            buffer.put(bytes, i, Math.min(chunkSize, bytes.length - i));
+            buffer.flip();
+            consumer.onChunk(buffer);
+        }
+        consumer.onComplete(response);
+    }
+
+    @Test
+    public void testDecodeSplitChunks() throws Exception {
+        ClientResponse response = new ClientResponse(200, "", Protocols.HTTP_1_1);
+        JsonResponseBodyConsumer consumer = new JsonResponseBodyConsumer(mapper, mapper.constructType(Pet.class), code -> code < 300);
+        feed(consumer, response, "{\"id\":12345,\"name\":\"café cat\",\"tag\":\"tag1\"}", 3);
+        assertNull(response.getAttachment(Http2Client.RESPONSE_BODY));
+        Pet pet = (Pet) response.getAttachment(Http2Client.RESPONSE_OBJECT);
+        assertEquals(12345L, pet.getId().longValue());
+        assertEquals("café cat", pet.getName());
+        assertEquals(pet, new Http2ServiceResponse(response).getTypedClientResponse(Pet.class));
+    }
+
+    @Test
+    public void testDecodeList() throws Exception {
+        ClientResponse response = new ClientResponse(200, "", Protocols.HTTP_1_1);
+        JsonResponseBodyConsumer consumer = new JsonResponseBodyConsumer(mapper, mapper.getTypeFactory().constructCollectionType(List.class, Pet.class), code -> code < 300);
+        feed(consumer, response, "[{\"id\":1,\"name\":\"cat\"},{\"id\":2,\"name\":\"dog\"}]", 7);
+        List<Pet> pets = new Http2ServiceResponse(response).getTypedListClientResponse(Pet.class);
+        assertEquals(2, pets.size());
+        assertEquals("dog", pets.get(1).getName());
+    }
+
+    @Test
+    public void testErrorBodyKeptAsString() throws Exception {
+        ClientResponse response = new ClientResponse(500, "", Protocols.HTTP_1_1);
+        JsonResponseBodyConsumer consumer = new JsonResponseBodyConsumer(mapper, mapper.constructType(Pet.class), code -> code < 300);
+        feed(consumer, response, "{\"code\":\"ERR10000\"}", 4);
+        assertEquals("{\"code\":\"ERR10000\"}", response.getAttachment(Http2Client.RESPONSE_BODY));
+        assertNull(response.getAttachment(Http2Client.RESPONSE_OBJECT));
+    }
+
+    @Test
+    public void testEmptyBody() throws Exception {
+        ClientResponse response = new ClientResponse(204, "", Protocols.HTTP_1_1);
+        JsonResponseBodyConsumer consumer = new JsonResponseBodyConsumer(mapper, mapper.constructType(Pet.class), code -> code < 300);
+        feed(consumer, response, "", 4);
+        // the empty body is kept as a String so that binding it fails like it did before the streaming.
+        assertEquals("", response.getAttachment(Http2Client.RESPONSE_BODY));
+        assertNull(response.getAttachment(Http2Client.RESPONSE_OBJECT));
+        try {
+            new Http2ServiceResponse(response).getTypedClientResponse(Pet.class);
+            fail();
+        } catch (MismatchedInputException e) {
+            // no content to map due to end-of-input
+        }
+    }
+
+    @Test
+    public void testRuntimeExceptionOfBinding() throws Exception {
+        ClientResponse response = new ClientResponse(200, "", Protocols.HTTP_1_1);
+        JsonResponseBodyConsumer consumer = new JsonResponseBodyConsumer(mapper, mapper.constructType(Failing.class), code -> code < 300);
+        try {
+            feed(consumer, response, "{\"id\":1}", 4);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @JsonDeserialize(using = FailingDeserializer.class)
+    static class Failing {
+    }
+
+    static class FailingDeserializer extends JsonDeserializer<Failing> {
+        @Override
+        public Failing deserialize(JsonParser p, DeserializationContext ctxt) {
+            throw new IllegalStateException("failed");
+        }
+    }
+}
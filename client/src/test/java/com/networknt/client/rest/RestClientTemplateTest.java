@@ -27,6 +27,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.security.*;
 import java.security.cert.CertificateException;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -135,6 +138,16 @@ public class RestClientTemplateTest {
         assertTrue(pet.getId()==1);
     }
 
+    @Test
+    public void testAsyncGetWithType() throws Exception {
+        AsyncRestClientTemplate asyncRestClientTemplate = new AsyncRestClientTemplate();
+        List<Pet> pets = RestFutures.all(Arrays.asList(
+                asyncRestClientTemplate.get("https://localhost:9991", "/v1/pets/1", Pet.class),
+                asyncRestClientTemplate.get("http://localhost:9990", "/v1/pets/1", Pet.class)), 5000).get();
+        assertEquals(pet, pets.get(0));
+        assertEquals(pet, pets.get(1));
+    }
+
     @Ignore
     @Test
     public void testPost() throws RestClientException, JsonProcessingException {
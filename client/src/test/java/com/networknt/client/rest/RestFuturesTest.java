@@ -0,0 +1,98 @@
+package com.networknt.client.rest;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+public class RestFuturesTest {
+
+    @Test
+    public void testAllKeepsOrder() throws Exception {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        CompletableFuture<List<String>> all = RestFutures.all(Arrays.asList(first, second), 1000);
+        second.complete("b");
+        assertFalse(all.isDone());
+        first.complete("a");
+        assertEquals(Arrays.asList("a", "b"), all.get());
+    }
+
+    @Test
+    public void testAllFailsFastAndCancelsOthers() throws Exception {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        RestClientException failure = new RestClientException("failed");
+        CompletableFuture<List<String>> all = RestFutures.all(Arrays.asList(first, second), 1000);
+        first.completeExceptionally(failure);
+        try {
+            all.get();
+            fail("the first call has failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RestClientException);
+        }
+        assertTrue(second.isCancelled());
+    }
+
+    @Test
+    public void testDeadlineCancelsCall() throws Exception {
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        CompletableFuture<String> fast = CompletableFuture.completedFuture("fast");
+        CompletableFuture<List<String>> all = RestFutures.all(Arrays.asList(fast, slow), 50);
+        try {
+            all.get();
+            fail("the slow call has missed the deadline");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertTrue(slow.isCancelled());
+    }
+
+    @Test
+    public void testAnyReturnsFirstSuccess() throws Exception {
+        CompletableFuture<String> failing = new CompletableFuture<>();
+        CompletableFuture<String> winning = new CompletableFuture<>();
+        CompletableFuture<String> losing = new CompletableFuture<>();
+        RestClientException failure = new RestClientException("failed");
+        CompletableFuture<String> any = RestFutures.any(Arrays.asList(failing, winning, losing), 1000);
+        failing.completeExceptionally(failure);
+        assertFalse(any.isDone());
+        winning.complete("winner");
+        assertEquals("winner", any.get());
+        assertTrue(losing.isCancelled());
+    }
+
+    @Test
+    public void testAnyFailsWhenAllFail() throws Exception {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        // the exceptions are created before the calls as loading the status config may take longer than the deadline.
+        RestClientException failure = new RestClientException("first");
+        RestClientException last = new RestClientException("second");
+        CompletableFuture<String> any = RestFutures.any(Arrays.asList(first, second), 1000);
+        first.completeExceptionally(failure);
+        second.completeExceptionally(last);
+        try {
+            any.get();
+            fail("all the calls have failed");
+        } catch (ExecutionException e) {
+            // the failure of the last call is reported.
+            assertSame(last, e.getCause());
+        }
+    }
+
+    @Test
+    public void testCancelPropagates() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        CompletableFuture<List<String>> all = RestFutures.all(Arrays.asList(first, second), 1000);
+        all.cancel(true);
+        assertTrue(first.isCancelled());
+        assertTrue(second.isCancelled());
+    }
+}
@@ -0,0 +1,235 @@
+package com.networknt.client.simplepool;
+
+import io.undertow.connector.ByteBufferPool;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xnio.OptionMap;
+import org.xnio.XnioWorker;
+import org.xnio.ssl.XnioSsl;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SimpleURIConnectionPoolTest {
+    private static final URI uri = URI.create("https://localhost:8443");
+
+    /**
+     * A connection that records how many threads use it at the same time.
+     */
+    static class CountingConnection implements SimpleConnection {
+        private static final AtomicInteger ports = new AtomicInteger(40000);
+        final AtomicInteger inUse = new AtomicInteger();
+        final boolean http2;
+        final String address = "127.0.0.1:" + ports.incrementAndGet();
+        volatile boolean open = true;
+
+        CountingConnection(boolean http2) { this.http2 = http2; }
+
+        @Override public boolean isOpen() { return open; }
+        @Override public Object getRawConnection() { return this; }
+        @Override public boolean isMultiplexingSupported() { return http2; }
+        @Override public String getLocalAddress() { return address; }
+        @Override public void safeClose() { open = false; }
+    }
+
+    static class CountingConnectionMaker implements SimpleConnectionMaker {
+        final boolean http2;
+        final AtomicInteger created = new AtomicInteger();
+        volatile boolean leak = false;
+
+        CountingConnectionMaker(boolean http2) { this.http2 = http2; }
+
+        @Override
+        public SimpleConnection makeConnection(long createConnectionTimeout, boolean isHttp2, URI uri, Set<SimpleConnection> allCreatedConnections) {
+            return makeConnection(createConnectionTimeout, null, uri, null, null, null, null, allCreatedConnections);
+        }
+
+        @Override
+        public SimpleConnection makeConnection(long createConnectionTimeout, InetSocketAddress bindAddress, URI uri, XnioWorker worker, XnioSsl ssl, ByteBufferPool bufferPool, OptionMap options, Set<SimpleConnection> allCreatedConnections) {
+            CountingConnection connection = new CountingConnection(http2);
+            allCreatedConnections.add(connection);
+            created.incrementAndGet();
+            if(leak) {
+                // simulates a connection that is created after the creation has timed out
+                leak = false;
+                throw new RuntimeException("Connection creation timed-out");
+            }
+            return connection;
+        }
+
+        @Override
+        public SimpleConnection reuseConnection(long createConnectionTimeout, SimpleConnection connection) {
+            if(!connection.isOpen())
+                throw new RuntimeException("Reused-connection has been unexpectedly closed");
+            return connection;
+        }
+    }
+
+    @Test
+    public void testHttp11ReuseAndPoolSize() {
+        CountingConnectionMaker maker = new CountingConnectionMaker(false);
+        SimpleURIConnectionPool pool = new SimpleURIConnectionPool(uri, 60000, 2, maker);
+        try {
+            SimpleConnectionHolder.ConnectionToken first = pool.borrow(1000);
+            pool.restore(first);
+            // the restored connection is in the affinity slot of this thread
+            SimpleConnectionHolder.ConnectionToken second = pool.borrow(1000);
+            Assert.assertSame(first.getRawConnection(), second.getRawConnection());
+            Assert.assertEquals(1, maker.created.get());
+
+            // an HTTP/1.1 connection is borrowed by one thread at a time
+            SimpleConnectionHolder.ConnectionToken third = pool.borrow(1000);
+            Assert.assertNotSame(second.getRawConnection(), third.getRawConnection());
+            Assert.assertEquals(2, pool.getBorrowedConnectionCount());
+            try {
+                pool.borrow(1000);
+                Assert.fail("the pool is full");
+            } catch (RuntimeException e) {
+                Assert.assertEquals(1, pool.getExhaustedCount());
+            }
+            pool.restore(second);
+            // restoring a token twice has no effect
+            pool.restore(second);
+            Assert.assertEquals(1, pool.getBorrowedTokenCount());
+            Assert.assertSame(second.getRawConnection(), pool.borrow(1000).getRawConnection());
+            Assert.assertEquals(2, pool.getConnectionCount());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testRestoreFromOtherThread() throws Exception {
+        CountingConnectionMaker maker = new CountingConnectionMaker(false);
+        SimpleURIConnectionPool pool = new SimpleURIConnectionPool(uri, 60000, 2, maker);
+        try {
+            SimpleConnectionHolder.ConnectionToken token = pool.borrow(1000);
+            Thread thread = new Thread(() -> pool.restore(token));
+            thread.start();
+            thread.join();
+            // the connection is queued in the idle deque as it was restored by a different thread
+            Assert.assertSame(token.getRawConnection(), pool.borrow(1000).getRawConnection());
+            Assert.assertEquals(1, maker.created.get());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testHttp2Multiplexed() {
+        CountingConnectionMaker maker = new CountingConnectionMaker(true);
+        SimpleURIConnectionPool pool = new SimpleURIConnectionPool(uri, 60000, 2, maker);
+        try {
+            List<SimpleConnectionHolder.ConnectionToken> tokens = new ArrayList<>();
+            for(int i = 0; i < 100; i++) {
+                tokens.add(pool.borrow(1000));
+            }
+            Assert.assertEquals(1, maker.created.get());
+            Assert.assertEquals(100, pool.getBorrowedTokenCount());
+            Assert.assertEquals(1, pool.getBorrowedConnectionCount());
+            for(SimpleConnectionHolder.ConnectionToken token : tokens) {
+                pool.restore(token);
+            }
+            Assert.assertEquals(0, pool.getBorrowedTokenCount());
+            Assert.assertEquals(100, pool.getBorrowCount());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testSweepExpiredConnections() throws Exception {
+        CountingConnectionMaker maker = new CountingConnectionMaker(false);
+        SimpleURIConnectionPool pool = new SimpleURIConnectionPool(uri, 50, 2, maker);
+        try {
+            SimpleConnectionHolder.ConnectionToken borrowed = pool.borrow(1000);
+            SimpleConnectionHolder.ConnectionToken restored = pool.borrow(1000);
+            pool.restore(restored);
+            Thread.sleep(100);
+            pool.sweep(System.currentTimeMillis());
+            // only the expired connection that is not borrowed is closed
+            Assert.assertFalse(((CountingConnection)restored.getRawConnection()).isOpen());
+            Assert.assertTrue(((CountingConnection)borrowed.getRawConnection()).isOpen());
+            Assert.assertEquals(1, pool.getConnectionCount());
+            Assert.assertEquals(1, pool.getCloseCount());
+
+            pool.restore(borrowed);
+            // the pool is not full, so a new connection is created instead of the expired one
+            SimpleConnectionHolder.ConnectionToken token = pool.borrow(1000);
+            Assert.assertNotSame(borrowed.getRawConnection(), token.getRawConnection());
+            pool.sweep(System.currentTimeMillis());
+            Assert.assertFalse(((CountingConnection)borrowed.getRawConnection()).isOpen());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testLeakedConnectionClosed() {
+        CountingConnectionMaker maker = new CountingConnectionMaker(false);
+        SimpleURIConnectionPool pool = new SimpleURIConnectionPool(uri, 60000, 2, maker);
+        try {
+            maker.leak = true;
+            try {
+                pool.borrow(1000);
+                Assert.fail("the connection creation fails");
+            } catch (RuntimeException e) {
+                // expected
+            }
+            SimpleConnectionHolder.ConnectionToken token = pool.borrow(1000);
+            long now = System.currentTimeMillis();
+            pool.sweep(now);
+            Assert.assertEquals(0, pool.getLeakCount());
+            pool.sweep(now);
+            Assert.assertEquals(1, pool.getLeakCount());
+            Assert.assertTrue(((CountingConnection)token.getRawConnection()).isOpen());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentBorrowIsExclusive() throws Exception {
+        CountingConnectionMaker maker = new CountingConnectionMaker(false);
+        final int threads = 8;
+        SimpleURIConnectionPool pool = new SimpleURIConnectionPool(uri, 60000, threads, maker);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        try {
+            for(int i = 0; i < threads; i++) {
+                new Thread(() -> {
+                    try {
+                        start.await();
+                        for(int j = 0; j < 2000; j++) {
+                            SimpleConnectionHolder.ConnectionToken token = pool.borrow(1000);
+                            CountingConnection connection = (CountingConnection)token.getRawConnection();
+                            if(connection.inUse.incrementAndGet() != 1)
+                                throw new IllegalStateException("HTTP/1.1 connection borrowed twice");
+                            connection.inUse.decrementAndGet();
+                            pool.restore(token);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }).start();
+            }
+            start.countDown();
+            done.await();
+            Assert.assertNull(failure.get());
+            Assert.assertTrue(maker.created.get() <= threads);
+            Assert.assertEquals(0, pool.getBorrowedTokenCount());
+            Assert.assertEquals(threads * 2000, pool.getBorrowCount());
+        } finally {
+            pool.close();
+        }
+    }
+}
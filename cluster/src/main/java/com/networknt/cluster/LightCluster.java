@@ -28,7 +28,8 @@ import org.slf4j.LoggerFactory;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This is the only concrete implementation of cluster interface. It basically integrates
@@ -36,12 +37,17 @@ import java.util.stream.Collectors;
  * to convert a protocol, service id and request key to a url that can be addressed and
  * invoked.
  *
+ * The discovered instances are kept in an immutable ServiceSnapshot for each protocol, serviceId
+ * and tag. The service is subscribed once and the snapshot is replaced when the registry notifies
+ * a change, so serviceToUrl is only a map lookup and a load balance selection.
+ *
  * Created by stevehu on 2017-01-27.
  */
 public class LightCluster implements Cluster {
     private static Logger logger = LoggerFactory.getLogger(LightCluster.class);
     private static Registry registry = SingletonServiceFactory.getBean(Registry.class);
     private static LoadBalance loadBalance = SingletonServiceFactory.getBean(LoadBalance.class);
+    private static final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
 
     public LightCluster() {
         if(logger.isInfoEnabled()) logger.info("A LightCluster instance is started");
@@ -61,11 +67,13 @@ public class LightCluster implements Cluster {
             logger.debug("The serviceId cannot be blank");
             return null;
         }
-        URL url = loadBalance.select(discovery(protocol, serviceId, tag), serviceId, tag, requestKey);
+        ServiceSnapshot snapshot = getSnapshot(protocol, serviceId, tag);
+        URL url = loadBalance.select(snapshot.getUrls(), serviceId, tag, requestKey);
         if (url != null) {
             logger.debug("Final url after load balance = {}.", url);
-            // construct a url in string
-            return protocol + "://" + url.getHost() + ":" + url.getPort();
+            String address = snapshot.getAddress(url);
+            // the load balance might return a url that is not in the snapshot.
+            return address != null ? address : protocol + "://" + url.getHost() + ":" + url.getPort();
         } else {
             logger.debug("The service: {} cannot be found from service discovery.", serviceId);
             return null;
@@ -85,29 +93,34 @@ public class LightCluster implements Cluster {
             logger.debug("The serviceId cannot be blank");
             return new ArrayList<>();
         }
-
-        // transform to a list of URIs
-        return discovery(protocol, serviceId, tag).stream()
-                .map(this::toUri)
-                .collect(Collectors.toList());
+        // the caller might modify the list, so a copy of the URIs in the snapshot is returned.
+        return new ArrayList<>(getSnapshot(protocol, serviceId, tag).getUris());
     }
 
-    private List<URL> discovery(String protocol, String serviceId, String tag) {
-        if(logger.isDebugEnabled()) logger.debug("protocol = " + protocol + " serviceId = " + serviceId + " tag = " + tag);
-        URL subscribeUrl = URLImpl.valueOf(protocol + "://localhost/" + serviceId);
-        if(tag != null) {
-            subscribeUrl.addParameter(Constants.TAG_ENVIRONMENT, tag);
+    /**
+     * Get the current snapshot of the service. The service is subscribed on the first lookup, and an empty
+     * snapshot is discovered again on each lookup until the registry has the instances of the service.
+     *
+     * @param protocol either http or https
+     * @param serviceId unique service identifier - cannot be blank
+     * @param tag an environment tag use along with serviceId for discovery
+     * @return ServiceSnapshot
+     */
+    ServiceSnapshot getSnapshot(String protocol, String serviceId, String tag) {
+        String key = tag == null ? protocol + "://" + serviceId : protocol + "://" + serviceId + "|" + tag;
+        Subscription subscription = subscriptions.get(key);
+        if(subscription == null) {
+            subscription = subscriptions.computeIfAbsent(key, k -> new Subscription(protocol, serviceId, tag));
+        }
+        ServiceSnapshot snapshot = subscription.snapshot;
+        if(snapshot == null || snapshot.isEmpty()) {
+            subscription.subscribe();
+            snapshot = subscription.refresh();
         }
-        if(logger.isDebugEnabled()) logger.debug("subscribeUrl = " + subscribeUrl);
-        // subscribe is async and the result won't come back immediately.
-        registry.subscribe(subscribeUrl, null);
-        // do a lookup for the quick response from either cache or registry service.
-        List<URL> urls = registry.discover(subscribeUrl);
-        if(logger.isDebugEnabled()) logger.debug("discovered urls = " + urls);
-        return urls;
+        return snapshot;
     }
 
-    private URI toUri(URL url) {
+    static URI toUri(URL url) {
         URI uri = null;
         try {
             uri = new URI(url.getProtocol(), null, url.getHost(), url.getPort(), null, null, null);
@@ -116,4 +129,47 @@ public class LightCluster implements Cluster {
         }
         return uri;
     }
+
+    /**
+     * The subscription of a protocol, serviceId and tag that holds the current snapshot. It is the listener
+     * of the registry, and the snapshot is discovered again when the registry notifies a change so that it
+     * has the same instances as a lookup of the registry.
+     */
+    private static class Subscription implements NotifyListener {
+        private final String protocol;
+        private final URL subscribeUrl;
+        private final AtomicBoolean subscribed = new AtomicBoolean();
+        private volatile ServiceSnapshot snapshot;
+
+        Subscription(String protocol, String serviceId, String tag) {
+            this.protocol = protocol;
+            this.subscribeUrl = URLImpl.valueOf(protocol + "://localhost/" + serviceId);
+            if(tag != null) {
+                subscribeUrl.addParameter(Constants.TAG_ENVIRONMENT, tag);
+            }
+        }
+
+        void subscribe() {
+            if(subscribed.compareAndSet(false, true)) {
+                if(logger.isDebugEnabled()) logger.debug("subscribeUrl = " + subscribeUrl);
+                // subscribe is async and the result won't come back immediately.
+                registry.subscribe(subscribeUrl, this);
+            }
+        }
+
+        synchronized ServiceSnapshot refresh() {
+            // do a lookup for the quick response from either cache or registry service.
+            List<URL> urls = registry.discover(subscribeUrl);
+            if(logger.isDebugEnabled()) logger.debug("discovered urls = " + urls);
+            ServiceSnapshot current = snapshot;
+            snapshot = new ServiceSnapshot(current == null ? 1 : current.getVersion() + 1, protocol, urls);
+            return snapshot;
+        }
+
+        @Override
+        public void notify(URL registryUrl, List<URL> urls) {
+            if(logger.isDebugEnabled()) logger.debug("registry {} notified the change of {}", registryUrl, subscribeUrl);
+            refresh();
+        }
+    }
 }
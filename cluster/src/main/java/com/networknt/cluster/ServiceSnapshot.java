@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.cluster;
+
+import com.networknt.registry.URL;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the instances of a service discovered for a protocol, serviceId and tag. The URIs
+ * and the url strings returned by the cluster are computed once when the snapshot is created, so a lookup
+ * only needs to select an instance. A new snapshot with a higher version replaces the old one when the
+ * registry notifies a change of the service.
+ *
+ * @author Steve Hu
+ */
+public final class ServiceSnapshot {
+    private final long version;
+    private final List<URL> urls;
+    private final List<URI> uris;
+    private final Map<URL, String> addresses;
+
+    ServiceSnapshot(long version, String protocol, List<URL> discovered) {
+        this.version = version;
+        List<URL> urls = new ArrayList<>();
+        List<URI> uris = new ArrayList<>();
+        Map<URL, String> addresses = new IdentityHashMap<>();
+        if (discovered != null) {
+            for (URL url : discovered) {
+                urls.add(url);
+                uris.add(LightCluster.toUri(url));
+                addresses.put(url, protocol + "://" + url.getHost() + ":" + url.getPort());
+            }
+        }
+        this.urls = Collections.unmodifiableList(urls);
+        this.uris = Collections.unmodifiableList(uris);
+        this.addresses = addresses;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<URL> getUrls() {
+        return urls;
+    }
+
+    public List<URI> getUris() {
+        return uris;
+    }
+
+    public boolean isEmpty() {
+        return urls.isEmpty();
+    }
+
+    /**
+     * @param url one of the urls of the snapshot selected by the load balance
+     * @return the url string in protocol://host:port format
+     */
+    String getAddress(URL url) {
+        return addresses.get(url);
+    }
+}
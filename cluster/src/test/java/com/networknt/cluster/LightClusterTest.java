@@ -62,4 +62,22 @@ public class LightClusterTest {
         List<URI> l = cluster.services("http", "com.networknt.apib-1.0.0", null);
         Assert.assertEquals(2, l.size());
     }
+
+    @Test
+    public void testSnapshotIsReused() {
+        LightCluster lightCluster = (LightCluster) cluster;
+        ServiceSnapshot snapshot = lightCluster.getSnapshot("http", "com.networknt.apib-1.0.0", null);
+        Assert.assertEquals(2, snapshot.getUris().size());
+        cluster.serviceToUrl("http", "com.networknt.apib-1.0.0", null, null);
+        Assert.assertSame(snapshot, lightCluster.getSnapshot("http", "com.networknt.apib-1.0.0", null));
+        // the snapshot of another protocol or tag is kept separately
+        Assert.assertNotSame(snapshot, lightCluster.getSnapshot("https", "com.networknt.apib-1.0.0", null));
+    }
+
+    @Test
+    public void testServicesReturnsCopy() {
+        List<URI> l = cluster.services("http", "com.networknt.apib-1.0.0", null);
+        l.add(l.get(0));
+        Assert.assertEquals(2, cluster.services("http", "com.networknt.apib-1.0.0", null).size());
+    }
 }
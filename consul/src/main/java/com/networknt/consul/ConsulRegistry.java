@@ -33,6 +33,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ConsulRegistry extends AbstractRegistry {
     private static final Logger logger = LoggerFactory.getLogger(ConsulRegistry.class);
@@ -43,12 +44,13 @@ public class ConsulRegistry extends AbstractRegistry {
     private long lookupInterval;
     private long reconnectInterval;
     private long reconnectJitter;
+    private ConsulWatchEngine watchEngine;
 
     // service local cache. key: serviceName, value: <service url list>
     private ConcurrentHashMap<String, List<URL>> serviceCache = new ConcurrentHashMap<String, List<URL>>();
     // keep all subscribe urls, so that it won't double subscribe.
     private static Set<URL> subscribedSet = new ConcurrentHashSet<>();
-    // record lookup service thread, ensure each serviceName start only one thread, <serviceName, lastConsulIndexId>
+    // record watched services, ensure each serviceName is watched only once, <serviceName, lastConsulIndexId>
     private ConcurrentHashMap<String, Long> lookupServices = new ConcurrentHashMap<String, Long>();
 
     // TODO: 2016/6/17 clientUrl support multiple listener
@@ -69,6 +71,7 @@ public class ConsulRegistry extends AbstractRegistry {
         lookupInterval = getConsulConfig().getLookupInterval() * 1000;
         reconnectInterval = getConsulConfig().getReconnectInterval() * 1000;
         reconnectJitter = getConsulConfig().getReconnectJitter() * 1000;
+        watchEngine = new ConsulWatchEngine(lookupInterval, reconnectInterval, reconnectJitter);
 
         ArrayBlockingQueue<Runnable> workQueue = new ArrayBlockingQueue<Runnable>(20000);
         notifyExecutor = new ThreadPoolExecutor(10, 30, 30 * 1000, TimeUnit.MILLISECONDS, workQueue);
@@ -124,7 +127,7 @@ public class ConsulRegistry extends AbstractRegistry {
         // you only need to subscribe once.
         if(!subscribedSet.contains(url)) {
             addNotifyListener(url, listener);
-            startListenerThreadIfNewService(url);
+            watchIfNewService(url);
             subscribedSet.add(url);
         }
     }
@@ -160,15 +163,15 @@ public class ConsulRegistry extends AbstractRegistry {
     }
 
     /**
-     * if new service registered, start a new lookup thread
-     * each serviceName start a lookup thread to discover service
+     * if new service registered, start to watch it with the watch engine
+     * each serviceName is watched with a blocking query that is sent asynchronously
      *
      * @param url
      */
-    private void startListenerThreadIfNewService(URL url) {
+    private void watchIfNewService(URL url) {
         String serviceName = url.getPath();
 
-        // Do NOT start a listener thread if serviceName is blank
+        // Do NOT watch the service if serviceName is blank
         if(StringUtils.isBlank(serviceName))
             return;
 
@@ -176,13 +179,37 @@ public class ConsulRegistry extends AbstractRegistry {
         if (!lookupServices.containsKey(serviceName)) {
             Long value = lookupServices.putIfAbsent(serviceName, 0L);
             if (value == null) {
-                ServiceLookupThread lookupThread = new ServiceLookupThread(protocol, serviceName);
-                lookupThread.setDaemon(true);
-                lookupThread.start();
+                // the index of the query in flight, the response is compared with it
+                AtomicLong queryIndex = new AtomicLong();
+                watchEngine.watch(serviceName,
+                        () -> {
+                            queryIndex.set(getLastConsulIndex(serviceName));
+                            if(logger.isDebugEnabled()) logger.debug("serviceName = {} lastConsulIndexId = {}", serviceName, queryIndex.get());
+                            return client.lookupHealthServiceAsync(serviceName, null, queryIndex.get(), getConsulToken());
+                        },
+                        response -> onServiceUpdate(protocol, serviceName, queryIndex.get(), response));
             }
         }
     }
 
+    /**
+     * Handle the response of a blocking query on the watch engine thread.
+     *
+     * @return false if Consul connection failed
+     */
+    private boolean onServiceUpdate(String protocol, String serviceName, long lastConsulIndexId, ConsulResponse<List<ConsulService>> response) {
+        ConcurrentHashMap<String, List<URL>> serviceUrls = processLookupResponse(protocol, serviceName, lastConsulIndexId, response);
+        if(serviceUrls == null) return false;
+        if(serviceUrls.size() == 0) {
+            if(logger.isDebugEnabled()) logger.debug("No service URL updates from Consul lookupServiceUpdate for service {}", serviceName);
+        } else {
+            if(logger.isDebugEnabled()) logger.debug("Got service URLs from Consul lookupServiceUpdate: {} service URLs found for service {} ({})",
+                    serviceUrls.getOrDefault(serviceName, Collections.emptyList()).size(), serviceName, protocol);
+        }
+        updateServiceCache(serviceName, serviceUrls, true);
+        return true;
+    }
+
     private void addNotifyListener(URL url, NotifyListener listener) {
         String service = ConsulUtils.getUrlClusterInfo(url);
         ConcurrentHashMap<URL, NotifyListener> map = notifyListeners.get(service);
@@ -195,9 +222,11 @@ public class ConsulRegistry extends AbstractRegistry {
         }
     }
 
-    private ConcurrentHashMap<String, List<URL>> lookupServiceUpdate(String protocol, String serviceName) {
-        return lookupServiceUpdate(protocol, serviceName, true);
+    private long getLastConsulIndex(String serviceName) {
+        Long lastConsulIndexId = lookupServices.get(serviceName);
+        return lastConsulIndexId == null ? 0L : lastConsulIndexId;
     }
+
     /***
      *
      * @param   protocol
@@ -231,15 +260,25 @@ public class ConsulRegistry extends AbstractRegistry {
 
     private ConcurrentHashMap<String, List<URL>> lookupServiceUpdate(String protocol, String serviceName, boolean isBlockQuery) {
         // get Consul index if blocking query
-        Long lastConsulIndexId = 0L;
-        if (isBlockQuery) {
-            lastConsulIndexId = lookupServices.get(serviceName) == null ? 0L : lookupServices.get(serviceName);
-        }
+        long lastConsulIndexId = isBlockQuery ? getLastConsulIndex(serviceName) : 0L;
         if(logger.isDebugEnabled()) logger.debug("serviceName = {} lastConsulIndexId = {}", serviceName, lastConsulIndexId);
 
         // response should be null iff there was an error connecting to Consul
         ConsulResponse<List<ConsulService>> response = lookupConsulService(serviceName, lastConsulIndexId);
+        return processLookupResponse(protocol, serviceName, lastConsulIndexId, response);
+    }
 
+    /**
+     * Convert the response of a lookup to the serviceUrls that are passed to updateServiceCache() and record
+     * the Consul index of the response for the next blocking query.
+     *
+     * @param   protocol
+     * @param   serviceName
+     * @param   lastConsulIndexId the index that was sent with the query
+     * @param   response the response of the query, null if there was an error connecting to Consul
+     * @return  the same result as lookupServiceUpdate
+     */
+    private ConcurrentHashMap<String, List<URL>> processLookupResponse(String protocol, String serviceName, long lastConsulIndexId, ConsulResponse<List<ConsulService>> response) {
         if(logger.isTraceEnabled()) {
             try {
                 logger.trace("response = " + Config.getInstance().getMapper().writeValueAsString(response));
@@ -313,7 +352,7 @@ public class ConsulRegistry extends AbstractRegistry {
             logger.error("Local service cache may be out of date for {} - Consul connection failed", serviceName);
 
             // Indicate to updateServiceCache() to leave cache unchanged for now, and
-            // Indicate to ServiceLookupThread.run() that Consul connection failed
+            // Indicate to the watch engine that Consul connection failed
             return null;
         }
 
@@ -381,69 +420,6 @@ public class ConsulRegistry extends AbstractRegistry {
         }
     }
 
-    private class ServiceLookupThread extends Thread {
-       private String protocol;
-       private String serviceName;
-
-        public ServiceLookupThread(String protocol, String serviceName) {
-            this.protocol = protocol;
-            this.serviceName = serviceName;
-        }
-
-        @Override
-        public void run() {
-            ConsulRecoveryManager consulRecovery = new ConsulRecoveryManager(serviceName);
-
-            if(logger.isDebugEnabled()) logger.debug("Start Consul ServiceLookupThread thread - Lookup interval: {}ms, service {}", lookupInterval, serviceName);
-            while (true) {
-                // check in with the recovery manager
-                consulRecovery.checkin();
-
-                try {
-                    if(logger.isDebugEnabled()) logger.debug("Consul ServiceLookupThread Thread - SLEEP: Start to sleep {}ms for service {}", lookupInterval, serviceName);
-                    sleep(lookupInterval);
-                    if(logger.isDebugEnabled()) logger.debug("Consul ServiceLookupThread Thread - WAKE UP: Woke up from sleep for service {}", serviceName);
-                    ConcurrentHashMap<String, List<URL>> serviceUrls = lookupServiceUpdate(protocol, serviceName);
-
-                    // lookupServiceUpdate returns null iff Consul connection has failed - attempt to recover
-                    if(serviceUrls == null)
-                    {
-                        while(serviceUrls == null)
-                        {
-                            // check in with the recovery manager
-                            consulRecovery.checkin();
-
-                            // if max connection reattempts have been reached, shut down the host application
-                            boolean moreAttemptsPermitted = consulRecovery.newFailedAttempt();
-                            if(!moreAttemptsPermitted)
-                                ConsulRecoveryManager.gracefulShutdown();
-
-                            long randomJitter = ThreadLocalRandom.current().nextLong(0, reconnectJitter);
-                            Thread.sleep(reconnectInterval + randomJitter);
-                            serviceUrls = lookupServiceUpdate(protocol, serviceName);
-                        }
-                        consulRecovery.exitRecoveryMode();
-                    }
-
-                    if(serviceUrls.size() == 0)
-                        if(logger.isDebugEnabled()) logger.debug("No service URL updates from Consul lookupServiceUpdate for service {}", serviceName);
-                    else
-                        if(logger.isDebugEnabled()) logger.debug("Got service URLs from Consul lookupServiceUpdate: {} service URLs found for service {} ({})",
-                                serviceUrls.getOrDefault(serviceName, Collections.emptyList()).size(), serviceName, protocol);
-
-                    updateServiceCache(serviceName, serviceUrls, true);
-
-                } catch (Throwable e) {
-                    logger.error("ServiceLookupThread fail!", e);
-                    try {
-                        Thread.sleep(2000);
-                    } catch (InterruptedException ignored) {
-                    }
-                }
-            }
-        }
-    }
-
     private class NotifyService implements Runnable {
         private String service;
         private List<URL> urls;
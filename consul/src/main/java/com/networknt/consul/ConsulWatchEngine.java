@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.consul;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Drives the blocking queries of all the watched services with one scheduler thread instead of a lookup
+ * thread per service. Each query is sent asynchronously and parked on the connection to Consul until Consul
+ * responds, and the response is handled on the scheduler thread. The next query is scheduled after the
+ * lookupInterval, or after the reconnectInterval plus a random jitter when the Consul connection has failed,
+ * so the number of threads stays the same no matter how many services are watched.
+ *
+ * The recovery of each watch is tracked by a ConsulRecoveryManager like the lookup thread did, and the host
+ * application is shut down when the maxAttemptsBeforeShutdown is reached.
+ *
+ * @author Steve Hu
+ */
+public class ConsulWatchEngine {
+    private static final Logger logger = LoggerFactory.getLogger(ConsulWatchEngine.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentHashMap<String, Watch<?>> watches = new ConcurrentHashMap<>();
+    private final long lookupInterval;
+    private final long reconnectInterval;
+    private final long reconnectJitter;
+
+    /**
+     * @param lookupInterval time in milliseconds between the blocking queries of a service
+     * @param reconnectInterval time in milliseconds to wait before retrying a failed query
+     * @param reconnectJitter the upper bound in milliseconds of the random time added to the reconnectInterval
+     */
+    public ConsulWatchEngine(long lookupInterval, long reconnectInterval, long reconnectJitter) {
+        this.lookupInterval = lookupInterval;
+        this.reconnectInterval = reconnectInterval;
+        this.reconnectJitter = reconnectJitter;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "consul-watch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start to watch a service if it is not watched yet. The first query is sent after the lookupInterval.
+     *
+     * @param serviceName the name of the service
+     * @param query sends the next query of the service and returns the future of the result
+     * @param handler handles the result on the scheduler thread and returns false if Consul connection failed
+     * @param <T> the type of the result of the query
+     * @return true if the service wasn't watched before
+     */
+    public <T> boolean watch(String serviceName, Supplier<CompletableFuture<T>> query, Predicate<T> handler) {
+        Watch<T> watch = new Watch<>(serviceName, query, handler);
+        if (watches.putIfAbsent(serviceName, watch) != null) return false;
+        if(logger.isDebugEnabled()) logger.debug("Start Consul watch - Lookup interval: {}ms, service {}", lookupInterval, serviceName);
+        watch.schedule(lookupInterval);
+        return true;
+    }
+
+    public boolean isWatched(String serviceName) {
+        return watches.containsKey(serviceName);
+    }
+
+    public int getWatchCount() {
+        return watches.size();
+    }
+
+    /**
+     * Stop all the watches. The queries that are waiting for Consul are not cancelled, but their results are
+     * discarded.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        watches.clear();
+    }
+
+    private class Watch<T> implements Runnable {
+        private final String serviceName;
+        private final Supplier<CompletableFuture<T>> query;
+        private final Predicate<T> handler;
+        private final ConsulRecoveryManager consulRecovery;
+
+        Watch(String serviceName, Supplier<CompletableFuture<T>> query, Predicate<T> handler) {
+            this.serviceName = serviceName;
+            this.query = query;
+            this.handler = handler;
+            this.consulRecovery = new ConsulRecoveryManager(serviceName);
+        }
+
+        void schedule(long delay) {
+            try {
+                scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                if(logger.isDebugEnabled()) logger.debug("Consul watch engine is shut down, stop watching service {}", serviceName);
+            }
+        }
+
+        @Override
+        public void run() {
+            // check in with the recovery manager
+            consulRecovery.checkin();
+            CompletableFuture<T> future;
+            try {
+                future = query.get();
+            } catch (Throwable e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            future.whenCompleteAsync(this::complete, scheduler);
+        }
+
+        private void complete(T result, Throwable throwable) {
+            boolean connected;
+            if (throwable != null) {
+                logger.error("Consul query failed for service " + serviceName, throwable);
+                connected = false;
+            } else {
+                try {
+                    connected = handler.test(result);
+                } catch (Throwable e) {
+                    logger.error("Consul watch failed to handle the response for service " + serviceName, e);
+                    schedule(reconnectInterval);
+                    return;
+                }
+            }
+            if (connected) {
+                if (consulRecovery.exitRecoveryMode()) logger.info("Consul connection recovered for service {}", serviceName);
+                schedule(lookupInterval);
+            } else {
+                consulRecovery.checkin();
+                // if max connection reattempts have been reached, shut down the host application
+                if (!consulRecovery.newFailedAttempt()) ConsulRecoveryManager.gracefulShutdown();
+                long randomJitter = reconnectJitter > 0 ? ThreadLocalRandom.current().nextLong(0, reconnectJitter) : 0;
+                schedule(reconnectInterval + randomJitter);
+            }
+        }
+    }
+}
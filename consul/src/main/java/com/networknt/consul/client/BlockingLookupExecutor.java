@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.consul.client;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The threads of the default lookupHealthServiceAsync of the ConsulClient. A blocking query holds its thread for
+ * up to the wait time of Consul, so the pool is not bounded and a slow query never delays the watches of the other
+ * services. The idle threads are removed after a minute.
+ *
+ * @author Steve Hu
+ */
+final class BlockingLookupExecutor {
+    static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "consul-lookup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private BlockingLookupExecutor() {
+    }
+}
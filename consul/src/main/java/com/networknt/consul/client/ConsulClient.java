@@ -17,6 +17,7 @@
 package com.networknt.consul.client;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import com.networknt.consul.ConsulResponse;
 import com.networknt.consul.ConsulService;
@@ -75,4 +76,23 @@ public interface ConsulClient {
 	 */
 	ConsulResponse<List<ConsulService>> lookupHealthService(String serviceName, String tag, long lastConsulIndex, String token);
 
+	/**
+	 * lookup health services like lookupHealthService without blocking the calling thread. A blocking query
+	 * with lastConsulIndex != 0 is parked on the connection until Consul responds, so that many services
+	 * can be watched without a thread for each of them.
+	 *
+	 * The default runs lookupHealthService on a dedicated unbounded pool of daemon threads, as a blocking query
+	 * holds a thread for up to the wait time of Consul and a bounded pool would delay the other watches. A client
+	 * that can send the query asynchronously should override it, like the ConsulClientImpl does.
+	 *
+	 * @param serviceName service name (service_id)
+	 * @param tag tag that is used for filtering (env_tag)
+	 * @param lastConsulIndex last consul index
+	 * @param token Consul token for security (Consul ACL)
+	 * @return a future completed with the same result as lookupHealthService, null if Consul connection fails
+	 */
+	default CompletableFuture<ConsulResponse<List<ConsulService>>> lookupHealthServiceAsync(String serviceName, String tag, long lastConsulIndex, String token) {
+		return CompletableFuture.supplyAsync(() -> lookupHealthService(serviceName, tag, lastConsulIndex, token), BlockingLookupExecutor.EXECUTOR);
+	}
+
 }
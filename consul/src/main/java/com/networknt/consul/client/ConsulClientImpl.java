@@ -17,8 +17,10 @@
 package com.networknt.consul.client;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import com.networknt.client.ClientConfig;
 import com.networknt.client.Http2Client;
+import com.networknt.client.http.JsonResponseBodyConsumer;
 import com.networknt.config.Config;
 import com.networknt.consul.*;
 import com.networknt.httpstring.HttpStringConstants;
@@ -41,6 +43,8 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -64,6 +68,8 @@ public class ConsulClientImpl implements ConsulClient {
 	private static final Logger logger = LoggerFactory.getLogger(ConsulClientImpl.class);
 	private static final ConsulConfig config = (ConsulConfig)Config.getInstance().getJsonObjectConfig(ConsulConstants.CONFIG_NAME, ConsulConfig.class);
 	private static final int UNUSUAL_STATUS_CODE = 300;
+	private static final JavaType SERVICES_TYPE = Config.getInstance().getMapper().getTypeFactory()
+			.constructCollectionType(List.class, Config.getInstance().getMapper().getTypeFactory().constructMapType(Map.class, String.class, Object.class));
 	private final Http2Client client = Http2Client.getInstance();
 
 	private final OptionMap optionMap;
@@ -76,15 +82,28 @@ public class ConsulClientImpl implements ConsulClient {
 	 * just for backward compatibility.
 	 */
 	public ConsulClientImpl() {
-		String consulUrl = config.getConsulUrl().toLowerCase();
+		this(toUri(config.getConsulUrl()));
+	}
+
+	/**
+	 * Construct ConsulClient that connects to the uri instead of the consulUrl, and the other parameters are
+	 * from consul.yml config file. It is used to connect to a Consul agent that is not known until runtime.
+	 *
+	 * @param uri the uri of the Consul agent
+	 */
+	public ConsulClientImpl(URI uri) {
+		this.uri = uri;
 		optionMap =  isHttp2() ? OptionMap.create(UndertowOptions.ENABLE_HTTP2, true) : OptionMap.EMPTY;
-		if(logger.isDebugEnabled()) logger.debug("consulUrl = {}", consulUrl);
+		if(logger.isDebugEnabled()) logger.debug("consulUrl = {}", uri);
 		if(config.getWait() != null && config.getWait().length() > 2) wait = config.getWait();
 		if(logger.isDebugEnabled()) logger.debug("wait = {}", wait);
 		if(config.getTimeoutBuffer() != null) timeoutBuffer = config.getTimeoutBuffer();
 		if(logger.isDebugEnabled()) logger.debug("timeoutBuffer = {}", timeoutBuffer);
+	}
+
+	private static URI toUri(String consulUrl) {
 		try {
-			uri = new URI(consulUrl);
+			return new URI(consulUrl.toLowerCase());
 		} catch (URISyntaxException e) {
 			logger.error("Invalid URI " + consulUrl, e);
 			throw new RuntimeException("Invalid URI " + consulUrl, e);
@@ -196,10 +215,7 @@ public class ConsulClientImpl implements ConsulClient {
 		}
 
 		ClientConnection connection = null;
-		String path = "/v1/health/service/" + serviceName + "?passing&wait="+wait+"&index=" + lastConsulIndex;
-		if(tag != null) {
-			path = path + "&tag=" + tag;
-		}
+		String path = healthServicePath(serviceName, tag, lastConsulIndex);
 		logger.trace("Consul health service path = {}", path);
 
 		SimpleConnectionHolder.ConnectionToken connectionToken = null;
@@ -228,25 +244,7 @@ public class ConsulClientImpl implements ConsulClient {
 
 				// Convert the service instances of serviceName to Java objects
 				List<Map<String, Object>> services = Config.getInstance().getMapper().readValue(body, new TypeReference<List<Map<String, Object>>>(){});
-				// consulServices guaranteed to be created if Consul connection successful
-				List<ConsulService> consulServices = new ArrayList<>(services.size());
-
-				for (Map<String, Object> service : services) {
-					ConsulService newService = convertToConsulService((Map<String,Object>)service.get("Service"));
-					consulServices.add(newService);
-				}
-
-				// - Previously, consulServices.isEmpty() == true caused this method to return null ** even on a
-				//   successful Consul request ** (when an empty JSON list '[]' of IPs are returned from Consul)
-				// - We now guarantee that newResponse is non-null unless there is a Consul connection failure
-
-				//if (!consulServices.isEmpty()) {
-				newResponse = new ConsulResponse<>();	// newResponse guaranteed to be non-null if Consul connection successful
-				newResponse.setValue(consulServices);	// newResponse.getValue() guaranteed to be non-null if Consul connection successful
-				newResponse.setConsulIndex(Long.parseLong(reference.get().getResponseHeaders().getFirst("X-Consul-Index")));
-				newResponse.setConsulLastContact(Long.parseLong(reference.get().getResponseHeaders().getFirst("X-Consul-Lastcontact")));
-				newResponse.setConsulKnownLeader(Boolean.parseBoolean(reference.get().getResponseHeaders().getFirst("X-Consul-Knownleader")));
-				//}
+				newResponse = toConsulResponse(reference.get(), services);
 			}
 		} catch (ConsulRequestException e) {
 			// This should only return null if Consul connection fails
@@ -279,6 +277,90 @@ public class ConsulClientImpl implements ConsulClient {
 		return newResponse;
 	}
 
+	/**
+	 * to lookup health services like lookupHealthService, but the request is sent with the Http2Client and the
+	 * response is decoded while it is read, so no thread is blocked while the query is parked by Consul. With
+	 * HTTP/2, all the blocking queries share the cached connection to Consul as streams. The query is cancelled
+	 * if there is no response after {@link #wait} plus {@link #timeoutBuffer}, and that closes the connection
+	 * for HTTP/1.1 like the timeout of the synchronous lookup.
+	 *
+	 * @param serviceName service name (service_id)
+	 * @param tag tag that is used for filtering (env_tag)
+	 * @param lastConsulIndex last consul index
+	 * @param token Consul token for security (Consul ACL)
+	 * @return a future completed with null if Consul connection fails or the response otherwise
+	 */
+	@Override
+	public CompletableFuture<ConsulResponse<List<ConsulService>>> lookupHealthServiceAsync(String serviceName, String tag, long lastConsulIndex, String token) {
+		if(StringUtils.isBlank(serviceName)) {
+			return CompletableFuture.completedFuture(null);
+		}
+		String path = healthServicePath(serviceName, tag, lastConsulIndex);
+		logger.trace("Consul health service path = {}", path);
+		ClientRequest request = new ClientRequest().setMethod(Methods.GET).setPath(path);
+		request.getRequestHeaders().put(Headers.HOST, "localhost");
+		if (token != null) request.getRequestHeaders().put(HttpStringConstants.CONSUL_TOKEN, token);
+
+		int waitInSecond = ConsulUtils.getWaitInSecond(wait);
+		int timeoutBufferInSecond = ConsulUtils.getTimeoutBufferInSecond(timeoutBuffer);
+		CompletableFuture<ClientResponse> exchange;
+		try {
+			exchange = client.callService(uri, request, Optional.empty(), isHttp2(),
+					new JsonResponseBodyConsumer(Config.getInstance().getMapper(), SERVICES_TYPE, statusCode -> statusCode < UNUSUAL_STATUS_CODE));
+		} catch (Exception e) {
+			logger.error("Consul connection or request failed for service " + serviceName, e);
+			return CompletableFuture.completedFuture(null);
+		}
+		return exchange.copy().orTimeout(waitInSecond + timeoutBufferInSecond, TimeUnit.SECONDS).handle((response, throwable) -> {
+			if(throwable != null) {
+				// abort the exchange so that the stream or the HTTP/1.1 connection is not left waiting for Consul.
+				exchange.cancel(true);
+				logger.error("Consul connection or request failed for service " + serviceName, throwable);
+				return null;
+			}
+			int statusCode = response.getResponseCode();
+			if(logger.isDebugEnabled()) logger.debug("Got Consul Query status code: {}", statusCode);
+			if(statusCode >= UNUSUAL_STATUS_CODE) {
+				logger.error("Consul Query returned an error: {} : {}", statusCode, response.getAttachment(Http2Client.RESPONSE_BODY));
+				return null;
+			}
+			try {
+				return toConsulResponse(response, (List<Map<String, Object>>)response.getAttachment(Http2Client.RESPONSE_OBJECT));
+			} catch (Exception e) {
+				logger.error("Invalid Consul Query response for service " + serviceName, e);
+				return null;
+			}
+		});
+	}
+
+	private String healthServicePath(String serviceName, String tag, long lastConsulIndex) {
+		String path = "/v1/health/service/" + serviceName + "?passing&wait="+wait+"&index=" + lastConsulIndex;
+		if(tag != null) {
+			path = path + "&tag=" + tag;
+		}
+		return path;
+	}
+
+	private ConsulResponse<List<ConsulService>> toConsulResponse(ClientResponse response, List<Map<String, Object>> services) {
+		// consulServices guaranteed to be created if Consul connection successful
+		List<ConsulService> consulServices = new ArrayList<>(services.size());
+
+		for (Map<String, Object> service : services) {
+			ConsulService newService = convertToConsulService((Map<String,Object>)service.get("Service"));
+			consulServices.add(newService);
+		}
+
+		// - Previously, consulServices.isEmpty() == true caused this method to return null ** even on a
+		//   successful Consul request ** (when an empty JSON list '[]' of IPs are returned from Consul)
+		// - We now guarantee that newResponse is non-null unless there is a Consul connection failure
+		ConsulResponse<List<ConsulService>> newResponse = new ConsulResponse<>();	// newResponse guaranteed to be non-null if Consul connection successful
+		newResponse.setValue(consulServices);	// newResponse.getValue() guaranteed to be non-null if Consul connection successful
+		newResponse.setConsulIndex(Long.parseLong(response.getResponseHeaders().getFirst("X-Consul-Index")));
+		newResponse.setConsulLastContact(Long.parseLong(response.getResponseHeaders().getFirst("X-Consul-Lastcontact")));
+		newResponse.setConsulKnownLeader(Boolean.parseBoolean(response.getResponseHeaders().getFirst("X-Consul-Knownleader")));
+		return newResponse;
+	}
+
 	private static class ConsulRequestException extends RuntimeException
 	{
 		public ConsulRequestException(String message) {
@@ -343,11 +425,11 @@ public class ConsulClientImpl implements ConsulClient {
 	/**
 	 * As the Consul server is built with Go and HTTP/2 is supported by default when HTTPS is used, we need to leverage
 	 * the multiplexing of HTTP/2 whenever possible. In the scenario that the user miss the enableHttp2 flag in the
-	 * consul.yml config file, we will force the Consul client to use HTTP/2 if the consulUrl is starting with "https".
+	 * consul.yml config file, we will force the Consul client to use HTTP/2 if the uri of Consul is "https".
 	 *
  	 * @return true if we want to use HTTP/2 to connect to the Consul.
 	 */
 	private boolean isHttp2() {
-		return config.isEnableHttp2() || config.getConsulUrl().toLowerCase().startsWith("https");
+		return config.isEnableHttp2() || "https".equals(uri.getScheme());
 	}
 }
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.consul;
+
+import com.networknt.consul.client.ConsulClient;
+import com.networknt.consul.client.ConsulClientImpl;
+import io.undertow.Undertow;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+import io.undertow.util.SameThreadExecutor;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Watch the services with the ConsulClientImpl against a stub Consul agent on an ephemeral port.
+ * The stub parks a blocking query until the service is changed like Consul does.
+ */
+public class ConsulWatchEngineTest {
+    private static Undertow server;
+    private static ConsulClient client;
+    private static final AtomicLong consulIndex = new AtomicLong(1);
+    private static final Map<String, Long> serviceIndexes = new ConcurrentHashMap<>();
+    private static final Map<String, Deque<HttpServerExchange>> parked = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+    private static final AtomicInteger queries = new AtomicInteger();
+
+    @BeforeClass
+    public static void setUp() {
+        server = Undertow.builder()
+                .addHttpListener(0, "localhost")
+                .setHandler(ConsulWatchEngineTest::handleRequest)
+                .build();
+        server.start();
+        int port = ((InetSocketAddress) server.getListenerInfo().get(0).getAddress()).getPort();
+        client = new ConsulClientImpl(URI.create("http://localhost:" + port));
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (server != null) server.stop();
+    }
+
+    private static void handleRequest(HttpServerExchange exchange) {
+        queries.incrementAndGet();
+        String serviceName = exchange.getRelativePath().substring("/v1/health/service/".length());
+        AtomicInteger failure = failures.get(serviceName);
+        if (failure != null && failure.getAndDecrement() > 0) {
+            exchange.setStatusCode(500);
+            exchange.getResponseSender().send("stub failure");
+            return;
+        }
+        long index = Long.parseLong(exchange.getQueryParameters().get("index").getFirst());
+        if (index != 0 && index >= serviceIndexes.getOrDefault(serviceName, 0L)) {
+            // park the blocking query until the service is changed
+            exchange.dispatch(SameThreadExecutor.INSTANCE, () -> parked.computeIfAbsent(serviceName, k -> new ConcurrentLinkedDeque<>()).add(exchange));
+            return;
+        }
+        respond(exchange, serviceName);
+    }
+
+    private static void respond(HttpServerExchange exchange, String serviceName) {
+        exchange.getResponseHeaders().put(new HttpString("X-Consul-Index"), serviceIndexes.computeIfAbsent(serviceName, k -> consulIndex.get()));
+        exchange.getResponseHeaders().put(new HttpString("X-Consul-Lastcontact"), 0);
+        exchange.getResponseHeaders().put(new HttpString("X-Consul-Knownleader"), "true");
+        exchange.getResponseSender().send("[{\"Service\":{\"ID\":\"" + serviceName + "-1\",\"Service\":\"" + serviceName
+                + "\",\"Address\":\"127.0.0.1\",\"Port\":8443,\"Tags\":[\"light\"]}}]");
+    }
+
+    private static void changeService(String serviceName) {
+        serviceIndexes.put(serviceName, consulIndex.incrementAndGet());
+        Deque<HttpServerExchange> exchanges = parked.getOrDefault(serviceName, new ConcurrentLinkedDeque<>());
+        HttpServerExchange exchange;
+        while ((exchange = exchanges.poll()) != null) {
+            HttpServerExchange parkedExchange = exchange;
+            parkedExchange.getIoThread().execute(() -> respond(parkedExchange, serviceName));
+        }
+    }
+
+    private static int parkedQueries(String prefix) {
+        int count = 0;
+        for (Map.Entry<String, Deque<HttpServerExchange>> entry : parked.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) count += entry.getValue().size();
+        }
+        return count;
+    }
+
+    private static void awaitParked(String prefix, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (parkedQueries(prefix) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(expected, parkedQueries(prefix));
+    }
+
+    /**
+     * Watch a service with the index of the last response like the ConsulRegistry does.
+     */
+    private static void watch(ConsulWatchEngine engine, String serviceName, List<Long> indexes, CountDownLatch updated) {
+        AtomicLong lastIndex = new AtomicLong();
+        engine.watch(serviceName,
+                () -> client.lookupHealthServiceAsync(serviceName, null, lastIndex.get(), null),
+                response -> {
+                    if (response == null) return false;
+                    if (response.getConsulIndex() > lastIndex.get()) {
+                        Assert.assertEquals(1, response.getValue().size());
+                        Assert.assertEquals(serviceName, response.getValue().get(0).getName());
+                        lastIndex.set(response.getConsulIndex());
+                        indexes.add(response.getConsulIndex());
+                        updated.countDown();
+                    }
+                    return true;
+                });
+    }
+
+    @Test
+    public void testThreadCountIndependentOfServices() throws Exception {
+        ConsulWatchEngine engine = new ConsulWatchEngine(10, 50, 50);
+        try {
+            // warm up the client so that its worker threads are started
+            Assert.assertNotNull(client.lookupHealthServiceAsync("warmup", null, 0, null).get(10, TimeUnit.SECONDS));
+            int baseline = Thread.activeCount();
+
+            int services = 100;
+            CountDownLatch first = new CountDownLatch(services);
+            List<List<Long>> indexes = new ArrayList<>();
+            for (int i = 0; i < services; i++) {
+                List<Long> serviceIndexes = new ArrayList<>();
+                indexes.add(serviceIndexes);
+                watch(engine, "many-" + i, serviceIndexes, first);
+            }
+            Assert.assertFalse(engine.watch("many-0", CompletableFuture::new, response -> true));
+            Assert.assertEquals(services, engine.getWatchCount());
+            Assert.assertTrue(first.await(10, TimeUnit.SECONDS));
+
+            // all the blocking queries are parked by Consul at the same time
+            awaitParked("many-", services);
+            // only the scheduler thread is added, the common pool is used to connect
+            Assert.assertTrue(Thread.activeCount() <= baseline + 1 + ForkJoinPool.commonPool().getParallelism());
+
+            // a change of one service completes its query only
+            int before = queries.get();
+            changeService("many-7");
+            long deadline = System.currentTimeMillis() + 10000;
+            while (indexes.get(7).size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(2, indexes.get(7).size());
+            awaitParked("many-", services);
+            Assert.assertEquals(1, indexes.get(8).size());
+            Assert.assertEquals(before + 1, queries.get());
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void testRetryWithBackoff() throws Exception {
+        ConsulWatchEngine engine = new ConsulWatchEngine(10, 100, 50);
+        try {
+            failures.put("retry", new AtomicInteger(3));
+            CountDownLatch updated = new CountDownLatch(1);
+            List<Long> indexes = new ArrayList<>();
+            long start = System.currentTimeMillis();
+            watch(engine, "retry", indexes, updated);
+            Assert.assertTrue(updated.await(10, TimeUnit.SECONDS));
+            // three failed queries are retried after the reconnectInterval at least
+            Assert.assertTrue(System.currentTimeMillis() - start >= 300);
+            Assert.assertEquals(-1, failures.get("retry").get());
+            Assert.assertEquals(1, indexes.size());
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void testDefaultAsyncLookup() throws Exception {
+        // a custom client that only implements the blocking lookup gets the async one from the interface.
+        ConsulResponse<List<ConsulService>> response = new ConsulResponse<>();
+        AtomicReference<String> thread = new AtomicReference<>();
+        ConsulClient custom = new ConsulClient() {
+            @Override
+            public void checkPass(String serviceId, String token) {
+            }
+
+            @Override
+            public void checkFail(String serviceId, String token) {
+            }
+
+            @Override
+            public void registerService(ConsulService service, String token) {
+            }
+
+            @Override
+            public void unregisterService(String serviceid, String token) {
+            }
+
+            @Override
+            public ConsulResponse<List<ConsulService>> lookupHealthService(String serviceName, String tag, long lastConsulIndex, String token) {
+                thread.set(Thread.currentThread().getName());
+                return response;
+            }
+        };
+        Assert.assertSame(response, custom.lookupHealthServiceAsync("com.networknt.test-1.0.0", null, 5, null).get(10, TimeUnit.SECONDS));
+        Assert.assertEquals("consul-lookup", thread.get());
+    }
+}
@@ -21,6 +21,7 @@ import com.networknt.consul.client.ConsulClient;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -97,6 +98,11 @@ public class MockConsulClient implements ConsulClient {
         return res;
     }
 
+    @Override
+    public CompletableFuture<ConsulResponse<List<ConsulService>>> lookupHealthServiceAsync(String serviceName, String tag, long lastConsulIndex, String token) {
+        return CompletableFuture.completedFuture(lookupHealthService(serviceName, tag, lastConsulIndex, token));
+    }
+
     public long getCheckPassTimes(String serviceid) {
         AtomicLong times = checkPassTimesMap.get(serviceid);
         if (times == null) {
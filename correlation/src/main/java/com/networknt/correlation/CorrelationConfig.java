@@ -21,6 +21,8 @@ package com.networknt.correlation;
 public class CorrelationConfig {
     boolean enabled;
     boolean autogenCorrelationID;
+    String idGenerator;
+    int nodeId = -1;
 
     public CorrelationConfig() {
     }
@@ -40,4 +42,20 @@ public class CorrelationConfig {
     public void setAutogenCorrelationID(boolean autogenCorrelationID) {
     	this.autogenCorrelationID = autogenCorrelationID;
     }
+
+    public String getIdGenerator() {
+        return idGenerator;
+    }
+
+    public void setIdGenerator(String idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(int nodeId) {
+        this.nodeId = nodeId;
+    }
 }
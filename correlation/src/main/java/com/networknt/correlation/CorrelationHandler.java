@@ -20,8 +20,9 @@ import com.networknt.config.Config;
 import com.networknt.handler.Handler;
 import com.networknt.handler.MiddlewareHandler;
 import com.networknt.httpstring.HttpStringConstants;
+import com.networknt.utility.IdGenerator;
+import com.networknt.utility.IdGenerators;
 import com.networknt.utility.ModuleRegistry;
-import com.networknt.utility.Util;
 import io.undertow.Handlers;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
@@ -48,6 +49,7 @@ public class CorrelationHandler implements MiddlewareHandler {
 
     public static CorrelationConfig config =
             (CorrelationConfig)Config.getInstance().getJsonObjectConfig(CONFIG_NAME, CorrelationConfig.class);
+    static volatile IdGenerator idGenerator = IdGenerators.getGenerator(config.getIdGenerator(), config.getNodeId());
 
     private volatile HttpHandler next;
 
@@ -63,8 +65,8 @@ public class CorrelationHandler implements MiddlewareHandler {
         if(cId == null) {
         	// if not set, check the autgen flag and generate if set to true
         	if(config.isAutogenCorrelationID()) {
-	            // generate a UUID and put it into the request header
-	            cId = Util.getUUID();
+	            // generate an id with the configured generator and put it into the request header
+	            cId = idGenerator.nextId();
 	            exchange.getRequestHeaders().put(HttpStringConstants.CORRELATION_ID, cId);
 	            String tId = exchange.getRequestHeaders().getFirst(HttpStringConstants.TRACEABILITY_ID);
 	            if(tId != null && logger.isInfoEnabled()) {
@@ -104,5 +106,6 @@ public class CorrelationHandler implements MiddlewareHandler {
     @Override
     public void reload() {
         config =  (CorrelationConfig)Config.getInstance().getJsonObjectConfig(CONFIG_NAME, CorrelationConfig.class);
+        idGenerator = IdGenerators.getGenerator(config.getIdGenerator(), config.getNodeId());
     }
 }
@@ -0,0 +1,92 @@
+package com.networknt.db.provider;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.networknt.config.Config;
+import com.networknt.config.ConfigException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Config class for the named queries in the db-query.yml.
+ *
+ * @author Steve Hu
+ */
+public class QueryConfig {
+    private static final Logger logger = LoggerFactory.getLogger(QueryConfig.class);
+    public static final String CONFIG_NAME = "db-query";
+    public static final String QUERIES = "queries";
+
+    List<QueryDefinition> queries;
+
+    private Config config;
+    private Map<String, Object> mappedConfig;
+
+    private QueryConfig() {
+        this(CONFIG_NAME);
+    }
+
+    /**
+     * Please note that this constructor is only for testing to load different config files
+     * to test different configurations.
+     * @param configName String
+     */
+    private QueryConfig(String configName) {
+        config = Config.getInstance();
+        mappedConfig = config.getJsonMapConfigNoCache(configName);
+        setConfigList();
+    }
+
+    public static QueryConfig load() {
+        return new QueryConfig();
+    }
+
+    public static QueryConfig load(String configName) {
+        return new QueryConfig(configName);
+    }
+
+    public List<QueryDefinition> getQueries() {
+        return queries;
+    }
+
+    public void setQueries(List<QueryDefinition> queries) {
+        this.queries = queries;
+    }
+
+    private void setConfigList() {
+        queries = new ArrayList<>();
+        if (mappedConfig == null || mappedConfig.get(QUERIES) == null) return;
+        Object object = mappedConfig.get(QUERIES);
+        if(object instanceof String) {
+            String s = ((String)object).trim();
+            if(s.isEmpty()) return;
+            if(logger.isTraceEnabled()) logger.trace("queries s = " + s);
+            if(s.startsWith("[")) {
+                // json format
+                try {
+                    queries = Config.getInstance().getMapper().readValue(s, new TypeReference<List<QueryDefinition>>() {});
+                } catch (Exception e) {
+                    throw new ConfigException("could not parse the queries json with a list of string and object.");
+                }
+            } else {
+                throw new ConfigException("queries must be a list of string object map.");
+            }
+        } else if (object instanceof List) {
+            // the object is a list of map, we need convert it to QueryDefinition object.
+            List<Map<String, Object>> values = (List<Map<String, Object>>)object;
+            for(Map<String, Object> value: values) {
+                queries.add(Config.getInstance().getMapper().convertValue(value, QueryDefinition.class));
+            }
+        } else {
+            throw new ConfigException("queries must be a list of string object map.");
+        }
+        for(QueryDefinition query: queries) {
+            if(query.getName() == null || query.getSql() == null) {
+                throw new ConfigException("name and sql are required for each query in " + CONFIG_NAME);
+            }
+        }
+    }
+}
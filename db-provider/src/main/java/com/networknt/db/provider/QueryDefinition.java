@@ -0,0 +1,103 @@
+package com.networknt.db.provider;
+
+import java.util.List;
+
+/**
+ * A named and parameterized SQL statement defined in the db-query.yml. The parameters are bound to the ?
+ * placeholders in order.
+ *
+ * @author Steve Hu
+ */
+public class QueryDefinition {
+    String name;
+    String sql;
+    // the time to live in seconds of the cached result. 0 means the result is not cached.
+    int cacheTtl;
+    // the maximum number of the cached results for different parameters.
+    int cacheMaxSize = 1000;
+    // the number of rows fetched from the database in a round trip. 0 means the driver default.
+    int fetchSize;
+    // the query timeout in seconds. 0 means no timeout.
+    int timeout;
+    // the hint to the driver to cache the prepared statement.
+    boolean poolable = true;
+    // the number of statements sent to the database in a batch for the batch update.
+    int batchSize = 100;
+    // the names of the queries whose cached results are invalidated after this statement updates the database.
+    List<String> invalidates;
+
+    public QueryDefinition() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public void setSql(String sql) {
+        this.sql = sql;
+    }
+
+    public int getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public void setCacheTtl(int cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
+    public int getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public void setCacheMaxSize(int cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    public boolean isPoolable() {
+        return poolable;
+    }
+
+    public void setPoolable(boolean poolable) {
+        this.poolable = poolable;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public List<String> getInvalidates() {
+        return invalidates;
+    }
+
+    public void setInvalidates(List<String> invalidates) {
+        this.invalidates = invalidates;
+    }
+}
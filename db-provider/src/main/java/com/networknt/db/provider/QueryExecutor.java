@@ -0,0 +1,319 @@
+package com.networknt.db.provider;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Execute the named queries in the db-query.yml with the data source. The result of a query with a cacheTtl
+ * is cached in a Caffeine cache with the parameters as the key, and the database is only called when the
+ * result is not in the cache. The cached results are invalidated explicitly with the invalidate methods or
+ * after an update statement that lists the query in its invalidates.
+ *
+ * The rows are returned as maps from the column label to the value in the column order. The results in the
+ * cache are shared by the callers, so they are unmodifiable.
+ *
+ * @author Steve Hu
+ */
+public class QueryExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(QueryExecutor.class);
+
+    private final DataSource dataSource;
+    private final Map<String, NamedQuery> queries = new HashMap<>();
+
+    public QueryExecutor(DataSource dataSource, List<QueryDefinition> definitions) {
+        this.dataSource = dataSource;
+        if(definitions != null) {
+            for(QueryDefinition definition: definitions) {
+                queries.put(definition.getName(), new NamedQuery(definition));
+            }
+        }
+    }
+
+    /**
+     * Run a select query and return all the rows.
+     *
+     * @param name the query name
+     * @param params the parameters bound to the placeholders in order
+     * @return the rows
+     * @throws SQLException if the query fails
+     */
+    public List<Map<String, Object>> query(String name, Object... params) throws SQLException {
+        NamedQuery query = getQuery(name);
+        if(query.cache == null) {
+            return select(query, params);
+        }
+        List<Object> key = toKey(params);
+        List<Map<String, Object>> rows = query.cache.getIfPresent(key);
+        if(rows != null) {
+            query.metrics.recordCacheHit();
+            return rows;
+        }
+        query.metrics.recordCacheMiss();
+        AtomicReference<List<Map<String, Object>>> loaded = new AtomicReference<>();
+        try {
+            // the loading is atomic for the same key, so concurrent misses only run the query once. The result
+            // is not cached if the query is invalidated while it is loading as it might be read before the update.
+            rows = query.cache.get(key, k -> {
+                long generation = query.generation.get();
+                try {
+                    loaded.set(select(query, params));
+                } catch (SQLException e) {
+                    throw new LoadException(e);
+                }
+                return generation == query.generation.get() ? loaded.get() : null;
+            });
+        } catch (LoadException e) {
+            throw e.getCause();
+        }
+        return rows != null ? rows : loaded.get();
+    }
+
+    /**
+     * Run a select query and return the first row or null if there is no row.
+     *
+     * @param name the query name
+     * @param params the parameters bound to the placeholders in order
+     * @return the first row or null
+     * @throws SQLException if the query fails
+     */
+    public Map<String, Object> queryOne(String name, Object... params) throws SQLException {
+        List<Map<String, Object>> rows = query(name, params);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Run an insert, update or delete statement.
+     *
+     * @param name the query name
+     * @param params the parameters bound to the placeholders in order
+     * @return the number of updated rows
+     * @throws SQLException if the statement fails
+     */
+    public int update(String name, Object... params) throws SQLException {
+        NamedQuery query = getQuery(name);
+        long start = System.nanoTime();
+        boolean error = true;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = prepare(connection, query)) {
+            bind(statement, params);
+            int count = statement.executeUpdate();
+            error = false;
+            return count;
+        } finally {
+            query.metrics.recordExecution(System.nanoTime() - start, error);
+            if(!error) invalidateDependents(query);
+        }
+    }
+
+    /**
+     * Run an insert, update or delete statement for each set of parameters. The statements are sent to the
+     * database in batches of the batchSize in one transaction, and it is rolled back if any of them fails.
+     *
+     * @param name the query name
+     * @param batch a list of the parameters for each statement
+     * @return the number of updated rows for each statement
+     * @throws SQLException if any of the statements fails
+     */
+    public int[] batchUpdate(String name, List<Object[]> batch) throws SQLException {
+        NamedQuery query = getQuery(name);
+        int[] counts = new int[batch.size()];
+        long start = System.nanoTime();
+        boolean error = true;
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = prepare(connection, query)) {
+                int batchSize = Math.max(1, query.definition.getBatchSize());
+                int sent = 0;
+                for(int i = 0; i < batch.size(); i++) {
+                    bind(statement, batch.get(i));
+                    statement.addBatch();
+                    if((i + 1) % batchSize == 0 || i == batch.size() - 1) {
+                        int[] result = statement.executeBatch();
+                        System.arraycopy(result, 0, counts, sent, result.length);
+                        sent += result.length;
+                    }
+                }
+                connection.commit();
+                error = false;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } finally {
+            query.metrics.recordExecution(System.nanoTime() - start, error);
+            if(!error) invalidateDependents(query);
+        }
+        return counts;
+    }
+
+    /**
+     * Remove all the cached results of a query.
+     *
+     * @param name the query name
+     */
+    public void invalidate(String name) {
+        getQuery(name).invalidateAll();
+    }
+
+    /**
+     * Remove the cached result of a query for the parameters.
+     *
+     * @param name the query name
+     * @param params the parameters of the cached result
+     */
+    public void invalidate(String name, Object... params) {
+        NamedQuery query = getQuery(name);
+        if(query.cache != null) {
+            query.generation.incrementAndGet();
+            query.cache.invalidate(toKey(params));
+        }
+    }
+
+    /**
+     * @param name the query name
+     * @return the metrics of the query
+     */
+    public QueryMetrics getMetrics(String name) {
+        return getQuery(name).metrics;
+    }
+
+    /**
+     * @return the metrics of all the queries by name
+     */
+    public Map<String, QueryMetrics> getMetrics() {
+        Map<String, QueryMetrics> metrics = new LinkedHashMap<>();
+        for(Map.Entry<String, NamedQuery> entry: queries.entrySet()) {
+            metrics.put(entry.getKey(), entry.getValue().metrics);
+        }
+        return metrics;
+    }
+
+    private NamedQuery getQuery(String name) {
+        NamedQuery query = queries.get(name);
+        if(query == null) {
+            throw new IllegalArgumentException("Query " + name + " is not defined in " + QueryConfig.CONFIG_NAME);
+        }
+        return query;
+    }
+
+    private List<Map<String, Object>> select(NamedQuery query, Object[] params) throws SQLException {
+        long start = System.nanoTime();
+        boolean error = true;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = prepare(connection, query)) {
+            bind(statement, params);
+            List<Map<String, Object>> rows = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columns = metaData.getColumnCount();
+                while(rs.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>(columns * 2);
+                    for(int i = 1; i <= columns; i++) {
+                        row.put(metaData.getColumnLabel(i), rs.getObject(i));
+                    }
+                    rows.add(query.cache == null ? row : Collections.unmodifiableMap(row));
+                }
+            }
+            error = false;
+            return query.cache == null ? rows : Collections.unmodifiableList(rows);
+        } finally {
+            query.metrics.recordExecution(System.nanoTime() - start, error);
+        }
+    }
+
+    private static List<Object> toKey(Object[] params) {
+        return params == null ? Collections.emptyList() : Arrays.asList(params.clone());
+    }
+
+    private static PreparedStatement prepare(Connection connection, NamedQuery query) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(query.definition.getSql());
+        // hint the driver to keep the statement in its cache as the same sql is prepared for every call.
+        statement.setPoolable(query.definition.isPoolable());
+        if(query.definition.getFetchSize() > 0) statement.setFetchSize(query.definition.getFetchSize());
+        if(query.definition.getTimeout() > 0) statement.setQueryTimeout(query.definition.getTimeout());
+        return statement;
+    }
+
+    private static void bind(PreparedStatement statement, Object[] params) throws SQLException {
+        if(params == null) return;
+        for(int i = 0; i < params.length; i++) {
+            statement.setObject(i + 1, params[i]);
+        }
+    }
+
+    private void invalidateDependents(NamedQuery query) {
+        List<String> invalidates = query.definition.getInvalidates();
+        if(invalidates == null) return;
+        for(String name: invalidates) {
+            NamedQuery dependent = queries.get(name);
+            if(dependent == null) {
+                logger.warn("Query " + name + " in the invalidates of " + query.definition.getName() + " is not defined.");
+            } else {
+                dependent.invalidateAll();
+            }
+        }
+    }
+
+    private static final class NamedQuery {
+        private final QueryDefinition definition;
+        private final Cache<List<Object>, List<Map<String, Object>>> cache;
+        private final QueryMetrics metrics = new QueryMetrics();
+        // incremented on every invalidation so that a load in flight does not cache a stale result.
+        private final AtomicLong generation = new AtomicLong();
+
+        private NamedQuery(QueryDefinition definition) {
+            this.definition = definition;
+            if(definition.getCacheTtl() > 0) {
+                cache = Caffeine.newBuilder()
+                        .maximumSize(definition.getCacheMaxSize())
+                        .expireAfterWrite(definition.getCacheTtl(), TimeUnit.SECONDS)
+                        .evictionListener((key, value, cause) -> metrics.recordCacheEviction())
+                        .build();
+            } else {
+                cache = null;
+            }
+        }
+
+        private void invalidateAll() {
+            if(cache == null) return;
+            generation.incrementAndGet();
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Carry the SQLException out of the cache loader.
+     */
+    private static final class LoadException extends RuntimeException {
+        private LoadException(SQLException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized SQLException getCause() {
+            return (SQLException) super.getCause();
+        }
+    }
+}
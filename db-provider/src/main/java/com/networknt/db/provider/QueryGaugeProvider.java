@@ -0,0 +1,41 @@
+package com.networknt.db.provider;
+
+import com.networknt.utility.GaugeProvider;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Publish the QueryMetrics of the named queries in the db-query.yml to the metrics handlers so that the
+ * executions, the errors, the latency and the cache hits, misses and evictions of each query are reported with
+ * the other metrics. The query name is added as the query tag. The gauges read the QueryExecutor of the
+ * SqlDbStartupHook when the reporter runs, so they report 0 until the startup hook has created it.
+ *
+ * @author Steve Hu
+ */
+public class QueryGaugeProvider implements GaugeProvider {
+
+    @Override
+    public void register(Registrar registrar) {
+        for(QueryDefinition definition: QueryConfig.load().getQueries()) {
+            String queryName = definition.getName();
+            Map<String, String> tags = Collections.singletonMap("query", queryName);
+            register(registrar, "executions", tags, queryName, QueryMetrics::getExecutions);
+            register(registrar, "errors", tags, queryName, QueryMetrics::getErrors);
+            register(registrar, "average_millis", tags, queryName, QueryMetrics::getAverageMillis);
+            register(registrar, "max_millis", tags, queryName, QueryMetrics::getMaxMillis);
+            register(registrar, "cache_hits", tags, queryName, QueryMetrics::getCacheHits);
+            register(registrar, "cache_misses", tags, queryName, QueryMetrics::getCacheMisses);
+            register(registrar, "cache_evictions", tags, queryName, QueryMetrics::getCacheEvictions);
+        }
+    }
+
+    private static void register(Registrar registrar, String name, Map<String, String> tags, String queryName, Function<QueryMetrics, Number> value) {
+        registrar.gauge("db_query." + name, tags, () -> {
+            QueryExecutor executor = SqlDbStartupHook.queryExecutor;
+            QueryMetrics metrics = executor == null ? null : executor.getMetrics().get(queryName);
+            return metrics == null ? 0L : value.apply(metrics);
+        });
+    }
+}
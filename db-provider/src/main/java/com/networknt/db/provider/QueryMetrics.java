@@ -0,0 +1,74 @@
+package com.networknt.db.provider;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latency and cache counters of a named query. The latency only includes the executions on the
+ * database and not the results served from the cache.
+ *
+ * @author Steve Hu
+ */
+public class QueryMetrics {
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder cacheEvictions = new LongAdder();
+
+    void recordExecution(long nanos, boolean error) {
+        executions.increment();
+        if(error) errors.increment();
+        totalNanos.add(nanos);
+        long max;
+        while(nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+            // retry until the max is updated or another thread recorded a bigger value.
+        }
+    }
+
+    void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    void recordCacheMiss() {
+        cacheMisses.increment();
+    }
+
+    void recordCacheEviction() {
+        cacheEvictions.increment();
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public double getAverageMillis() {
+        long count = executions.sum();
+        return count == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / count;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * @return number of cached results removed because of the size or the ttl, not the invalidations.
+     */
+    public long getCacheEvictions() {
+        return cacheEvictions.sum();
+    }
+}
@@ -3,11 +3,14 @@ package com.networknt.db.provider;
 import com.networknt.cache.CacheManager;
 import com.networknt.config.Config;
 import com.networknt.server.StartupHookProvider;
+import com.networknt.service.SingletonServiceFactory;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.sql.DataSource;
+
 /**
  * Start up hook for the SQL provider to create the datasource and initial the cache.
  * All application/Api can use this in the service.yml to load data source in startup.
@@ -21,6 +24,8 @@ public class SqlDbStartupHook implements StartupHookProvider {
     public static HikariDataSource ds;
     // key and json cache for the dropdowns.
     public static CacheManager cacheManager;
+    // named queries in the db-query.yml with the read-through result cache.
+    public static QueryExecutor queryExecutor;
 
     @Override
     public void onStartup() {
@@ -33,7 +38,10 @@ public class SqlDbStartupHook implements StartupHookProvider {
         if(logger.isTraceEnabled()) logger.trace("jdbcUrl = " + config.getJdbcUrl());
         hikariConfig.setMaximumPoolSize(config.getMaximumPoolSize());
         ds = new HikariDataSource(hikariConfig);
+        // make the data source available to the other modules like the database health check.
+        SingletonServiceFactory.setBean(DataSource.class.getName(), ds);
         cacheManager = CacheManager.getInstance();
+        queryExecutor = new QueryExecutor(ds, QueryConfig.load().getQueries());
         logger.info("SqlDbStartupHook ends");
 
     }
@@ -0,0 +1,193 @@
+package com.networknt.db.provider;
+
+import com.networknt.utility.GaugeProvider;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class QueryExecutorTest {
+    static HikariDataSource ds;
+    QueryExecutor executor;
+
+    @BeforeClass
+    public static void setUp() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:query;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(2);
+        ds = new HikariDataSource(config);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        ds.close();
+    }
+
+    @Before
+    public void createTable() throws SQLException {
+        try (Connection connection = ds.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS country_t");
+            statement.execute("CREATE TABLE country_t (code VARCHAR(2) PRIMARY KEY, name VARCHAR(64) NOT NULL)");
+            statement.execute("INSERT INTO country_t VALUES ('CA', 'Canada')");
+        }
+        executor = new QueryExecutor(ds, QueryConfig.load().getQueries());
+    }
+
+    @Test
+    public void testLoadConfig() {
+        List<QueryDefinition> queries = QueryConfig.load().getQueries();
+        Assert.assertEquals(4, queries.size());
+        Assert.assertEquals(600, queries.get(0).getCacheTtl());
+        Assert.assertEquals(0, queries.get(1).getCacheTtl());
+        Assert.assertEquals(Arrays.asList("getCountry"), queries.get(2).getInvalidates());
+    }
+
+    @Test
+    public void testReadThroughCache() throws SQLException {
+        Map<String, Object> row = executor.queryOne("getCountry", "CA");
+        Assert.assertEquals("Canada", row.get("NAME"));
+        // a direct update is not seen until the cached result is invalidated.
+        try (Connection connection = ds.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("UPDATE country_t SET name = 'Kanada' WHERE code = 'CA'");
+        }
+        Assert.assertEquals("Canada", executor.queryOne("getCountry", "CA").get("NAME"));
+        QueryMetrics metrics = executor.getMetrics("getCountry");
+        Assert.assertEquals(1, metrics.getExecutions());
+        Assert.assertEquals(1, metrics.getCacheHits());
+        Assert.assertEquals(1, metrics.getCacheMisses());
+
+        executor.invalidate("getCountry", "CA");
+        Assert.assertEquals("Kanada", executor.queryOne("getCountry", "CA").get("NAME"));
+        Assert.assertEquals(2, metrics.getExecutions());
+        Assert.assertNull(executor.queryOne("getCountry", "US"));
+    }
+
+    @Test
+    public void testUpdateInvalidates() throws SQLException {
+        Assert.assertEquals("Canada", executor.queryOne("getCountry", "CA").get("NAME"));
+        Assert.assertEquals(1, executor.update("updateCountry", "Kanada", "CA"));
+        Assert.assertEquals("Kanada", executor.queryOne("getCountry", "CA").get("NAME"));
+        Assert.assertEquals(1, executor.getMetrics("updateCountry").getExecutions());
+    }
+
+    @Test
+    public void testBatchUpdate() throws SQLException {
+        int[] counts = executor.batchUpdate("insertCountry", Arrays.asList(
+                new Object[]{"US", "United States"},
+                new Object[]{"MX", "Mexico"},
+                new Object[]{"FR", "France"}));
+        Assert.assertEquals(3, counts.length);
+        List<Map<String, Object>> rows = executor.query("getCountries");
+        Assert.assertEquals(4, rows.size());
+        Assert.assertEquals("FR", rows.get(1).get("CODE"));
+    }
+
+    @Test
+    public void testBatchUpdateRollback() throws SQLException {
+        try {
+            executor.batchUpdate("insertCountry", Arrays.asList(
+                    new Object[]{"US", "United States"},
+                    new Object[]{"MX", "Mexico"},
+                    new Object[]{"CA", "Canada"}));
+            Assert.fail();
+        } catch (SQLException e) {
+            // duplicate primary key
+        }
+        Assert.assertEquals(1, executor.query("getCountries").size());
+        Assert.assertEquals(1, executor.getMetrics("insertCountry").getErrors());
+    }
+
+    @Test
+    public void testNullParams() throws SQLException {
+        Assert.assertEquals(1, executor.query("getCountries", (Object[]) null).size());
+        // the cached query is looked up with an empty key, and the driver reports the missing parameter.
+        try {
+            executor.query("getCountry", (Object[]) null);
+            Assert.fail();
+        } catch (SQLException e) {
+            // parameter is not set
+        }
+        Assert.assertEquals(1, executor.getMetrics("getCountry").getErrors());
+        executor.invalidate("getCountry", (Object[]) null);
+    }
+
+    @Test
+    public void testInvalidateDuringLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // block the first connection of the load until the query is invalidated.
+        DataSource blocking = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{DataSource.class}, (proxy, method, args) -> {
+            if("getConnection".equals(method.getName()) && loading.getCount() > 0) {
+                loading.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return method.invoke(ds, args);
+        });
+        QueryExecutor executor = new QueryExecutor(blocking, QueryConfig.load().getQueries());
+        ExecutorService thread = Executors.newSingleThreadExecutor();
+        try {
+            Future<Map<String, Object>> load = thread.submit(() -> executor.queryOne("getCountry", "CA"));
+            Assert.assertTrue(loading.await(5, TimeUnit.SECONDS));
+            executor.invalidate("getCountry");
+            release.countDown();
+            // the caller still gets the loaded row, but it is not cached.
+            Assert.assertEquals("Canada", load.get(5, TimeUnit.SECONDS).get("NAME"));
+            executor.queryOne("getCountry", "CA");
+            Assert.assertEquals(2, executor.getMetrics("getCountry").getExecutions());
+            executor.queryOne("getCountry", "CA");
+            Assert.assertEquals(2, executor.getMetrics("getCountry").getExecutions());
+        } finally {
+            thread.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownQuery() throws SQLException {
+        executor.query("unknown");
+    }
+
+    @Test
+    public void testGaugeProvider() throws SQLException {
+        Map<String, Supplier<Number>> gauges = new HashMap<>();
+        for(GaugeProvider provider : ServiceLoader.load(GaugeProvider.class)) {
+            provider.register((name, tags, value) -> gauges.put(name + tags, value));
+        }
+        QueryExecutor previous = SqlDbStartupHook.queryExecutor;
+        try {
+            SqlDbStartupHook.queryExecutor = null;
+            Assert.assertEquals(0L, gauges.get("db_query.executions{query=getCountry}").get());
+            SqlDbStartupHook.queryExecutor = executor;
+            executor.queryOne("getCountry", "CA");
+            executor.queryOne("getCountry", "CA");
+            Assert.assertEquals(1L, gauges.get("db_query.executions{query=getCountry}").get());
+            Assert.assertEquals(1L, gauges.get("db_query.cache_hits{query=getCountry}").get());
+            Assert.assertEquals(1L, gauges.get("db_query.cache_misses{query=getCountry}").get());
+            Assert.assertEquals(0L, gauges.get("db_query.cache_evictions{query=getCountry}").get());
+            Assert.assertEquals(0L, gauges.get("db_query.executions{query=updateCountry}").get());
+        } finally {
+            SqlDbStartupHook.queryExecutor = previous;
+        }
+    }
+}
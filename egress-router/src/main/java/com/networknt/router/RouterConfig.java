@@ -49,6 +49,14 @@ public class RouterConfig {
     private static final String PRE_RESOLVE_FQDN_2_IP = "preResolveFQDN2IP";
     private static final String METRICS_INJECTION = "metricsInjection";
     private static final String METRICS_NAME = "metricsName";
+    private static final String CIRCUIT_BREAKER_ENABLED = "circuitBreakerEnabled";
+    private static final String CIRCUIT_BREAKER_ERROR_THRESHOLD = "circuitBreakerErrorThreshold";
+    private static final String CIRCUIT_BREAKER_WINDOW_SIZE = "circuitBreakerWindowSize";
+    private static final String CIRCUIT_BREAKER_MINIMUM_NUMBER_OF_CALLS = "circuitBreakerMinimumNumberOfCalls";
+    private static final String CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD = "circuitBreakerFailureRateThreshold";
+    private static final String CIRCUIT_BREAKER_RESET_TIMEOUT = "circuitBreakerResetTimeout";
+    private static final String CIRCUIT_BREAKER_HALF_OPEN_PROBES = "circuitBreakerHalfOpenProbes";
+    private static final String CIRCUIT_BREAKER_SERVER_ERRORS = "circuitBreakerServerErrors";
 
     boolean http2Enabled;
     boolean httpsEnabled;
@@ -66,6 +74,15 @@ public class RouterConfig {
     boolean metricsInjection;
     String metricsName;
 
+    boolean circuitBreakerEnabled;
+    int circuitBreakerErrorThreshold = 5;
+    int circuitBreakerWindowSize = 20;
+    int circuitBreakerMinimumNumberOfCalls = 10;
+    int circuitBreakerFailureRateThreshold = 50;
+    int circuitBreakerResetTimeout = 30000;
+    int circuitBreakerHalfOpenProbes = 1;
+    boolean circuitBreakerServerErrors;
+
     List<String> hostWhitelist;
     List<UrlRewriteRule> urlRewriteRules;
     List<MethodRewriteRule> methodRewriteRules;
@@ -172,6 +189,38 @@ public class RouterConfig {
         if(object != null ) {
             metricsName = (String)object;
         }
+        object = getMappedConfig().get(CIRCUIT_BREAKER_ENABLED);
+        if(object != null) {
+            circuitBreakerEnabled = (Boolean)object;
+        }
+        object = getMappedConfig().get(CIRCUIT_BREAKER_ERROR_THRESHOLD);
+        if(object != null) {
+            circuitBreakerErrorThreshold = (Integer)object;
+        }
+        object = getMappedConfig().get(CIRCUIT_BREAKER_WINDOW_SIZE);
+        if(object != null) {
+            circuitBreakerWindowSize = (Integer)object;
+        }
+        object = getMappedConfig().get(CIRCUIT_BREAKER_MINIMUM_NUMBER_OF_CALLS);
+        if(object != null) {
+            circuitBreakerMinimumNumberOfCalls = (Integer)object;
+        }
+        object = getMappedConfig().get(CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD);
+        if(object != null) {
+            circuitBreakerFailureRateThreshold = (Integer)object;
+        }
+        object = getMappedConfig().get(CIRCUIT_BREAKER_RESET_TIMEOUT);
+        if(object != null) {
+            circuitBreakerResetTimeout = (Integer)object;
+        }
+        object = getMappedConfig().get(CIRCUIT_BREAKER_HALF_OPEN_PROBES);
+        if(object != null) {
+            circuitBreakerHalfOpenProbes = (Integer)object;
+        }
+        object = getMappedConfig().get(CIRCUIT_BREAKER_SERVER_ERRORS);
+        if(object != null) {
+            circuitBreakerServerErrors = (Boolean)object;
+        }
     }
 
     public Map<String, Object> getMappedConfig() {
@@ -205,6 +254,14 @@ public class RouterConfig {
     public int getMaxConnectionRetries() { return maxConnectionRetries; }
 
     public int getMaxQueueSize() { return maxQueueSize; }
+    public boolean isCircuitBreakerEnabled() { return circuitBreakerEnabled; }
+    public int getCircuitBreakerErrorThreshold() { return circuitBreakerErrorThreshold; }
+    public int getCircuitBreakerWindowSize() { return circuitBreakerWindowSize; }
+    public int getCircuitBreakerMinimumNumberOfCalls() { return circuitBreakerMinimumNumberOfCalls; }
+    public int getCircuitBreakerFailureRateThreshold() { return circuitBreakerFailureRateThreshold; }
+    public int getCircuitBreakerResetTimeout() { return circuitBreakerResetTimeout; }
+    public int getCircuitBreakerHalfOpenProbes() { return circuitBreakerHalfOpenProbes; }
+    public boolean isCircuitBreakerServerErrors() { return circuitBreakerServerErrors; }
 
     public List<String> getHostWhitelist() {
         return hostWhitelist;
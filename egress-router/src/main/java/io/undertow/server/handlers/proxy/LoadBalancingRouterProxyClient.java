@@ -20,6 +20,8 @@ package io.undertow.server.handlers.proxy;
 
 import com.networknt.client.ClientConfig;
 import com.networknt.client.ServerExchangeCarrier;
+import com.networknt.client.circuitbreaker.Circuit;
+import com.networknt.client.circuitbreaker.CircuitBreakerRegistry;
 import com.networknt.cluster.Cluster;
 import com.networknt.config.ConfigException;
 import com.networknt.httpstring.AttachmentConstants;
@@ -34,6 +36,7 @@ import io.opentracing.Tracer;
 import io.opentracing.propagation.Format;
 import io.opentracing.tag.Tags;
 import io.undertow.client.UndertowClient;
+import io.undertow.server.ExchangeCompletionListener;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.AttachmentKey;
 import io.undertow.util.AttachmentList;
@@ -64,6 +67,9 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
     private static Logger logger = LoggerFactory.getLogger(LoadBalancingRouterProxyClient.class);
     private static final RouterConfig config = RouterConfig.load();
     private static final AttachmentKey<AttachmentList<Host>> ATTEMPTED_HOSTS = AttachmentKey.createList(Host.class);
+    private static final AttachmentKey<CircuitCallback> CIRCUIT_CALLBACK = AttachmentKey.create(CircuitCallback.class);
+    // the circuits of the router are configured in router.yml, so they are kept apart from the client circuits.
+    private static final String CIRCUIT_KEY_PREFIX = "router|";
     private static Cluster cluster = SingletonServiceFactory.getBean(Cluster.class);
     private static final HostWhitelist HOST_WHITELIST = new HostWhitelist();
 
@@ -193,6 +199,9 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
 
     @Override
     public void getConnection(ProxyTarget target, HttpServerExchange exchange, final ProxyCallback<ProxyConnection> callback, long timeout, TimeUnit timeUnit) {
+        // the ProxyHandler only asks for another connection when the previous attempt has failed.
+        CircuitCallback previous = exchange.removeAttachment(CIRCUIT_CALLBACK);
+        if (previous != null) previous.onError();
         try {
             Host host = selectHost(exchange);
             if(logger.isTraceEnabled()) logger.trace("First time to selectHost and uri = {}", host == null ? null : host.getUri());
@@ -206,7 +215,16 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
                 if(logger.isTraceEnabled()) logger.trace("callback could not resolve backend.");
             } else {
                 exchange.addToAttachmentList(ATTEMPTED_HOSTS, host);
-                host.connectionPool.connect(target, exchange, callback, timeout, timeUnit, false);
+                if (host.circuit == null) {
+                    host.connectionPool.connect(target, exchange, callback, timeout, timeUnit, false);
+                } else if (!host.circuit.tryAcquirePermission()) {
+                    // another caller has taken the last probe of the half open circuit after the host is selected.
+                    callback.couldNotResolveBackend(exchange);
+                    if(logger.isTraceEnabled()) logger.trace("circuit of {} is open.", host.getUri());
+                    return;
+                } else {
+                    host.connectionPool.connect(target, exchange, new CircuitCallback(callback, host.circuit), timeout, timeUnit, false);
+                }
                 if(logger.isTraceEnabled()) logger.trace("got connection from the connection pool");
             }
         } catch (Exception ex) {
@@ -284,7 +302,8 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
         Host problem = null;
         do {
             Host selected = hostArray[host];
-            if (attempted == null || !attempted.contains(selected)) {
+            // skip the host if its circuit is open so that the other hosts of the service are used.
+            if ((attempted == null || !attempted.contains(selected)) && (selected.circuit == null || selected.circuit.isCallPermitted())) {
                 ProxyConnectionPool.AvailabilityType available = selected.connectionPool.available();
                 if (available == AVAILABLE) {
                     // inject the jaeger tracer.
@@ -346,12 +365,15 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
         final String serviceId;
         final URI uri;
         final XnioSsl ssl;
+        // null if the circuit breaker is not enabled in router.yml
+        final Circuit circuit;
 
         private Host(String serviceId, InetSocketAddress bindAddress, URI uri, XnioSsl ssl, OptionMap options) {
             this.connectionPool = new ProxyConnectionPool(this, bindAddress, uri, ssl, client, options);
             this.serviceId = serviceId;
             this.uri = uri;
             this.ssl = ssl;
+            this.circuit = config.isCircuitBreakerEnabled() ? CircuitBreakerRegistry.getCircuit(CIRCUIT_KEY_PREFIX + CircuitBreakerRegistry.key(uri), LoadBalancingRouterProxyClient::newCircuit) : null;
         }
 
         @Override
@@ -393,6 +415,72 @@ public class LoadBalancingRouterProxyClient implements ProxyClient {
         }
     }
 
+    private static Circuit newCircuit(String key) {
+        // the slow calls are not counted by the router.
+        return new Circuit(key, config.getCircuitBreakerWindowSize(), config.getCircuitBreakerMinimumNumberOfCalls(),
+                config.getCircuitBreakerFailureRateThreshold(), Long.MAX_VALUE, 0, config.getCircuitBreakerErrorThreshold(),
+                config.getCircuitBreakerResetTimeout(), config.getCircuitBreakerHalfOpenProbes());
+    }
+
+    /**
+     * Records the outcome of a proxied call in the circuit of the selected host. A failure to connect is
+     * recorded right away, otherwise the call is recorded when the exchange is completed. Its 5xx status
+     * is only counted as a failure if circuitBreakerServerErrors is enabled in router.yml.
+     */
+    private static final class CircuitCallback implements ProxyCallback<ProxyConnection>, ExchangeCompletionListener {
+        private final ProxyCallback<ProxyConnection> callback;
+        private final Circuit circuit;
+        private final long start = System.currentTimeMillis();
+
+        CircuitCallback(ProxyCallback<ProxyConnection> callback, Circuit circuit) {
+            this.callback = callback;
+            this.circuit = circuit;
+        }
+
+        void onError() {
+            circuit.onError(System.currentTimeMillis() - start);
+        }
+
+        @Override
+        public void completed(HttpServerExchange exchange, ProxyConnection result) {
+            exchange.putAttachment(CIRCUIT_CALLBACK, this);
+            exchange.addExchangeCompleteListener(this);
+            callback.completed(exchange, result);
+        }
+
+        @Override
+        public void failed(HttpServerExchange exchange) {
+            onError();
+            callback.failed(exchange);
+        }
+
+        @Override
+        public void couldNotResolveBackend(HttpServerExchange exchange) {
+            onError();
+            callback.couldNotResolveBackend(exchange);
+        }
+
+        @Override
+        public void queuedRequestFailed(HttpServerExchange exchange) {
+            onError();
+            callback.queuedRequestFailed(exchange);
+        }
+
+        @Override
+        public void exchangeEvent(HttpServerExchange exchange, NextListener nextListener) {
+            // only the last attempt is recorded, the attempts before it are recorded when the retry starts.
+            if (exchange.removeAttachment(CIRCUIT_CALLBACK) == this) {
+                long duration = System.currentTimeMillis() - start;
+                if (config.isCircuitBreakerServerErrors() && exchange.getStatusCode() >= 500) {
+                    circuit.onError(duration);
+                } else {
+                    circuit.onSuccess(duration);
+                }
+            }
+            nextListener.proceed();
+        }
+    }
+
     public interface HostSelector {
 
         int selectHost(Host[] availableHosts);
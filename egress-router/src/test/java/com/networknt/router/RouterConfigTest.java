@@ -44,6 +44,14 @@ public class RouterConfigTest {
         Assert.assertEquals(routerConfig.getMaxQueueSize(), 0);
     }
 
+    @Test
+    public void testCircuitBreakerDisabledByDefault() {
+        Assert.assertFalse(routerConfig.isCircuitBreakerEnabled());
+        Assert.assertFalse(routerConfig.isCircuitBreakerServerErrors());
+        Assert.assertEquals(5, routerConfig.getCircuitBreakerErrorThreshold());
+        Assert.assertEquals(20, routerConfig.getCircuitBreakerWindowSize());
+    }
+
     @Test
     public void testConfigList() {
         Assert.assertNotNull(routerConfig.getHostWhitelist());
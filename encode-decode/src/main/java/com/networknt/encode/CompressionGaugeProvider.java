@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.encode;
+
+import com.networknt.utility.GaugeProvider;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Publish the CompressionMetrics of the ResponseEncodeHandler to the metrics handlers so that the compressed and
+ * skipped responses, the bytes before and after the compression, the ratio and the time spent in the compression
+ * are reported with the other metrics. The counters are cumulative since the server is started.
+ *
+ * @author Steve Hu
+ */
+public class CompressionGaugeProvider implements GaugeProvider {
+
+    @Override
+    public void register(Registrar registrar) {
+        CompressionMetrics metrics = ResponseEncodeHandler.getMetrics();
+        Map<String, String> tags = Collections.emptyMap();
+        registrar.gauge("compression.compressed_count", tags, metrics::getCompressedCount);
+        registrar.gauge("compression.skipped_count", tags, metrics::getSkippedCount);
+        registrar.gauge("compression.bytes_in", tags, metrics::getBytesIn);
+        registrar.gauge("compression.bytes_out", tags, metrics::getBytesOut);
+        registrar.gauge("compression.ratio", tags, metrics::getCompressionRatio);
+        registrar.gauge("compression.time_millis", tags, metrics::getCompressTimeMillis);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.encode;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters of the response compression. The bytes are taken from the Deflater when it is returned to
+ * the pool, and the time is the time spent in the write and flush calls of the compressing conduit. The
+ * counters are cumulative since the server is started.
+ *
+ * @author Steve Hu
+ */
+public class CompressionMetrics {
+    private final LongAdder compressed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+
+    void recordSkipped() {
+        skipped.increment();
+    }
+
+    void recordCompressed(long in, long out) {
+        compressed.increment();
+        bytesIn.add(in);
+        bytesOut.add(out);
+    }
+
+    void recordTime(long nanos) {
+        compressNanos.add(nanos);
+    }
+
+    /**
+     * @return number of responses that are compressed.
+     */
+    public long getCompressedCount() {
+        return compressed.sum();
+    }
+
+    /**
+     * @return number of responses that are not compressed because of the size or the content type.
+     */
+    public long getSkippedCount() {
+        return skipped.sum();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * @return the compressed size divided by the original size. 1.0 if nothing is compressed.
+     */
+    public double getCompressionRatio() {
+        long in = bytesIn.sum();
+        return in == 0 ? 1.0 : (double) bytesOut.sum() / in;
+    }
+
+    public long getCompressTimeMillis() {
+        return compressNanos.sum() / 1_000_000L;
+    }
+}
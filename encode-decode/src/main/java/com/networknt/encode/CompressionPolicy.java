@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.encode;
+
+import io.undertow.predicate.Predicate;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.AttachmentKey;
+import io.undertow.util.Headers;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The predicate that decides if a response is worth compressing. It is evaluated when the response is
+ * committed, so the Content-Length and Content-Type headers set by the handlers can be checked.
+ *
+ * A response is not compressed if the Content-Length is smaller than the minimumSize or the Content-Type
+ * doesn't start with any of the mimeTypes. A response without Content-Length is streamed and is compressed.
+ * A response without Content-Type is compressed as before the policy is added. If the mimeTypes is empty,
+ * all the content types are compressed.
+ *
+ * @author Steve Hu
+ */
+public class CompressionPolicy implements Predicate {
+    private static final AttachmentKey<Boolean> DECISION = AttachmentKey.create(Boolean.class);
+
+    private final long minimumSize;
+    private final String[] mimeTypes;
+    private final CompressionMetrics metrics;
+
+    public CompressionPolicy(long minimumSize, List<String> mimeTypes, CompressionMetrics metrics) {
+        this.minimumSize = minimumSize;
+        this.metrics = metrics;
+        if(mimeTypes == null) {
+            this.mimeTypes = new String[0];
+        } else {
+            this.mimeTypes = new String[mimeTypes.size()];
+            for(int i = 0; i < mimeTypes.size(); i++) {
+                this.mimeTypes[i] = mimeTypes.get(i).trim().toLowerCase(Locale.ROOT);
+            }
+        }
+    }
+
+    @Override
+    public boolean resolve(HttpServerExchange exchange) {
+        // the predicate is called once for each allowed encoding, so the decision is cached in the exchange.
+        Boolean decision = exchange.getAttachment(DECISION);
+        if(decision == null) {
+            decision = isCompressible(exchange);
+            exchange.putAttachment(DECISION, decision);
+            if(!decision && metrics != null) metrics.recordSkipped();
+        }
+        return decision;
+    }
+
+    boolean isCompressible(HttpServerExchange exchange) {
+        String length = exchange.getResponseHeaders().getFirst(Headers.CONTENT_LENGTH);
+        if(length != null) {
+            try {
+                if(Long.parseLong(length) < minimumSize) return false;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        String contentType = exchange.getResponseHeaders().getFirst(Headers.CONTENT_TYPE);
+        if(contentType == null || mimeTypes.length == 0) return true;
+        for(String mimeType : mimeTypes) {
+            if(contentType.regionMatches(true, 0, mimeType, 0, mimeType.length())) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.encode;
+
+import io.undertow.util.ObjectPool;
+import io.undertow.util.PooledObject;
+
+import java.util.ArrayDeque;
+import java.util.zip.Deflater;
+
+/**
+ * A pool of Deflater instances for each IO thread. Creating a Deflater allocates the native zlib state, so
+ * the instances are reset and reused instead of being created for each response. As the responses are
+ * written by the IO threads, a thread local deque doesn't need any locking. When a Deflater is returned, the
+ * input and output bytes are recorded in the metrics before it is reset.
+ *
+ * @author Steve Hu
+ */
+public class DeflaterPool implements ObjectPool<Deflater> {
+    private final int level;
+    private final int maxPerThread;
+    private final CompressionMetrics metrics;
+    private final ThreadLocal<ArrayDeque<Deflater>> pool = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public DeflaterPool(int level, int maxPerThread, CompressionMetrics metrics) {
+        this.level = level;
+        this.maxPerThread = maxPerThread;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public PooledObject<Deflater> allocate() {
+        Deflater deflater = pool.get().pollFirst();
+        if(deflater == null) {
+            // the gzip header and trailer are written by the conduit, so the deflater is in nowrap mode.
+            deflater = new Deflater(level, true);
+        }
+        return new PooledDeflater(deflater);
+    }
+
+    int getIdleCount() {
+        return pool.get().size();
+    }
+
+    private final class PooledDeflater implements PooledObject<Deflater> {
+        private Deflater deflater;
+
+        private PooledDeflater(Deflater deflater) {
+            this.deflater = deflater;
+        }
+
+        @Override
+        public Deflater getObject() {
+            return deflater;
+        }
+
+        @Override
+        public void close() {
+            Deflater d = deflater;
+            if(d == null) return;
+            deflater = null;
+            if(metrics != null && d.getBytesRead() > 0) metrics.recordCompressed(d.getBytesRead(), d.getBytesWritten());
+            ArrayDeque<Deflater> deque = pool.get();
+            if(deque.size() < maxPerThread) {
+                d.reset();
+                deque.offerFirst(d);
+            } else {
+                d.end();
+            }
+        }
+    }
+}
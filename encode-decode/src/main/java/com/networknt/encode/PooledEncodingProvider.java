@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.encode;
+
+import io.undertow.conduits.DeflatingStreamSinkConduit;
+import io.undertow.conduits.GzipStreamSinkConduit;
+import io.undertow.server.ConduitWrapper;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.encoding.ContentEncodingProvider;
+import io.undertow.util.ConduitFactory;
+import org.xnio.conduits.StreamSinkConduit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The gzip or deflate encoding provider that takes the Deflater from the DeflaterPool and records the time
+ * spent in the compressing conduit to the CompressionMetrics.
+ *
+ * @author Steve Hu
+ */
+public class PooledEncodingProvider implements ContentEncodingProvider {
+    private final boolean gzip;
+    private final DeflaterPool pool;
+    private final CompressionMetrics metrics;
+
+    public PooledEncodingProvider(boolean gzip, DeflaterPool pool, CompressionMetrics metrics) {
+        this.gzip = gzip;
+        this.pool = pool;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ConduitWrapper<StreamSinkConduit> getResponseWrapper() {
+        return new ConduitWrapper<StreamSinkConduit>() {
+            @Override
+            public StreamSinkConduit wrap(ConduitFactory<StreamSinkConduit> factory, HttpServerExchange exchange) {
+                return gzip ? new TimedGzipConduit(factory, exchange, pool, metrics) : new TimedDeflatingConduit(factory, exchange, pool, metrics);
+            }
+        };
+    }
+
+    static class TimedGzipConduit extends GzipStreamSinkConduit {
+        private final CompressionMetrics metrics;
+
+        TimedGzipConduit(ConduitFactory<StreamSinkConduit> factory, HttpServerExchange exchange, DeflaterPool pool, CompressionMetrics metrics) {
+            super(factory, exchange, pool);
+            this.metrics = metrics;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.write(src);
+            } finally {
+                metrics.recordTime(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public boolean flush() throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.flush();
+            } finally {
+                metrics.recordTime(System.nanoTime() - start);
+            }
+        }
+    }
+
+    static class TimedDeflatingConduit extends DeflatingStreamSinkConduit {
+        private final CompressionMetrics metrics;
+
+        TimedDeflatingConduit(ConduitFactory<StreamSinkConduit> factory, HttpServerExchange exchange, DeflaterPool pool, CompressionMetrics metrics) {
+            super(factory, exchange, pool);
+            this.metrics = metrics;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.write(src);
+            } finally {
+                metrics.recordTime(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public boolean flush() throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.flush();
+            } finally {
+                metrics.recordTime(System.nanoTime() - start);
+            }
+        }
+    }
+}
@@ -17,12 +17,17 @@
 package com.networknt.encode;
 
 import java.util.List;
+import java.util.zip.Deflater;
 
 public class ResponseEncodeConfig {
     public static final String CONFIG_NAME = "response-encode";
 
     boolean enabled;
     List<String> encoders;
+    int minimumSize = 1024;
+    int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    List<String> mimeTypes;
+    int deflaterPoolSize = 16;
 
     public ResponseEncodeConfig() {
     }
@@ -42,4 +47,36 @@ public class ResponseEncodeConfig {
     public void setEncoders(List<String> encoders) {
         this.encoders = encoders;
     }
+
+    public int getMinimumSize() {
+        return minimumSize;
+    }
+
+    public void setMinimumSize(int minimumSize) {
+        this.minimumSize = minimumSize;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public List<String> getMimeTypes() {
+        return mimeTypes;
+    }
+
+    public void setMimeTypes(List<String> mimeTypes) {
+        this.mimeTypes = mimeTypes;
+    }
+
+    public int getDeflaterPoolSize() {
+        return deflaterPoolSize;
+    }
+
+    public void setDeflaterPoolSize(int deflaterPoolSize) {
+        this.deflaterPoolSize = deflaterPoolSize;
+    }
 }
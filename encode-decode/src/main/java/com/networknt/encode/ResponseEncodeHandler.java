@@ -26,8 +26,6 @@ import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.encoding.AllowedContentEncodings;
 import io.undertow.server.handlers.encoding.ContentEncodingRepository;
-import io.undertow.server.handlers.encoding.DeflateEncodingProvider;
-import io.undertow.server.handlers.encoding.GzipEncodingProvider;
 
 import java.util.List;
 
@@ -35,6 +33,9 @@ import java.util.List;
  * This is a middleware handler that you can wire in to the response chain to gzip large content
  * body in order to speed up the delivery and reduce the bandwidth usage.
  *
+ * Only the responses that pass the CompressionPolicy with the minimumSize and mimeTypes are compressed,
+ * and the Deflater instances are pooled for each IO thread.
+ *
  * @author Steve Hu
  */
 public class ResponseEncodeHandler implements MiddlewareHandler {
@@ -42,6 +43,7 @@ public class ResponseEncodeHandler implements MiddlewareHandler {
         (ResponseEncodeConfig)Config.getInstance().getJsonObjectConfig(ResponseEncodeConfig.CONFIG_NAME, ResponseEncodeConfig.class);
 
     static final String NO_ENCODING_HANDLER = "ERR10050";
+    private static final CompressionMetrics metrics = new CompressionMetrics();
     private final ContentEncodingRepository contentEncodingRepository;
 
     private volatile HttpHandler next;
@@ -49,19 +51,28 @@ public class ResponseEncodeHandler implements MiddlewareHandler {
 
     public ResponseEncodeHandler() {
         contentEncodingRepository = new ContentEncodingRepository();
+        CompressionPolicy policy = new CompressionPolicy(config.getMinimumSize(), config.getMimeTypes(), metrics);
+        DeflaterPool pool = new DeflaterPool(config.getCompressionLevel(), config.getDeflaterPoolSize(), metrics);
         List<String> encoders = config.getEncoders();
         for(int i = 0; i < encoders.size(); i++) {
             String encoder = encoders.get(i);
             if(Constants.ENCODE_GZIP.equals(encoder)) {
-                contentEncodingRepository.addEncodingHandler(encoder, new GzipEncodingProvider(), 100);
+                contentEncodingRepository.addEncodingHandler(encoder, new PooledEncodingProvider(true, pool, metrics), 100, policy);
             } else if(Constants.ENCODE_DEFLATE.equals(encoder)) {
-                contentEncodingRepository.addEncodingHandler(encoder, new DeflateEncodingProvider(), 10);
+                contentEncodingRepository.addEncodingHandler(encoder, new PooledEncodingProvider(false, pool, metrics), 10, policy);
             } else {
                 throw new RuntimeException("Invalid encoder " + encoder + " for ResponseEncodeHandler.");
             }
         }
     }
 
+    /**
+     * @return the compression ratio, time and the number of compressed and skipped responses.
+     */
+    public static CompressionMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public HttpHandler getNext() {
         return next;
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.encode;
+
+import com.networknt.utility.GaugeProvider;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.PooledObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+
+public class CompressionPolicyTest {
+    private static HttpServerExchange exchange(String contentLength, String contentType) {
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        if(contentLength != null) exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, contentLength);
+        if(contentType != null) exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, contentType);
+        return exchange;
+    }
+
+    @Test
+    public void testPolicy() {
+        CompressionMetrics metrics = new CompressionMetrics();
+        CompressionPolicy policy = new CompressionPolicy(1024, Arrays.asList("text/", "application/json"), metrics);
+        Assert.assertFalse(policy.resolve(exchange("100", "application/json")));
+        Assert.assertTrue(policy.resolve(exchange("2048", "application/json; charset=UTF-8")));
+        Assert.assertTrue(policy.resolve(exchange("2048", "TEXT/HTML")));
+        Assert.assertFalse(policy.resolve(exchange("2048", "image/png")));
+        // streamed response without Content-Length and a response without Content-Type are compressed.
+        Assert.assertTrue(policy.resolve(exchange(null, "application/json")));
+        Assert.assertTrue(policy.resolve(exchange("2048", null)));
+        Assert.assertEquals(2, metrics.getSkippedCount());
+    }
+
+    @Test
+    public void testDecisionCached() {
+        CompressionMetrics metrics = new CompressionMetrics();
+        CompressionPolicy policy = new CompressionPolicy(1024, null, metrics);
+        HttpServerExchange exchange = exchange("10", null);
+        Assert.assertFalse(policy.resolve(exchange));
+        Assert.assertFalse(policy.resolve(exchange));
+        Assert.assertEquals(1, metrics.getSkippedCount());
+    }
+
+    @Test
+    public void testDeflaterPool() {
+        CompressionMetrics metrics = new CompressionMetrics();
+        DeflaterPool pool = new DeflaterPool(Deflater.BEST_SPEED, 1, metrics);
+        PooledObject<Deflater> first = pool.allocate();
+        Deflater deflater = first.getObject();
+        deflater.setInput(new byte[1000]);
+        deflater.finish();
+        byte[] out = new byte[1000];
+        while(!deflater.finished()) deflater.deflate(out);
+        first.close();
+        first.close();
+        Assert.assertEquals(1, pool.getIdleCount());
+        Assert.assertEquals(1, metrics.getCompressedCount());
+        Assert.assertEquals(1000, metrics.getBytesIn());
+        Assert.assertTrue(metrics.getCompressionRatio() < 0.1);
+        PooledObject<Deflater> second = pool.allocate();
+        Assert.assertSame(deflater, second.getObject());
+        Assert.assertEquals(0, second.getObject().getBytesRead());
+        second.close();
+    }
+
+    @Test
+    public void testGaugeProvider() {
+        Map<String, Supplier<Number>> gauges = new HashMap<>();
+        for(GaugeProvider provider : ServiceLoader.load(GaugeProvider.class)) {
+            provider.register((name, tags, value) -> gauges.put(name, value));
+        }
+        CompressionMetrics metrics = ResponseEncodeHandler.getMetrics();
+        long compressed = metrics.getCompressedCount();
+        metrics.recordCompressed(1000, 100);
+        Assert.assertEquals(compressed + 1, gauges.get("compression.compressed_count").get());
+        Assert.assertEquals(metrics.getBytesIn(), gauges.get("compression.bytes_in").get());
+        Assert.assertEquals(metrics.getCompressionRatio(), gauges.get("compression.ratio").get());
+    }
+}
@@ -32,8 +32,7 @@ import com.networknt.handler.config.MethodRewriteRule;
 import com.networknt.handler.config.QueryHeaderRewriteRule;
 import com.networknt.handler.config.UrlRewriteRule;
 import com.networknt.httpstring.HttpStringConstants;
-import com.networknt.utility.CollectionUtils;
-import com.networknt.utility.StringUtils;
+import com.networknt.utility.RetryBudget;
 import io.undertow.UndertowLogger;
 import io.undertow.UndertowMessages;
 import io.undertow.server.*;
@@ -84,6 +83,12 @@ public class ProxyHandler implements HttpHandler {
 
     private static final int DEFAULT_MAX_RETRY_ATTEMPTS = Integer.getInteger("maxRetries", 1);
     private static final int DEFAULT_MAX_QUEUE_SIZE = Integer.getInteger("maxQueueSize", 0);
+    private static final int DEFAULT_RETRY_BUDGET_PERCENT = 10;
+    private static final int DEFAULT_RETRY_BUDGET_MIN_PER_SECOND = 10;
+    /**
+     * The retry budget key of the requests without the service_id header.
+     */
+    private static final String DEFAULT_BUDGET_TARGET = "proxy";
 
     private static final Logger LOG = LoggerFactory.getLogger(ProxyHandler.class);
 
@@ -94,8 +99,7 @@ public class ProxyHandler implements HttpHandler {
     private static final AttachmentKey<XnioExecutor.Key> TIMEOUT_KEY = AttachmentKey.create(XnioExecutor.Key.class);
 
     private final ProxyClient proxyClient;
-    private int maxRequestTime;
-    private final Map<String, Integer> pathPrefixMaxRequestTime;
+    private final int maxRequestTime;
 
     /**
      * Map of additional headers to add to the request.
@@ -109,27 +113,28 @@ public class ProxyHandler implements HttpHandler {
     private volatile int maxConnectionRetries;
     private volatile int maxQueueSize;
     private volatile List<UrlRewriteRule> urlRewriteRules;
-    private volatile List<MethodRewriteRule> methodRewriteRules;
+    private final int retryBudgetPercent;
+    private final int retryBudgetMinPerSecond;
 
-    private volatile Map<String, List<QueryHeaderRewriteRule>> queryParamRewriteRules;
-
-    private volatile Map<String, List<QueryHeaderRewriteRule>> headerRewriteRules;
+    /**
+     * The timeout and rewrite rules compiled per endpoint pattern when the handler is built.
+     */
+    private final ProxyPlan.Index planIndex;
 
     private final Predicate idempotentRequestPredicate;
 
     private ProxyHandler(Builder builder) {
         this.proxyClient = builder.proxyClient;
         this.maxRequestTime = builder.maxRequestTime;
-        this.pathPrefixMaxRequestTime = builder.pathPrefixMaxRequestTime;
         this.next = builder.next;
         this.rewriteHostHeader = builder.rewriteHostHeader;
         this.reuseXForwarded = builder.reuseXForwarded;
         this.maxConnectionRetries = builder.maxConnectionRetries;
         this.maxQueueSize = builder.maxQueueSize;
         this.urlRewriteRules = builder.urlRewriteRules;
-        this.methodRewriteRules = builder.methodRewriteRules;
-        this.queryParamRewriteRules = builder.queryParamRewriteRules;
-        this.headerRewriteRules = builder.headerRewriteRules;
+        this.retryBudgetPercent = builder.retryBudgetPercent;
+        this.retryBudgetMinPerSecond = builder.retryBudgetMinPerSecond;
+        this.planIndex = ProxyPlan.compile(builder.pathPrefixMaxRequestTime, builder.headerRewriteRules, builder.queryParamRewriteRules, builder.methodRewriteRules);
         this.idempotentRequestPredicate = builder.idempotentRequestPredicate;
         for (Map.Entry<HttpString, ExchangeAttribute> e : builder.requestHeaders.entrySet()) {
             requestHeaders.put(e.getKey(), e.getValue());
@@ -154,31 +159,30 @@ public class ProxyHandler implements HttpHandler {
             exchange.endExchange();
             return;
         }
-        // check the path prefix for the timeout and then fall back to maxRequestTime.
-        String reqPath = exchange.getRequestPath();
-        long timeout = maxRequestTime > 0 ? System.currentTimeMillis() + maxRequestTime : 0;
-        if (pathPrefixMaxRequestTime != null) {
-            for (Map.Entry<String, Integer> entry : pathPrefixMaxRequestTime.entrySet()) {
-                String key = entry.getKey();
-                if (StringUtils.matchPathToPattern(reqPath, key)) {
-                    maxRequestTime = entry.getValue();
-                    timeout = System.currentTimeMillis() + maxRequestTime;
-                    if (LOG.isTraceEnabled())
-                        LOG.trace("Overwritten maxRequestTime {} and timeout {}.", maxRequestTime, timeout);
-                    break;
-                }
-            }
-        }
+        // resolve the plan of the endpoint once, it has the path prefix timeout that overwrites the maxRequestTime.
+        final ProxyPlan plan = planIndex.resolve(exchange.getRequestPath());
+        final int requestTime = plan.hasMaxRequestTime() ? plan.getMaxRequestTime() : maxRequestTime;
+        final long timeout = requestTime > 0 ? System.currentTimeMillis() + requestTime : 0;
+        if (plan.hasMaxRequestTime() && LOG.isTraceEnabled())
+            LOG.trace("Overwritten maxRequestTime {} and timeout {}.", requestTime, timeout);
 
         int maxRetries = maxConnectionRetries;
 
         if (target instanceof ProxyClient.MaxRetriesProxyTarget)
             maxRetries = Math.max(maxRetries, ((ProxyClient.MaxRetriesProxyTarget) target).getMaxRetries());
 
-        final ProxyClientHandler clientHandler = new ProxyClientHandler(exchange, target, timeout, maxRetries, idempotentRequestPredicate);
+        // the retries to a backend are limited to a percentage of its requests so that they won't overload it in an outage.
+        RetryBudget budget = null;
+        if (maxRetries > 0 && retryBudgetPercent >= 0) {
+            final String serviceId = exchange.getRequestHeaders().getFirst(HttpStringConstants.SERVICE_ID);
+            budget = RetryBudget.getBudget(serviceId == null ? DEFAULT_BUDGET_TARGET : serviceId, retryBudgetPercent, retryBudgetMinPerSecond);
+            budget.onRequest();
+        }
+
+        final ProxyClientHandler clientHandler = new ProxyClientHandler(exchange, target, timeout, maxRetries, idempotentRequestPredicate, plan, budget);
 
         if (timeout > 0) {
-            final XnioExecutor.Key key = WorkerUtils.executeAfter(exchange.getIoThread(), () -> clientHandler.cancel(exchange), maxRequestTime, TimeUnit.MILLISECONDS);
+            final XnioExecutor.Key key = WorkerUtils.executeAfter(exchange.getIoThread(), () -> clientHandler.cancel(exchange), requestTime, TimeUnit.MILLISECONDS);
             exchange.putAttachment(TIMEOUT_KEY, key);
             exchange.addExchangeCompleteListener((exchange1, nextListener) -> {
                 key.remove();
@@ -265,14 +269,18 @@ public class ProxyHandler implements HttpHandler {
         private final int maxRetryAttempts;
         private final HttpServerExchange exchange;
         private final Predicate idempotentPredicate;
+        private final ProxyPlan plan;
+        private final RetryBudget budget;
         private ProxyClient.ProxyTarget target;
 
-        ProxyClientHandler(HttpServerExchange exchange, ProxyClient.ProxyTarget target, long timeout, int maxRetryAttempts, Predicate idempotentPredicate) {
+        ProxyClientHandler(HttpServerExchange exchange, ProxyClient.ProxyTarget target, long timeout, int maxRetryAttempts, Predicate idempotentPredicate, ProxyPlan plan, RetryBudget budget) {
             this.exchange = exchange;
             this.timeout = timeout;
             this.maxRetryAttempts = maxRetryAttempts;
             this.target = target;
             this.idempotentPredicate = idempotentPredicate;
+            this.plan = plan;
+            this.budget = budget;
         }
 
         @Override
@@ -283,7 +291,7 @@ public class ProxyHandler implements HttpHandler {
         @Override
         public void completed(final HttpServerExchange exchange, final ProxyConnection connection) {
             exchange.putAttachment(CONNECTION, connection);
-            exchange.dispatch(SameThreadExecutor.INSTANCE, new ProxyAction(connection, exchange, requestHeaders, rewriteHostHeader, reuseXForwarded, exchange.isRequestComplete() ? this : null, idempotentPredicate, urlRewriteRules, methodRewriteRules, queryParamRewriteRules, headerRewriteRules));
+            exchange.dispatch(SameThreadExecutor.INSTANCE, new ProxyAction(connection, exchange, requestHeaders, rewriteHostHeader, reuseXForwarded, exchange.isRequestComplete() ? this : null, idempotentPredicate, urlRewriteRules, planIndex, plan));
         }
 
         @Override
@@ -302,7 +310,21 @@ public class ProxyHandler implements HttpHandler {
                         LOG.trace("Current time = " + time + " passes timeout " + this.timeout);
 
                     cancel(exchange);
+                } else if (this.budget != null && !this.budget.tryRetry()) {
+
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Retry budget of " + this.budget.getTarget() + " is used up.");
+
+                    couldNotResolveBackend(exchange);
                 } else {
+                    if (this.budget != null && this.tries == 1) {
+                        // count the retried requests that end up with a response from the backend.
+                        final RetryBudget retryBudget = this.budget;
+                        exchange.addExchangeCompleteListener((exchange1, nextListener) -> {
+                            if (exchange1.getStatusCode() < StatusCodes.INTERNAL_SERVER_ERROR) retryBudget.onRetryWin();
+                            nextListener.proceed();
+                        });
+                    }
                     this.target = proxyClient.findTarget(exchange);
 
                     if (LOG.isTraceEnabled())
@@ -381,14 +403,13 @@ public class ProxyHandler implements HttpHandler {
         private final ProxyClientHandler proxyClientHandler;
         private final Predicate idempotentPredicate;
         private final List<UrlRewriteRule> urlRewriteRules;
-        private final List<MethodRewriteRule> methodRewriteRules;
-        private final Map<String, List<QueryHeaderRewriteRule>> queryParamRewriteRules;
-        private final Map<String, List<QueryHeaderRewriteRule>> headerRewriteRules;
+        private final ProxyPlan.Index planIndex;
+        /* plan of the request path, it is used for the response headers and the request if the target is the same path. */
+        private final ProxyPlan plan;
 
         ProxyAction(final ProxyConnection clientConnection, final HttpServerExchange exchange, Map<HttpString, ExchangeAttribute> requestHeaders,
                     boolean rewriteHostHeader, boolean reuseXForwarded, ProxyClientHandler proxyClientHandler, Predicate idempotentPredicate,
-                    List<UrlRewriteRule> urlRewriteRules, List<MethodRewriteRule> methodRewriteRules,
-                    Map<String, List<QueryHeaderRewriteRule>> queryParamRewriteRules, Map<String, List<QueryHeaderRewriteRule>> headerRewriteRules) {
+                    List<UrlRewriteRule> urlRewriteRules, ProxyPlan.Index planIndex, ProxyPlan plan) {
             this.clientConnection = clientConnection;
             this.exchange = exchange;
             this.requestHeaders = requestHeaders;
@@ -397,9 +418,8 @@ public class ProxyHandler implements HttpHandler {
             this.proxyClientHandler = proxyClientHandler;
             this.idempotentPredicate = idempotentPredicate;
             this.urlRewriteRules = urlRewriteRules;
-            this.methodRewriteRules = methodRewriteRules;
-            this.queryParamRewriteRules = queryParamRewriteRules;
-            this.headerRewriteRules = headerRewriteRules;
+            this.planIndex = planIndex;
+            this.plan = plan != null ? plan : planIndex.resolve(exchange.getRequestPath());
         }
 
         @Override
@@ -408,10 +428,13 @@ public class ProxyHandler implements HttpHandler {
 
             final var targetURI = this.createProxyRequestTargetURI();
 
-            final var path = this.createProxyRequestURI(targetURI);
+            /* the target is the request path in most cases, so the plan resolved for the timeout is reused. */
+            final var targetPlan = targetURI.equals(this.exchange.getRequestPath()) ? this.plan : this.planIndex.resolve(targetURI);
+
+            final var path = this.createProxyRequestURI(targetURI, targetPlan);
             request.setPath(path);
 
-            final var method = this.createProxyRequestMethod(targetURI);
+            final var method = this.createProxyRequestMethod(targetURI, targetPlan);
             request.setMethod(method);
 
             final var remoteHost = this.createProxyRequestRemoteHost(request);
@@ -420,7 +443,7 @@ public class ProxyHandler implements HttpHandler {
             if (LOG.isTraceEnabled())
                 LOG.trace("targetURI = " + targetURI + " requestURI = " + path + " method = " + method);
 
-            this.rewriteHeaders(request, targetURI, remoteHost);
+            this.rewriteHeaders(request, targetPlan, remoteHost);
 
             /* Set the protocol header and attachment */
             this.attachProtocol(request);
@@ -466,9 +489,10 @@ public class ProxyHandler implements HttpHandler {
          * Builds a complete URI string for our proxy request.
          *
          * @param target - targetURI
+         * @param targetPlan - plan of the targetURI
          * @return - requestURI string
          */
-        private String createProxyRequestURI(String target) {
+        private String createProxyRequestURI(String target, ProxyPlan targetPlan) {
             var uriBuilder = new StringBuilder();
             var hasTargetPath = !this.clientConnection.getTargetPath().isEmpty();
             var hasEmptyTargetString = !this.clientConnection.getTargetPath().equals("/") || target.isEmpty();
@@ -477,7 +501,7 @@ public class ProxyHandler implements HttpHandler {
                 uriBuilder.append(this.clientConnection.getTargetPath());
 
             this.rewriteUrl(uriBuilder, target);
-            this.rewriteQueryParams(uriBuilder, target);
+            this.rewriteQueryParams(uriBuilder, targetPlan);
 
             return uriBuilder.toString();
         }
@@ -513,14 +537,14 @@ public class ProxyHandler implements HttpHandler {
          * Rewrites the headers for our proxy request.
          *
          * @param r          - client request
-         * @param target     - targetURI
+         * @param targetPlan - plan of the targetURI
          * @param remoteHost - remoteHost
          */
-        private void rewriteHeaders(ClientRequest r, String target, String remoteHost) {
+        private void rewriteHeaders(ClientRequest r, ProxyPlan targetPlan, String remoteHost) {
             final var inboundRequestHeaders = this.exchange.getRequestHeaders();
             final var outboundRequestHeaders = r.getRequestHeaders();
 
-            copyHeaders(outboundRequestHeaders, inboundRequestHeaders, (List) CollectionUtils.matchEndpointKey(target, (Map) this.headerRewriteRules));
+            copyHeaders(outboundRequestHeaders, inboundRequestHeaders, targetPlan.getHeaderRules());
 
             /* even if client is non-persistent, we don't close connection to backend. */
             if (!this.exchange.isPersistent())
@@ -582,22 +606,22 @@ public class ProxyHandler implements HttpHandler {
          * We rewrite the method if there is a rule defined.
          *
          * @param target - targetURI
+         * @param targetPlan - plan of the targetURI
          * @return - HttpString of the method for our proxy request.
          */
-        private HttpString createProxyRequestMethod(String target) {
+        private HttpString createProxyRequestMethod(String target, ProxyPlan targetPlan) {
 
             // handler the method rewrite here.
             var m = this.exchange.getRequestMethod();
 
-            if (this.methodRewriteRules != null && this.methodRewriteRules.size() > 0)
-                for (var rule : this.methodRewriteRules)
-                    if (StringUtils.matchPathToPattern(target, rule.getRequestPath()) && m.toString().equals(rule.getSourceMethod())) {
+            if (targetPlan.hasMethodRewrite()) {
+                var rewritten = targetPlan.rewriteMethod(m);
 
-                        if (LOG.isDebugEnabled())
-                            LOG.debug("Rewrite HTTP method from {} to {} with path {} and pathPattern {}", rule.getSourceMethod(), rule.getTargetMethod(), target, rule.getRequestPath());
+                if (rewritten != m && LOG.isDebugEnabled())
+                    LOG.debug("Rewrite HTTP method from {} to {} with path {}", m, rewritten, target);
 
-                        m = new HttpString(rule.getTargetMethod());
-                    }
+                m = rewritten;
+            }
 
             return m;
         }
@@ -633,54 +657,50 @@ public class ProxyHandler implements HttpHandler {
          * Rewrites query parameters from our proxy request based on defined rules.
          *
          * @param urlBuilder - new url
-         * @param target     - targetURI
+         * @param targetPlan - plan of the targetURI
          */
-        private void rewriteQueryParams(StringBuilder urlBuilder, String target) {
-
-            if (this.queryParamRewriteRules != null && this.queryParamRewriteRules.size() > 0) {
-                var rules = (List<QueryHeaderRewriteRule>) CollectionUtils.matchEndpointKey(target, (Map) this.queryParamRewriteRules);
-
-                if (rules != null && rules.size() > 0) {
+        private void rewriteQueryParams(StringBuilder urlBuilder, ProxyPlan targetPlan) {
+            var rules = targetPlan.getQueryRules();
 
-                    var params = this.exchange.getQueryParameters();
+            if (rules != null && rules.size() > 0) {
+                var params = this.exchange.getQueryParameters();
 
-                    for (var rule : rules) {
+                for (var rule : rules) {
 
-                        if (params.get(rule.getOldK()) != null) {
-                            var values = params.get(rule.getOldK());
+                    if (params.get(rule.getOldK()) != null) {
+                        var values = params.get(rule.getOldK());
 
-                            // we only iterate the values if oldV and newV are defined.
-                            if (rule.getOldV() != null && rule.getNewV() != null) {
-                                var it = values.iterator();
-                                boolean add = false;
+                        // we only iterate the values if oldV and newV are defined.
+                        if (rule.getOldV() != null && rule.getNewV() != null) {
+                            var it = values.iterator();
+                            boolean add = false;
 
-                                while (it.hasNext()) {
-                                    if (it.next().equals(rule.getOldV())) {
-                                        it.remove();
-                                        add = true;
-                                    }
+                            while (it.hasNext()) {
+                                if (it.next().equals(rule.getOldV())) {
+                                    it.remove();
+                                    add = true;
                                 }
-
-                                if (add)
-                                    values.addFirst(rule.getNewV());
                             }
 
-                            if (rule.getNewK() != null) {
-                                params.remove(rule.getOldK());
-                                params.put(rule.getNewK(), values);
+                            if (add)
+                                values.addFirst(rule.getNewV());
+                        }
 
-                            } else {
-                                params.put(rule.getOldK(), values);
-                            }
+                        if (rule.getNewK() != null) {
+                            params.remove(rule.getOldK());
+                            params.put(rule.getNewK(), values);
+
+                        } else {
+                            params.put(rule.getOldK(), values);
                         }
                     }
+                }
 
-                    var qs = QueryParameterUtils.buildQueryString(params);
+                var qs = QueryParameterUtils.buildQueryString(params);
 
-                    if (!qs.isEmpty()) {
-                        urlBuilder.append('?');
-                        urlBuilder.append(qs);
-                    }
+                if (!qs.isEmpty()) {
+                    urlBuilder.append('?');
+                    urlBuilder.append(qs);
                 }
             } else {
                 var qs = exchange.getQueryString();
@@ -769,7 +789,7 @@ public class ProxyHandler implements HttpHandler {
                     if (exchange.getConnection().isPushSupported() && result.getConnection().isPushSupported())
                         this.handleServerPush(result);
 
-                    result.setResponseListener(new ResponseCallback(exchange, proxyClientHandler, idempotentPredicate, headerRewriteRules));
+                    result.setResponseListener(new ResponseCallback(exchange, proxyClientHandler, idempotentPredicate, plan));
 
                     final IoExceptionHandler handler = new IoExceptionHandler(exchange, clientConnection.getConnection());
 
@@ -849,7 +869,7 @@ public class ProxyHandler implements HttpHandler {
                             if (i > 0)
                                 path = path.substring(0, i);
 
-                            exchange.dispatch(SameThreadExecutor.INSTANCE, new ProxyAction(new ProxyConnection(pushedRequest.getConnection(), path), exchange, requestHeaders, rewriteHostHeader, reuseXForwarded, null, idempotentPredicate, urlRewriteRules, methodRewriteRules, queryParamRewriteRules, headerRewriteRules));
+                            exchange.dispatch(SameThreadExecutor.INSTANCE, new ProxyAction(new ProxyConnection(pushedRequest.getConnection(), path), exchange, requestHeaders, rewriteHostHeader, reuseXForwarded, null, idempotentPredicate, urlRewriteRules, planIndex, null));
                         });
                         return true;
                     });
@@ -899,13 +919,13 @@ public class ProxyHandler implements HttpHandler {
         private final HttpServerExchange exchange;
         private final ProxyClientHandler proxyClientHandler;
         private final Predicate idempotentPredicate;
-        private final Map<String, List<QueryHeaderRewriteRule>> headerRewriteRules;
+        private final ProxyPlan plan;
 
-        private ResponseCallback(HttpServerExchange exchange, ProxyClientHandler proxyClientHandler, Predicate idempotentPredicate, Map<String, List<QueryHeaderRewriteRule>> headerRewriteRules) {
+        private ResponseCallback(HttpServerExchange exchange, ProxyClientHandler proxyClientHandler, Predicate idempotentPredicate, ProxyPlan plan) {
             this.exchange = exchange;
             this.proxyClientHandler = proxyClientHandler;
             this.idempotentPredicate = idempotentPredicate;
-            this.headerRewriteRules = headerRewriteRules;
+            this.plan = plan;
         }
 
         @Override
@@ -920,7 +940,7 @@ public class ProxyHandler implements HttpHandler {
             final HeaderMap outbound = exchange.getResponseHeaders();
             exchange.setStatusCode(response.getResponseCode());
 
-            copyHeaders(outbound, inbound, (List) CollectionUtils.matchEndpointKey(exchange.getRequestPath(), (Map) headerRewriteRules));
+            copyHeaders(outbound, inbound, plan.getHeaderRules());
 
             if (exchange.isUpgrade())
                 this.handleUpgradeChannelOnComplete(result);
@@ -1076,6 +1096,8 @@ public class ProxyHandler implements HttpHandler {
         private boolean reuseXForwarded;
         private int maxConnectionRetries = DEFAULT_MAX_RETRY_ATTEMPTS;
         private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+        private int retryBudgetPercent = DEFAULT_RETRY_BUDGET_PERCENT;
+        private int retryBudgetMinPerSecond = DEFAULT_RETRY_BUDGET_MIN_PER_SECOND;
         private Predicate idempotentRequestPredicate = IdempotentPredicate.INSTANCE;
         private List<UrlRewriteRule> urlRewriteRules;
         private List<MethodRewriteRule> methodRewriteRules;
@@ -1167,6 +1189,29 @@ public class ProxyHandler implements HttpHandler {
             return this;
         }
 
+        /**
+         * The percentage of the requests to a backend that can be retried on a connection failure. Set it to a
+         * negative value to retry up to the maxConnectionRetries without a budget.
+         *
+         * @param retryBudgetPercent the percentage of the requests
+         * @return Builder
+         */
+        public Builder setRetryBudgetPercent(int retryBudgetPercent) {
+            this.retryBudgetPercent = retryBudgetPercent;
+            return this;
+        }
+
+        /**
+         * The number of retries per second to a backend that are allowed regardless of the retryBudgetPercent.
+         *
+         * @param retryBudgetMinPerSecond the number of retries per second
+         * @return Builder
+         */
+        public Builder setRetryBudgetMinPerSecond(int retryBudgetMinPerSecond) {
+            this.retryBudgetMinPerSecond = retryBudgetMinPerSecond;
+            return this;
+        }
+
         public Builder setIdempotentRequestPredicate(Predicate idempotentRequestPredicate) {
 
             if (idempotentRequestPredicate == null)
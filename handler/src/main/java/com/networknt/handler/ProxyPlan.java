@@ -0,0 +1,317 @@
+package com.networknt.handler;
+
+import com.networknt.handler.config.MethodRewriteRule;
+import com.networknt.handler.config.QueryHeaderRewriteRule;
+import io.undertow.util.HttpString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The immutable rewrite plan of the ProxyHandler for one endpoint. It holds the request timeout, the header
+ * and query parameter rewrite rules and the method rewrites that apply to a request path so that the handler
+ * doesn't need to iterate and split all the configured patterns for each request.
+ *
+ * Plans are compiled once into an {@link Index} when the handler is built. The index is a segment trie of the
+ * configured path patterns in which a {x} segment matches any path segment. A pattern matches the request path
+ * if all its segments match, and the first pattern in the configuration order wins for each kind of rule. This
+ * is the same semantics as StringUtils.matchPathToPattern and CollectionUtils.matchEndpointKey.
+ *
+ * @author Steve Hu
+ */
+public final class ProxyPlan {
+    public static final ProxyPlan EMPTY = new ProxyPlan(Integer.MAX_VALUE, -1, Integer.MAX_VALUE, null, Integer.MAX_VALUE, null, new int[0], new String[0], new HttpString[0]);
+
+    private final int timeoutOrder;
+    private final int maxRequestTime;
+    private final int headerOrder;
+    private final List<QueryHeaderRewriteRule> headerRules;
+    private final int queryOrder;
+    private final List<QueryHeaderRewriteRule> queryRules;
+    private final int[] methodOrders;
+    private final String[] sourceMethods;
+    private final HttpString[] targetMethods;
+
+    private ProxyPlan(int timeoutOrder, int maxRequestTime, int headerOrder, List<QueryHeaderRewriteRule> headerRules,
+                      int queryOrder, List<QueryHeaderRewriteRule> queryRules, int[] methodOrders, String[] sourceMethods, HttpString[] targetMethods) {
+        this.timeoutOrder = timeoutOrder;
+        this.maxRequestTime = maxRequestTime;
+        this.headerOrder = headerOrder;
+        this.headerRules = headerRules;
+        this.queryOrder = queryOrder;
+        this.queryRules = queryRules;
+        this.methodOrders = methodOrders;
+        this.sourceMethods = sourceMethods;
+        this.targetMethods = targetMethods;
+    }
+
+    /**
+     * @return true if a pathPrefixMaxRequestTime pattern matches the endpoint.
+     */
+    public boolean hasMaxRequestTime() {
+        return timeoutOrder != Integer.MAX_VALUE;
+    }
+
+    public int getMaxRequestTime() {
+        return maxRequestTime;
+    }
+
+    /**
+     * @return header rewrite rules of the endpoint or null if there is none.
+     */
+    public List<QueryHeaderRewriteRule> getHeaderRules() {
+        return headerRules;
+    }
+
+    /**
+     * @return query parameter rewrite rules of the endpoint or null if there is none.
+     */
+    public List<QueryHeaderRewriteRule> getQueryRules() {
+        return queryRules;
+    }
+
+    public boolean hasMethodRewrite() {
+        return methodOrders.length > 0;
+    }
+
+    /**
+     * Apply the method rewrite rules of the endpoint in the configuration order. Like before, a rule applies
+     * to the method produced by the previous rules.
+     *
+     * @param method the original request method
+     * @return the method of the proxy request
+     */
+    public HttpString rewriteMethod(HttpString method) {
+        HttpString m = method;
+        for (int i = 0; i < sourceMethods.length; i++) {
+            if (m.toString().equals(sourceMethods[i])) {
+                m = targetMethods[i];
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Combine two plans matched by different patterns. The rule with the lower configuration order wins.
+     */
+    static ProxyPlan merge(ProxyPlan a, ProxyPlan b) {
+        if (a == null || a == b) return b;
+        if (b == null) return a;
+        boolean timeoutA = a.timeoutOrder <= b.timeoutOrder;
+        boolean headerA = a.headerOrder <= b.headerOrder;
+        boolean queryA = a.queryOrder <= b.queryOrder;
+        int[] orders = a.methodOrders;
+        String[] sources = a.sourceMethods;
+        HttpString[] targets = a.targetMethods;
+        if (b.methodOrders.length > 0 && !contains(a.methodOrders, b.methodOrders)) {
+            // union of both lists in the configuration order.
+            int[] merged = new int[a.methodOrders.length + b.methodOrders.length];
+            String[] mergedSources = new String[merged.length];
+            HttpString[] mergedTargets = new HttpString[merged.length];
+            int i = 0, j = 0, n = 0;
+            while (i < a.methodOrders.length || j < b.methodOrders.length) {
+                boolean takeA = j >= b.methodOrders.length || (i < a.methodOrders.length && a.methodOrders[i] <= b.methodOrders[j]);
+                if (takeA) {
+                    if (j < b.methodOrders.length && a.methodOrders[i] == b.methodOrders[j]) j++;
+                    merged[n] = a.methodOrders[i];
+                    mergedSources[n] = a.sourceMethods[i];
+                    mergedTargets[n++] = a.targetMethods[i++];
+                } else {
+                    merged[n] = b.methodOrders[j];
+                    mergedSources[n] = b.sourceMethods[j];
+                    mergedTargets[n++] = b.targetMethods[j++];
+                }
+            }
+            orders = Arrays.copyOf(merged, n);
+            sources = Arrays.copyOf(mergedSources, n);
+            targets = Arrays.copyOf(mergedTargets, n);
+        }
+        if (timeoutA && headerA && queryA && orders == a.methodOrders) return a;
+        if (!timeoutA && !headerA && !queryA && contains(b.methodOrders, orders)) return b;
+        return new ProxyPlan(timeoutA ? a.timeoutOrder : b.timeoutOrder, timeoutA ? a.maxRequestTime : b.maxRequestTime,
+                headerA ? a.headerOrder : b.headerOrder, headerA ? a.headerRules : b.headerRules,
+                queryA ? a.queryOrder : b.queryOrder, queryA ? a.queryRules : b.queryRules,
+                orders, sources, targets);
+    }
+
+    private static boolean contains(int[] all, int[] some) {
+        int i = 0;
+        for (int order : some) {
+            while (i < all.length && all[i] < order) i++;
+            if (i == all.length || all[i] != order) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compile the rewrite configuration of the ProxyHandler into an index. All the parameters are optional.
+     *
+     * @param pathPrefixMaxRequestTime path pattern to max request time in milliseconds
+     * @param headerRewriteRules path pattern to header rewrite rules
+     * @param queryParamRewriteRules path pattern to query parameter rewrite rules
+     * @param methodRewriteRules method rewrite rules with their path patterns
+     * @return the index to resolve the plan of a request path
+     */
+    public static Index compile(Map<String, Integer> pathPrefixMaxRequestTime,
+                                Map<String, List<QueryHeaderRewriteRule>> headerRewriteRules,
+                                Map<String, List<QueryHeaderRewriteRule>> queryParamRewriteRules,
+                                List<MethodRewriteRule> methodRewriteRules) {
+        Node root = new Node();
+        if (pathPrefixMaxRequestTime != null) {
+            int order = 0;
+            for (Map.Entry<String, Integer> entry : pathPrefixMaxRequestTime.entrySet()) {
+                Node node = root.insert(entry.getKey());
+                if (node.timeoutOrder == Integer.MAX_VALUE && entry.getValue() != null) {
+                    node.timeoutOrder = order;
+                    node.maxRequestTime = entry.getValue();
+                }
+                order++;
+            }
+        }
+        if (headerRewriteRules != null) {
+            int order = 0;
+            for (Map.Entry<String, List<QueryHeaderRewriteRule>> entry : headerRewriteRules.entrySet()) {
+                Node node = root.insert(entry.getKey());
+                if (node.headerOrder == Integer.MAX_VALUE) {
+                    node.headerOrder = order;
+                    node.headerRules = entry.getValue();
+                }
+                order++;
+            }
+        }
+        if (queryParamRewriteRules != null) {
+            int order = 0;
+            for (Map.Entry<String, List<QueryHeaderRewriteRule>> entry : queryParamRewriteRules.entrySet()) {
+                Node node = root.insert(entry.getKey());
+                if (node.queryOrder == Integer.MAX_VALUE) {
+                    node.queryOrder = order;
+                    node.queryRules = entry.getValue();
+                }
+                order++;
+            }
+        }
+        if (methodRewriteRules != null) {
+            int order = 0;
+            for (MethodRewriteRule rule : methodRewriteRules) {
+                root.insert(rule.getRequestPath()).methodRules.put(order++, rule);
+            }
+        }
+        root.seal(EMPTY);
+        return new Index(root);
+    }
+
+    /**
+     * The compiled plans of all the configured path patterns. It is immutable and safe to share between threads.
+     */
+    public static final class Index {
+        private final Node root;
+
+        private Index(Node root) {
+            this.root = root;
+        }
+
+        public boolean isEmpty() {
+            return root.literalKeys.length == 0 && root.wildcard == null && root.plan == EMPTY;
+        }
+
+        /**
+         * Resolve the plan of a request path with a walk of the trie. It doesn't split the path or allocate
+         * unless the path matches patterns on different branches, which then need to be merged.
+         *
+         * @param path request path
+         * @return the plan of the path and never null
+         */
+        public ProxyPlan resolve(String path) {
+            if (path == null) return root.plan;
+            // trailing empty segments are ignored, the same as String.split.
+            int end = path.length();
+            while (end > 0 && path.charAt(end - 1) == '/') end--;
+            if (end == 0 && path.length() > 0) return root.plan;
+            return walk(root, path, 0, end);
+        }
+
+        private static ProxyPlan walk(Node node, String path, int start, int end) {
+            if (start > end) return node.plan;
+            int next = path.indexOf('/', start);
+            if (next < 0 || next > end) next = end;
+            int length = next - start;
+            ProxyPlan result = null;
+            String[] keys = node.literalKeys;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].length() == length && path.regionMatches(start, keys[i], 0, length)) {
+                    result = walk(node.literalNodes[i], path, next + 1, end);
+                    break;
+                }
+            }
+            if (node.wildcard != null) {
+                result = merge(result, walk(node.wildcard, path, next + 1, end));
+            }
+            return result == null ? node.plan : result;
+        }
+    }
+
+    private static final class Node {
+        private Map<String, Node> literals = new HashMap<>();
+        private String[] literalKeys;
+        private Node[] literalNodes;
+        private Node wildcard;
+        private int timeoutOrder = Integer.MAX_VALUE;
+        private int maxRequestTime = -1;
+        private int headerOrder = Integer.MAX_VALUE;
+        private List<QueryHeaderRewriteRule> headerRules;
+        private int queryOrder = Integer.MAX_VALUE;
+        private List<QueryHeaderRewriteRule> queryRules;
+        private Map<Integer, MethodRewriteRule> methodRules = new HashMap<>();
+        private ProxyPlan plan;
+
+        private Node insert(String pattern) {
+            Node node = this;
+            for (String part : pattern.split("/")) {
+                if (part.startsWith("{") && part.endsWith("}")) {
+                    if (node.wildcard == null) node.wildcard = new Node();
+                    node = node.wildcard;
+                } else {
+                    node = node.literals.computeIfAbsent(part, k -> new Node());
+                }
+            }
+            return node;
+        }
+
+        /**
+         * Build the plan of the node from the plan of its parent as the patterns of the parent match the paths
+         * of the node as well. The children are flattened into arrays for the lookup.
+         */
+        private void seal(ProxyPlan parent) {
+            ProxyPlan own = null;
+            if (timeoutOrder != Integer.MAX_VALUE || headerOrder != Integer.MAX_VALUE || queryOrder != Integer.MAX_VALUE || !methodRules.isEmpty()) {
+                List<Integer> orders = new ArrayList<>(methodRules.keySet());
+                orders.sort(null);
+                int[] methodOrders = new int[orders.size()];
+                String[] sources = new String[orders.size()];
+                HttpString[] targets = new HttpString[orders.size()];
+                for (int i = 0; i < methodOrders.length; i++) {
+                    MethodRewriteRule rule = methodRules.get(orders.get(i));
+                    methodOrders[i] = orders.get(i);
+                    sources[i] = rule.getSourceMethod();
+                    targets[i] = new HttpString(rule.getTargetMethod());
+                }
+                own = new ProxyPlan(timeoutOrder, maxRequestTime, headerOrder, headerRules, queryOrder, queryRules, methodOrders, sources, targets);
+            }
+            plan = merge(parent, own);
+            literalKeys = literals.keySet().toArray(new String[0]);
+            literalNodes = new Node[literalKeys.length];
+            for (int i = 0; i < literalKeys.length; i++) {
+                literalNodes[i] = literals.get(literalKeys[i]);
+                literalNodes[i].seal(plan);
+            }
+            if (wildcard != null) wildcard.seal(plan);
+            literals = null;
+            methodRules = null;
+            headerRules = null;
+            queryRules = null;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.networknt.handler;
+
+import com.networknt.httpstring.HttpStringConstants;
+import com.networknt.utility.RetryBudget;
+import io.undertow.Undertow;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.proxy.ProxyCallback;
+import io.undertow.server.handlers.proxy.ProxyClient;
+import io.undertow.server.handlers.proxy.ProxyConnection;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ProxyHandlerRetryBudgetTest {
+    private static final int MAX_RETRIES = 3;
+    private final AtomicInteger attempts = new AtomicInteger();
+    private Undertow server;
+
+    /**
+     * A backend that can never be connected, so every attempt fails and the ProxyHandler retries.
+     */
+    private class FailingProxyClient implements ProxyClient {
+        private final ProxyTarget target = new ProxyTarget() {};
+
+        @Override
+        public ProxyTarget findTarget(HttpServerExchange exchange) {
+            return target;
+        }
+
+        @Override
+        public void getConnection(ProxyTarget target, HttpServerExchange exchange, ProxyCallback<ProxyConnection> callback, long timeout, TimeUnit timeUnit) {
+            attempts.incrementAndGet();
+            callback.failed(exchange);
+        }
+    }
+
+    private int start(int retryBudgetPercent, int retryBudgetMinPerSecond) {
+        ProxyHandler handler = ProxyHandler.builder()
+                .setProxyClient(new FailingProxyClient())
+                .setMaxConnectionRetries(MAX_RETRIES)
+                .setRetryBudgetPercent(retryBudgetPercent)
+                .setRetryBudgetMinPerSecond(retryBudgetMinPerSecond)
+                .build();
+        server = Undertow.builder().addHttpListener(0, "localhost").setHandler(handler).build();
+        server.start();
+        return ((InetSocketAddress) server.getListenerInfo().get(0).getAddress()).getPort();
+    }
+
+    private static int get(int port, String serviceId) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/v1/pets").openConnection();
+        connection.setRequestProperty(HttpStringConstants.SERVICE_ID.toString(), serviceId);
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        RetryBudget.clear();
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null) server.stop();
+        RetryBudget.clear();
+    }
+
+    @Test
+    public void testRetriesWithoutBudget() throws Exception {
+        int port = start(-1, 0);
+        Assert.assertEquals(503, get(port, "petstore"));
+        Assert.assertEquals(1 + MAX_RETRIES, attempts.get());
+        Assert.assertTrue(RetryBudget.getBudgets().isEmpty());
+    }
+
+    @Test
+    public void testRetriesStopWhenBudgetIsUsedUp() throws Exception {
+        // each request deposits the token of one retry, and there is no minimum per second.
+        int port = start(100, 0);
+        Assert.assertEquals(503, get(port, "petstore"));
+        Assert.assertEquals(2, attempts.get());
+        RetryBudget budget = RetryBudget.getBudgets().get("petstore");
+        Assert.assertEquals(1, budget.getRequests());
+        Assert.assertEquals(1, budget.getRetries());
+        Assert.assertEquals(1, budget.getRejected());
+        // the budget is kept per serviceId, so another service still has its retry.
+        Assert.assertEquals(503, get(port, "customer"));
+        Assert.assertEquals(4, attempts.get());
+    }
+}
@@ -0,0 +1,115 @@
+package com.networknt.handler;
+
+import com.networknt.handler.config.MethodRewriteRule;
+import com.networknt.handler.config.QueryHeaderRewriteRule;
+import com.networknt.utility.CollectionUtils;
+import io.undertow.util.HttpString;
+import io.undertow.util.Methods;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ProxyPlanTest {
+
+    private static List<QueryHeaderRewriteRule> rules(String oldK) {
+        QueryHeaderRewriteRule rule = new QueryHeaderRewriteRule();
+        rule.setOldK(oldK);
+        List<QueryHeaderRewriteRule> list = new ArrayList<>();
+        list.add(rule);
+        return list;
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        ProxyPlan.Index index = ProxyPlan.compile(null, null, null, null);
+        Assert.assertTrue(index.isEmpty());
+        Assert.assertSame(ProxyPlan.EMPTY, index.resolve("/v1/pets"));
+        Assert.assertNull(index.resolve("/v1/pets").getHeaderRules());
+        Assert.assertFalse(index.resolve("/v1/pets").hasMaxRequestTime());
+    }
+
+    @Test
+    public void testPrefixAndWildcard() {
+        Map<String, Integer> timeouts = new LinkedHashMap<>();
+        timeouts.put("/v1/pets/{petId}", 1000);
+        timeouts.put("/v1/address", 2000);
+        timeouts.put("/v2", 3000);
+        ProxyPlan.Index index = ProxyPlan.compile(timeouts, null, null, null);
+        Assert.assertEquals(1000, index.resolve("/v1/pets/123").getMaxRequestTime());
+        Assert.assertEquals(1000, index.resolve("/v1/pets/123/tags").getMaxRequestTime());
+        Assert.assertEquals(2000, index.resolve("/v1/address").getMaxRequestTime());
+        Assert.assertEquals(2000, index.resolve("/v1/address/").getMaxRequestTime());
+        Assert.assertEquals(3000, index.resolve("/v2/anything").getMaxRequestTime());
+        Assert.assertFalse(index.resolve("/v1/pets").hasMaxRequestTime());
+        Assert.assertFalse(index.resolve("/v1/addresses").hasMaxRequestTime());
+        Assert.assertFalse(index.resolve("/").hasMaxRequestTime());
+    }
+
+    @Test
+    public void testFirstMatchWins() {
+        Map<String, List<QueryHeaderRewriteRule>> headers = new LinkedHashMap<>();
+        headers.put("/v1/{service}/health", rules("first"));
+        headers.put("/v1/pets", rules("second"));
+        headers.put("/v1", rules("third"));
+        ProxyPlan.Index index = ProxyPlan.compile(null, headers, null, null);
+        // both the wildcard and the literal branch match, the first pattern in the config wins.
+        Assert.assertEquals("first", index.resolve("/v1/pets/health").getHeaderRules().get(0).getOldK());
+        Assert.assertEquals("second", index.resolve("/v1/pets/123").getHeaderRules().get(0).getOldK());
+        Assert.assertEquals("third", index.resolve("/v1/address").getHeaderRules().get(0).getOldK());
+        Assert.assertNull(index.resolve("/v2/pets").getHeaderRules());
+    }
+
+    @Test
+    public void testSameResultAsMatchEndpointKey() {
+        Map<String, List<QueryHeaderRewriteRule>> headers = new LinkedHashMap<>();
+        headers.put("/v3/{id}/orders", rules("a"));
+        headers.put("/v3/accounts", rules("b"));
+        headers.put("/v3/{id}/{sub}/items", rules("c"));
+        headers.put("/v1", rules("d"));
+        ProxyPlan.Index index = ProxyPlan.compile(null, headers, null, null);
+        String[] paths = {"/v3/accounts/orders", "/v3/accounts", "/v3/1/2/items", "/v3/1/orders/x", "/v3/1/2/items/3", "/v3/accounts/2/items"};
+        for (String path : paths) {
+            Object expected;
+            try {
+                expected = CollectionUtils.matchEndpointKey(path, (Map) headers);
+            } catch (ArrayIndexOutOfBoundsException e) {
+                // the old lookup fails when the path is shorter than a pattern, the plan skips the pattern instead.
+                continue;
+            }
+            Assert.assertSame(path, expected, index.resolve(path).getHeaderRules());
+        }
+    }
+
+    @Test
+    public void testMethodRewrite() {
+        List<MethodRewriteRule> methods = new ArrayList<>();
+        methods.add(new MethodRewriteRule("/v1/pets/{petId}", "GET", "POST"));
+        methods.add(new MethodRewriteRule("/v1/pets", "POST", "PUT"));
+        methods.add(new MethodRewriteRule("/v2/pets", "DELETE", "POST"));
+        ProxyPlan.Index index = ProxyPlan.compile(null, null, null, methods);
+        // the rules are chained in the configuration order the same as before.
+        ProxyPlan plan = index.resolve("/v1/pets/123");
+        Assert.assertTrue(plan.hasMethodRewrite());
+        Assert.assertEquals("PUT", plan.rewriteMethod(Methods.GET).toString());
+        Assert.assertEquals("PUT", plan.rewriteMethod(Methods.POST).toString());
+        Assert.assertSame(Methods.DELETE, plan.rewriteMethod(Methods.DELETE));
+        Assert.assertEquals("POST", index.resolve("/v2/pets").rewriteMethod(new HttpString("DELETE")).toString());
+        Assert.assertFalse(index.resolve("/v3/pets").hasMethodRewrite());
+    }
+
+    @Test
+    public void testCombinedRules() {
+        Map<String, Integer> timeouts = new LinkedHashMap<>();
+        timeouts.put("/v1/pets", 5000);
+        Map<String, List<QueryHeaderRewriteRule>> queries = new LinkedHashMap<>();
+        queries.put("/v1/{resource}", rules("q"));
+        ProxyPlan.Index index = ProxyPlan.compile(timeouts, null, queries, null);
+        ProxyPlan plan = index.resolve("/v1/pets");
+        Assert.assertEquals(5000, plan.getMaxRequestTime());
+        Assert.assertEquals("q", plan.getQueryRules().get(0).getOldK());
+    }
+}
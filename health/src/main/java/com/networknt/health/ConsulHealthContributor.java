@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.health;
+
+import com.networknt.config.Config;
+
+import java.util.Map;
+
+/**
+ * Check the Consul agent with the consulUrl in the consul.yml. The agent is healthy if it knows the leader of
+ * the Consul cluster.
+ *
+ * @author Steve Hu
+ */
+public class ConsulHealthContributor extends HttpHealthContributor {
+    static final String CONSUL_CONFIG_NAME = "consul";
+    static final String LEADER_PATH = "/v1/status/leader";
+
+    public ConsulHealthContributor(long timeout) {
+        super("consul", consulUrl(), LEADER_PATH, timeout);
+    }
+
+    private static String consulUrl() {
+        Map<String, Object> consul = Config.getInstance().getJsonMapConfig(CONSUL_CONFIG_NAME);
+        Object url = consul == null ? null : consul.get("consulUrl");
+        return url == null ? "http://localhost:8500" : (String)url;
+    }
+}
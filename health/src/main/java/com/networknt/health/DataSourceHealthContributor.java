@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.health;
+
+import com.networknt.service.SingletonServiceFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * Check the database with a connection from the DataSource in the service.yml or registered by the startup hook
+ * of the db-provider module. The connection is validated by the driver within the timeout.
+ *
+ * @author Steve Hu
+ */
+public class DataSourceHealthContributor implements HealthContributor {
+    private final int timeoutSeconds;
+
+    public DataSourceHealthContributor(int timeout) {
+        this.timeoutSeconds = Math.max(1, (timeout + 999) / 1000);
+    }
+
+    @Override
+    public String getName() {
+        return "database";
+    }
+
+    @Override
+    public boolean check() throws Exception {
+        DataSource ds = SingletonServiceFactory.getBean(DataSource.class);
+        if(ds == null) throw new IllegalStateException("No DataSource is configured");
+        try (Connection connection = ds.getConnection()) {
+            return connection.isValid(timeoutSeconds);
+        }
+    }
+}
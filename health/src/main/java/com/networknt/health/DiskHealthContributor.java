@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.health;
+
+import java.io.File;
+
+/**
+ * Check the usable space of the file system of a path, for example, the folder of the logs or the temp files.
+ *
+ * @author Steve Hu
+ */
+public class DiskHealthContributor implements HealthContributor {
+    private final File path;
+    private final long minFreeSpace;
+
+    public DiskHealthContributor(String path, long minFreeSpace) {
+        this.path = new File(path);
+        this.minFreeSpace = minFreeSpace;
+    }
+
+    @Override
+    public String getName() {
+        return "disk";
+    }
+
+    @Override
+    public boolean check() {
+        long usable = path.getUsableSpace();
+        if(usable < minFreeSpace) {
+            throw new IllegalStateException("Usable space " + usable + " of " + path + " is less than " + minFreeSpace);
+        }
+        return true;
+    }
+}
@@ -30,6 +30,13 @@ public class HealthConfig {
     boolean downstreamEnabled;
     String downstreamHost;
     String downstreamPath;
+    int checkInterval = 10000;
+    boolean databaseEnabled;
+    boolean consulEnabled;
+    boolean diskEnabled;
+    String diskPath = ".";
+    long diskMinFreeSpace = 10485760;
+    boolean showDetails;
 
     public HealthConfig() {
     }
@@ -81,4 +88,60 @@ public class HealthConfig {
     public void setDownstreamPath(String downstreamPath) {
         this.downstreamPath = downstreamPath;
     }
+
+    public int getCheckInterval() {
+        return checkInterval;
+    }
+
+    public void setCheckInterval(int checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+
+    public boolean isDatabaseEnabled() {
+        return databaseEnabled;
+    }
+
+    public void setDatabaseEnabled(boolean databaseEnabled) {
+        this.databaseEnabled = databaseEnabled;
+    }
+
+    public boolean isConsulEnabled() {
+        return consulEnabled;
+    }
+
+    public void setConsulEnabled(boolean consulEnabled) {
+        this.consulEnabled = consulEnabled;
+    }
+
+    public boolean isDiskEnabled() {
+        return diskEnabled;
+    }
+
+    public void setDiskEnabled(boolean diskEnabled) {
+        this.diskEnabled = diskEnabled;
+    }
+
+    public String getDiskPath() {
+        return diskPath;
+    }
+
+    public void setDiskPath(String diskPath) {
+        this.diskPath = diskPath;
+    }
+
+    public long getDiskMinFreeSpace() {
+        return diskMinFreeSpace;
+    }
+
+    public void setDiskMinFreeSpace(long diskMinFreeSpace) {
+        this.diskMinFreeSpace = diskMinFreeSpace;
+    }
+
+    public boolean isShowDetails() {
+        return showDetails;
+    }
+
+    public void setShowDetails(boolean showDetails) {
+        this.showDetails = showDetails;
+    }
 }
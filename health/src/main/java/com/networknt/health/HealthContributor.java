@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.health;
+
+/**
+ * A dependency of the service that is checked in the background by the HealthRegistry, for example, the database
+ * or a downstream API. The built-in contributors are enabled in the health.yml, and the customized ones can be
+ * configured in the service.yml with this interface.
+ *
+ * @author Steve Hu
+ */
+public interface HealthContributor {
+    /**
+     * @return the name of the contributor in the health details
+     */
+    String getName();
+
+    /**
+     * Check the dependency. It is called in a background thread and it should return within the timeout in the
+     * health.yml.
+     *
+     * @return true if the dependency is healthy
+     * @throws Exception if the check fails and the message is used as the detail
+     */
+    boolean check() throws Exception;
+
+    /**
+     * @return the interval in milliseconds between the checks or 0 to use the checkInterval in the health.yml
+     */
+    default long getInterval() {
+        return 0;
+    }
+}
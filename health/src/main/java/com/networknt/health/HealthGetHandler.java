@@ -21,6 +21,7 @@ import com.networknt.config.JsonMapper;
 import com.networknt.handler.LightHttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,7 +38,9 @@ import org.slf4j.LoggerFactory;
  * native and browser SPA and aggregate other services in the backend. For services deployed
  * in the cloud dynamically, there is no reverse proxy but using client side service discovery.
  *
- * TODO support cascade health check with configuration, for example, database etc.
+ * The dependencies like the database and the downstream API can be enabled in the health.yml. They are
+ * checked in the background by the HealthRegistry, and this handler only returns the latest result so
+ * that the frequent probes from the load balancers and the control plane won't be sent to them.
  *
  * @author Steve Hu
  */
@@ -52,15 +55,23 @@ public class HealthGetHandler implements LightHttpHandler {
 
     static final HealthConfig config = (HealthConfig) Config.getInstance().getJsonObjectConfig(CONFIG_NAME, HealthConfig.class);
 
-    public HealthGetHandler(){}
+    final HealthRegistry registry;
+
+    public HealthGetHandler(){
+        registry = HealthRegistry.getInstance(config);
+    }
 
     @Override
     public void handleRequest(final HttpServerExchange exchange) throws Exception {
+        HealthRegistry.Result result = registry.getResult();
+        if (!result.isHealthy()) {
+            exchange.setStatusCode(StatusCodes.SERVICE_UNAVAILABLE);
+        }
         if (config != null && config.isUseJson()) {
             exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
-            exchange.getResponseSender().send(HEALTH_RESULT_OK_JSON);
+            exchange.getResponseSender().send(result.getJson());
         } else {
-            exchange.getResponseSender().send(HEALTH_RESULT_OK);
+            exchange.getResponseSender().send(result.getText());
         }
     }
 
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.health;
+
+import com.networknt.config.JsonMapper;
+import com.networknt.service.SingletonServiceFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The registry of the health contributors. Each contributor is checked in the background with its own interval,
+ * and the aggregated result is serialized after each check so that the health endpoint only returns the latest
+ * result without calling any dependency. A load balancer, Kubernetes and Consul probing the endpoint every few
+ * seconds won't add any load to the database or the downstream APIs.
+ *
+ * The service is healthy if all the contributors are healthy. A contributor that has not been checked yet is
+ * not healthy so that the instance won't receive traffic before its dependencies are verified.
+ *
+ * As the health endpoint is not protected, the status of each contributor and its error are only logged, and
+ * they are added to the JSON body only if showDetails is enabled in the health.yml.
+ *
+ * @author Steve Hu
+ */
+public class HealthRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(HealthRegistry.class);
+    public static final String STATUS_UP = "UP";
+    public static final String STATUS_DOWN = "DOWN";
+    public static final String STATUS_UNKNOWN = "UNKNOWN";
+    public static final String HEALTH_RESULT_ERROR = "ERROR";
+
+    private static volatile HealthRegistry instance;
+
+    private final List<HealthContributor> contributors;
+    private final Map<String, Map<String, Object>> details = new LinkedHashMap<>();
+    private final long timeout;
+    private final long defaultInterval;
+    private final boolean showDetails;
+    private ScheduledExecutorService executor;
+    private volatile Result result;
+
+    /**
+     * The aggregated result and its pre-serialized bodies.
+     */
+    public static final class Result {
+        final boolean healthy;
+        final String text;
+        final String json;
+
+        Result(boolean healthy, String text, String json) {
+            this.healthy = healthy;
+            this.text = text;
+            this.json = json;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getJson() {
+            return json;
+        }
+    }
+
+    public HealthRegistry(List<HealthContributor> contributors, long defaultInterval, long timeout) {
+        this(contributors, defaultInterval, timeout, false);
+    }
+
+    public HealthRegistry(List<HealthContributor> contributors, long defaultInterval, long timeout, boolean showDetails) {
+        this.contributors = Collections.unmodifiableList(new ArrayList<>(contributors));
+        this.defaultInterval = defaultInterval;
+        this.timeout = timeout;
+        this.showDetails = showDetails;
+        for(HealthContributor contributor: contributors) {
+            Map<String, Object> detail = new LinkedHashMap<>();
+            detail.put("status", STATUS_UNKNOWN);
+            details.put(contributor.getName(), detail);
+        }
+        aggregate();
+    }
+
+    /**
+     * Create and start the registry with the contributors enabled in the health.yml and configured in the
+     * service.yml. It is only created once.
+     *
+     * @param config the health config
+     * @return the registry
+     */
+    public static HealthRegistry getInstance(HealthConfig config) {
+        if(instance == null) {
+            synchronized (HealthRegistry.class) {
+                if(instance == null) {
+                    HealthRegistry registry = new HealthRegistry(contributors(config), config.getCheckInterval(), config.getTimeout(), config.isShowDetails());
+                    registry.start();
+                    instance = registry;
+                }
+            }
+        }
+        return instance;
+    }
+
+    static List<HealthContributor> contributors(HealthConfig config) {
+        List<HealthContributor> list = new ArrayList<>();
+        if(config == null) return list;
+        if(config.isDatabaseEnabled()) list.add(new DataSourceHealthContributor(config.getTimeout()));
+        if(config.isDownstreamEnabled()) list.add(new HttpHealthContributor("downstream", config.getDownstreamHost(), config.getDownstreamPath(), config.getTimeout()));
+        if(config.isConsulEnabled()) list.add(new ConsulHealthContributor(config.getTimeout()));
+        if(config.isDiskEnabled()) list.add(new DiskHealthContributor(config.getDiskPath(), config.getDiskMinFreeSpace()));
+        HealthContributor[] beans = SingletonServiceFactory.getBeans(HealthContributor.class);
+        if(beans != null) Collections.addAll(list, beans);
+        return list;
+    }
+
+    public synchronized void start() {
+        if(contributors.isEmpty() || executor != null) return;
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(Math.min(contributors.size(), 4), r -> {
+            Thread thread = new Thread(r, "health-check-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for(HealthContributor contributor: contributors) {
+            long interval = contributor.getInterval() > 0 ? contributor.getInterval() : defaultInterval;
+            executor.scheduleWithFixedDelay(() -> check(contributor), 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if(executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * @return the latest aggregated result
+     */
+    public Result getResult() {
+        return result;
+    }
+
+    void check(HealthContributor contributor) {
+        long start = System.currentTimeMillis();
+        boolean healthy;
+        String error = null;
+        try {
+            healthy = contributor.check();
+        } catch (Throwable e) {
+            healthy = false;
+            error = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+        }
+        long duration = System.currentTimeMillis() - start;
+        if(!healthy) {
+            logger.error("Health check " + contributor.getName() + " failed in " + duration + "ms" + (error == null ? "" : ": " + error));
+        } else if(duration > timeout) {
+            logger.warn("Health check " + contributor.getName() + " took " + duration + "ms");
+        }
+        Map<String, Object> detail = new LinkedHashMap<>();
+        detail.put("status", healthy ? STATUS_UP : STATUS_DOWN);
+        detail.put("checkedAt", start);
+        detail.put("duration", duration);
+        if(error != null) detail.put("error", error);
+        synchronized (details) {
+            details.put(contributor.getName(), detail);
+            aggregate();
+        }
+    }
+
+    private void aggregate() {
+        boolean healthy = true;
+        for(Map<String, Object> detail: details.values()) {
+            if(!STATUS_UP.equals(detail.get("status"))) {
+                healthy = false;
+                break;
+            }
+        }
+        String text = healthy ? HealthGetHandler.HEALTH_RESULT_OK : HEALTH_RESULT_ERROR;
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("result", text);
+        // for security reason, the details are only returned if they are enabled. Users can check the log for the failure.
+        if(showDetails && !details.isEmpty()) body.put("details", details);
+        result = new Result(healthy, text, JsonMapper.toJson(body));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.health;
+
+import com.networknt.client.Http2Client;
+import io.undertow.UndertowOptions;
+import io.undertow.client.ClientConnection;
+import io.undertow.client.ClientRequest;
+import io.undertow.client.ClientResponse;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import org.xnio.OptionMap;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Check an HTTP endpoint, for example, the health endpoint of the downstream API of a sidecar. The endpoint is
+ * healthy if it returns a status less than 400 within the timeout.
+ *
+ * @author Steve Hu
+ */
+public class HttpHealthContributor implements HealthContributor {
+    private final String name;
+    private final URI uri;
+    private final String path;
+    private final long timeout;
+
+    public HttpHealthContributor(String name, String host, String path, long timeout) {
+        this.name = name;
+        this.uri = URI.create(host);
+        this.path = path;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean check() throws Exception {
+        Http2Client client = Http2Client.getInstance();
+        long timeoutSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeout));
+        OptionMap options = "https".equals(uri.getScheme()) ? OptionMap.create(UndertowOptions.ENABLE_HTTP2, true) : OptionMap.EMPTY;
+        ClientConnection connection = client.borrowConnection(timeoutSeconds, uri, Http2Client.WORKER, Http2Client.SSL, Http2Client.BUFFER_POOL, options);
+        try {
+            CountDownLatch latch = new CountDownLatch(1);
+            AtomicReference<ClientResponse> reference = new AtomicReference<>();
+            ClientRequest request = new ClientRequest().setPath(path).setMethod(Methods.GET);
+            request.getRequestHeaders().put(Headers.HOST, "localhost");
+            connection.sendRequest(request, client.createClientCallback(reference, latch));
+            if(!latch.await(timeout, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("No response from " + uri + path + " in " + timeout + "ms");
+            }
+            int statusCode = reference.get().getResponseCode();
+            if(statusCode >= 400) {
+                throw new IllegalStateException("Status " + statusCode + " from " + uri + path);
+            }
+            return true;
+        } finally {
+            client.returnConnection(connection);
+        }
+    }
+}
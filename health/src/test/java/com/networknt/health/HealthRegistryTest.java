@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.health;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HealthRegistryTest {
+
+    static class TestContributor implements HealthContributor {
+        final String name;
+        final AtomicBoolean healthy = new AtomicBoolean(true);
+        final AtomicInteger checks = new AtomicInteger();
+
+        TestContributor(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean check() {
+            checks.incrementAndGet();
+            if(!healthy.get()) throw new IllegalStateException(name + " is down");
+            return true;
+        }
+    }
+
+    @Test
+    public void testNoContributor() {
+        HealthRegistry registry = new HealthRegistry(Collections.emptyList(), 1000, 500);
+        registry.start();
+        Assert.assertTrue(registry.getResult().isHealthy());
+        Assert.assertEquals(HealthGetHandler.HEALTH_RESULT_OK, registry.getResult().getText());
+        Assert.assertEquals(HealthGetHandler.HEALTH_RESULT_OK_JSON, registry.getResult().getJson());
+    }
+
+    @Test
+    public void testAggregate() {
+        TestContributor db = new TestContributor("database");
+        TestContributor downstream = new TestContributor("downstream");
+        HealthRegistry registry = new HealthRegistry(Arrays.asList(db, downstream), 1000, 500, true);
+        // not checked yet
+        Assert.assertFalse(registry.getResult().isHealthy());
+        registry.check(db);
+        Assert.assertFalse(registry.getResult().isHealthy());
+        registry.check(downstream);
+        Assert.assertTrue(registry.getResult().isHealthy());
+        Assert.assertTrue(registry.getResult().getJson().contains("\"downstream\":{\"status\":\"UP\""));
+
+        downstream.healthy.set(false);
+        registry.check(downstream);
+        HealthRegistry.Result result = registry.getResult();
+        Assert.assertFalse(result.isHealthy());
+        Assert.assertEquals(HealthRegistry.HEALTH_RESULT_ERROR, result.getText());
+        Assert.assertTrue(result.getJson().contains("downstream is down"));
+        // the result is cached and not changed by the reads.
+        Assert.assertSame(result, registry.getResult());
+    }
+
+    @Test
+    public void testDetailsHidden() {
+        TestContributor downstream = new TestContributor("downstream");
+        HealthRegistry registry = new HealthRegistry(Collections.singletonList(downstream), 1000, 500);
+        downstream.healthy.set(false);
+        registry.check(downstream);
+        Assert.assertFalse(registry.getResult().isHealthy());
+        // only the overall result is returned by default
+        Assert.assertEquals("{\"result\":\"ERROR\"}", registry.getResult().getJson());
+        downstream.healthy.set(true);
+        registry.check(downstream);
+        Assert.assertEquals(HealthGetHandler.HEALTH_RESULT_OK_JSON, registry.getResult().getJson());
+    }
+
+    @Test
+    public void testBackgroundCheck() throws Exception {
+        TestContributor disk = new TestContributor("disk");
+        HealthRegistry registry = new HealthRegistry(Collections.singletonList(disk), 50, 500);
+        registry.start();
+        try {
+            for(int i = 0; i < 100 && disk.checks.get() < 3; i++) {
+                Thread.sleep(10);
+            }
+            Assert.assertTrue(disk.checks.get() >= 3);
+            Assert.assertTrue(registry.getResult().isHealthy());
+        } finally {
+            registry.stop();
+        }
+    }
+
+    @Test
+    public void testDiskContributor() {
+        Assert.assertTrue(new DiskHealthContributor(".", 1).check());
+        try {
+            new DiskHealthContributor(".", Long.MAX_VALUE).check();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.networknt.whitelist;
 
+import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -23,6 +24,12 @@ public class IpAcl {
     private List<WhitelistHandler.PeerMatch> ipv6acl = new ArrayList<>();
     private List<WhitelistHandler.PeerMatch> ipv4acl = new ArrayList<>();
 
+    // compiled from the rule lists. The wildcard rules that are not a network prefix like 10.*.0.1 stay in the lists.
+    private IpTrie ipv4Trie;
+    private IpTrie ipv6Trie;
+    private List<WhitelistHandler.PeerMatch> ipv4Others;
+    private List<WhitelistHandler.PeerMatch> ipv6Others;
+
     public List<WhitelistHandler.PeerMatch> getIpv6acl() {
         return ipv6acl;
     }
@@ -38,4 +45,58 @@ public class IpAcl {
     public void setIpv4acl(List<WhitelistHandler.PeerMatch> ipv4acl) {
         this.ipv4acl = ipv4acl;
     }
+
+    /**
+     * Compile the rules into the radix tries. It must be called after all the rules are added.
+     */
+    void compile() {
+        ipv4Trie = new IpTrie(32);
+        ipv6Trie = new IpTrie(128);
+        ipv4Others = new ArrayList<>();
+        ipv6Others = new ArrayList<>();
+        for(WhitelistHandler.PeerMatch rule : ipv4acl) {
+            int length = rule.prefixLength();
+            if(length >= 0) {
+                ipv4Trie.add(rule.prefixBytes(), length, rule.isDeny());
+            } else {
+                ipv4Others.add(rule);
+            }
+        }
+        for(WhitelistHandler.PeerMatch rule : ipv6acl) {
+            int length = rule.prefixLength();
+            if(length >= 0) {
+                ipv6Trie.add(rule.prefixBytes(), length, rule.isDeny());
+            } else {
+                ipv6Others.add(rule);
+            }
+        }
+    }
+
+    /**
+     * @param address IPv4 address as int
+     * @return IpTrie.NO_MATCH, IpTrie.ALLOW or IpTrie.DENY
+     */
+    int matchIpv4(int address, InetAddress inetAddress) {
+        int action = ipv4Trie.match(address);
+        return action != IpTrie.NO_MATCH ? action : matchOthers(ipv4Others, inetAddress);
+    }
+
+    /**
+     * @param address IPv6 address bytes
+     * @return IpTrie.NO_MATCH, IpTrie.ALLOW or IpTrie.DENY
+     */
+    int matchIpv6(byte[] address, InetAddress inetAddress) {
+        int action = ipv6Trie.match(address);
+        return action != IpTrie.NO_MATCH ? action : matchOthers(ipv6Others, inetAddress);
+    }
+
+    private static int matchOthers(List<WhitelistHandler.PeerMatch> rules, InetAddress address) {
+        for(int i = 0; i < rules.size(); i++) {
+            WhitelistHandler.PeerMatch rule = rules.get(i);
+            if(rule.matches(address)) {
+                return rule.isDeny() ? IpTrie.DENY : IpTrie.ALLOW;
+            }
+        }
+        return IpTrie.NO_MATCH;
+    }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.whitelist;
+
+/**
+ * A binary radix trie of IPv4 or IPv6 network prefixes. Each bit of the address selects the next node,
+ * so a lookup visits at most 32 or 128 nodes and returns the action of the longest matching prefix. If
+ * the same prefix is added with both allow and deny, deny takes precedence.
+ *
+ * @author Steve Hu
+ */
+final class IpTrie {
+    static final int NO_MATCH = 0;
+    static final int ALLOW = 1;
+    static final int DENY = 2;
+
+    private final Node root = new Node();
+    private final int maxBits;
+
+    IpTrie(int maxBits) {
+        this.maxBits = maxBits;
+    }
+
+    /**
+     * Add a network prefix.
+     *
+     * @param address address bytes in network order
+     * @param prefixLength number of leading bits of the network
+     * @param deny true if the rule denies the address
+     */
+    void add(byte[] address, int prefixLength, boolean deny) {
+        if(prefixLength < 0 || prefixLength > maxBits || address.length * 8 != maxBits) {
+            throw new IllegalArgumentException("Invalid prefix length " + prefixLength);
+        }
+        Node node = root;
+        for(int i = 0; i < prefixLength; i++) {
+            if(bit(address, i) == 0) {
+                if(node.zero == null) node.zero = new Node();
+                node = node.zero;
+            } else {
+                if(node.one == null) node.one = new Node();
+                node = node.one;
+            }
+        }
+        if(deny) {
+            node.action = DENY;
+        } else if(node.action == NO_MATCH) {
+            node.action = ALLOW;
+        }
+    }
+
+    /**
+     * Find the action of the longest prefix that matches an IPv4 address.
+     *
+     * @param address IPv4 address as int
+     * @return NO_MATCH, ALLOW or DENY
+     */
+    int match(int address) {
+        Node node = root;
+        int action = node.action;
+        for(int i = 0; i < 32 && node != null; i++) {
+            node = ((address >>> (31 - i)) & 1) == 0 ? node.zero : node.one;
+            if(node != null && node.action != NO_MATCH) action = node.action;
+        }
+        return action;
+    }
+
+    /**
+     * Find the action of the longest prefix that matches an address.
+     *
+     * @param address address bytes in network order
+     * @return NO_MATCH, ALLOW or DENY
+     */
+    int match(byte[] address) {
+        if(address.length * 8 != maxBits) return NO_MATCH;
+        Node node = root;
+        int action = node.action;
+        for(int i = 0; i < maxBits && node != null; i++) {
+            node = bit(address, i) == 0 ? node.zero : node.one;
+            if(node != null && node.action != NO_MATCH) action = node.action;
+        }
+        return action;
+    }
+
+    private static int bit(byte[] address, int index) {
+        return (address[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    private static final class Node {
+        private Node zero;
+        private Node one;
+        private int action;
+    }
+}
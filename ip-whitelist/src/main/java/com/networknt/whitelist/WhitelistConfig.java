@@ -22,6 +22,7 @@ package com.networknt.whitelist;
 import com.networknt.config.Config;
 import com.networknt.config.ConfigException;
 import com.networknt.config.JsonMapper;
+import com.networknt.utility.PathPrefixTrie;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnio.Bits;
@@ -72,6 +73,8 @@ public class WhitelistConfig {
     boolean enabled;
     boolean defaultAllow;
     Map<String, IpAcl> prefixAcl = new HashMap<>();
+    // compiled from the prefixAcl and replaced as a whole on reload.
+    private volatile PathPrefixTrie<IpAcl> aclTrie = new PathPrefixTrie<>();
     private Config config;
     private Map<String, Object> mappedConfig;
 
@@ -124,22 +127,24 @@ public class WhitelistConfig {
         return prefixAcl;
     }
 
+    PathPrefixTrie<IpAcl> getAclTrie() {
+        return aclTrie;
+    }
+
     public Map<String, Object> getMappedConfig() {
         return mappedConfig;
     }
 
     private void setConfigData() {
         Object object = mappedConfig.get(ENABLED);
-        if(object != null && (Boolean) object) {
-            setEnabled(true);
-        }
+        setEnabled(object != null && (Boolean) object);
         object = mappedConfig.get(DEFAULT_ALLOW);
-        if(object != null && (Boolean) object) {
-            setDefaultAllow(true);
-        }
+        setDefaultAllow(object != null && (Boolean) object);
     }
 
     private void setConfigMap() {
+        // build a new map on reload so that the rules are not accumulated.
+        prefixAcl = new HashMap<>();
         // paths white list mapping
         if (mappedConfig.get(PATHS) != null) {
             Object object = mappedConfig.get(PATHS);
@@ -167,6 +172,16 @@ public class WhitelistConfig {
                 setPaths(paths);
             }
         }
+        compile();
+    }
+
+    private void compile() {
+        PathPrefixTrie<IpAcl> trie = new PathPrefixTrie<>();
+        for(Map.Entry<String, IpAcl> entry: prefixAcl.entrySet()) {
+            entry.getValue().compile();
+            trie.put(entry.getKey(), entry.getValue());
+        }
+        aclTrie = trie;
     }
 
     public void setPaths(Map<String, Object> paths) {
@@ -175,6 +190,7 @@ public class WhitelistConfig {
                 addRule(entry.getKey(), peer, !this.defaultAllow);
             }
         }
+        compile();
     }
 
     private void addRule(final String pathPrefix, final String peer, final boolean deny) {
@@ -102,48 +102,40 @@ public class WhitelistHandler implements MiddlewareHandler {
     }
 
     IpAcl findIpAcl(String reqPath) {
-        for(Map.Entry<String, IpAcl> entry: config.getPrefixAcl().entrySet()) {
-            if(reqPath.startsWith(entry.getKey())) {
-                return entry.getValue();
-            }
-        }
-        return null;
+        return config.getAclTrie().longestPrefixMatch(reqPath);
     }
+
     boolean isAllowed(InetAddress address, String reqPath) {
-        boolean isWhitelisted = false;
+        int action = IpTrie.NO_MATCH;
+        IpAcl ipAcl;
         if(address instanceof Inet4Address) {
-            IpAcl ipAcl = findIpAcl(reqPath);
+            ipAcl = findIpAcl(reqPath);
             if(ipAcl != null) {
                 if(logger.isTraceEnabled()) logger.trace("IPv4 address and found a prefix entry for the request path");
-                for (PeerMatch rule : ipAcl.getIpv4acl()) {
-                    if (rule.matches(address)) {
-                        if(logger.isTraceEnabled()) logger.trace("Found matched rule for address and rule isAllow {}", !rule.isDeny());
-                        return !rule.isDeny();
-                    }
-                }
-                // the path is defined but the IP is not in the list. Will allow if defaultAllow is false and will reject is defaultAllow is true
-                return !config.defaultAllow;
+                // the hashCode of the Inet4Address is the address as int, so there is no copy of the address bytes.
+                action = ipAcl.matchIpv4(address.hashCode(), address);
             }
         } else if(address instanceof Inet6Address) {
-            IpAcl ipAcl = findIpAcl(reqPath);
+            ipAcl = findIpAcl(reqPath);
             if(ipAcl != null) {
                 if(logger.isTraceEnabled()) logger.trace("IPv6 address {} and found a prefix entry for the request path {}", address, reqPath);
-                for (PeerMatch rule : ipAcl.getIpv6acl()) {
-                    if (rule.matches(address)) {
-                        if(logger.isTraceEnabled()) logger.trace("Found matched rule for address and rule isAllow {}", !rule.isDeny());
-                        return !rule.isDeny();
-                    }
-                }
-                // the path is defined but the IP is not in the list. Will allow if defaultAllow is false and will reject is defaultAllow is true
-                return !config.defaultAllow;
+                action = ipAcl.matchIpv6(address.getAddress(), address);
             }
+        } else {
+            ipAcl = null;
         }
-        if(logger.isTraceEnabled()) logger.trace("No matched path is found. isWhitelist is {} and defaultAllow is {}", isWhitelisted, config.defaultAllow);
+        if(ipAcl != null) {
+            if(action != IpTrie.NO_MATCH) {
+                if(logger.isTraceEnabled()) logger.trace("Found matched rule for address and rule isAllow {}", action == IpTrie.ALLOW);
+                return action == IpTrie.ALLOW;
+            }
+            // the path is defined but the IP is not in the list. Will allow if defaultAllow is false and will reject is defaultAllow is true
+            return !config.defaultAllow;
+        }
+        if(logger.isTraceEnabled()) logger.trace("No matched path is found. defaultAllow is {}", config.defaultAllow);
         return config.defaultAllow;
     }
 
-
-
     abstract static class PeerMatch {
 
         private final boolean deny;
@@ -156,6 +148,16 @@ public class WhitelistHandler implements MiddlewareHandler {
 
         abstract boolean matches(final InetAddress address);
 
+        /**
+         * @return the number of leading bits of the network or -1 if the rule is not a network prefix.
+         */
+        abstract int prefixLength();
+
+        /**
+         * @return the address bytes of the network in the network order.
+         */
+        abstract byte[] prefixBytes();
+
         boolean isDeny() {
             return deny;
         }
@@ -182,6 +184,16 @@ public class WhitelistHandler implements MiddlewareHandler {
         boolean matches(final InetAddress address) {
             return Arrays.equals(address.getAddress(), this.address);
         }
+
+        @Override
+        int prefixLength() {
+            return 32;
+        }
+
+        @Override
+        byte[] prefixBytes() {
+            return address;
+        }
     }
 
     static class ExactIpV6PeerMatch extends WhitelistHandler.PeerMatch {
@@ -197,6 +209,16 @@ public class WhitelistHandler implements MiddlewareHandler {
         boolean matches(final InetAddress address) {
             return Arrays.equals(address.getAddress(), this.address);
         }
+
+        @Override
+        int prefixLength() {
+            return 128;
+        }
+
+        @Override
+        byte[] prefixBytes() {
+            return address;
+        }
     }
 
     static class PrefixIpV4PeerMatch extends WhitelistHandler.PeerMatch {
@@ -219,6 +241,19 @@ public class WhitelistHandler implements MiddlewareHandler {
             int addressInt = ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
             return (addressInt & mask) == prefix;
         }
+
+        @Override
+        int prefixLength() {
+            // the mask is a network prefix if all the one bits are on the left.
+            int inverted = ~mask;
+            return (inverted & (inverted + 1)) == 0 ? Integer.bitCount(mask) : -1;
+        }
+
+        @Override
+        byte[] prefixBytes() {
+            int network = prefix & mask;
+            return new byte[] {(byte)(network >>> 24), (byte)(network >>> 16), (byte)(network >>> 8), (byte)network};
+        }
     }
 
     static class PrefixIpV6PeerMatch extends WhitelistHandler.PeerMatch {
@@ -249,5 +284,34 @@ public class WhitelistHandler implements MiddlewareHandler {
             }
             return true;
         }
+
+        @Override
+        int prefixLength() {
+            int length = 0;
+            boolean ended = false;
+            for (byte b : mask) {
+                int bits = b & 0xFF;
+                if (ended) {
+                    if (bits != 0) return -1;
+                } else if (bits == 0xFF) {
+                    length += 8;
+                } else {
+                    int inverted = ~bits & 0xFF;
+                    if ((inverted & (inverted + 1)) != 0) return -1;
+                    length += Integer.bitCount(bits);
+                    ended = true;
+                }
+            }
+            return length;
+        }
+
+        @Override
+        byte[] prefixBytes() {
+            byte[] network = new byte[prefix.length];
+            for (int i = 0; i < prefix.length; ++i) {
+                network[i] = (byte) (prefix[i] & mask[i]);
+            }
+            return network;
+        }
     }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.whitelist;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetAddress;
+
+public class IpTrieTest {
+    private static int toInt(String ip) throws Exception {
+        return InetAddress.getByName(ip).hashCode();
+    }
+
+    @Test
+    public void testIpv4LongestPrefix() throws Exception {
+        IpTrie trie = new IpTrie(32);
+        trie.add(InetAddress.getByName("10.0.0.0").getAddress(), 8, false);
+        trie.add(InetAddress.getByName("10.1.0.0").getAddress(), 16, true);
+        trie.add(InetAddress.getByName("10.1.2.3").getAddress(), 32, false);
+        Assert.assertEquals(IpTrie.ALLOW, trie.match(toInt("10.2.3.4")));
+        Assert.assertEquals(IpTrie.DENY, trie.match(toInt("10.1.9.9")));
+        Assert.assertEquals(IpTrie.ALLOW, trie.match(toInt("10.1.2.3")));
+        Assert.assertEquals(IpTrie.NO_MATCH, trie.match(toInt("11.1.2.3")));
+    }
+
+    @Test
+    public void testIpv6Prefix() throws Exception {
+        IpTrie trie = new IpTrie(128);
+        trie.add(InetAddress.getByName("fe80:0:0:0:0:0:0:0").getAddress(), 64, false);
+        Assert.assertEquals(IpTrie.ALLOW, trie.match(InetAddress.getByName("fe80:0:0:0:1:2:3:4").getAddress()));
+        Assert.assertEquals(IpTrie.NO_MATCH, trie.match(InetAddress.getByName("fe81:0:0:0:1:2:3:4").getAddress()));
+    }
+
+    @Test
+    public void testAclWithWildcard() throws Exception {
+        IpAcl acl = new IpAcl();
+        acl.getIpv4acl().add(new WhitelistHandler.PrefixIpV4PeerMatch(false, "127.0.0.*", 0xFFFFFF00, 0x7F000000));
+        // 10.*.0.1 is not a network prefix and falls back to the rule list.
+        acl.getIpv4acl().add(new WhitelistHandler.PrefixIpV4PeerMatch(false, "10.*.0.1", 0xFF00FFFF, 0x0A000001));
+        acl.compile();
+        InetAddress local = InetAddress.getByName("127.0.0.5");
+        InetAddress wildcard = InetAddress.getByName("10.9.0.1");
+        InetAddress other = InetAddress.getByName("10.9.0.2");
+        Assert.assertEquals(IpTrie.ALLOW, acl.matchIpv4(local.hashCode(), local));
+        Assert.assertEquals(IpTrie.ALLOW, acl.matchIpv4(wildcard.hashCode(), wildcard));
+        Assert.assertEquals(IpTrie.NO_MATCH, acl.matchIpv4(other.hashCode(), other));
+    }
+}
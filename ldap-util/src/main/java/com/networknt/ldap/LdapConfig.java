@@ -7,6 +7,9 @@ public class LdapConfig {
     String credential;
     String searchFilter;
     String searchBase;
+    int poolMaxSize = 8;
+    long poolValidationInterval = 30000;
+    long poolBorrowTimeout = 5000;
 
     public String getUri() {
         return uri;
@@ -45,4 +48,16 @@ public class LdapConfig {
     public String getSearchBase() { return searchBase; }
 
     public void setSearchBase(String searchBase) { this.searchBase = searchBase; }
+
+    public int getPoolMaxSize() { return poolMaxSize; }
+
+    public void setPoolMaxSize(int poolMaxSize) { this.poolMaxSize = poolMaxSize; }
+
+    public long getPoolValidationInterval() { return poolValidationInterval; }
+
+    public void setPoolValidationInterval(long poolValidationInterval) { this.poolValidationInterval = poolValidationInterval; }
+
+    public long getPoolBorrowTimeout() { return poolBorrowTimeout; }
+
+    public void setPoolBorrowTimeout(long poolBorrowTimeout) { this.poolBorrowTimeout = poolBorrowTimeout; }
 }
@@ -0,0 +1,135 @@
+package com.networknt.ldap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.naming.NamingException;
+import javax.naming.directory.DirContext;
+import java.util.Hashtable;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pool of LDAP contexts bound with the service account in the ldap.yml. The contexts are used to search
+ * the directory so that each authentication doesn't need to open a new TCP connection, do the TLS handshake
+ * and bind again. An idle context is validated with a lookup of the base entry before it is handed out if it
+ * has not been used for the poolValidationInterval, and a context that fails the validation is closed and
+ * replaced with a new one.
+ *
+ * @author Steve Hu
+ */
+public class LdapContextPool {
+    private static final Logger logger = LoggerFactory.getLogger(LdapContextPool.class);
+    private static final String[] NO_ATTRIBUTES = new String[0];
+
+    private final LdapConfig config;
+    private final Hashtable<String, String> env;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<PooledContext> idle = new ConcurrentLinkedDeque<>();
+    private volatile boolean closed;
+
+    public LdapContextPool(LdapConfig config, Hashtable<String, String> env) {
+        this.config = config;
+        this.env = env;
+        this.permits = new Semaphore(Math.max(1, config.getPoolMaxSize()));
+    }
+
+    /**
+     * Borrow a context from the pool. A new context is created if there is no idle one. The caller must
+     * return the context with the release method.
+     *
+     * @return DirContext bound with the service account
+     * @throws NamingException if a context cannot be created or the pool is exhausted
+     */
+    public DirContext borrow() throws NamingException {
+        if(closed) throw new IllegalStateException("LdapContextPool is closed");
+        try {
+            if(!permits.tryAcquire(config.getPoolBorrowTimeout(), TimeUnit.MILLISECONDS)) {
+                throw new NamingException("Timeout while waiting for a pooled LDAP context");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NamingException("Interrupted while waiting for a pooled LDAP context");
+        }
+        try {
+            PooledContext pooled;
+            while((pooled = idle.pollFirst()) != null) {
+                if(System.currentTimeMillis() - pooled.lastUsed < config.getPoolValidationInterval() || isValid(pooled.ctx)) {
+                    return pooled.ctx;
+                }
+                if(logger.isDebugEnabled()) logger.debug("Pooled LDAP context failed the validation and is discarded");
+                closeQuietly(pooled.ctx);
+            }
+            return LdapUtil.newContext(env);
+        } catch (NamingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Return a borrowed context to the pool.
+     *
+     * @param ctx the context from the borrow method
+     * @param broken true if the context had a communication error and must not be reused
+     */
+    public void release(DirContext ctx, boolean broken) {
+        if(ctx == null) return;
+        try {
+            if(broken || closed) {
+                closeQuietly(ctx);
+            } else {
+                idle.offerFirst(new PooledContext(ctx, System.currentTimeMillis()));
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Close the pool and all the idle contexts. The contexts that are borrowed are closed when they are released.
+     */
+    public void close() {
+        closed = true;
+        PooledContext pooled;
+        while((pooled = idle.pollFirst()) != null) {
+            closeQuietly(pooled.ctx);
+        }
+    }
+
+    private static boolean isValid(DirContext ctx) {
+        try {
+            ctx.getAttributes("", NO_ATTRIBUTES);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(DirContext ctx) {
+        try {
+            ctx.close();
+        } catch (Exception e) {
+            if(logger.isTraceEnabled()) logger.trace("Failed to close LDAP context", e);
+        }
+    }
+
+    private static final class PooledContext {
+        private final DirContext ctx;
+        private final long lastUsed;
+
+        private PooledContext(DirContext ctx, long lastUsed) {
+            this.ctx = ctx;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
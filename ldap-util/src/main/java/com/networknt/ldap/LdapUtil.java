@@ -4,8 +4,11 @@ import com.networknt.config.Config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.naming.CommunicationException;
 import javax.naming.Context;
 import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
 import javax.naming.directory.*;
 import java.util.HashSet;
 import java.util.Hashtable;
@@ -22,6 +25,10 @@ public class LdapUtil {
     private final static String CONFIG_LDAP = "ldap";
 
     private final static LdapConfig config = (LdapConfig)Config.getInstance().getJsonObjectConfig(CONFIG_LDAP, LdapConfig.class);
+    // the searchFilter split by the %s placeholder so that the filter can be built without String.format.
+    private final static String[] filterParts = config.searchFilter == null ? new String[] {""} : config.searchFilter.split("%s", -1);
+    private final static LdapContextPool pool = new LdapContextPool(config, serviceEnv());
+
     /**
      * Bind the username and password with LDAP context to verify the password. Return true
      * if there is no NamingException. No further activity to retrieve group or memberOf
@@ -62,11 +69,12 @@ public class LdapUtil {
     public static Set<String> authorize(String username) {
         Set<String> groups = new HashSet();
         DirContext ctx = null;
+        boolean broken = false;
         try {
-            ctx = ldapContext();
+            ctx = pool.borrow();
             SearchControls ctrls = new SearchControls();
             ctrls.setSearchScope(SearchControls.SUBTREE_SCOPE);
-            String filter = String.format(config.searchFilter, username);
+            String filter = searchFilter(username);
             NamingEnumeration<SearchResult> results = ctx.search(config.searchBase, filter, ctrls);
             if(!results.hasMore()) {
                 logger.error("Principal name '" + username + "' not found");
@@ -83,11 +91,10 @@ public class LdapUtil {
             }
         } catch (Exception e) {
             logger.error("Failed to authorize user " + username, e);
+            broken = e instanceof CommunicationException || e instanceof ServiceUnavailableException;
             return null;
         } finally {
-            try {
-                if(ctx != null) ctx.close();
-            } catch(Exception e) {}
+            pool.release(ctx, broken);
         }
         return groups;
     }
@@ -107,54 +114,91 @@ public class LdapUtil {
         return null;
     }
 
-    private static DirContext ldapContext () throws Exception {
+    private static Hashtable<String,String> serviceEnv() {
         Hashtable<String,String> env = new Hashtable <String,String>();
-        return ldapContext(env);
-    }
-
-    private static DirContext ldapContext (Hashtable<String,String> env) throws Exception {
         env.put(Context.INITIAL_CONTEXT_FACTORY, contextFactory);
-        env.put(Context.PROVIDER_URL, config.getUri());
-        if(config.getUri().toUpperCase().startsWith("LDAPS://")) {
-            env.put(Context.SECURITY_PROTOCOL, "ssl");
-            env.put("java.naming.ldap.factory.socket", "com.networknt.ldap.LdapSSLSocketFactory");
+        if(config.getUri() != null) {
+            env.put(Context.PROVIDER_URL, config.getUri());
+            if(config.getUri().toUpperCase().startsWith("LDAPS://")) {
+                env.put(Context.SECURITY_PROTOCOL, "ssl");
+                env.put("java.naming.ldap.factory.socket", "com.networknt.ldap.LdapSSLSocketFactory");
+            }
         }
         env.put(Context.SECURITY_AUTHENTICATION, "simple");
-        env.put(Context.SECURITY_PRINCIPAL, config.getPrincipal());
-        env.put(Context.SECURITY_CREDENTIALS, config.getCredential());
+        if(config.getPrincipal() != null) env.put(Context.SECURITY_PRINCIPAL, config.getPrincipal());
+        if(config.getCredential() != null) env.put(Context.SECURITY_CREDENTIALS, config.getCredential());
+        return env;
+    }
 
-        DirContext ctx = new InitialDirContext(env);
-        return ctx;
+    static LdapContextPool getPool() {
+        return pool;
     }
 
-    private static String getUid (String username) throws Exception {
-        DirContext ctx = ldapContext();
-        String filter = String.format(config.searchFilter, username);
-        SearchControls ctrl = new SearchControls();
-        ctrl.setSearchScope(SearchControls.SUBTREE_SCOPE);
-        NamingEnumeration answer = ctx.search(config.searchBase, filter, ctrl);
-
-        String dn;
-        if (answer.hasMore()) {
-            SearchResult result = (SearchResult) answer.next();
-            dn = result.getNameInNamespace();
+    static DirContext newContext(Hashtable<String,String> env) throws NamingException {
+        // InitialDirContext may change the environment, so a copy is passed in.
+        return new InitialDirContext(new Hashtable<>(env));
+    }
+
+    /**
+     * Build the search filter for the username. The special characters in the username are escaped
+     * based on RFC 4515 so that the username cannot change the filter.
+     *
+     * @param username String
+     * @return the search filter
+     */
+    static String searchFilter(String username) {
+        StringBuilder sb = new StringBuilder(config.searchFilter == null ? 16 : config.searchFilter.length() + username.length() + 8);
+        for(int i = 0; i < filterParts.length; i++) {
+            if(i > 0) escape(sb, username);
+            sb.append(filterParts[i]);
         }
-        else {
-            dn = null;
+        return sb.toString();
+    }
+
+    private static void escape(StringBuilder sb, String value) {
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\': sb.append("\\5c"); break;
+                case '*': sb.append("\\2a"); break;
+                case '(': sb.append("\\28"); break;
+                case ')': sb.append("\\29"); break;
+                case '\0': sb.append("\\00"); break;
+                default: sb.append(c);
+            }
         }
-        answer.close();
-        return dn;
     }
 
-    private static boolean testBind (String dn, String password) throws Exception {
-        Hashtable<String,String> env = new Hashtable();
-        env.put(Context.INITIAL_CONTEXT_FACTORY, contextFactory);
-        env.put(Context.PROVIDER_URL, config.getUri());
-        if(config.getUri().toUpperCase().startsWith("LDAPS://")) {
-            env.put(Context.SECURITY_PROTOCOL, "ssl");
-            env.put("java.naming.ldap.factory.socket", "com.networknt.ldap.LdapSSLSocketFactory");
+    private static String getUid (String username) throws Exception {
+        DirContext ctx = pool.borrow();
+        boolean broken = false;
+        try {
+            String filter = searchFilter(username);
+            SearchControls ctrl = new SearchControls();
+            ctrl.setSearchScope(SearchControls.SUBTREE_SCOPE);
+            NamingEnumeration answer = ctx.search(config.searchBase, filter, ctrl);
+
+            String dn;
+            if (answer.hasMore()) {
+                SearchResult result = (SearchResult) answer.next();
+                dn = result.getNameInNamespace();
+            }
+            else {
+                dn = null;
+            }
+            answer.close();
+            return dn;
+        } catch (CommunicationException | ServiceUnavailableException e) {
+            broken = true;
+            throw e;
+        } finally {
+            pool.release(ctx, broken);
         }
-        env.put(Context.SECURITY_AUTHENTICATION, "simple");
+    }
+
+    private static boolean testBind (String dn, String password) throws Exception {
+        // the user bind needs its own connection as the pooled contexts are bound with the principal.
+        Hashtable<String,String> env = serviceEnv();
         env.put(Context.SECURITY_PRINCIPAL, dn);
         env.put(Context.SECURITY_CREDENTIALS, password);
         DirContext ctx = null;
@@ -42,4 +42,16 @@ public class LdapUtilTest {
         Assert.assertEquals(null, LdapUtil.auth(user, password));
     }
 	
+    @Test
+    public void testSearchFilterEscape() {
+        Assert.assertEquals("(&(uid=jduke)(objectClass=person))", LdapUtil.searchFilter("jduke"));
+        Assert.assertEquals("(&(uid=\\2a\\29\\28uid=\\5c)(objectClass=person))", LdapUtil.searchFilter("*)(uid=\\"));
+    }
+
+    @Test
+    public void testAuthorizationReusesPooledContext() throws Exception {
+        LdapUtil.authorize("jduke");
+        LdapUtil.authorize("jduke");
+        Assert.assertEquals(1, LdapUtil.getPool().getIdleCount());
+    }
 }
@@ -0,0 +1,238 @@
+package com.networknt.logging.handler;
+
+import ch.qos.logback.classic.Level;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Search a JSON log file for the entries in a time window without reading the whole file. The file is
+ * memory-mapped, and as the log entries are appended in time order, the first entry after the start time
+ * is found with a binary search on the byte offset. From there, only the timestamp, level and logger fields
+ * of each line are extracted until the end time is reached, and the full line is only decoded for the entries
+ * in the requested page.
+ *
+ * The file is mapped in segments, so it can be larger than 2GB. Only the size of the file at the time it is
+ * opened is searched. The searcher must be closed after the search to unmap the segments right away instead of
+ * waiting for the garbage collector, so that a log file that is rolled or deleted is not held by the mappings.
+ *
+ * The timestamp is parsed with the same SimpleDateFormat pattern as before, so the accepted formats are the
+ * same. A searcher is only used by one thread, so it has its own instance.
+ */
+final class LogFileSearcher implements Closeable {
+    static final String TIMESTAMP_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZZZZ";
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final byte[] TIMESTAMP_KEY = ("\"" + LoggerGetLogContentsHandler.TIMESTAMP_LOG_KEY + "\"").getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LEVEL_KEY = ("\"" + LoggerGetLogContentsHandler.LEVEL_LOG_KEY + "\"").getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LOGGER_KEY = ("\"" + LoggerGetLogContentsHandler.LOGGER_LOG_KEY + "\"").getBytes(StandardCharsets.US_ASCII);
+
+    private static final Method INVOKE_CLEANER;
+    private static final Object UNSAFE;
+
+    static {
+        Method invokeCleaner = null;
+        Object unsafe = null;
+        try {
+            // sun.misc.Unsafe.invokeCleaner is the supported way to unmap a buffer on Java 9 and later.
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // not available, the segments are unmapped by the garbage collector.
+        }
+        INVOKE_CLEANER = invokeCleaner;
+        UNSAFE = unsafe;
+    }
+
+    private final MappedByteBuffer[] segments;
+    private final long size;
+    private final SimpleDateFormat timestampFormat = new SimpleDateFormat(TIMESTAMP_FORMAT);
+
+    LogFileSearcher(String file) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            size = channel.size();
+            segments = new MappedByteBuffer[(int)((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+            for(int i = 0; i < segments.length; i++) {
+                long position = (long)i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+            }
+        }
+    }
+
+    /**
+     * The callback of the search for each entry in the requested page.
+     */
+    interface EntryConsumer {
+        void accept(String line) throws IOException;
+    }
+
+    /**
+     * Find the entries with the timestamp between the startTime and endTime exclusively, the level is greater or
+     * equal to the loggerLevel and the logger starts with the loggerName. The entries from the offset up to the
+     * limit are passed to the consumer.
+     *
+     * @param startTime start of the time window in milliseconds
+     * @param endTime end of the time window in milliseconds
+     * @param loggerName the logger name prefix or null for all the loggers
+     * @param loggerLevel the minimum level
+     * @param offset the number of matched entries to skip
+     * @param limit the maximum number of entries to pass to the consumer
+     * @param consumer EntryConsumer
+     * @return the total number of the matched entries in the time window
+     * @throws IOException if the consumer fails
+     */
+    int search(long startTime, long endTime, String loggerName, Level loggerLevel, int offset, int limit, EntryConsumer consumer) throws IOException {
+        int total = 0;
+        long start = findStart(startTime);
+        while(start < size) {
+            long end = lineEnd(start);
+            long time = timestamp(start, end);
+            if(time >= 0) {
+                if(time >= endTime) break;
+                if(time > startTime && matches(start, end, loggerName, loggerLevel)) {
+                    if(total >= offset && total - offset < limit) {
+                        consumer.accept(decode(start, end, StandardCharsets.UTF_8));
+                    }
+                    total++;
+                }
+            }
+            start = end + 1;
+        }
+        return total;
+    }
+
+    /**
+     * Binary search for the offset of the first line with a timestamp after the startTime. The lines without a
+     * timestamp are skipped. The result is a lower bound, and the caller still checks each line from there.
+     */
+    long findStart(long startTime) {
+        long lo = 0;
+        long hi = size;
+        while(lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            long line = nextLineStart(mid);
+            long time = -1;
+            while(line < hi) {
+                long end = lineEnd(line);
+                time = timestamp(line, end);
+                if(time >= 0) break;
+                line = end + 1;
+            }
+            if(line >= hi) {
+                hi = mid;
+            } else if(time > startTime) {
+                hi = line;
+            } else {
+                lo = lineEnd(line) + 1;
+            }
+        }
+        return lo;
+    }
+
+    private boolean matches(long start, long end, String loggerName, Level loggerLevel) {
+        String level = field(start, end, LEVEL_KEY);
+        if(level == null || !Level.valueOf(level.trim()).isGreaterOrEqual(loggerLevel)) return false;
+        if(loggerName == null) return true;
+        String logger = field(start, end, LOGGER_KEY);
+        return logger != null && logger.startsWith(loggerName);
+    }
+
+    private long timestamp(long start, long end) {
+        String value = field(start, end, TIMESTAMP_KEY);
+        if(value == null) return -1;
+        Date date = timestampFormat.parse(value, new ParsePosition(0));
+        return date == null ? -1 : date.getTime();
+    }
+
+    /**
+     * Extract the string value of a key in the JSON line without parsing the whole line.
+     */
+    private String field(long start, long end, byte[] key) {
+        long pos = indexOf(start, end, key);
+        if(pos < 0) return null;
+        pos += key.length;
+        while(pos < end && isSpace(get(pos))) pos++;
+        if(pos >= end || get(pos) != ':') return null;
+        pos++;
+        while(pos < end && isSpace(get(pos))) pos++;
+        if(pos >= end || get(pos) != '"') return null;
+        long valueStart = ++pos;
+        while(pos < end && get(pos) != '"') pos++;
+        return pos < end ? decode(valueStart, pos, StandardCharsets.UTF_8) : null;
+    }
+
+    private long indexOf(long start, long end, byte[] key) {
+        outer:
+        for(long i = start; i <= end - key.length; i++) {
+            for(int j = 0; j < key.length; j++) {
+                if(get(i + j) != key[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private long nextLineStart(long pos) {
+        if(pos == 0) return 0;
+        long i = pos - 1;
+        while(i < size && get(i) != '\n') i++;
+        return i + 1;
+    }
+
+    private long lineEnd(long start) {
+        long i = start;
+        while(i < size && get(i) != '\n') i++;
+        return i;
+    }
+
+    private String decode(long start, long end, Charset charset) {
+        byte[] bytes = new byte[(int)(end - start)];
+        for(int i = 0; i < bytes.length; i++) {
+            bytes[i] = get(start + i);
+        }
+        int length = bytes.length;
+        if(length > 0 && bytes[length - 1] == '\r') length--;
+        return new String(bytes, 0, length, charset);
+    }
+
+    private byte get(long pos) {
+        return segments[(int)(pos >>> SEGMENT_SHIFT)].get((int)(pos & (SEGMENT_SIZE - 1)));
+    }
+
+    /**
+     * Unmap the segments of the file. The searcher cannot be used afterward.
+     */
+    @Override
+    public void close() {
+        for(int i = 0; i < segments.length; i++) {
+            MappedByteBuffer segment = segments[i];
+            segments[i] = null;
+            if(segment != null && INVOKE_CLEANER != null) {
+                try {
+                    INVOKE_CLEANER.invoke(UNSAFE, segment);
+                } catch (ReflectiveOperationException e) {
+                    // leave it to the garbage collector.
+                }
+            }
+        }
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+}
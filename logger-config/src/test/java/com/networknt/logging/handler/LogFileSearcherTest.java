@@ -0,0 +1,167 @@
+package com.networknt.logging.handler;
+
+import ch.qos.logback.classic.Level;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.stream.Stream;
+
+public class LogFileSearcherTest {
+    // 2023-01-01T00:00:00Z
+    private static final long BASE = 1672531200000L;
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("log-search");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static String line(long time, String level, String logger, String message) {
+        SimpleDateFormat format = new SimpleDateFormat(LogFileSearcher.TIMESTAMP_FORMAT);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return line(format.format(new Date(time)), level, logger, message);
+    }
+
+    private static String line(String timestamp, String level, String logger, String message) {
+        return "{\"timestamp\":\"" + timestamp + "\",\"level\":\"" + level + "\",\"logger\":\"" + logger + "\",\"message\":\"" + message + "\"}";
+    }
+
+    /**
+     * One entry per second from BASE with the levels rotating, and a stack trace line after each ERROR entry.
+     */
+    private Path write(String name, long from, int count) throws IOException {
+        String[] levels = {"DEBUG", "INFO", "WARN", "ERROR"};
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String level = levels[i % levels.length];
+            String logger = i % 2 == 0 ? "com.networknt.client.Http2Client" : "com.networknt.handler.Handler";
+            lines.add(line(from + i * 1000L, level, logger, "message " + i));
+            if ("ERROR".equals(level)) lines.add("\tat com.networknt.handler.Handler.next(Handler.java:100)");
+        }
+        Path file = dir.resolve(name);
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<String> search(Path file, long startTime, long endTime, String loggerName, Level level, int offset, int limit, int[] total) throws IOException {
+        List<String> messages = new ArrayList<>();
+        try (LogFileSearcher searcher = new LogFileSearcher(file.toString())) {
+            total[0] = searcher.search(startTime, endTime, loggerName, level, offset, limit, line -> messages.add(line.substring(line.indexOf("message ") + 8, line.lastIndexOf('"'))));
+        }
+        return messages;
+    }
+
+    @Test
+    public void testTimeRangeIsExclusive() throws IOException {
+        Path file = write("app.log", BASE, 100);
+        int[] total = new int[1];
+        List<String> messages = search(file, BASE + 10_000, BASE + 20_000, null, Level.TRACE, 0, 100, total);
+        Assert.assertEquals(9, total[0]);
+        Assert.assertEquals("11", messages.get(0));
+        Assert.assertEquals("19", messages.get(messages.size() - 1));
+        // before the first and after the last entry
+        Assert.assertEquals(100, search(file, BASE - 1, BASE + 1_000_000, null, Level.TRACE, 0, 1000, total).size());
+        Assert.assertEquals(0, search(file, BASE + 99_000, BASE + 1_000_000, null, Level.TRACE, 0, 1000, total).size());
+        Assert.assertEquals(0, search(file, BASE - 10_000, BASE, null, Level.TRACE, 0, 1000, total).size());
+    }
+
+    @Test
+    public void testLevelAndLoggerFilter() throws IOException {
+        Path file = write("app.log", BASE, 100);
+        int[] total = new int[1];
+        List<String> messages = search(file, BASE - 1, BASE + 100_000, null, Level.WARN, 0, 100, total);
+        // WARN and ERROR are half of the entries
+        Assert.assertEquals(50, total[0]);
+        Assert.assertEquals("2", messages.get(0));
+        Assert.assertEquals("3", messages.get(1));
+        messages = search(file, BASE - 1, BASE + 100_000, "com.networknt.handler", Level.ERROR, 0, 100, total);
+        // the ERROR entries are the odd ones, all logged by the handler
+        Assert.assertEquals(25, total[0]);
+        Assert.assertEquals("3", messages.get(0));
+        search(file, BASE - 1, BASE + 100_000, "com.networknt.client", Level.ERROR, 0, 100, total);
+        Assert.assertEquals(0, total[0]);
+    }
+
+    @Test
+    public void testOffsetAndLimit() throws IOException {
+        Path file = write("app.log", BASE, 100);
+        int[] total = new int[1];
+        List<String> messages = search(file, BASE - 1, BASE + 100_000, null, Level.TRACE, 10, 5, total);
+        // the total counts all the matched entries, and only the page is passed to the consumer
+        Assert.assertEquals(100, total[0]);
+        Assert.assertEquals(5, messages.size());
+        Assert.assertEquals("10", messages.get(0));
+        Assert.assertEquals("14", messages.get(4));
+        Assert.assertTrue(search(file, BASE - 1, BASE + 100_000, null, Level.TRACE, 100, 5, total).isEmpty());
+        Assert.assertEquals(100, total[0]);
+    }
+
+    @Test
+    public void testRolledFile() throws IOException {
+        Path file = write("app.log", BASE, 50);
+        LogFileSearcher before = new LogFileSearcher(file.toString());
+        // roll over the file like the RollingFileAppender, and the new file starts after the rolled one.
+        Files.move(file, dir.resolve("app.2023-01-01.log"), StandardCopyOption.ATOMIC_MOVE);
+        write("app.log", BASE + 50_000, 50);
+
+        int[] total = new int[1];
+        List<String> messages = search(file, BASE - 1, BASE + 200_000, null, Level.TRACE, 0, 100, total);
+        Assert.assertEquals(50, total[0]);
+        Assert.assertEquals("0", messages.get(0));
+        search(file, BASE - 1, BASE + 50_000, null, Level.TRACE, 0, 100, total);
+        Assert.assertEquals(0, total[0]);
+        // the searcher opened before the roll over still searches the rolled content.
+        Assert.assertEquals(50, before.search(BASE - 1, BASE + 200_000, null, Level.TRACE, 0, 100, line -> {}));
+        before.close();
+        // the rolled file can be deleted once the searcher is closed.
+        Files.delete(dir.resolve("app.2023-01-01.log"));
+    }
+
+    @Test
+    public void testTimestampFormats() throws IOException {
+        // the RFC 822 offset written by the logback pattern and the general time zone are both accepted as before.
+        List<String> lines = new ArrayList<>();
+        lines.add(line("2023-01-01T00:00:01.000+0000", "INFO", "com.networknt.handler.Handler", "message 1"));
+        lines.add(line("2022-12-31T19:00:02.000-0500", "INFO", "com.networknt.handler.Handler", "message 2"));
+        lines.add(line("2023-01-01T01:00:03.000GMT+01:00", "INFO", "com.networknt.handler.Handler", "message 3"));
+        // the ISO offset is not accepted by the pattern and the entry is skipped.
+        lines.add(line("2023-01-01T00:00:04.000+00:00", "INFO", "com.networknt.handler.Handler", "message 4"));
+        Path file = dir.resolve("app.log");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        int[] total = new int[1];
+        List<String> messages = search(file, BASE, BASE + 10_000, null, Level.TRACE, 0, 100, total);
+        Assert.assertEquals(3, total[0]);
+        Assert.assertEquals("1", messages.get(0));
+        Assert.assertEquals("2", messages.get(1));
+        Assert.assertEquals("3", messages.get(2));
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        Path file = dir.resolve("empty.log");
+        Files.createFile(file);
+        int[] total = new int[1];
+        Assert.assertTrue(search(file, BASE - 1, BASE + 100_000, null, Level.TRACE, 0, 100, total).isEmpty());
+        Assert.assertEquals(0, total[0]);
+    }
+}
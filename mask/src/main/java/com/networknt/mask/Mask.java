@@ -16,7 +16,6 @@
 
 package com.networknt.mask;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.jayway.jsonpath.*;
 import com.networknt.config.Config;
 import com.networknt.utility.ModuleRegistry;
@@ -27,7 +26,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.InputStream;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -38,8 +37,6 @@ import java.util.regex.Pattern;
  */
 public class Mask {
 
-    static Map<String, Pattern> patternCache = new ConcurrentHashMap<>();
-
     private static final String MASK_CONFIG = "mask";
     public static final String MASK_REPLACEMENT_CHAR = "*";
     public static final String MASK_TYPE_STRING = "string";
@@ -48,9 +45,20 @@ public class Mask {
 
     static final Logger logger = LoggerFactory.getLogger(Mask.class);
     private static Map<String, Object> config;
+    private static volatile MaskRules rules;
 
     static {
         config = Config.getInstance().getJsonMapConfigNoCache(MASK_CONFIG);
+        rules = MaskRules.compile(config);
+        ModuleRegistry.registerModule(Mask.class.getName(), config, null);
+    }
+
+    /**
+     * Reload the mask.yml and rebuild the compiled rules. It is called by the config reload handler.
+     */
+    public static void reload() {
+        config = Config.getInstance().getJsonMapConfigNoCache(MASK_CONFIG);
+        rules = MaskRules.compile(config);
         ModuleRegistry.registerModule(Mask.class.getName(), config, null);
     }
 
@@ -65,18 +73,8 @@ public class Mask {
     public static String maskString(String input, String key) {
         if(input == null)
             return null;
-        String output = input;
-        Map<String, Object> stringConfig = (Map<String, Object>) config.get(MASK_TYPE_STRING);
-        if (stringConfig != null) {
-            Map<String, Object> keyConfig = (Map<String, Object>) stringConfig.get(key);
-            if (keyConfig != null) {
-                Set<String> patterns = keyConfig.keySet();
-                for (String pattern : patterns) {
-                    output = output.replaceAll(pattern, (String) keyConfig.get(pattern));
-                }
-            }
-        }
-        return output;
+        MaskRules.StringRule rule = rules.stringRules.get(key);
+        return rule == null ? input : rule.apply(input);
     }
 
     /**
@@ -89,31 +87,56 @@ public class Mask {
      * @return String Masked result
      */
     public static String maskRegex(String input, String key, String name) {
-        Map<String, Object> regexConfig = (Map<String, Object>) config.get(MASK_TYPE_REGEX);
-        if (regexConfig != null) {
-            Map<String, Object> keyConfig = (Map<String, Object>) regexConfig.get(key);
-            if (keyConfig != null) {
-                String regex = (String) keyConfig.get(name);
-                if (regex != null && regex.length() > 0) {
-                    return replaceWithMask(input, MASK_REPLACEMENT_CHAR.charAt(0), regex);
-                }
-            }
+        MaskRules.RegexRule rule = rules.getRegexRule(key, name);
+        return rule == null ? input : replaceWithMask(input, MASK_REPLACEMENT_CHAR.charAt(0), rule.pattern);
+    }
+
+    /**
+     * Resolve the regex rule for the key and name in the regex section once so that the caller can mask
+     * values repeatedly without looking up the rule for each value. If the mask config is reloaded, the
+     * returned function looks up the rule again from the new config.
+     *
+     * @param key   String The key maps to a list of name to pattern pair
+     * @param name  String The name of the pattern in the key list
+     * @return UnaryOperator that masks the input the same way as maskRegex or null if there is no pattern
+     */
+    public static UnaryOperator<String> compileRegex(String key, String name) {
+        final MaskRules compiled = rules;
+        final MaskRules.RegexRule rule = compiled.getRegexRule(key, name);
+        if (rule == null) {
+            return null;
+        }
+        return input -> rules == compiled ? replaceWithMask(input, MASK_REPLACEMENT_CHAR.charAt(0), rule.pattern) : maskRegex(input, key, name);
+    }
+
+    /**
+     * Resolve the regex rules of all the names under the key in the regex section once. It is used when the names
+     * are only known from the request, for example, the query parameters or cookies, so that a value is masked with
+     * one lookup of its name in the returned map. The names added to the key on a reload are not in the map.
+     *
+     * @param key   String The key maps to a list of name to pattern pair
+     * @return Map of the name to the function that masks the input the same way as maskRegex
+     */
+    public static Map<String, UnaryOperator<String>> compileRegexes(String key) {
+        Map<String, MaskRules.RegexRule> named = rules.regexRules.get(key);
+        if (named == null) {
+            return Collections.emptyMap();
         }
-        return input;
+        Map<String, UnaryOperator<String>> masks = new HashMap<>();
+        for (String name : named.keySet()) {
+            UnaryOperator<String> mask = compileRegex(key, name);
+            if (mask != null) masks.put(name, mask);
+        }
+        return masks;
     }
 
-    private static String replaceWithMask(String stringToBeMasked, char maskingChar, String regex) {
+    private static String replaceWithMask(String stringToBeMasked, char maskingChar, Pattern pattern) {
         if (stringToBeMasked == null || stringToBeMasked.length() == 0)
             return stringToBeMasked;
         String replacementString = "";
         String padGroup;
-        if (!StringUtils.isEmpty(regex)) {
+        if (pattern != null) {
             try {
-                Pattern pattern = patternCache.get(regex);
-                if (pattern == null) {
-                    pattern = Pattern.compile(regex);
-                    patternCache.put(regex, pattern);
-                }
                 Matcher matcher = pattern.matcher(stringToBeMasked);
                 if (matcher.matches()) {
                     String currentGroup;
@@ -176,15 +199,12 @@ public class Mask {
     public static String maskJson(DocumentContext ctx, String key) {
         if(ctx == null)
             return null;
-        Map<String, Object> jsonConfig = (Map<String, Object>) config.get(MASK_TYPE_JSON);
-        if (jsonConfig != null) {
-            Map<String, Object> patternMap = (Map<String, Object>) jsonConfig.get(key);
-            if (patternMap != null) {
-                JsonNode configNode = Config.getInstance().getMapper().valueToTree(patternMap);
-                Iterator<Map.Entry<String, JsonNode>> iterator = configNode.fields();
-                while (iterator.hasNext()) {
-                    Map.Entry<String, JsonNode> entry = iterator.next();
-                    applyMask(entry, ctx);
+        Map<String, List<MaskRules.JsonRule>> jsonRules = rules.jsonRules;
+        if (jsonRules != null) {
+            List<MaskRules.JsonRule> ruleList = jsonRules.get(key);
+            if (ruleList != null) {
+                for (MaskRules.JsonRule rule : ruleList) {
+                    applyMask(rule, ctx);
                 }
                 return ctx.jsonString();
             } else {
@@ -194,16 +214,16 @@ public class Mask {
         return ctx.jsonString();
     }
 
-    private static void applyMask(Map.Entry<String, JsonNode> entry, DocumentContext ctx) {
+    private static void applyMask(MaskRules.JsonRule rule, DocumentContext ctx) {
         Object value;
-        String jsonPath = entry.getKey();
+        String jsonPath = rule.jsonPath;
         try {
             value = ctx.read(jsonPath);
             if (!(value instanceof String || value instanceof Integer || value instanceof List<?>)) {
                 logger.error("The value specified by path {} cannot be masked", jsonPath);
             } else {
                 if (!(value instanceof List<?>)) {
-                    ctx.set(jsonPath, replaceWithMask(value.toString(), MASK_REPLACEMENT_CHAR.charAt(0), entry.getValue().asText()));
+                    ctx.set(jsonPath, replaceWithMask(value.toString(), MASK_REPLACEMENT_CHAR.charAt(0), rule.pattern));
                 } else if(value instanceof List<?>){
                     for(Object ele : (List)value) {
                         if(!(ele instanceof String)) {
@@ -211,14 +231,14 @@ public class Mask {
                             return;
                         }
                     }
-                    maskList(ctx, jsonPath, entry.getValue().asText());
+                    maskList(ctx, jsonPath, rule.pattern);
                 }
             }
         } catch (PathNotFoundException e) {
             logger.warn("JsonPath {} could not be found.", jsonPath);
         }
     }
-    private static void maskList(DocumentContext ctx, String jsonPath, String expression) {
+    private static void maskList(DocumentContext ctx, String jsonPath, Pattern expression) {
         ctx.configuration().addOptions(Option.AS_PATH_LIST);
         Configuration conf = Configuration.builder().options(Option.AS_PATH_LIST).build();
         DocumentContext context = JsonPath.using(conf).parse(ctx.jsonString());
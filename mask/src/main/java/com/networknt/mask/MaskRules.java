@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.mask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The mask.yml compiled into lookup tables so that the mask methods don't need to walk the config map
+ * and compile the patterns for each call. The tables are immutable, and a new instance is created when
+ * the mask config is reloaded.
+ *
+ * string: key to a {@link StringRule} that applies all the replacements of the key.
+ * regex: key and name to a precompiled pattern.
+ * json: key to a list of json path and precompiled pattern pairs.
+ *
+ * @author Steve Hu
+ */
+final class MaskRules {
+    private static final Logger logger = LoggerFactory.getLogger(MaskRules.class);
+    // inline flags like (?i) are not scoped to the group in Java, and back references depend on the group numbers.
+    private static final Pattern NOT_COMBINABLE = Pattern.compile("\\\\[1-9]|\\\\k<|\\(\\?[a-zA-Z-]+[):]");
+    static final String COMBINE_STRING_RULES = "combineStringRules";
+
+    final Map<String, StringRule> stringRules;
+    final Map<String, Map<String, RegexRule>> regexRules;
+    // null if there is no json section in the config
+    final Map<String, List<JsonRule>> jsonRules;
+
+    private MaskRules(Map<String, StringRule> stringRules, Map<String, Map<String, RegexRule>> regexRules, Map<String, List<JsonRule>> jsonRules) {
+        this.stringRules = stringRules;
+        this.regexRules = regexRules;
+        this.jsonRules = jsonRules;
+    }
+
+    static MaskRules compile(Map<String, Object> config) {
+        Map<String, StringRule> stringRules = new HashMap<>();
+        Map<String, Map<String, RegexRule>> regexRules = new HashMap<>();
+        Map<String, List<JsonRule>> jsonRules = null;
+        if (config != null) {
+            Object combine = config.get(COMBINE_STRING_RULES);
+            boolean combineStringRules = combine != null && Boolean.parseBoolean(combine.toString());
+            Map<String, Object> stringConfig = (Map<String, Object>) config.get(Mask.MASK_TYPE_STRING);
+            if (stringConfig != null) {
+                for (Map.Entry<String, Object> entry : stringConfig.entrySet()) {
+                    if (entry.getValue() instanceof Map) {
+                        stringRules.put(entry.getKey(), StringRule.compile(entry.getKey(), (Map<String, Object>) entry.getValue(), combineStringRules));
+                    }
+                }
+            }
+            Map<String, Object> regexConfig = (Map<String, Object>) config.get(Mask.MASK_TYPE_REGEX);
+            if (regexConfig != null) {
+                for (Map.Entry<String, Object> entry : regexConfig.entrySet()) {
+                    if (entry.getValue() instanceof Map) {
+                        Map<String, RegexRule> rules = new HashMap<>();
+                        for (Map.Entry<String, Object> nameEntry : ((Map<String, Object>) entry.getValue()).entrySet()) {
+                            String regex = (String) nameEntry.getValue();
+                            if (regex != null && regex.length() > 0) {
+                                rules.put(nameEntry.getKey(), new RegexRule(regex));
+                            }
+                        }
+                        regexRules.put(entry.getKey(), rules);
+                    }
+                }
+            }
+            Map<String, Object> jsonConfig = (Map<String, Object>) config.get(Mask.MASK_TYPE_JSON);
+            if (jsonConfig != null) {
+                jsonRules = new HashMap<>();
+                for (Map.Entry<String, Object> entry : jsonConfig.entrySet()) {
+                    if (entry.getValue() instanceof Map) {
+                        List<JsonRule> rules = new ArrayList<>();
+                        for (Map.Entry<String, Object> pathEntry : ((Map<String, Object>) entry.getValue()).entrySet()) {
+                            rules.add(new JsonRule(pathEntry.getKey(), pathEntry.getValue() == null ? "" : pathEntry.getValue().toString()));
+                        }
+                        jsonRules.put(entry.getKey(), Collections.unmodifiableList(rules));
+                    }
+                }
+            }
+        }
+        return new MaskRules(stringRules, regexRules, jsonRules);
+    }
+
+    RegexRule getRegexRule(String key, String name) {
+        Map<String, RegexRule> rules = regexRules.get(key);
+        return rules == null ? null : rules.get(name);
+    }
+
+    /**
+     * All the replacements of a key in the string section. By default, the precompiled patterns are applied
+     * one by one in the order of the config like String.replaceAll, and the output of a rule is the input of
+     * the next one.
+     *
+     * If combineStringRules is set in mask.yml and the patterns and replacements are simple enough, they are
+     * combined into one alternation so that the input is scanned once and the leftmost matching pattern is
+     * replaced. The result is only the same if the patterns don't overlap and no rule matches the output of
+     * another one. For example, cd to Z followed by abcd to Q masks abcd to abZ sequentially but to Q combined.
+     */
+    static final class StringRule {
+        private final Pattern combined;
+        private final int[] groups;
+        private final Pattern[] patterns;
+        private final String[] replacements;
+
+        private StringRule(Pattern combined, int[] groups, Pattern[] patterns, String[] replacements) {
+            this.combined = combined;
+            this.groups = groups;
+            this.patterns = patterns;
+            this.replacements = replacements;
+        }
+
+        static StringRule compile(String key, Map<String, Object> keyConfig, boolean combine) {
+            List<Pattern> patterns = new ArrayList<>();
+            List<String> replacements = new ArrayList<>();
+            boolean combinable = combine && keyConfig.size() > 1;
+            for (Map.Entry<String, Object> entry : keyConfig.entrySet()) {
+                String replacement = entry.getValue() == null ? "" : entry.getValue().toString();
+                try {
+                    patterns.add(Pattern.compile(entry.getKey()));
+                } catch (PatternSyntaxException e) {
+                    logger.error("Invalid mask string pattern {} for key {}", entry.getKey(), key);
+                    continue;
+                }
+                replacements.add(replacement);
+                if (replacement.indexOf('$') >= 0 || replacement.indexOf('\\') >= 0 || NOT_COMBINABLE.matcher(entry.getKey()).find()) {
+                    combinable = false;
+                }
+            }
+            Pattern combined = null;
+            int[] groups = null;
+            if (combinable && patterns.size() > 1) {
+                StringBuilder sb = new StringBuilder();
+                groups = new int[patterns.size()];
+                int group = 1;
+                for (int i = 0; i < patterns.size(); i++) {
+                    if (i > 0) sb.append('|');
+                    sb.append('(').append(patterns.get(i).pattern()).append(')');
+                    groups[i] = group;
+                    group += 1 + patterns.get(i).matcher("").groupCount();
+                }
+                try {
+                    combined = Pattern.compile(sb.toString());
+                } catch (PatternSyntaxException e) {
+                    // duplicate named groups for example, fall back to the sequential replacements.
+                    combined = null;
+                    groups = null;
+                }
+            }
+            return new StringRule(combined, groups, patterns.toArray(new Pattern[0]), replacements.toArray(new String[0]));
+        }
+
+        boolean isCombined() {
+            return combined != null;
+        }
+
+        String apply(String input) {
+            if (combined == null) {
+                String output = input;
+                for (int i = 0; i < patterns.length; i++) {
+                    output = patterns[i].matcher(output).replaceAll(replacements[i]);
+                }
+                return output;
+            }
+            Matcher matcher = combined.matcher(input);
+            if (!matcher.find()) return input;
+            StringBuilder sb = new StringBuilder(input.length());
+            int last = 0;
+            do {
+                int i = 0;
+                while (i < groups.length - 1 && matcher.start(groups[i]) < 0) i++;
+                sb.append(input, last, matcher.start()).append(replacements[i]);
+                last = matcher.end();
+            } while (matcher.find());
+            return sb.append(input, last, input.length()).toString();
+        }
+    }
+
+    /**
+     * A regex or json rule with the pattern compiled. The pattern is null if the regex is empty or invalid,
+     * and the whole value will be masked in this case.
+     */
+    static class RegexRule {
+        final Pattern pattern;
+
+        RegexRule(String regex) {
+            Pattern p = null;
+            if (regex != null && regex.length() > 0) {
+                try {
+                    p = Pattern.compile(regex);
+                } catch (PatternSyntaxException e) {
+                    logger.error("Invalid mask regex {}", regex);
+                }
+            }
+            this.pattern = p;
+        }
+    }
+
+    static final class JsonRule extends RegexRule {
+        final String jsonPath;
+
+        JsonRule(String jsonPath, String regex) {
+            super(regex);
+            this.jsonPath = jsonPath;
+        }
+    }
+}
@@ -29,8 +29,13 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 
 public class MaskTest {
 
@@ -66,6 +71,86 @@ public class MaskTest {
         Assert.assertEquals("/v1/customer?sin=masked&password=******&number=----------------", output);
     }
 
+    private static MaskRules.StringRule stringRule(boolean combine, Map<String, Object> keyConfig) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(MaskRules.COMBINE_STRING_RULES, combine);
+        config.put(Mask.MASK_TYPE_STRING, Collections.singletonMap("uri", keyConfig));
+        return MaskRules.compile(config).stringRules.get("uri");
+    }
+
+    @Test
+    public void testMaskStringCombinedRule() {
+        Map<String, Object> keyConfig = new LinkedHashMap<String, Object>() {{
+            put("password=[^&]*", "password=******");
+            put("(num)ber=\\d{1,16}", "number=----------------");
+        }};
+        MaskRules.StringRule rule = stringRule(true, keyConfig);
+        Assert.assertTrue(rule.isCombined());
+        Assert.assertEquals("/v1?password=******&a=b&number=----------------&password=******",
+                rule.apply("/v1?password=secret&a=b&number=1234&password="));
+        Assert.assertEquals("/v1?a=b", rule.apply("/v1?a=b"));
+        // the rules don't overlap, so the result is the same as the sequential replacements.
+        MaskRules.StringRule sequential = stringRule(false, keyConfig);
+        Assert.assertFalse(sequential.isCombined());
+        Assert.assertEquals(sequential.apply("/v1?password=secret&a=b&number=1234&password="),
+                rule.apply("/v1?password=secret&a=b&number=1234&password="));
+    }
+
+    @Test
+    public void testMaskStringOverlappingRules() {
+        Map<String, Object> keyConfig = new LinkedHashMap<String, Object>() {{
+            put("cd", "Z");
+            put("abcd", "Q");
+        }};
+        // the rules are applied in order by default, so the first one wins even though it is not leftmost.
+        MaskRules.StringRule sequential = MaskRules.compile(Collections.singletonMap(Mask.MASK_TYPE_STRING,
+                Collections.singletonMap("uri", keyConfig))).stringRules.get("uri");
+        Assert.assertFalse(sequential.isCombined());
+        Assert.assertEquals("abZ", sequential.apply("abcd"));
+        // the combined scan replaces the leftmost match instead.
+        MaskRules.StringRule combined = stringRule(true, keyConfig);
+        Assert.assertTrue(combined.isCombined());
+        Assert.assertEquals("Q", combined.apply("abcd"));
+
+        // the output of a rule is masked by the rules after it only in the sequential replacements.
+        Map<String, Object> chained = new LinkedHashMap<String, Object>() {{
+            put("secret", "token");
+            put("token", "****");
+        }};
+        Assert.assertEquals("****", stringRule(false, chained).apply("secret"));
+        Assert.assertEquals("token", stringRule(true, chained).apply("secret"));
+    }
+
+    @Test
+    public void testMaskStringSequentialRule() {
+        // the replacement with group reference cannot be combined.
+        MaskRules.StringRule rule = MaskRules.compile(Collections.singletonMap(Mask.MASK_TYPE_STRING,
+                Collections.singletonMap("uri", new LinkedHashMap<String, Object>() {{
+                    put("(password)=[^&]*", "$1=******");
+                    put("sin=\\d{1,9}", "sin=masked");
+                }}))).stringRules.get("uri");
+        Assert.assertFalse(rule.isCombined());
+        Assert.assertEquals("/v1?password=******&sin=masked", rule.apply("/v1?password=secret&sin=123456789"));
+    }
+
+    @Test
+    public void testCompileRegex() {
+        UnaryOperator<String> masker = Mask.compileRegex("requestHeader", "header1");
+        Assert.assertNotNull(masker);
+        Assert.assertEquals("****", masker.apply("test"));
+        Assert.assertNull(Mask.compileRegex("requestHeader", "unknown"));
+        Mask.reload();
+        Assert.assertEquals("****", masker.apply("test"));
+    }
+
+    @Test
+    public void testCompileRegexes() {
+        Map<String, UnaryOperator<String>> maskers = Mask.compileRegexes("requestHeader");
+        Assert.assertEquals(2, maskers.size());
+        Assert.assertEquals("****", maskers.get("header2").apply("test"));
+        Assert.assertTrue(Mask.compileRegexes("unknown").isEmpty());
+    }
+
     @Test
     public void testMaskQueryParameter() {
         String test = "aaaa";
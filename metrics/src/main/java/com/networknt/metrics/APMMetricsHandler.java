@@ -74,6 +74,10 @@ public class APMMetricsHandler extends AbstractMetricsHandler {
                         .filter(MetricFilter.ALL)
                         .build(sender);
                 reporter.start(config.getReportInMinutes(), TimeUnit.MINUTES);
+                // the gauges of the other modules, client connection pools and retry budgets are read when the reporter runs.
+                GaugeMetricsUtil.trackGaugeMetrics(registry, commonTags);
+                ClientPoolMetricsUtil.trackClientPoolMetrics(registry, commonTags);
+                RetryMetricsUtil.trackRetryMetrics(registry, commonTags);
 
                 logger.info("apmmetrics is enabled and reporter is started");
             } catch (MalformedURLException e) {
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.metrics;
+
+import com.networknt.client.Http2Client;
+import com.networknt.client.simplepool.SimpleURIConnectionPool;
+import io.dropwizard.metrics.Gauge;
+import io.dropwizard.metrics.Metric;
+import io.dropwizard.metrics.MetricName;
+import io.dropwizard.metrics.MetricRegistry;
+import io.dropwizard.metrics.MetricRegistry.MetricBuilder;
+
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Register the gauges for the connection pools of the Http2Client so that the number of connections, the in-flight
+ * requests and the pool exhaustion are reported with the other metrics. The pools are created on the first request
+ * to each downstream, so the gauges are the totals of all the pools that exist when the reporter runs.
+ *
+ * @author Steve Hu
+ */
+public class ClientPoolMetricsUtil {
+
+    public static void trackClientPoolMetrics(final MetricRegistry registry, final Map<String, String> commonTags) {
+        track("connections", SimpleURIConnectionPool::getConnectionCount, registry, commonTags);
+        track("borrowed_connections", SimpleURIConnectionPool::getBorrowedConnectionCount, registry, commonTags);
+        track("in_flight", SimpleURIConnectionPool::getBorrowedTokenCount, registry, commonTags);
+        track("borrow_count", SimpleURIConnectionPool::getBorrowCount, registry, commonTags);
+        track("create_count", SimpleURIConnectionPool::getCreateCount, registry, commonTags);
+        track("close_count", SimpleURIConnectionPool::getCloseCount, registry, commonTags);
+        track("exhausted_count", SimpleURIConnectionPool::getExhaustedCount, registry, commonTags);
+        track("leak_count", SimpleURIConnectionPool::getLeakCount, registry, commonTags);
+    }
+
+    private static void track(String name, ToLongFunction<SimpleURIConnectionPool> value, final MetricRegistry registry, final Map<String, String> commonTags) {
+        MetricName mName = MetricRegistry.name("client_pool", name).tagged(commonTags);
+        registry.remove(mName);
+        registry.getOrAdd(mName, new MetricBuilder<Gauge<Long>>() {
+            @Override
+            public Gauge<Long> newMetric() {
+                return () -> {
+                    long total = 0;
+                    for(SimpleURIConnectionPool pool : Http2Client.getInstance().getConnectionPools().values()) {
+                        total += value.applyAsLong(pool);
+                    }
+                    return total;
+                };
+            }
+
+            @Override
+            public boolean isInstance(Metric metric) {
+                return Gauge.class.isInstance(metric);
+            }
+        });
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.metrics;
+
+import com.networknt.utility.GaugeProvider;
+import io.dropwizard.metrics.Gauge;
+import io.dropwizard.metrics.Metric;
+import io.dropwizard.metrics.MetricName;
+import io.dropwizard.metrics.MetricRegistry;
+import io.dropwizard.metrics.MetricRegistry.MetricBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+
+/**
+ * Register the gauges that other modules publish with the GaugeProvider service, for example, the statistics of
+ * the caches in the cache-manager and the adaptive limits of the rate-limit. The providers are loaded with the
+ * java.util.ServiceLoader, so the metrics module doesn't depend on the modules that report the gauges, and only
+ * the modules on the classpath are reported.
+ *
+ * @author Steve Hu
+ */
+public class GaugeMetricsUtil {
+    private static final Logger logger = LoggerFactory.getLogger(GaugeMetricsUtil.class);
+
+    public static void trackGaugeMetrics(final MetricRegistry registry, final Map<String, String> commonTags) {
+        for(GaugeProvider provider : ServiceLoader.load(GaugeProvider.class)) {
+            if(logger.isDebugEnabled()) logger.debug("Register the gauges of " + provider.getClass().getName());
+            provider.register((name, tags, value) -> track(name, tags, value, registry, commonTags));
+        }
+    }
+
+    private static void track(String name, Map<String, String> tags, Supplier<Number> value, final MetricRegistry registry, final Map<String, String> commonTags) {
+        MetricName mName = MetricRegistry.name(name).tagged(commonTags).tagged(tags);
+        registry.remove(mName);
+        registry.getOrAdd(mName, new MetricBuilder<Gauge<Number>>() {
+            @Override
+            public Gauge<Number> newMetric() {
+                return value::get;
+            }
+
+            @Override
+            public boolean isInstance(Metric metric) {
+                return Gauge.class.isInstance(metric);
+            }
+        });
+    }
+}
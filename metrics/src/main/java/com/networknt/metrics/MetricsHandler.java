@@ -72,6 +72,10 @@ public class MetricsHandler extends AbstractMetricsHandler {
                 if (config.enableJVMMonitor) {
                     createJVMMetricsReporter(influxDb);
                 }
+                // the gauges of the other modules, client connection pools and retry budgets are read when the reporter runs.
+                GaugeMetricsUtil.trackGaugeMetrics(registry, commonTags);
+                ClientPoolMetricsUtil.trackClientPoolMetrics(registry, commonTags);
+                RetryMetricsUtil.trackRetryMetrics(registry, commonTags);
 
                 logger.info("metrics is enabled and reporter is started");
             } catch (Exception e) {
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.metrics;
+
+import com.networknt.utility.RetryBudget;
+import io.dropwizard.metrics.Gauge;
+import io.dropwizard.metrics.Metric;
+import io.dropwizard.metrics.MetricName;
+import io.dropwizard.metrics.MetricRegistry;
+import io.dropwizard.metrics.MetricRegistry.MetricBuilder;
+
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Register the gauges for the retry budgets of the Http2Client and the ProxyHandler so that the number of retries
+ * and hedged requests, how many of them have won and how many are rejected by the budget are reported with the
+ * other metrics. The budgets are created on the first request to each target, so the gauges are the totals of all
+ * the budgets that exist when the reporter runs.
+ *
+ * @author Steve Hu
+ */
+public class RetryMetricsUtil {
+
+    public static void trackRetryMetrics(final MetricRegistry registry, final Map<String, String> commonTags) {
+        track("requests", RetryBudget::getRequests, registry, commonTags);
+        track("retries", RetryBudget::getRetries, registry, commonTags);
+        track("retry_wins", RetryBudget::getRetryWins, registry, commonTags);
+        track("hedges", RetryBudget::getHedges, registry, commonTags);
+        track("hedge_wins", RetryBudget::getHedgeWins, registry, commonTags);
+        track("rejected", RetryBudget::getRejected, registry, commonTags);
+    }
+
+    private static void track(String name, ToLongFunction<RetryBudget> value, final MetricRegistry registry, final Map<String, String> commonTags) {
+        MetricName mName = MetricRegistry.name("retry_budget", name).tagged(commonTags);
+        registry.remove(mName);
+        registry.getOrAdd(mName, new MetricBuilder<Gauge<Long>>() {
+            @Override
+            public Gauge<Long> newMetric() {
+                return () -> {
+                    long total = 0;
+                    for(RetryBudget budget : RetryBudget.getBudgets().values()) {
+                        total += value.applyAsLong(budget);
+                    }
+                    return total;
+                };
+            }
+
+            @Override
+            public boolean isInstance(Metric metric) {
+                return Gauge.class.isInstance(metric);
+            }
+        });
+    }
+}
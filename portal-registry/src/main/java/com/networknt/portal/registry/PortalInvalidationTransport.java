@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.portal.registry;
+
+import com.networknt.cache.InvalidationTransport;
+import com.networknt.config.Config;
+import com.networknt.portal.registry.client.PortalRegistryWebSocketClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * An InvalidationTransport of the cache-manager that sends the cache invalidation messages through a WebSocket
+ * connection to the light-portal controller, which relays them to all the instances connected to the same path.
+ * It can be used when the multicast is not available between the instances, for example, in a Kubernetes cluster.
+ *
+ * The connection is opened with the portalUrl in the portal-registry.yml, with http mapped to ws and https mapped
+ * to wss. When the connection is closed or fails, a reconnect is scheduled with an exponential backoff so that the
+ * instance keeps receiving the invalidation messages even if it never publishes one.
+ *
+ * @author Steve Hu
+ */
+public class PortalInvalidationTransport implements InvalidationTransport {
+    private static final Logger logger = LoggerFactory.getLogger(PortalInvalidationTransport.class);
+    static final String CACHE_PATH = "/ws/cache";
+    static final long INITIAL_RECONNECT_DELAY = 1000;
+    static final long MAX_RECONNECT_DELAY = 60000;
+
+    private final URI uri;
+    private final long initialDelay;
+    private final long maxDelay;
+    private final ScheduledExecutorService reconnectExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cache-invalidation-reconnect");
+        t.setDaemon(true);
+        return t;
+    });
+    private Consumer<String> listener;
+    private PortalRegistryWebSocketClient client;
+    private long reconnectDelay;
+    private boolean reconnectPending;
+    private boolean closed;
+
+    public PortalInvalidationTransport() {
+        this(toWebSocketUri(((PortalRegistryConfig) Config.getInstance().getJsonObjectConfig(PortalRegistryConfig.CONFIG_NAME, PortalRegistryConfig.class)).getPortalUrl()),
+                INITIAL_RECONNECT_DELAY, MAX_RECONNECT_DELAY);
+    }
+
+    PortalInvalidationTransport(URI uri, long initialDelay, long maxDelay) {
+        this.uri = uri;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.reconnectDelay = initialDelay;
+    }
+
+    /**
+     * Convert the portalUrl to the WebSocket uri of the cache path. http is mapped to ws and https to wss.
+     *
+     * @param url portalUrl in the portal-registry.yml
+     * @return WebSocket uri of the cache invalidation path
+     */
+    static URI toWebSocketUri(String url) {
+        int index = url.indexOf("://");
+        String scheme = url.substring(0, index).toLowerCase();
+        String wsScheme = "http".equals(scheme) || "ws".equals(scheme) ? "ws" : "wss";
+        return URI.create(wsScheme + url.substring(index) + CACHE_PATH);
+    }
+
+    @Override
+    public synchronized void start(Consumer<String> listener) throws IOException {
+        this.listener = listener;
+        this.closed = false;
+        connect();
+    }
+
+    @Override
+    public void publish(String message) {
+        PortalRegistryWebSocketClient c;
+        synchronized (this) {
+            if(client == null || !client.isOpen()) {
+                try {
+                    connect();
+                } catch (IOException e) {
+                    logger.error("Failed to connect to " + uri + " and the cache invalidation message is dropped", e);
+                    scheduleReconnect();
+                    return;
+                }
+            }
+            c = client;
+        }
+        c.send(message);
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if(client != null) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                if(logger.isDebugEnabled()) logger.debug("Failed to close the connection to " + uri, e);
+            }
+            client = null;
+        }
+    }
+
+    private synchronized void scheduleReconnect() {
+        if(closed || reconnectPending) return;
+        reconnectPending = true;
+        long delay = reconnectDelay;
+        reconnectDelay = Math.min(reconnectDelay * 2, maxDelay);
+        if(logger.isInfoEnabled()) logger.info("Reconnect to " + uri + " in " + delay + " ms");
+        reconnectExecutor.schedule(this::reconnect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void reconnect() {
+        reconnectPending = false;
+        if(closed || (client != null && client.isOpen())) return;
+        try {
+            connect();
+        } catch (IOException e) {
+            logger.error("Failed to reconnect to " + uri, e);
+            scheduleReconnect();
+        }
+    }
+
+    private void connect() throws IOException {
+        client = new PortalRegistryWebSocketClient(uri) {
+            @Override
+            public void onOpen() {
+                if(logger.isInfoEnabled()) logger.info("Cache invalidation connection to " + uri + " is opened");
+                synchronized (PortalInvalidationTransport.this) {
+                    reconnectDelay = initialDelay;
+                }
+            }
+
+            @Override
+            public void onMessage(String msg) {
+                listener.accept(msg);
+            }
+
+            @Override
+            public void onClose(int code, String reason) {
+                if(logger.isInfoEnabled()) logger.info("Cache invalidation connection is closed with code " + code + " and reason " + reason);
+                scheduleReconnect();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                logger.error("Cache invalidation connection error", e);
+                scheduleReconnect();
+            }
+        };
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.portal.registry;
+
+import io.undertow.Handlers;
+import io.undertow.Undertow;
+import io.undertow.websockets.core.AbstractReceiveListener;
+import io.undertow.websockets.core.BufferedTextMessage;
+import io.undertow.websockets.core.WebSocketChannel;
+import io.undertow.websockets.core.WebSockets;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test the PortalInvalidationTransport against a local WebSocket endpoint that relays the messages like the
+ * light-portal controller does.
+ *
+ * @author Steve Hu
+ */
+public class PortalInvalidationTransportTest {
+    private Undertow server;
+    private int port;
+    private final BlockingQueue<WebSocketChannel> channels = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() {
+        server = Undertow.builder()
+                .addHttpListener(0, "localhost")
+                .setHandler(Handlers.path().addPrefixPath(PortalInvalidationTransport.CACHE_PATH, Handlers.websocket((exchange, channel) -> {
+                    channels.add(channel);
+                    channel.getReceiveSetter().set(new AbstractReceiveListener() {
+                        @Override
+                        protected void onFullTextMessage(WebSocketChannel ws, BufferedTextMessage message) {
+                            // relay to all the other peers on the same path.
+                            for(WebSocketChannel peer : ws.getPeerConnections()) {
+                                if(peer != ws) WebSockets.sendText(message.getData(), peer, null);
+                            }
+                        }
+                    });
+                    channel.resumeReceives();
+                })))
+                .build();
+        server.start();
+        port = ((InetSocketAddress)server.getListenerInfo().get(0).getAddress()).getPort();
+    }
+
+    @After
+    public void tearDown() {
+        if(server != null) server.stop();
+    }
+
+    @Test
+    public void testWebSocketUri() {
+        Assert.assertEquals(URI.create("ws://localhost:8080/ws/cache"), PortalInvalidationTransport.toWebSocketUri("http://localhost:8080"));
+        Assert.assertEquals(URI.create("wss://lightapi.net/ws/cache"), PortalInvalidationTransport.toWebSocketUri("https://lightapi.net"));
+    }
+
+    @Test
+    public void testReceiveAndReconnect() throws Exception {
+        URI uri = PortalInvalidationTransport.toWebSocketUri("http://localhost:" + port);
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        PortalInvalidationTransport subscriber = new PortalInvalidationTransport(uri, 50, 1000);
+        PortalInvalidationTransport publisher = new PortalInvalidationTransport(uri, 50, 1000);
+        try {
+            subscriber.start(received::add);
+            WebSocketChannel first = channels.poll(5, TimeUnit.SECONDS);
+            Assert.assertNotNull(first);
+            publisher.start(msg -> {});
+            Assert.assertNotNull(channels.poll(5, TimeUnit.SECONDS));
+
+            publisher.publish("cache1|key1");
+            Assert.assertEquals("cache1|key1", received.poll(5, TimeUnit.SECONDS));
+
+            // the server drops the subscriber, which never publishes, so it must reconnect on its own.
+            first.sendClose();
+            first.close();
+            Assert.assertNotNull("subscriber did not reconnect", channels.poll(5, TimeUnit.SECONDS));
+
+            publisher.publish("cache1|key2");
+            Assert.assertEquals("cache1|key2", received.poll(5, TimeUnit.SECONDS));
+        } finally {
+            subscriber.close();
+            publisher.close();
+        }
+    }
+}
@@ -42,7 +42,19 @@ public class LimitConfig {
     private static final String ADDRESS = "address";
     private static final String CLIENT = "client";
     private static final String USER = "user";
+    private static final String ADAPTIVE = "adaptive";
+    private static final String ADAPTIVE_ALGORITHM = "adaptiveAlgorithm";
+    private static final String ADAPTIVE_KEY = "adaptiveKey";
+    private static final String ADAPTIVE_INITIAL_LIMIT = "adaptiveInitialLimit";
+    private static final String ADAPTIVE_MIN_LIMIT = "adaptiveMinLimit";
+    private static final String ADAPTIVE_MAX_LIMIT = "adaptiveMaxLimit";
+    private static final String ADAPTIVE_TIMEOUT = "adaptiveTimeout";
     public static final String SEPARATE_KEY = "#";
+    public static final String ALGORITHM_GRADIENT = "gradient";
+    public static final String ALGORITHM_AIMD = "aimd";
+    public static final String ADAPTIVE_KEY_SERVER = "server";
+    public static final String ADAPTIVE_KEY_ENDPOINT = "endpoint";
+    public static final String ADAPTIVE_KEY_SERVICE = "service";
 
 
     boolean enabled;
@@ -52,6 +64,13 @@ public class LimitConfig {
     String clientIdKeyResolver;
     String addressKeyResolver;
     String userIdKeyResolver;
+    boolean adaptive;
+    String adaptiveAlgorithm;
+    String adaptiveKey;
+    int adaptiveInitialLimit;
+    int adaptiveMinLimit;
+    int adaptiveMaxLimit;
+    int adaptiveTimeout;
 
     LimitKey key;
     List<LimitQuota> rateLimit;
@@ -197,6 +216,62 @@ public class LimitConfig {
         this.user = user;
     }
 
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    public String getAdaptiveAlgorithm() {
+        return adaptiveAlgorithm;
+    }
+
+    public void setAdaptiveAlgorithm(String adaptiveAlgorithm) {
+        this.adaptiveAlgorithm = adaptiveAlgorithm;
+    }
+
+    public String getAdaptiveKey() {
+        return adaptiveKey;
+    }
+
+    public void setAdaptiveKey(String adaptiveKey) {
+        this.adaptiveKey = adaptiveKey;
+    }
+
+    public int getAdaptiveInitialLimit() {
+        return adaptiveInitialLimit;
+    }
+
+    public void setAdaptiveInitialLimit(int adaptiveInitialLimit) {
+        this.adaptiveInitialLimit = adaptiveInitialLimit;
+    }
+
+    public int getAdaptiveMinLimit() {
+        return adaptiveMinLimit;
+    }
+
+    public void setAdaptiveMinLimit(int adaptiveMinLimit) {
+        this.adaptiveMinLimit = adaptiveMinLimit;
+    }
+
+    public int getAdaptiveMaxLimit() {
+        return adaptiveMaxLimit;
+    }
+
+    public void setAdaptiveMaxLimit(int adaptiveMaxLimit) {
+        this.adaptiveMaxLimit = adaptiveMaxLimit;
+    }
+
+    public int getAdaptiveTimeout() {
+        return adaptiveTimeout;
+    }
+
+    public void setAdaptiveTimeout(int adaptiveTimeout) {
+        this.adaptiveTimeout = adaptiveTimeout;
+    }
+
     Map<String, Object> getMappedConfig() {
         return mappedConfig;
     }
@@ -234,6 +309,20 @@ public class LimitConfig {
         if(object != null) {
             setUserIdKeyResolver((String) object);
         }
+        object = getMappedConfig().get(ADAPTIVE);
+        adaptive = object != null && (Boolean) object;
+        object = getMappedConfig().get(ADAPTIVE_ALGORITHM);
+        adaptiveAlgorithm = object != null ? (String) object : ALGORITHM_GRADIENT;
+        object = getMappedConfig().get(ADAPTIVE_KEY);
+        adaptiveKey = object != null ? (String) object : ADAPTIVE_KEY_SERVER;
+        object = getMappedConfig().get(ADAPTIVE_INITIAL_LIMIT);
+        adaptiveInitialLimit = object != null ? (int) object : 20;
+        object = getMappedConfig().get(ADAPTIVE_MIN_LIMIT);
+        adaptiveMinLimit = object != null ? (int) object : 1;
+        object = getMappedConfig().get(ADAPTIVE_MAX_LIMIT);
+        adaptiveMaxLimit = object != null ? (int) object : 1000;
+        object = getMappedConfig().get(ADAPTIVE_TIMEOUT);
+        adaptiveTimeout = object != null ? (int) object : 1000;
     }
 
     private void setRateLimitConfig() {
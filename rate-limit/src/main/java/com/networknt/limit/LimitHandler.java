@@ -20,6 +20,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.networknt.config.Config;
 import com.networknt.handler.Handler;
 import com.networknt.handler.MiddlewareHandler;
+import com.networknt.httpstring.AttachmentConstants;
+import com.networknt.httpstring.HttpStringConstants;
+import com.networknt.limit.adaptive.AdaptiveLimiter;
+import com.networknt.limit.adaptive.AdaptiveLimiterRegistry;
+import com.networknt.limit.adaptive.AimdLimitAlgorithm;
+import com.networknt.limit.adaptive.GradientLimitAlgorithm;
 import com.networknt.status.HttpStatus;
 import com.networknt.utility.Constants;
 import com.networknt.utility.ModuleRegistry;
@@ -30,18 +36,26 @@ import io.undertow.util.HttpString;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+
 /**
  * A handler which limits the maximum number of concurrent requests.  Requests beyond the limit will
  * be queued with limited size of queue. If the queue is full, then request will be dropped.
  *
+ * If the adaptive is true in the limit.yml, the limit of in-flight requests is estimated from the response
+ * time per server, endpoint or downstream service, and the requests over the limit are rejected with the
+ * ERR10083 status.
+ *
  * @author Steve Hu
  */
 public class LimitHandler implements MiddlewareHandler {
     static final Logger logger = LoggerFactory.getLogger(LimitHandler.class);
+    static final String ADAPTIVE_LIMIT_REACHED = "ERR10083";
 
     private volatile HttpHandler next;
     private static RateLimiter rateLimiter;
     private LimitConfig config;
+    private volatile AdaptiveLimiterRegistry limiters = new AdaptiveLimiterRegistry();
     private static final ObjectMapper mapper = Config.getInstance().getMapper();
 
 
@@ -68,6 +82,10 @@ public class LimitHandler implements MiddlewareHandler {
     @Override
     public void handleRequest(final HttpServerExchange exchange) throws Exception {
         if(logger.isDebugEnabled()) logger.debug("LimitHandler.handleRequest starts.");
+        if (config.isAdaptive()) {
+            handleAdaptive(exchange);
+            return;
+        }
         RateLimitResponse rateLimitResponse = rateLimiter.handleRequest(exchange, config.getKey());
         if (rateLimitResponse.allow) {
             if(logger.isDebugEnabled()) logger.debug("LimitHandler.handleRequest ends.");
@@ -84,6 +102,47 @@ public class LimitHandler implements MiddlewareHandler {
         }
     }
 
+    private void handleAdaptive(final HttpServerExchange exchange) throws Exception {
+        AdaptiveLimiterRegistry registry = limiters;
+        AdaptiveLimiter limiter = registry.getLimiter(resolveAdaptiveKey(exchange), this::createLimiter);
+        if (limiter == null) {
+            // too many endpoints or services, share the limit of the server.
+            limiter = registry.getLimiter(LimitConfig.ADAPTIVE_KEY_SERVER, this::createLimiter);
+        }
+        if (!limiter.tryAcquire()) {
+            if(logger.isDebugEnabled()) logger.debug("LimitHandler.handleRequest ends with the adaptive limit {} of {} reached.", limiter.getLimit(), limiter.getKey());
+            setExchangeStatus(exchange, ADAPTIVE_LIMIT_REACHED, limiter.getLimit(), limiter.getKey());
+            return;
+        }
+        final AdaptiveLimiter acquired = limiter;
+        final long startTime = System.nanoTime();
+        exchange.addExchangeCompleteListener((exchange1, nextListener) -> {
+            acquired.release(System.nanoTime() - startTime, exchange1.getStatusCode() >= 500);
+            nextListener.proceed();
+        });
+        if(logger.isDebugEnabled()) logger.debug("LimitHandler.handleRequest ends.");
+        Handler.next(exchange, next);
+    }
+
+    private String resolveAdaptiveKey(final HttpServerExchange exchange) {
+        String key = null;
+        if (LimitConfig.ADAPTIVE_KEY_ENDPOINT.equalsIgnoreCase(config.getAdaptiveKey())) {
+            Map<String, Object> auditInfo = exchange.getAttachment(AttachmentConstants.AUDIT_INFO);
+            if (auditInfo != null) {
+                key = (String) auditInfo.get(Constants.ENDPOINT_STRING);
+            }
+        } else if (LimitConfig.ADAPTIVE_KEY_SERVICE.equalsIgnoreCase(config.getAdaptiveKey())) {
+            key = exchange.getRequestHeaders().getFirst(HttpStringConstants.SERVICE_ID);
+        }
+        return key == null ? LimitConfig.ADAPTIVE_KEY_SERVER : key;
+    }
+
+    private AdaptiveLimiter createLimiter(String key) {
+        return new AdaptiveLimiter(key,
+                LimitConfig.ALGORITHM_AIMD.equalsIgnoreCase(config.getAdaptiveAlgorithm()) ? new AimdLimitAlgorithm() : new GradientLimitAlgorithm(),
+                config.getAdaptiveInitialLimit(), config.getAdaptiveMinLimit(), config.getAdaptiveMaxLimit(), config.getAdaptiveTimeout());
+    }
+
     @Override
     public HttpHandler getNext() {
         return next;
@@ -114,6 +173,7 @@ public class LimitHandler implements MiddlewareHandler {
         } catch (Exception e) {
             logger.error("Failed to recreate RateLimiter with reloaded config.", e);
         }
+        limiters = new AdaptiveLimiterRegistry();
         // after reload, we need to update the config in the module registry to ensure that server info returns the latest configuration.
         ModuleRegistry.registerModule(LimitHandler.class.getName(), config.getMappedConfig(), null);
     }
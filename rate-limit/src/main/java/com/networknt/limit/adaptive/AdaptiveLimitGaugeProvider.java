@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.limit.adaptive;
+
+import com.networknt.utility.GaugeProvider;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Publish the adaptive limiters of the LimitHandler to the metrics handlers so that the estimated limit, the
+ * in-flight requests and the rejected requests of each server, endpoint or downstream service are reported with
+ * the other metrics. The limiters are created on the first request of each key, so the gauges are registered when
+ * a limiter is created, and the key is added as the limit_key tag. A limiter created after a reload replaces the
+ * gauges of the previous one with the same key.
+ *
+ * @author Steve Hu
+ */
+public class AdaptiveLimitGaugeProvider implements GaugeProvider {
+
+    @Override
+    public void register(Registrar registrar) {
+        AdaptiveLimiterRegistry.addListener(limiter -> {
+            Map<String, String> tags = Collections.singletonMap("limit_key", limiter.getKey());
+            registrar.gauge("adaptive_limit.limit", tags, limiter::getLimit);
+            registrar.gauge("adaptive_limit.in_flight", tags, limiter::getInFlight);
+            registrar.gauge("adaptive_limit.rejected", tags, limiter::getRejected);
+        });
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.limit.adaptive;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of in-flight requests of one key to a limit that is estimated by a LimitAlgorithm.
+ * The response time of each request is added to a sample window, and the limit is updated once per window
+ * by the thread that completes the window. The request path only uses atomic counters.
+ *
+ * @author Steve Hu
+ */
+public class AdaptiveLimiter {
+    static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+    static final int MIN_SAMPLES = 10;
+
+    private final String key;
+    private final LimitAlgorithm algorithm;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long timeout;
+
+    private volatile double estimate;
+    private volatile int limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicLong rttSum = new AtomicLong();
+    private final AtomicInteger samples = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicBoolean overloaded = new AtomicBoolean();
+
+    /**
+     * @param key the server, endpoint or serviceId of the limiter
+     * @param algorithm the algorithm to estimate the limit
+     * @param initialLimit the limit before there are any measurements
+     * @param minLimit the minimum limit
+     * @param maxLimit the maximum limit
+     * @param timeout the response time in milliseconds that is considered as an overload
+     */
+    public AdaptiveLimiter(String key, LimitAlgorithm algorithm, int initialLimit, int minLimit, int maxLimit, long timeout) {
+        this.key = key;
+        this.algorithm = algorithm;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.timeout = TimeUnit.MILLISECONDS.toNanos(timeout);
+        this.estimate = bound(initialLimit);
+        this.limit = (int) estimate;
+    }
+
+    /**
+     * Take a slot for a new request if the number of in-flight requests is under the limit.
+     *
+     * @return true if the request can be handled, and release must be called when it is completed.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                int peak = maxInFlight.get();
+                while (current + 1 > peak && !maxInFlight.compareAndSet(peak, current + 1)) {
+                    peak = maxInFlight.get();
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release the slot of a completed request and record its response time.
+     *
+     * @param rtt the response time in nanoseconds
+     * @param failed true if the request has failed
+     */
+    public void release(long rtt, boolean failed) {
+        inFlight.decrementAndGet();
+        rttSum.addAndGet(rtt);
+        samples.incrementAndGet();
+        if (failed || rtt >= timeout) {
+            overloaded.set(true);
+        }
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= WINDOW && samples.get() >= MIN_SAMPLES && windowStart.compareAndSet(start, now)) {
+            updateLimit();
+        }
+    }
+
+    synchronized void updateLimit() {
+        int count = samples.getAndSet(0);
+        long sum = rttSum.getAndSet(0);
+        int peak = maxInFlight.getAndSet(inFlight.get());
+        boolean overload = overloaded.getAndSet(false);
+        if (count == 0) return;
+        estimate = bound(algorithm.update(estimate, sum / count, peak, overload));
+        limit = (int) estimate;
+    }
+
+    private double bound(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.limit.adaptive;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Keeps the adaptive limiters of the server, endpoints or downstream services of one LimitHandler. Each handler
+ * has its own registry, and the registry is replaced when the config is reloaded, so handlers never share or reset
+ * the limiters of each other. The number of limiters is capped in case there are too many endpoints or services,
+ * and the listeners are notified of every limiter created so that the metrics handlers can report it.
+ *
+ * @author Steve Hu
+ */
+public final class AdaptiveLimiterRegistry {
+    static final int MAX_LIMITERS = 1000;
+
+    private static final List<Consumer<AdaptiveLimiter>> listeners = new CopyOnWriteArrayList<>();
+    // the registries of the handlers, weakly referenced so that a registry replaced on reload can be collected.
+    private static final Set<AdaptiveLimiterRegistry> registries = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private final Map<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+
+    public AdaptiveLimiterRegistry() {
+        synchronized (registries) {
+            registries.add(this);
+        }
+    }
+
+    /**
+     * Get the limiter of the key or create it with the factory.
+     *
+     * @param key the server, endpoint or serviceId
+     * @param factory the function to create the limiter of the key
+     * @return the limiter or null if the maximum number of limiters has been reached
+     */
+    public AdaptiveLimiter getLimiter(String key, Function<String, AdaptiveLimiter> factory) {
+        AdaptiveLimiter limiter = limiters.get(key);
+        if (limiter != null) return limiter;
+        if (limiters.size() >= MAX_LIMITERS) return null;
+        AdaptiveLimiter created = factory.apply(key);
+        limiter = limiters.putIfAbsent(key, created);
+        if (limiter != null) return limiter;
+        for (Consumer<AdaptiveLimiter> listener : listeners) {
+            listener.accept(created);
+        }
+        return created;
+    }
+
+    public Map<String, AdaptiveLimiter> getLimiters() {
+        return Collections.unmodifiableMap(limiters);
+    }
+
+    /**
+     * Add a listener that is called for the existing limiters and every limiter created afterwards in any registry.
+     *
+     * @param listener Consumer of AdaptiveLimiter
+     */
+    public static void addListener(Consumer<AdaptiveLimiter> listener) {
+        listeners.add(listener);
+        List<AdaptiveLimiterRegistry> current;
+        synchronized (registries) {
+            current = new ArrayList<>(registries);
+        }
+        for (AdaptiveLimiterRegistry registry : current) {
+            registry.limiters.values().forEach(listener);
+        }
+    }
+
+    static void removeListener(Consumer<AdaptiveLimiter> listener) {
+        listeners.remove(listener);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.limit.adaptive;
+
+/**
+ * Additive increase and multiplicative decrease. The limit is increased by one when it has been used and
+ * reduced by the backoff ratio when a request in the window is overloaded.
+ *
+ * @author Steve Hu
+ */
+public class AimdLimitAlgorithm implements LimitAlgorithm {
+    static final double BACKOFF_RATIO = 0.9;
+
+    @Override
+    public double update(double limit, long rtt, int maxInFlight, boolean overloaded) {
+        if (overloaded) {
+            return limit * BACKOFF_RATIO;
+        }
+        // don't grow the limit if the traffic is not high enough to use it.
+        if (maxInFlight * 2 >= limit) {
+            return limit + 1;
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.limit.adaptive;
+
+/**
+ * A gradient algorithm based on the TCP Vegas congestion control. The long-term response time is an
+ * exponential moving average of the window response times. When requests start to queue in the service,
+ * the window response time grows over the long-term one and the gradient between them reduces the limit.
+ * A queue of the square root of the limit is added so that the limit can keep growing when there is no
+ * queueing. The failed requests are not used as the response time is the signal of the overload.
+ *
+ * @author Steve Hu
+ */
+public class GradientLimitAlgorithm implements LimitAlgorithm {
+    // the window response time can be 50 percent over the long-term one before the limit is reduced.
+    static final double TOLERANCE = 1.5;
+    static final double SMOOTHING = 0.2;
+    static final double LONG_RTT_WEIGHT = 0.05;
+
+    private double longRtt;
+
+    @Override
+    public double update(double limit, long rtt, int maxInFlight, boolean overloaded) {
+        if (longRtt == 0) {
+            longRtt = rtt;
+        } else {
+            longRtt = longRtt * (1 - LONG_RTT_WEIGHT) + rtt * LONG_RTT_WEIGHT;
+            // the response time has dropped a lot, so let the long-term one recover faster.
+            if (longRtt / rtt > 2) {
+                longRtt = longRtt * 0.95;
+            }
+        }
+        // don't grow the limit if the traffic is not high enough to use it.
+        if (maxInFlight * 2 < limit && rtt <= longRtt) {
+            return limit;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / rtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        return limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+    }
+
+    double getLongRtt() {
+        return longRtt;
+    }
+}
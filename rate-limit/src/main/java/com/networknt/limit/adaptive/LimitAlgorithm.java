@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.limit.adaptive;
+
+/**
+ * The algorithm that estimates the limit of in-flight requests from the measurements of a sample window.
+ * An instance is created for each AdaptiveLimiter and it is only called by one thread at a time, so it
+ * can keep its own state.
+ *
+ * @author Steve Hu
+ */
+public interface LimitAlgorithm {
+    /**
+     * Estimate the new limit.
+     *
+     * @param limit the current limit
+     * @param rtt the average response time of the window in nanoseconds
+     * @param maxInFlight the maximum number of in-flight requests in the window
+     * @param overloaded true if a request in the window has failed or exceeded the timeout
+     * @return the new limit before it is bounded by the min and max limits
+     */
+    double update(double limit, long rtt, int maxInFlight, boolean overloaded);
+}
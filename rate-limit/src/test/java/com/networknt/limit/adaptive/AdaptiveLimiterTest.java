@@ -0,0 +1,110 @@
+package com.networknt.limit.adaptive;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class AdaptiveLimiterTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static void window(AdaptiveLimiter limiter, int requests, long rtt, boolean failed) {
+        for (int i = 0; i < requests; i++) {
+            Assert.assertTrue(limiter.tryAcquire());
+        }
+        for (int i = 0; i < requests; i++) {
+            limiter.release(rtt, failed);
+        }
+        limiter.updateLimit();
+    }
+
+    @Test
+    public void testRejectOverLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("server", new AimdLimitAlgorithm(), 2, 1, 10, 1000);
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertFalse(limiter.tryAcquire());
+        Assert.assertEquals(1, limiter.getRejected());
+        limiter.release(MS, false);
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    public void testAimd() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("server", new AimdLimitAlgorithm(), 10, 1, 12, 1000);
+        window(limiter, 10, MS, false);
+        Assert.assertEquals(11, limiter.getLimit());
+        // the limit is not used, so it doesn't grow
+        window(limiter, 2, MS, false);
+        Assert.assertEquals(11, limiter.getLimit());
+        window(limiter, 11, MS, false);
+        window(limiter, 12, MS, false);
+        // bounded by the max limit
+        Assert.assertEquals(12, limiter.getLimit());
+        // slow responses reduce the limit
+        window(limiter, 5, 2000 * MS, false);
+        Assert.assertEquals(10, limiter.getLimit());
+        // failed responses reduce the limit
+        window(limiter, 5, MS, true);
+        Assert.assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    public void testGradient() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("server", new GradientLimitAlgorithm(), 20, 5, 200, 1000);
+        for (int i = 0; i < 20; i++) {
+            window(limiter, limiter.getLimit(), 10 * MS, false);
+        }
+        int grown = limiter.getLimit();
+        Assert.assertTrue("limit grows when the response time is stable " + grown, grown > 40);
+        // the service starts to queue the requests
+        for (int i = 0; i < 10; i++) {
+            window(limiter, limiter.getLimit(), 50 * MS, false);
+        }
+        Assert.assertTrue("limit is reduced when the response time grows " + limiter.getLimit(), limiter.getLimit() < grown);
+        for (int i = 0; i < 50; i++) {
+            window(limiter, limiter.getLimit(), 50 * MS, false);
+        }
+        Assert.assertTrue(limiter.getLimit() >= 5);
+    }
+
+    @Test
+    public void testRegistry() {
+        List<String> created = new ArrayList<>();
+        Consumer<AdaptiveLimiter> listener = limiter -> created.add(limiter.getKey());
+        AdaptiveLimiterRegistry registry = new AdaptiveLimiterRegistry();
+        AdaptiveLimiter existing = registry.getLimiter("server", k -> new AdaptiveLimiter(k, new AimdLimitAlgorithm(), 10, 1, 100, 1000));
+        AdaptiveLimiterRegistry.addListener(listener);
+        try {
+            // the listener is called for the existing limiters as well, including the ones of other registries.
+            Assert.assertTrue(created.contains("server"));
+            created.clear();
+            AdaptiveLimiter limiter = registry.getLimiter("/v1/pets@get", k -> new AdaptiveLimiter(k, new AimdLimitAlgorithm(), 10, 1, 100, 1000));
+            Assert.assertSame(limiter, registry.getLimiter("/v1/pets@get", k -> null));
+            Assert.assertEquals(Collections.singletonList("/v1/pets@get"), created);
+            for (int i = 2; i < AdaptiveLimiterRegistry.MAX_LIMITERS; i++) {
+                registry.getLimiter("/v1/pets/" + i, k -> new AdaptiveLimiter(k, new AimdLimitAlgorithm(), 10, 1, 100, 1000));
+            }
+            Assert.assertNull(registry.getLimiter("/v1/pets/other", k -> new AdaptiveLimiter(k, new AimdLimitAlgorithm(), 10, 1, 100, 1000)));
+            Assert.assertSame(existing, registry.getLimiter("server", k -> null));
+            Assert.assertEquals(AdaptiveLimiterRegistry.MAX_LIMITERS - 1, created.size());
+        } finally {
+            AdaptiveLimiterRegistry.removeListener(listener);
+        }
+    }
+
+    @Test
+    public void testRegistriesAreIndependent() {
+        AdaptiveLimiterRegistry first = new AdaptiveLimiterRegistry();
+        AdaptiveLimiterRegistry second = new AdaptiveLimiterRegistry();
+        AdaptiveLimiter limiter = first.getLimiter("server", k -> new AdaptiveLimiter(k, new AimdLimitAlgorithm(), 10, 1, 100, 1000));
+        Assert.assertNotSame(limiter, second.getLimiter("server", k -> new AdaptiveLimiter(k, new AimdLimitAlgorithm(), 10, 1, 100, 1000)));
+        Assert.assertSame(limiter, first.getLimiter("server", k -> null));
+        Assert.assertEquals(1, first.getLimiters().size());
+    }
+}
@@ -21,6 +21,7 @@ import com.networknt.status.Status;
 import com.networknt.exception.FrameworkException;
 import com.networknt.registry.NotifyListener;
 import com.networknt.registry.URL;
+import com.networknt.utility.ConcurrentHashSet;
 import com.networknt.utility.Constants;
 import com.networknt.utility.ModuleRegistry;
 import org.slf4j.Logger;
@@ -30,6 +31,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -47,9 +49,13 @@ public class DirectRegistry extends AbstractRegistry {
     private ConcurrentHashMap<URL, Object> subscribeUrls = new ConcurrentHashMap();
     private static Map<String, List<URL>> directUrls = new HashMap();
     private static DirectRegistryConfig config;
+    // the listeners are notified when the directUrls are reloaded.
+    private static final ConcurrentHashMap<URL, ConcurrentHashSet<NotifyListener>> listeners = new ConcurrentHashMap<>();
+    private static URL registryUrl;
 
     public DirectRegistry(URL url) {
         super(url);
+        registryUrl = getUrl();
         config = DirectRegistryConfig.load();
         if(config.directUrls != null) {
             ModuleRegistry.registerModule(DirectRegistry.class.getName(), Config.getInstance().getJsonMapConfigNoCache(DirectRegistryConfig.CONFIG_NAME), null);
@@ -122,13 +128,20 @@ public class DirectRegistry extends AbstractRegistry {
     @Override
     protected void doSubscribe(URL url, NotifyListener listener) {
         subscribeUrls.putIfAbsent(url, 1);
-        if(listener != null) listener.notify(this.getUrl(), doDiscover(url));
+        if(listener != null) {
+            listeners.computeIfAbsent(url, k -> new ConcurrentHashSet<>()).add(listener);
+            listener.notify(this.getUrl(), doDiscover(url));
+        }
     }
 
     @Override
     protected void doUnsubscribe(URL url, NotifyListener listener) {
         subscribeUrls.remove(url);
-        if(listener != null) listener.notify(this.getUrl(), doDiscover(url));
+        if(listener != null) {
+            Set<NotifyListener> urlListeners = listeners.get(url);
+            if(urlListeners != null) urlListeners.remove(listener);
+            listener.notify(this.getUrl(), doDiscover(url));
+        }
     }
 
     @Override
@@ -136,7 +149,7 @@ public class DirectRegistry extends AbstractRegistry {
         return createSubscribeUrl(subscribeUrl);
     }
 
-    private List<URL> createSubscribeUrl(URL subscribeUrl) {
+    private static List<URL> createSubscribeUrl(URL subscribeUrl) {
         String serviceId = subscribeUrl.getPath();
         String tag = subscribeUrl.getParameter(Constants.TAG_ENVIRONMENT);
         String key = tag == null ? serviceId : serviceId + "|" + tag;
@@ -157,5 +170,12 @@ public class DirectRegistry extends AbstractRegistry {
         config.reload();
         directUrls = config.getDirectUrls();
         if(directUrls != null) ModuleRegistry.registerModule(DirectRegistry.class.getName(), Config.getInstance().getJsonMapConfigNoCache(DirectRegistryConfig.CONFIG_NAME), null);
+        // the subscribers cache the discovered urls, so they are notified of the reloaded urls.
+        for (Map.Entry<URL, ConcurrentHashSet<NotifyListener>> entry : listeners.entrySet()) {
+            List<URL> urls = createSubscribeUrl(entry.getKey());
+            for (NotifyListener listener : entry.getValue()) {
+                listener.notify(registryUrl, urls);
+            }
+        }
     }
 }
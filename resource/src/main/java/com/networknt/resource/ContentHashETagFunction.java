@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.resource;
+
+import io.undertow.server.handlers.resource.PathResourceManager;
+import io.undertow.util.ETag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generate a strong ETag from the SHA-256 hash of the file content. Unlike an ETag from the modified time,
+ * the value is the same on all the instances that serve the same build. The hash is cached with the size
+ * and the modified time of the file and computed again once the file is changed.
+ *
+ * The hash is computed on the IO thread when the metadata of the file is not cached, so only the files up to
+ * the maxHashSize, normally the maxFileSize of the resource cache, are hashed. The larger files get an ETag
+ * from the size and the modified time. The cached hashes are kept in a bounded LRU map.
+ *
+ * @author Steve Hu
+ */
+public class ContentHashETagFunction implements PathResourceManager.ETagFunction {
+    private static final Logger logger = LoggerFactory.getLogger(ContentHashETagFunction.class);
+    private static final int MAX_ENTRIES = 10000;
+
+    private final long maxHashSize;
+    private final Map<Path, Entry> entries = new LinkedHashMap<Path, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, ContentHashETagFunction.Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * @param maxHashSize the maximum size of the file whose content is hashed
+     */
+    public ContentHashETagFunction(long maxHashSize) {
+        this.maxHashSize = maxHashSize;
+    }
+
+    @Override
+    public ETag generate(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if(!attributes.isRegularFile()) return null;
+            long size = attributes.size();
+            long modified = attributes.lastModifiedTime().toMillis();
+            if(size > maxHashSize) {
+                return new ETag(false, Long.toHexString(size) + "-" + Long.toHexString(modified));
+            }
+            Entry entry;
+            synchronized (entries) {
+                entry = entries.get(path);
+            }
+            if(entry != null && entry.size == size && entry.modified == modified) {
+                return entry.etag;
+            }
+            // hash outside of the lock so that the other files are not blocked.
+            ETag etag = new ETag(false, hash(path));
+            synchronized (entries) {
+                entries.put(path, new Entry(size, modified, etag));
+            }
+            return etag;
+        } catch (IOException e) {
+            logger.error("Failed to generate the ETag for " + path, e);
+            return null;
+        }
+    }
+
+    static String hash(Path path) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            try (InputStream is = Files.newInputStream(path)) {
+                int n;
+                while ((n = is.read(buffer)) > 0) {
+                    digest.update(buffer, 0, n);
+                }
+            }
+            // 16 bytes of the hash is enough to identify a version of the file.
+            byte[] bytes = digest.digest();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(bytes, 16));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is required for every Java platform.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        private final ETag etag;
+
+        private Entry(long size, long modified, ETag etag) {
+            this.size = size;
+            this.modified = modified;
+            this.etag = etag;
+        }
+    }
+}
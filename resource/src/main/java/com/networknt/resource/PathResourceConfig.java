@@ -24,6 +24,7 @@ public class PathResourceConfig {
     boolean prefix;
     int transferMinSize;
     boolean directoryListingEnabled;
+    ResourceCacheConfig cache;
 
     public PathResourceConfig() {
     }
@@ -68,4 +69,11 @@ public class PathResourceConfig {
         this.directoryListingEnabled = directoryListingEnabled;
     }
 
+    public ResourceCacheConfig getCache() {
+        return cache;
+    }
+
+    public void setCache(ResourceCacheConfig cache) {
+        this.cache = cache;
+    }
 }
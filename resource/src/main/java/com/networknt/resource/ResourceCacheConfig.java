@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.resource;
+
+/**
+ * The cache settings of a static resource path. It is the cache property of the path-resource.yml and each
+ * host in the virtual-host.yml. The cache is disabled by default and the files are read from the disk for
+ * each request.
+ *
+ * @author Steve Hu
+ */
+public class ResourceCacheConfig {
+    // cache the file content in direct buffers and invalidate it when the file is changed.
+    boolean enabled;
+    // the maximum number of the cached file metadata entries.
+    int metadataSize = 1024;
+    // the files larger than this size in bytes are not cached in memory and served with the transferMinSize.
+    long maxFileSize = 1048576;
+    // the maximum memory in bytes of the direct buffers for the file content.
+    int maxMemory = 67108864;
+    // the maximum age in milliseconds of a cache entry. -1 means the entry is kept until the file is changed.
+    int maxAge = -1;
+    // serve the .gz sibling of a file if it exists and the client accepts gzip.
+    boolean precompressed = true;
+    // generate the gzip variant of a text file on the first request and cache it in a temp directory.
+    boolean compressOnDemand;
+    // generate a strong ETag from the hash of the file content.
+    boolean etag = true;
+
+    public ResourceCacheConfig() {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMetadataSize() {
+        return metadataSize;
+    }
+
+    public void setMetadataSize(int metadataSize) {
+        this.metadataSize = metadataSize;
+    }
+
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public void setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    public int getMaxMemory() {
+        return maxMemory;
+    }
+
+    public void setMaxMemory(int maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(int maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public boolean isPrecompressed() {
+        return precompressed;
+    }
+
+    public void setPrecompressed(boolean precompressed) {
+        this.precompressed = precompressed;
+    }
+
+    public boolean isCompressOnDemand() {
+        return compressOnDemand;
+    }
+
+    public void setCompressOnDemand(boolean compressOnDemand) {
+        this.compressOnDemand = compressOnDemand;
+    }
+
+    public boolean isEtag() {
+        return etag;
+    }
+
+    public void setEtag(boolean etag) {
+        this.etag = etag;
+    }
+}
@@ -16,18 +16,102 @@
 
 package com.networknt.resource;
 
+import io.undertow.predicate.Predicates;
 import io.undertow.server.handlers.PathHandler;
 import io.undertow.server.handlers.builder.PredicatedHandler;
+import io.undertow.server.handlers.cache.DirectBufferCache;
+import io.undertow.server.handlers.encoding.ContentEncodedResourceManager;
+import io.undertow.server.handlers.encoding.ContentEncodingRepository;
+import io.undertow.server.handlers.encoding.GzipEncodingProvider;
+import io.undertow.server.handlers.resource.CachingResourceManager;
+import io.undertow.server.handlers.resource.PathResourceManager;
+import io.undertow.server.handlers.resource.PreCompressedResourceSupplier;
 import io.undertow.server.handlers.resource.ResourceHandler;
+import io.undertow.server.handlers.resource.ResourceManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * @author Nicholas Azar
  * Created on April 21, 2018
  */
 public class ResourceHelpers {
+    private static final Logger logger = LoggerFactory.getLogger(ResourceHelpers.class);
+    // the size of a slice in the direct buffer cache and the number of slices allocated together.
+    private static final int CACHE_SLICE_SIZE = 1024;
+    private static final int CACHE_SLICES_PER_PAGE = 10;
+    // the text files that are worth compressing on demand.
+    private static final String[] COMPRESSIBLE_SUFFIXES = {".html", ".htm", ".js", ".mjs", ".css", ".json", ".map", ".svg", ".txt", ".xml"};
+
+    /**
+     * Create a ResourceHandler for a base directory. If the cache is enabled, the files are served from direct
+     * buffers and the cache entries are invalidated by the file system watcher when the files are changed. The
+     * files larger than the maxFileSize of the cache are not cached and the files larger than the transferMinSize
+     * are sent with the zero copy file transfer.
+     *
+     * @param base the base directory of the files
+     * @param transferMinSize the minimum file size to be sent with the zero copy file transfer
+     * @param directoryListingEnabled if the directory listing is enabled
+     * @param cache the cache config and it can be null
+     * @return ResourceHandler
+     */
+    public static ResourceHandler createResourceHandler(String base, long transferMinSize, boolean directoryListingEnabled, ResourceCacheConfig cache) {
+        if(cache == null || !cache.isEnabled()) {
+            return new ResourceHandler(new PathResourceManager(Paths.get(base), transferMinSize))
+                    .setDirectoryListingEnabled(directoryListingEnabled);
+        }
+        PathResourceManager.Builder builder = PathResourceManager.builder()
+                .setBase(Paths.get(base))
+                .setTransferMinSize(transferMinSize)
+                .setAllowResourceChangeListeners(true);
+        if(cache.isEtag()) builder.setETagFunction(new ContentHashETagFunction(cache.getMaxFileSize()));
+        ResourceManager pathResourceManager = builder.build();
+        CachingResourceManager resourceManager = new CachingResourceManager(cache.getMetadataSize(), cache.getMaxFileSize(),
+                new DirectBufferCache(CACHE_SLICE_SIZE, CACHE_SLICES_PER_PAGE, cache.getMaxMemory()), pathResourceManager, cache.getMaxAge());
+        ResourceHandler handler = new ResourceHandler(resourceManager).setDirectoryListingEnabled(directoryListingEnabled);
+        if(cache.isPrecompressed()) {
+            handler.setResourceSupplier(new PreCompressedResourceSupplier(resourceManager).addEncoding("gzip", ".gz"));
+        }
+        if(cache.isCompressOnDemand()) {
+            try {
+                Path tmp = Files.createTempDirectory("light-resource-gz");
+                // deleteOnExit only removes an empty directory, so remove the compressed files with it.
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteTree(tmp), "light-resource-gz-cleanup"));
+                CachingResourceManager encodedCache = new CachingResourceManager(cache.getMetadataSize(), cache.getMaxFileSize(),
+                        new DirectBufferCache(CACHE_SLICE_SIZE, CACHE_SLICES_PER_PAGE, cache.getMaxMemory()),
+                        new PathResourceManager(tmp, transferMinSize), cache.getMaxAge());
+                ContentEncodingRepository repository = new ContentEncodingRepository().addEncodingHandler("gzip", new GzipEncodingProvider(), 100);
+                handler.setContentEncodedResourceManager(new ContentEncodedResourceManager(tmp, encodedCache, repository,
+                        CACHE_SLICE_SIZE, (int)Math.min(Integer.MAX_VALUE, cache.getMaxFileSize()), Predicates.suffixes(COMPRESSIBLE_SUFFIXES)));
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to create the temp directory for the compressed resources", e);
+            }
+        }
+        return handler;
+    }
+
+    static void deleteTree(Path root) {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete " + path, e);
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Failed to delete " + root, e);
+        }
+    }
 
     /**
      * Helper to add given PathResourceProviders to a PathHandler.
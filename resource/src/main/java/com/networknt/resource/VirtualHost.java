@@ -22,6 +22,7 @@ public class VirtualHost {
     String base;
     int transferMinSize;
     boolean directoryListingEnabled;
+    ResourceCacheConfig cache;
 
     public VirtualHost() {
     }
@@ -65,4 +66,12 @@ public class VirtualHost {
     public void setDirectoryListingEnabled(boolean directoryListingEnabled) {
         this.directoryListingEnabled = directoryListingEnabled;
     }
+
+    public ResourceCacheConfig getCache() {
+        return cache;
+    }
+
+    public void setCache(ResourceCacheConfig cache) {
+        this.cache = cache;
+    }
 }
@@ -21,10 +21,6 @@ import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.NameVirtualHostHandler;
 import io.undertow.server.handlers.PathHandler;
-import io.undertow.server.handlers.resource.PathResourceManager;
-import io.undertow.server.handlers.resource.ResourceHandler;
-
-import java.nio.file.Paths;
 
 /**
  * This is a wrapper for the NameVirtualHostHandler with configuration support.
@@ -39,7 +35,7 @@ public class VirtualHostHandler implements HttpHandler {
         VirtualHostConfig config = (VirtualHostConfig)Config.getInstance().getJsonObjectConfig(VirtualHostConfig.CONFIG_NAME, VirtualHostConfig.class);
         virtualHostHandler = new NameVirtualHostHandler();
         for(VirtualHost host: config.hosts) {
-            virtualHostHandler.addHost(host.domain, new PathHandler().addPrefixPath(host.getPath(), new ResourceHandler((new PathResourceManager(Paths.get(host.getBase()), host.getTransferMinSize()))).setDirectoryListingEnabled(host.isDirectoryListingEnabled())));
+            virtualHostHandler.addHost(host.domain, new PathHandler().addPrefixPath(host.getPath(), ResourceHelpers.createResourceHandler(host.getBase(), host.getTransferMinSize(), host.isDirectoryListingEnabled(), host.getCache())));
         }
     }
 
@@ -25,5 +25,7 @@ public class PathResourceConfigTest {
     public void testLoadConfig() {
         PathResourceConfig config = (PathResourceConfig) Config.getInstance().getJsonObjectConfig(PathResourceConfig.CONFIG_NAME, PathResourceConfig.class);
         Assert.assertEquals(config.directoryListingEnabled, false);
+        Assert.assertTrue(config.getCache().isEnabled());
+        Assert.assertEquals(-1, config.getCache().getMaxAge());
     }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.resource;
+
+import io.undertow.Undertow;
+import io.undertow.server.handlers.PathHandler;
+import io.undertow.util.ETag;
+import io.undertow.util.Headers;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+public class ResourceCacheTest {
+    static Undertow server = null;
+    static Path base;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        base = Files.createTempDirectory("resource-cache-test");
+        Files.write(base.resolve("app.js"), "console.log('hello');".getBytes(StandardCharsets.UTF_8));
+        try (OutputStream os = new GZIPOutputStream(Files.newOutputStream(base.resolve("app.js.gz")))) {
+            os.write("console.log('hello');".getBytes(StandardCharsets.UTF_8));
+        }
+        ResourceCacheConfig cache = new ResourceCacheConfig();
+        cache.setEnabled(true);
+        server = Undertow.builder()
+                .addHttpListener(7081, "localhost")
+                .setHandler(new PathHandler().addPrefixPath("/", ResourceHelpers.createResourceHandler(base.toString(), 10485760, false, cache)))
+                .build();
+        server.start();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    private static HttpURLConnection get(String path, String etag, String acceptEncoding) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:7081" + path).openConnection();
+        if(etag != null) connection.setRequestProperty(Headers.IF_NONE_MATCH_STRING, etag);
+        connection.setRequestProperty(Headers.ACCEPT_ENCODING_STRING, acceptEncoding == null ? "identity" : acceptEncoding);
+        return connection;
+    }
+
+    private static String body(HttpURLConnection connection) throws Exception {
+        try (InputStream is = connection.getInputStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int n;
+            while((n = is.read(buffer)) > 0) out.write(buffer, 0, n);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testStrongETag() throws Exception {
+        HttpURLConnection connection = get("/app.js", null, null);
+        Assert.assertEquals(200, connection.getResponseCode());
+        Assert.assertEquals("console.log('hello');", body(connection));
+        String etag = connection.getHeaderField(Headers.ETAG_STRING);
+        Assert.assertNotNull(etag);
+        Assert.assertFalse(etag.startsWith("W/"));
+        Assert.assertEquals(etag, "\"" + ContentHashETagFunction.hash(base.resolve("app.js")) + "\"");
+
+        connection = get("/app.js", etag, null);
+        Assert.assertEquals(304, connection.getResponseCode());
+    }
+
+    @Test
+    public void testPrecompressed() throws Exception {
+        HttpURLConnection connection = get("/app.js", null, "gzip");
+        Assert.assertEquals(200, connection.getResponseCode());
+        Assert.assertEquals("gzip", connection.getHeaderField(Headers.CONTENT_ENCODING_STRING));
+    }
+
+    @Test
+    public void testSizeETagAboveMaxHashSize() throws Exception {
+        Path file = base.resolve("large.js");
+        Files.write(file, new byte[64]);
+        ETag hashed = new ContentHashETagFunction(64).generate(file);
+        Assert.assertEquals(ContentHashETagFunction.hash(file), hashed.getTag());
+        ETag sized = new ContentHashETagFunction(63).generate(file);
+        Assert.assertFalse(sized.isWeak());
+        Assert.assertEquals(Long.toHexString(64) + "-" + Long.toHexString(Files.getLastModifiedTime(file).toMillis()), sized.getTag());
+    }
+
+    @Test
+    public void testDeleteTree() throws Exception {
+        Path root = Files.createTempDirectory("resource-delete-test");
+        Files.createDirectories(root.resolve("css"));
+        Files.write(root.resolve("css").resolve("app.css.gz"), new byte[8]);
+        Files.write(root.resolve("app.js.gz"), new byte[8]);
+        ResourceHelpers.deleteTree(root);
+        Assert.assertFalse(Files.exists(root));
+    }
+}
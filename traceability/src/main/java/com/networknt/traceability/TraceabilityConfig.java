@@ -23,6 +23,9 @@ package com.networknt.traceability;
  */
 public class TraceabilityConfig {
     boolean enabled;
+    boolean autogenTraceabilityID;
+    String idGenerator;
+    int nodeId = -1;
 
     public TraceabilityConfig() {
     }
@@ -35,4 +38,27 @@ public class TraceabilityConfig {
         this.enabled = enabled;
     }
 
+    public boolean isAutogenTraceabilityID() {
+        return autogenTraceabilityID;
+    }
+
+    public void setAutogenTraceabilityID(boolean autogenTraceabilityID) {
+        this.autogenTraceabilityID = autogenTraceabilityID;
+    }
+
+    public String getIdGenerator() {
+        return idGenerator;
+    }
+
+    public void setIdGenerator(String idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(int nodeId) {
+        this.nodeId = nodeId;
+    }
 }
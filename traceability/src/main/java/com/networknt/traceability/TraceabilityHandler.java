@@ -20,7 +20,8 @@ import com.networknt.config.Config;
 import com.networknt.handler.Handler;
 import com.networknt.handler.MiddlewareHandler;
 import com.networknt.httpstring.HttpStringConstants;
-import com.networknt.utility.Constants;
+import com.networknt.utility.IdGenerator;
+import com.networknt.utility.IdGenerators;
 import com.networknt.utility.ModuleRegistry;
 import io.undertow.Handlers;
 import io.undertow.server.HttpHandler;
@@ -48,8 +49,10 @@ public class TraceabilityHandler implements MiddlewareHandler {
     private static final String CONFIG_NAME = "traceability";
 
     public static TraceabilityConfig config = null;
+    static volatile IdGenerator idGenerator;
     static {
         config = (TraceabilityConfig)Config.getInstance().getJsonObjectConfig(CONFIG_NAME, TraceabilityConfig.class);
+        idGenerator = IdGenerators.getGenerator(config.getIdGenerator(), config.getNodeId());
     }
 
     private volatile HttpHandler next;
@@ -62,6 +65,11 @@ public class TraceabilityHandler implements MiddlewareHandler {
     public void handleRequest(final HttpServerExchange exchange) throws Exception {
         if (logger.isDebugEnabled()) logger.trace("TraceabilityHandler.handleRequest starts.");
         String tid = exchange.getRequestHeaders().getFirst(HttpStringConstants.TRACEABILITY_ID);
+        if(tid == null && config.isAutogenTraceabilityID()) {
+            // generate an id with the configured generator so that it is passed to the downstream services.
+            tid = idGenerator.nextId();
+            exchange.getRequestHeaders().put(HttpStringConstants.TRACEABILITY_ID, tid);
+        }
         if(tid != null) {
             exchange.getResponseHeaders().put(HttpStringConstants.TRACEABILITY_ID, tid);
             MDC.put(TID, tid);
@@ -95,5 +103,6 @@ public class TraceabilityHandler implements MiddlewareHandler {
     @Override
     public void reload() {
         config = (TraceabilityConfig)Config.getInstance().getJsonObjectConfig(CONFIG_NAME, TraceabilityConfig.class);
+        idGenerator = IdGenerators.getGenerator(config.getIdGenerator(), config.getNodeId());
     }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.networknt.utility;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A provider of gauges that a module publishes for the metrics handlers, for example, the statistics of the
+ * caches or the adaptive limits. It allows a module to report its own metrics without depending on the metrics
+ * module, and the metrics module to report them without depending on every module that has something to report.
+ *
+ * Implementations are loaded with the java.util.ServiceLoader mechanism by adding the class name into
+ * META-INF/services/com.networknt.utility.GaugeProvider of the module.
+ *
+ * @author Steve Hu
+ */
+public interface GaugeProvider {
+    /**
+     * Register the gauges of the module. The registrar can be kept and called again later if the gauges are
+     * created on demand, and a gauge registered with the same name and tags replaces the previous one.
+     *
+     * @param registrar the registrar of the metrics handler
+     */
+    void register(Registrar registrar);
+
+    /**
+     * The callback of the metrics handler that adds a gauge to its metric registry.
+     */
+    @FunctionalInterface
+    interface Registrar {
+        /**
+         * Add a gauge that is read when the metrics are reported.
+         *
+         * @param name metric name, for example, cache.hit_count
+         * @param tags tags that identify the instance of the metric, for example, the cache name
+         * @param value the supplier of the current value
+         */
+        void gauge(String name, Map<String, String> tags, Supplier<Number> value);
+    }
+}
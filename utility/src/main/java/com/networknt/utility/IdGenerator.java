@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.utility;
+
+/**
+ * A generator of unique identifiers used for correlationId and traceabilityId. Implementations
+ * must be thread safe and should avoid any shared lock as they are called on the request path.
+ *
+ * Custom implementations can be plugged in with the java.util.ServiceLoader mechanism by adding
+ * the class name into META-INF/services/com.networknt.utility.IdGenerator and referring to the
+ * name returned by {@link #getName()} in the handler configuration.
+ *
+ * @author Steve Hu
+ */
+public interface IdGenerator {
+    /**
+     * The name used to select this generator in the configuration.
+     *
+     * @return String name
+     */
+    String getName();
+
+    /**
+     * Generate the next identifier.
+     *
+     * @return String id
+     */
+    String nextId();
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.utility;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ServiceLoader;
+
+/**
+ * Factory to resolve an {@link IdGenerator} by the name in the configuration. The built-in names are
+ * uuid, ulid and snowflake. Other names are looked up from the java.util.ServiceLoader. If the name
+ * cannot be resolved, the uuid generator is used so that the handler still works.
+ *
+ * @author Steve Hu
+ */
+public class IdGenerators {
+    static final Logger logger = LoggerFactory.getLogger(IdGenerators.class);
+
+    static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private IdGenerators() {throw new UnsupportedOperationException("do not instantiate");}
+
+    /**
+     * Resolve the generator with the name and node id.
+     *
+     * @param name generator name, uuid if null or empty
+     * @param nodeId node id for the snowflake generator. A negative value will derive it from the host.
+     * @return IdGenerator
+     */
+    public static IdGenerator getGenerator(String name, int nodeId) {
+        if(name == null || name.isEmpty() || UuidGenerator.NAME.equalsIgnoreCase(name)) {
+            return new UuidGenerator();
+        }
+        if(UlidGenerator.NAME.equalsIgnoreCase(name)) {
+            return new UlidGenerator();
+        }
+        if(SnowflakeGenerator.NAME.equalsIgnoreCase(name)) {
+            return new SnowflakeGenerator(nodeId < 0 ? SnowflakeGenerator.defaultNodeId() : nodeId);
+        }
+        for(IdGenerator generator : ServiceLoader.load(IdGenerator.class)) {
+            if(name.equalsIgnoreCase(generator.getName())) {
+                return generator;
+            }
+        }
+        logger.error("Could not find IdGenerator " + name + ", fall back to " + UuidGenerator.NAME);
+        return new UuidGenerator();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.utility;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the response times of the most recent requests to a target in a ring buffer and estimates the 95th
+ * percentile from them. It is used to decide how long to wait before a hedged request is sent. The percentile
+ * is recomputed by one of the recording threads after every RECOMPUTE samples, so reading it is cheap.
+ *
+ * @author Steve Hu
+ */
+public class LatencyTracker {
+    static final int SIZE = 256;
+    static final int MIN_SAMPLES = 32;
+    static final int RECOMPUTE = 32;
+    private static final Map<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+
+    private final AtomicLongArray samples = new AtomicLongArray(SIZE);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong computedAt = new AtomicLong();
+    private volatile long percentile95 = -1;
+
+    public static LatencyTracker getTracker(String target) {
+        LatencyTracker tracker = trackers.get(target);
+        return tracker != null ? tracker : trackers.computeIfAbsent(target, k -> new LatencyTracker());
+    }
+
+    /**
+     * For testing purpose
+     */
+    public static void clear() {
+        trackers.clear();
+    }
+
+    /**
+     * @param millis the response time of a request in milliseconds
+     */
+    public void record(long millis) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % SIZE), millis);
+    }
+
+    /**
+     * @return the 95th percentile of the recent response times in milliseconds or -1 if there are not enough samples.
+     */
+    public long getPercentile95() {
+        long n = count.get();
+        if (n < MIN_SAMPLES) return -1;
+        long at = computedAt.get();
+        if (n - at >= RECOMPUTE && computedAt.compareAndSet(at, n)) {
+            int size = (int) Math.min(n, SIZE);
+            long[] copy = new long[size];
+            for (int i = 0; i < size; i++) {
+                copy[i] = samples.get(i);
+            }
+            Arrays.sort(copy);
+            percentile95 = copy[(int) Math.ceil(size * 0.95) - 1];
+        }
+        return percentile95;
+    }
+}
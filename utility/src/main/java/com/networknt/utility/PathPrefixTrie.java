@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.utility;
+
+import java.util.Arrays;
+
+/**
+ * A character trie of path prefixes to values. It is used by the handlers that have a config with path
+ * prefix keys to find the longest prefix of the request path without iterating all the prefixes. The
+ * lookup walks the request path once and doesn't allocate.
+ *
+ * The trie is built at startup or reload and then only read, so it is not synchronized. Please publish
+ * it through a volatile or final field after it is built.
+ *
+ * @param <V> type of the value
+ * @author Steve Hu
+ */
+public class PathPrefixTrie<V> {
+    private static final char[] EMPTY_KEYS = new char[0];
+
+    private final Node<V> root = new Node<>();
+    private int size;
+
+    /**
+     * Add or replace the value for the prefix.
+     *
+     * @param prefix path prefix
+     * @param value value that is not null
+     * @return the previous value of the prefix or null
+     */
+    public V put(String prefix, V value) {
+        if(prefix == null || value == null) throw new IllegalArgumentException("prefix and value cannot be null");
+        Node<V> node = root;
+        for(int i = 0; i < prefix.length(); i++) {
+            node = node.getOrAddChild(prefix.charAt(i));
+        }
+        V previous = node.value;
+        node.value = value;
+        if(previous == null) size++;
+        return previous;
+    }
+
+    /**
+     * Find the value of the longest prefix of the path.
+     *
+     * @param path request path
+     * @return value or null if there is no prefix of the path in the trie
+     */
+    public V longestPrefixMatch(String path) {
+        if(path == null) return null;
+        Node<V> node = root;
+        V match = node.value;
+        for(int i = 0; i < path.length(); i++) {
+            node = node.child(path.charAt(i));
+            if(node == null) break;
+            if(node.value != null) match = node.value;
+        }
+        return match;
+    }
+
+    /**
+     * Find the value of the exact prefix.
+     *
+     * @param prefix path prefix
+     * @return value or null
+     */
+    public V get(String prefix) {
+        Node<V> node = root;
+        for(int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        return node == null ? null : node.value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static final class Node<V> {
+        // sorted keys for the binary search, and the children in the same order.
+        private char[] keys = EMPTY_KEYS;
+        private Node<V>[] children;
+        private V value;
+
+        Node<V> child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<V> getOrAddChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if(index >= 0) return children[index];
+            int insert = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node<V>[] newChildren = new Node[keys.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            newKeys[insert] = c;
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            if(children != null) {
+                System.arraycopy(children, 0, newChildren, 0, insert);
+                System.arraycopy(children, insert, newChildren, insert + 1, keys.length - insert);
+            }
+            Node<V> child = new Node<>();
+            newChildren[insert] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.utility;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket that limits the retries and hedged requests to a target to a percentage of the requests,
+ * so that the retries cannot multiply the load of a backend that is already failing. Each request deposits
+ * the percentage of a token, and each retry or hedged request withdraws a whole token. A minimum number of
+ * retries per second is always allowed so that the retries still work when the traffic is low.
+ *
+ * The budgets are kept per target. The Http2Client uses the host:port of the uri as the target, and the
+ * ProxyHandler uses the service_id header of the request, or "proxy" if there is none, as the backend is only
+ * known after the retry is decided. So the two don't share a budget even if they call the same backend. Each
+ * budget keeps the counters of the retries and hedged requests that have won so that the metrics module can
+ * report them.
+ *
+ * @author Steve Hu
+ */
+public class RetryBudget {
+    private static final long UNIT = 1000;
+    // the bucket holds the deposits of 1000 requests.
+    private static final int CAPACITY_REQUESTS = 1000;
+    private static final Map<String, RetryBudget> budgets = new ConcurrentHashMap<>();
+
+    private final String target;
+    private final long deposit;
+    private final long capacity;
+    private final int minRetriesPerSecond;
+    private final AtomicLong balance = new AtomicLong();
+    private final AtomicLong second = new AtomicLong();
+    private final AtomicInteger reserved = new AtomicInteger();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong retryWins = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param target the host:port or serviceId of the target
+     * @param percent the percentage of the requests that can be retried or hedged
+     * @param minRetriesPerSecond the number of retries per second that are allowed regardless of the percent
+     */
+    public RetryBudget(String target, int percent, int minRetriesPerSecond) {
+        this.target = target;
+        this.deposit = Math.max(0, percent) * UNIT / 100;
+        this.capacity = Math.max(UNIT, deposit * CAPACITY_REQUESTS);
+        this.minRetriesPerSecond = Math.max(0, minRetriesPerSecond);
+    }
+
+    /**
+     * Get the budget of a target. The budget is created with the percent and minRetriesPerSecond on the first
+     * call, and the same budget is returned for the target afterwards.
+     *
+     * @param target the host:port or serviceId of the target
+     * @param percent the percentage of the requests that can be retried or hedged
+     * @param minRetriesPerSecond the number of retries per second that are allowed regardless of the percent
+     * @return RetryBudget
+     */
+    public static RetryBudget getBudget(String target, int percent, int minRetriesPerSecond) {
+        RetryBudget budget = budgets.get(target);
+        return budget != null ? budget : budgets.computeIfAbsent(target, k -> new RetryBudget(k, percent, minRetriesPerSecond));
+    }
+
+    public static Map<String, RetryBudget> getBudgets() {
+        return Collections.unmodifiableMap(budgets);
+    }
+
+    /**
+     * For testing purpose
+     */
+    public static void clear() {
+        budgets.clear();
+    }
+
+    /**
+     * Record a new request, not a retry or hedge, to the target.
+     */
+    public void onRequest() {
+        requests.incrementAndGet();
+        while (true) {
+            long current = balance.get();
+            if (current >= capacity) return;
+            if (balance.compareAndSet(current, Math.min(capacity, current + deposit))) return;
+        }
+    }
+
+    /**
+     * @return true if the failed request can be retried.
+     */
+    public boolean tryRetry() {
+        if (withdraw()) {
+            retries.incrementAndGet();
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @return true if a hedged request can be sent.
+     */
+    public boolean tryHedge() {
+        if (withdraw()) {
+            hedges.incrementAndGet();
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    public void onRetryWin() {
+        retryWins.incrementAndGet();
+    }
+
+    public void onHedgeWin() {
+        hedgeWins.incrementAndGet();
+    }
+
+    private boolean withdraw() {
+        long now = System.currentTimeMillis() / 1000;
+        long current = second.get();
+        if (current != now && second.compareAndSet(current, now)) {
+            reserved.set(0);
+        }
+        if (reserved.get() < minRetriesPerSecond && reserved.incrementAndGet() <= minRetriesPerSecond) {
+            return true;
+        }
+        while (true) {
+            long tokens = balance.get();
+            if (tokens < UNIT) return false;
+            if (balance.compareAndSet(tokens, tokens - UNIT)) return true;
+        }
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    public long getRetryWins() {
+        return retryWins.get();
+    }
+
+    public long getHedges() {
+        return hedges.get();
+    }
+
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * @return the number of retries and hedged requests that are not sent as the budget is used up.
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generate Snowflake style 64 bits ids composed of 41 bits milliseconds since a custom epoch, 10 bits
+ * node id and 12 bits sequence. The ids are unique as long as each instance has a distinct node id.
+ *
+ * Instead of a synchronized block, the last timestamp and sequence are kept in one AtomicLong and
+ * updated with compare and set. When the sequence is exhausted within a millisecond, the generator
+ * borrows from the next millisecond instead of spinning on the clock, so it never blocks and the ids
+ * are still monotonic if the clock moves backward. The result is a 13 characters Crockford base32
+ * string that sorts in the same order as the numeric id.
+ *
+ * @author Steve Hu
+ */
+public class SnowflakeGenerator implements IdGenerator {
+    public static final String NAME = "snowflake";
+    // 2020-01-01T00:00:00Z
+    public static final long EPOCH = 1577836800000L;
+    public static final int MAX_NODE_ID = 1023;
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int LENGTH = 13;
+
+    private final long nodeBits;
+    // timestamp << SEQUENCE_BITS | sequence of the last generated id
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeGenerator(int nodeId) {
+        if(nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeBits = ((long)nodeId) << SEQUENCE_BITS;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String nextId() {
+        return encode(nextLong());
+    }
+
+    public long nextLong() {
+        long candidate = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+        while(true) {
+            long prev = last.get();
+            long next = candidate > prev ? candidate : prev + 1;
+            if(last.compareAndSet(prev, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+            }
+        }
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[LENGTH];
+        for(int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = IdGenerators.CROCKFORD[(int)(id & 0x1F)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Derive a node id from the host name and the process id when it is not configured explicitly.
+     * Each instance in a cluster should be given a distinct node id to guarantee the uniqueness.
+     *
+     * @return int node id between 0 and 1023
+     */
+    public static int defaultNodeId() {
+        String host = NetUtils.getLocalAddressByDatagram();
+        int hash = 31 * (host == null ? 0 : host.hashCode()) + Long.hashCode(ProcessHandle.current().pid());
+        return (hash & Integer.MAX_VALUE) % (MAX_NODE_ID + 1);
+    }
+}
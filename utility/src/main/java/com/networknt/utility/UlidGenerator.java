@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.utility;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generate ULID (Universally Unique Lexicographically Sortable Identifier). The first 48 bits are the
+ * epoch milliseconds and the remaining 80 bits are random from the ThreadLocalRandom so that there is
+ * no synchronization between threads. The result is a 26 characters Crockford base32 string.
+ *
+ * The ULID is not suitable for security tokens as ThreadLocalRandom is not cryptographically strong.
+ *
+ * @author Steve Hu
+ */
+public class UlidGenerator implements IdGenerator {
+    public static final String NAME = "ulid";
+    static final int LENGTH = 26;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String nextId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return encode(System.currentTimeMillis(), random.nextLong(), random.nextLong());
+    }
+
+    static String encode(long time, long random1, long random2) {
+        char[] chars = new char[LENGTH];
+        // 48 bits timestamp in 10 characters. The first character only holds 3 bits.
+        for(int i = 9; i >= 0; i--) {
+            chars[i] = IdGenerators.CROCKFORD[(int)(time & 0x1F)];
+            time >>>= 5;
+        }
+        // 80 bits randomness in 16 characters, 40 bits from each random long.
+        for(int i = 17; i >= 10; i--) {
+            chars[i] = IdGenerators.CROCKFORD[(int)(random1 & 0x1F)];
+            random1 >>>= 5;
+        }
+        for(int i = 25; i >= 18; i--) {
+            chars[i] = IdGenerators.CROCKFORD[(int)(random2 & 0x1F)];
+            random2 >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.utility;
+
+/**
+ * The default generator that produces a URL safe Base64 encoded random UUID. It is backed by
+ * the shared SecureRandom in the JDK, so it might be contended under very high request rate.
+ *
+ * @author Steve Hu
+ */
+public class UuidGenerator implements IdGenerator {
+    public static final String NAME = "uuid";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String nextId() {
+        return Util.getUUID();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.utility;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class IdGeneratorTest {
+    @Test
+    public void testGetGenerator() {
+        Assert.assertTrue(IdGenerators.getGenerator(null, -1) instanceof UuidGenerator);
+        Assert.assertTrue(IdGenerators.getGenerator("ulid", -1) instanceof UlidGenerator);
+        Assert.assertTrue(IdGenerators.getGenerator("snowflake", 1) instanceof SnowflakeGenerator);
+        Assert.assertTrue(IdGenerators.getGenerator("snowflake", -1) instanceof SnowflakeGenerator);
+        Assert.assertTrue(IdGenerators.getGenerator("unknown", -1) instanceof UuidGenerator);
+    }
+
+    @Test
+    public void testUlid() {
+        IdGenerator generator = new UlidGenerator();
+        String id1 = generator.nextId();
+        String id2 = generator.nextId();
+        // 26 characters of the Crockford base32 alphabet, and the first one is at most 7 for the 48 bits timestamp.
+        Assert.assertTrue(id1, id1.matches("[0-7][0-9A-HJKMNP-TV-Z]{25}"));
+        Assert.assertTrue(id2, id2.matches("[0-7][0-9A-HJKMNP-TV-Z]{25}"));
+        Assert.assertNotEquals(id1, id2);
+        Assert.assertEquals("00000000000000000000000000", UlidGenerator.encode(0, 0, 0));
+        Assert.assertEquals("7ZZZZZZZZZZZZZZZZZZZZZZZZZ", UlidGenerator.encode(0xFFFFFFFFFFFFL, -1L, -1L));
+    }
+
+    @Test
+    public void testSnowflakeMonotonic() {
+        SnowflakeGenerator generator = new SnowflakeGenerator(5);
+        long prev = 0;
+        for(int i = 0; i < 100000; i++) {
+            long id = generator.nextLong();
+            Assert.assertTrue(id > prev);
+            Assert.assertEquals(5, (id >>> SnowflakeGenerator.SEQUENCE_BITS) & SnowflakeGenerator.MAX_NODE_ID);
+            prev = id;
+        }
+        String id1 = generator.nextId();
+        String id2 = generator.nextId();
+        Assert.assertEquals(13, id1.length());
+        Assert.assertTrue(id1.compareTo(id2) < 0);
+    }
+
+    @Test
+    public void testSnowflakeConcurrent() throws Exception {
+        SnowflakeGenerator generator = new SnowflakeGenerator(SnowflakeGenerator.MAX_NODE_ID);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[4];
+        for(int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for(int i = 0; i < 10000; i++) ids.add(generator.nextId());
+            });
+            threads[t].start();
+        }
+        for(Thread thread : threads) thread.join();
+        Assert.assertEquals(40000, ids.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSnowflakeInvalidNodeId() {
+        new SnowflakeGenerator(1024);
+    }
+
+    @Test
+    public void testUlidUnique() {
+        IdGenerator generator = new UlidGenerator();
+        Set<String> ids = new HashSet<>();
+        for(int i = 0; i < 10000; i++) {
+            Assert.assertTrue(ids.add(generator.nextId()));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.utility;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyTrackerTest {
+
+    @Test
+    public void testPercentile95() {
+        LatencyTracker tracker = new LatencyTracker();
+        for (int i = 1; i < LatencyTracker.MIN_SAMPLES; i++) {
+            tracker.record(i);
+        }
+        Assert.assertEquals(-1, tracker.getPercentile95());
+        for (int i = LatencyTracker.MIN_SAMPLES; i <= 100; i++) {
+            tracker.record(i);
+        }
+        Assert.assertEquals(95, tracker.getPercentile95());
+    }
+
+    @Test
+    public void testRecentSamplesOnly() {
+        LatencyTracker tracker = new LatencyTracker();
+        for (int i = 0; i < LatencyTracker.SIZE; i++) {
+            tracker.record(1000);
+        }
+        Assert.assertEquals(1000, tracker.getPercentile95());
+        // the slow samples are replaced by the fast ones in the ring buffer.
+        for (int i = 0; i < LatencyTracker.SIZE; i++) {
+            tracker.record(10);
+        }
+        Assert.assertEquals(10, tracker.getPercentile95());
+    }
+}
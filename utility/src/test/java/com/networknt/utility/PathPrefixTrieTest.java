@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.utility;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PathPrefixTrieTest {
+    @Test
+    public void testLongestPrefixMatch() {
+        PathPrefixTrie<String> trie = new PathPrefixTrie<>();
+        trie.put("/v1", "v1");
+        trie.put("/v1/pets", "pets");
+        trie.put("/health", "health");
+        Assert.assertEquals(3, trie.size());
+        Assert.assertEquals("pets", trie.longestPrefixMatch("/v1/pets/1"));
+        Assert.assertEquals("v1", trie.longestPrefixMatch("/v1/orders"));
+        Assert.assertEquals("v1", trie.longestPrefixMatch("/v1"));
+        Assert.assertEquals("health", trie.longestPrefixMatch("/healthz"));
+        Assert.assertNull(trie.longestPrefixMatch("/v2"));
+        Assert.assertNull(trie.longestPrefixMatch("/"));
+        Assert.assertEquals("pets", trie.get("/v1/pets"));
+        Assert.assertNull(trie.get("/v1/pet"));
+    }
+
+    @Test
+    public void testReplace() {
+        PathPrefixTrie<Integer> trie = new PathPrefixTrie<>();
+        Assert.assertNull(trie.put("/a", 1));
+        Assert.assertEquals(Integer.valueOf(1), trie.put("/a", 2));
+        Assert.assertEquals(1, trie.size());
+        trie.put("", 0);
+        Assert.assertEquals(Integer.valueOf(0), trie.longestPrefixMatch("/b"));
+    }
+}
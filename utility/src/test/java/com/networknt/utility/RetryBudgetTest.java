@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 Network New Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.networknt.utility;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RetryBudgetTest {
+
+    @After
+    public void tearDown() {
+        RetryBudget.clear();
+    }
+
+    @Test
+    public void testPercentOfRequests() {
+        RetryBudget budget = new RetryBudget("localhost:8443", 10, 0);
+        Assert.assertFalse(budget.tryRetry());
+        for (int i = 0; i < 100; i++) {
+            budget.onRequest();
+        }
+        // 10 percent of 100 requests
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(budget.tryRetry());
+        }
+        Assert.assertFalse(budget.tryHedge());
+        Assert.assertEquals(10, budget.getRetries());
+        Assert.assertEquals(2, budget.getRejected());
+    }
+
+    @Test
+    public void testMinRetriesPerSecond() {
+        RetryBudget budget = new RetryBudget("localhost:8443", 0, 3);
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (budget.tryRetry()) allowed++;
+        }
+        // the test may cross a second boundary and get the floor of the next second.
+        Assert.assertTrue(allowed == 3 || allowed == 6);
+    }
+
+    @Test
+    public void testCapacity() {
+        RetryBudget budget = new RetryBudget("localhost:8443", 50, 0);
+        for (int i = 0; i < 5000; i++) {
+            budget.onRequest();
+        }
+        // the bucket only keeps the deposits of the last 1000 requests.
+        int allowed = 0;
+        while (budget.tryHedge()) allowed++;
+        Assert.assertEquals(500, allowed);
+    }
+
+    @Test
+    public void testBudgetPerTarget() {
+        RetryBudget budget = RetryBudget.getBudget("service1", 10, 0);
+        Assert.assertSame(budget, RetryBudget.getBudget("service1", 20, 5));
+        Assert.assertNotSame(budget, RetryBudget.getBudget("service2", 10, 0));
+        Assert.assertEquals(2, RetryBudget.getBudgets().size());
+    }
+}